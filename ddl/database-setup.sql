@@ -84,6 +84,12 @@ CREATE TABLE IF NOT EXISTS audit_logs (
     CONSTRAINT audit_logs_status_check CHECK (status IN ('SUCCESS', 'FAILURE', 'ERROR'))
 );
 
+-- キャッシュ無効化の版（CacheInvalidationBus。領域ごとに単調増加し、LISTEN/NOTIFYの再接続時に参照する）
+CREATE TABLE IF NOT EXISTS cache_invalidation_version (
+    region VARCHAR(64) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
 -- =====================================================
 -- 3. インデックス作成
 -- =====================================================
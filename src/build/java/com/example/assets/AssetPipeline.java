@@ -0,0 +1,190 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.assets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静的アセットのビルド処理（prepare-packageフェーズでソースファイルのまま実行）
+ *
+ * <p>ビルド専用のツールのため、アプリケーションのjarには含めない。依存を持たない単一ファイルとして{@code java AssetPipeline.java}で起動する。
+ * 出力先・マニフェスト・gzip拡張子は{@code StaticAssetResource}と一致させること。テストと開発モードでは実行しない。
+ *
+ * <p>{@code META-INF/resources}配下のCSS/JS/SVGについて、内容ハッシュ入りのファイル名で{@code assets/}へ複製し、gzipバリアントを生成する。
+ * 併せてテンプレート内の参照をハッシュ付きURLへ書き換え、対応表を{@value #MANIFEST}に出力する。
+ * ソースのテンプレートは変更しないため、本処理を経ない開発モードでは従来のパスのまま動作する。
+ */
+public final class AssetPipeline {
+
+  /** 出力先ディレクトリ（クラスパス相対） */
+  static final String OUTPUT_DIR = "assets";
+
+  /** 論理パス → ハッシュ付きパスの対応表 */
+  static final String MANIFEST = OUTPUT_DIR + "/manifest.properties";
+
+  /** gzipバリアントの拡張子 */
+  static final String GZIP_SUFFIX = ".gz";
+
+  private static final String SOURCE_DIR = "META-INF/resources";
+
+  private static final List<String> EXTENSIONS = List.of(".css", ".js", ".svg");
+
+  private AssetPipeline() {}
+
+  /**
+   * @param args [0] ビルド出力ディレクトリ（target/classes）
+   */
+  public static void main(String[] args) throws IOException {
+    Path classes = Path.of(args.length > 0 ? args[0] : "target/classes");
+    Map<String, String> manifest = process(classes);
+    System.out.printf("[asset-pipeline] %d assets fingerprinted%n", manifest.size());
+  }
+
+  /**
+   * アセットを処理してテンプレートを書き換え
+   *
+   * @param classes ビルド出力ディレクトリ
+   * @return 論理パス → ハッシュ付きパス
+   */
+  static Map<String, String> process(Path classes) throws IOException {
+    Path source = classes.resolve(SOURCE_DIR);
+    Path output = classes.resolve(OUTPUT_DIR);
+    deleteRecursively(output);
+    Files.createDirectories(output);
+
+    Map<String, String> manifest = new TreeMap<>();
+    for (Path file : listAssets(source)) {
+      byte[] body = Files.readAllBytes(file);
+      if (body.length == 0) {
+        continue;
+      }
+      String logical = source.relativize(file).toString().replace('\\', '/');
+      String hashed = fingerprint(logical, body);
+
+      Path target = output.resolve(hashed);
+      Files.createDirectories(target.getParent());
+      Files.write(target, body);
+      byte[] gzip = gzip(body);
+      if (gzip.length < body.length) {
+        Files.write(target.resolveSibling(target.getFileName() + GZIP_SUFFIX), gzip);
+      }
+      manifest.put(logical, hashed);
+    }
+
+    // 再現可能なビルドのため、Properties#storeのタイムスタンプを出力しない
+    List<String> lines = new ArrayList<>();
+    lines.add("# Generated by AssetPipeline");
+    manifest.forEach((logical, hashed) -> lines.add(logical + "=" + hashed));
+    Files.write(classes.resolve(MANIFEST), lines, StandardCharsets.ISO_8859_1);
+
+    Path templates = classes.resolve("templates");
+    if (Files.isDirectory(templates)) {
+      try (Stream<Path> files = Files.list(templates)) {
+        for (Path template : files.filter(p -> p.toString().endsWith(".html")).toList()) {
+          rewriteReferences(template, manifest);
+        }
+      }
+    }
+    return manifest;
+  }
+
+  /** {@code css/auth.css} → {@code css/auth.<hash>.css}（内容のSHA-256先頭32bit） */
+  static String fingerprint(String logical, byte[] body) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+      String hash = HexFormat.of().formatHex(digest, 0, 4);
+      int dot = logical.lastIndexOf('.');
+      return logical.substring(0, dot) + '.' + hash + logical.substring(dot);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /** 最大圧縮レベルでgzip圧縮 */
+  static byte[] gzip(byte[] body) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 3 + 64);
+    try (GZIPOutputStream gz =
+        new GZIPOutputStream(out) {
+          {
+            def.setLevel(Deflater.BEST_COMPRESSION);
+          }
+        }) {
+      gz.write(body);
+    }
+    return out.toByteArray();
+  }
+
+  private static List<Path> listAssets(Path source) throws IOException {
+    if (!Files.isDirectory(source)) {
+      return List.of();
+    }
+    List<Path> assets = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(source)) {
+      files
+          .filter(Files::isRegularFile)
+          .filter(p -> EXTENSIONS.stream().anyMatch(ext -> p.toString().endsWith(ext)))
+          .sorted()
+          .forEach(assets::add);
+    }
+    return assets;
+  }
+
+  /** 参照を書き換え（再ビルドで既に書き換え済みのハッシュ付き参照も更新する） */
+  private static void rewriteReferences(Path template, Map<String, String> manifest)
+      throws IOException {
+    String html = Files.readString(template, StandardCharsets.UTF_8);
+    String rewritten = html;
+    for (Map.Entry<String, String> entry : manifest.entrySet()) {
+      String logical = entry.getKey();
+      int dot = logical.lastIndexOf('.');
+      Pattern reference =
+          Pattern.compile(
+              "\"/(?:"
+                  + OUTPUT_DIR
+                  + "/)?"
+                  + Pattern.quote(logical.substring(0, dot))
+                  + "(?:\\.[0-9a-f]{8})?"
+                  + Pattern.quote(logical.substring(dot))
+                  + "\"");
+      rewritten =
+          reference
+              .matcher(rewritten)
+              .replaceAll(
+                  Matcher.quoteReplacement("\"/" + OUTPUT_DIR + "/" + entry.getValue() + "\""));
+    }
+    if (!rewritten.equals(html)) {
+      Files.writeString(template, rewritten, StandardCharsets.UTF_8);
+    }
+  }
+
+  private static void deleteRecursively(Path dir) throws IOException {
+    if (!Files.exists(dir)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(dir)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+}
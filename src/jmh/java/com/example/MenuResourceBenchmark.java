@@ -0,0 +1,76 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import com.example.bench.StubHttpHeaders;
+import com.example.bench.StubSecurityContext;
+import com.example.service.MessageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.core.Response;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * /menu のレスポンス本文生成コスト
+ *
+ * <p>{@code -prof gc}付きで実行し、{@code gc.alloc.rate.norm}（1リクエストあたりの割り当てバイト数）を比較する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuResourceBenchmark {
+
+  @Param({"ADMIN", "SALES", "USER"})
+  String role;
+
+  @Param({"ja,en;q=0.8", "zh-CN"})
+  String acceptLanguage;
+
+  private MenuResource resource;
+
+  private ObjectMapper objectMapper;
+
+  @Setup
+  public void setUp() {
+    objectMapper = new ObjectMapper();
+    MessageService messageService = new MessageService();
+
+    MenuCatalog catalog = new MenuCatalog();
+    catalog.messageService = messageService;
+    catalog.objectMapper = objectMapper;
+    catalog.compile();
+
+    resource = new MenuResource();
+    resource.messageService = messageService;
+    resource.menuCatalog = catalog;
+    resource.securityContext = new StubSecurityContext("bench", role);
+    resource.headers = StubHttpHeaders.acceptLanguage(acceptLanguage);
+  }
+
+  /** レスポンス本文（JSONバイト列）を得るまで */
+  @Benchmark
+  public Object getMenu() throws Exception {
+    Object result = resource.getMenu();
+    if (result instanceof Response response) {
+      return response.getEntity();
+    }
+    // エンティティをMapで返していた実装との比較用（RESTレイヤーのJSONシリアライズ相当）
+    return objectMapper.writeValueAsBytes(result);
+  }
+}
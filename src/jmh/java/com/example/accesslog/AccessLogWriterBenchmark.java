@@ -0,0 +1,71 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.accesslog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * アクセスログ記録（リクエストスレッド側）のコスト
+ *
+ * <p>4スレッドから同時に記録する。書き込みスレッドが追いつかない分は破棄されるため、終了時に書き出し数と破棄数を表示する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AccessLogWriterBenchmark {
+
+  @Param({"1.0", "0.1"})
+  double successSampleRate;
+
+  private SimpleMeterRegistry registry;
+
+  private AccessLogWriter writer;
+
+  @Setup
+  public void setUp() {
+    registry = new SimpleMeterRegistry();
+    writer = AccessLogWriterFactory.create(registry, successSampleRate);
+  }
+
+  @TearDown
+  public void tearDown() {
+    AccessLogWriterFactory.shutdown(writer);
+    System.out.printf(
+        "%nwritten=%.0f, dropped=%.0f%n",
+        registry.counter(AccessLogWriter.WRITTEN_COUNTER).count(),
+        registry.counter(AccessLogWriter.DROPPED_COUNTER).count());
+  }
+
+  @Benchmark
+  public void log() {
+    writer.log(
+        "01M58FQWM3FEKCBQNYWDZN4YCP",
+        "GET",
+        "/api/dashboard/stats",
+        200,
+        1_234_567,
+        "203.0.113.7, 10.0.0.1",
+        512);
+  }
+}
@@ -0,0 +1,103 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.accesslog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.configuration.MemorySize;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/** ベンチマーク用に一時ディレクトリへ書き出すAccessLogWriterを生成 */
+public final class AccessLogWriterFactory {
+
+  /** {@link #createDiscarding}で起動した読み捨てスレッド */
+  private static final Map<AccessLogWriter, Thread> DISCARDING = new ConcurrentHashMap<>();
+
+  private AccessLogWriterFactory() {}
+
+  public static AccessLogWriter create(MeterRegistry registry, double successSampleRate) {
+    AccessLogWriter writer = configure(registry, successSampleRate);
+    writer.init();
+    return writer;
+  }
+
+  /**
+   * 書式化・書き出しを行わず、スロットを解放するだけのスレッドで消費するAccessLogWriterを生成
+   *
+   * <p>リクエストスレッド側のコストのみを計測するために使う（書き込みスレッドの時間と割り当てを含めない）。
+   */
+  public static AccessLogWriter createDiscarding(MeterRegistry registry) {
+    AccessLogWriter writer = configure(registry, 1.0);
+    writer.init(false);
+    Thread consumer = new Thread(() -> discard(writer), "access-log-discard");
+    consumer.setDaemon(true);
+    consumer.start();
+    DISCARDING.put(writer, consumer);
+    return writer;
+  }
+
+  private static void discard(AccessLogWriter writer) {
+    AccessLogRecord[] ring = writer.ring;
+    long next = writer.consumed;
+    while (!Thread.currentThread().isInterrupted()) {
+      AccessLogRecord record = ring[(int) next & writer.mask];
+      if (record.sequence != next) {
+        LockSupport.parkNanos(1_000);
+        continue;
+      }
+      record.clear();
+      writer.consumed = ++next;
+    }
+  }
+
+  private static AccessLogWriter configure(MeterRegistry registry, double successSampleRate) {
+    AccessLogWriter writer = new AccessLogWriter();
+    writer.registry = registry;
+    writer.enabled = true;
+    try {
+      writer.path = Files.createTempDirectory("access-log-bench").resolve("access.log");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    writer.bufferSize = 8192;
+    writer.successSampleRate = successSampleRate;
+    writer.maxFileSize = new MemorySize(BigInteger.valueOf(16L * 1024 * 1024));
+    writer.maxBackups = 2;
+    writer.flushInterval = Duration.ofSeconds(1);
+    return writer;
+  }
+
+  /** 書き込みスレッドを停止し、一時ディレクトリを削除 */
+  public static void shutdown(AccessLogWriter writer) {
+    Thread consumer = DISCARDING.remove(writer);
+    if (consumer != null) {
+      consumer.interrupt();
+      try {
+        consumer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    writer.shutdown();
+    Path dir = writer.path.getParent();
+    try (Stream<Path> files = Files.list(dir)) {
+      for (Path file : files.toList()) {
+        Files.delete(file);
+      }
+      Files.delete(dir);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JMHのJSON結果（{@code -rf json}）2つを比較
+ *
+ * <p>ベンチマーク名と{@code @Param}の組ごとに、主スコアと{@code gc.alloc.rate.norm}（取得されていれば）の変化率を出力する。
+ * {@code --fail-above=N}を指定すると、主スコアまたは割り当てバイト数がN%を超えて悪化した場合に終了コード1で終了する
+ * （悪化の向きはモードで判定し、Throughputは値が大きいほど、それ以外は小さいほど良いとみなす）。
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *   -Djmh.main=com.example.bench.JmhCompare \
+ *   -Djmh.args="target/jmh-base.json target/jmh-result.json --fail-above=10"
+ * </pre>
+ */
+public final class JmhCompare {
+
+  private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+  private JmhCompare() {}
+
+  public static void main(String[] args) throws IOException {
+    String baseline = null;
+    String current = null;
+    double failAbove = Double.NaN;
+    for (String arg : args) {
+      if (arg.startsWith("--fail-above=")) {
+        failAbove = Double.parseDouble(arg.substring("--fail-above=".length()));
+      } else if (baseline == null) {
+        baseline = arg;
+      } else {
+        current = arg;
+      }
+    }
+    if (baseline == null || current == null) {
+      System.err.println("usage: JmhCompare <baseline.json> <current.json> [--fail-above=PERCENT]");
+      System.exit(2);
+    }
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    Map<String, Score> before = read(objectMapper, new File(baseline));
+    Map<String, Score> after = read(objectMapper, new File(current));
+
+    boolean failed = false;
+    System.out.printf(
+        "%-72s %14s %14s %8s %10s %10s %8s%n",
+        "Benchmark", "Baseline", "Current", "Change", "B/op base", "B/op now", "Change");
+    for (Map.Entry<String, Score> entry : after.entrySet()) {
+      Score now = entry.getValue();
+      Score base = before.get(entry.getKey());
+      if (base == null) {
+        System.out.printf(
+            "%-72s %14s %14s %8s%n",
+            entry.getKey(), "-", format(now.score, now.unit), "new");
+        continue;
+      }
+      double scoreChange = change(base.score, now.score, now.lowerIsBetter);
+      double allocChange = change(base.alloc, now.alloc, true);
+      System.out.printf(
+          "%-72s %14s %14s %7.1f%% %10.0f %10.0f %7.1f%%%n",
+          entry.getKey(),
+          format(base.score, base.unit),
+          format(now.score, now.unit),
+          scoreChange,
+          base.alloc,
+          now.alloc,
+          allocChange);
+      if (!Double.isNaN(failAbove) && (scoreChange > failAbove || allocChange > failAbove)) {
+        failed = true;
+      }
+    }
+    before.keySet().stream()
+        .filter(key -> !after.containsKey(key))
+        .forEach(key -> System.out.printf("%-72s %14s%n", key, "removed"));
+
+    if (failed) {
+      System.out.printf("FAIL: regression above %.1f%%%n", failAbove);
+      System.exit(1);
+    }
+  }
+
+  /** 悪化方向を正とした変化率（%） */
+  private static double change(double base, double now, boolean lowerIsBetter) {
+    if (Double.isNaN(base) || Double.isNaN(now) || base == 0) {
+      return 0;
+    }
+    double percent = (now - base) / base * 100;
+    return lowerIsBetter ? percent : -percent;
+  }
+
+  private static String format(double score, String unit) {
+    return String.format("%.3f %s", score, unit);
+  }
+
+  private static Map<String, Score> read(ObjectMapper objectMapper, File file) throws IOException {
+    Map<String, Score> scores = new TreeMap<>();
+    for (JsonNode run : objectMapper.readTree(file)) {
+      JsonNode primary = run.path("primaryMetric");
+      JsonNode alloc = run.path("secondaryMetrics").path(ALLOC_NORM);
+      scores.put(
+          key(run),
+          new Score(
+              primary.path("score").asDouble(),
+              primary.path("scoreUnit").asText(),
+              !"thrpt".equals(run.path("mode").asText()),
+              alloc.isMissingNode() ? Double.NaN : alloc.path("score").asDouble()));
+    }
+    return scores;
+  }
+
+  /** {@code Benchmark.method[param=value,...]}（パッケージ名は省略） */
+  private static String key(JsonNode run) {
+    String benchmark = run.path("benchmark").asText();
+    int method = benchmark.lastIndexOf('.');
+    int type = method > 0 ? benchmark.lastIndexOf('.', method - 1) : -1;
+    StringBuilder key = new StringBuilder(benchmark.substring(type + 1));
+    Map<String, String> params = new LinkedHashMap<>();
+    Iterator<Map.Entry<String, JsonNode>> fields = run.path("params").fields();
+    fields.forEachRemaining(field -> params.put(field.getKey(), field.getValue().asText()));
+    if (!params.isEmpty()) {
+      key.append(params.toString().replace('{', '[').replace('}', ']').replace(", ", ","));
+    }
+    return key.toString();
+  }
+
+  private record Score(double score, String unit, boolean lowerIsBetter, double alloc) {}
+}
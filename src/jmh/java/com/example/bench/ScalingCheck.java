@@ -0,0 +1,195 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * データ件数に対するスケーリングの確認（JMHのJSON結果から）
+ *
+ * <p>件数パラメータ（既定は{@code rows}）以外が同じ結果を件数順に並べ、隣り合う件数間のスケーリング指数
+ * {@code log(t2/t1) / log(n2/n1)}を出力する（0は件数に依存しない、1は件数に比例）。
+ * 時間にはSampleTime/AverageTimeのスコア（{@code --percentile=99}でSampleTimeのパーセンタイル）を用い、
+ * Throughputは逆数をとる。各結果の行数/秒（{@code rows}補助カウンター）も併せて表示する。
+ *
+ * <p>ベースラインを指定すると、指数がベースラインより{@code --tolerance}（既定0.3）を超えて大きくなった区間、
+ * つまりスケーリング曲線が悪化したステートメントを列挙し、終了コード1で終了する。
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *   -Djmh.main=com.example.bench.ScalingCheck \
+ *   -Djmh.args="target/jmh-result.json --baseline=target/jmh-base.json"
+ * </pre>
+ */
+public final class ScalingCheck {
+
+  private ScalingCheck() {}
+
+  public static void main(String[] args) throws IOException {
+    String current = null;
+    String baseline = null;
+    String param = "rows";
+    String percentile = null;
+    double tolerance = 0.3;
+    for (String arg : args) {
+      if (arg.startsWith("--baseline=")) {
+        baseline = arg.substring("--baseline=".length());
+      } else if (arg.startsWith("--param=")) {
+        param = arg.substring("--param=".length());
+      } else if (arg.startsWith("--percentile=")) {
+        percentile = arg.substring("--percentile=".length());
+      } else if (arg.startsWith("--tolerance=")) {
+        tolerance = Double.parseDouble(arg.substring("--tolerance=".length()));
+      } else {
+        current = arg;
+      }
+    }
+    if (current == null) {
+      System.err.println(
+          "usage: ScalingCheck <result.json> [--baseline=base.json] [--param=rows]"
+              + " [--percentile=99] [--tolerance=0.3]");
+      System.exit(2);
+    }
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    Map<String, List<Point>> now = read(objectMapper, new File(current), param, percentile);
+    Map<String, List<Point>> base =
+        baseline != null ? read(objectMapper, new File(baseline), param, percentile) : Map.of();
+
+    boolean failed = false;
+    for (Map.Entry<String, List<Point>> entry : now.entrySet()) {
+      List<Point> points = entry.getValue();
+      List<Point> basePoints = base.get(entry.getKey());
+      System.out.println(entry.getKey());
+      for (int i = 0; i < points.size(); i++) {
+        Point point = points.get(i);
+        StringBuilder line =
+            new StringBuilder(String.format("  %s=%-10d %12.4f ms", param, point.size, point.millis));
+        if (!Double.isNaN(point.rowsPerSecond)) {
+          line.append(String.format(" %14.0f rows/s", point.rowsPerSecond));
+        }
+        if (i > 0) {
+          double exponent = exponent(points.get(i - 1), point);
+          line.append(String.format("  exponent %5.2f", exponent));
+          double baseExponent = baseExponent(basePoints, points.get(i - 1).size, point.size);
+          if (!Double.isNaN(baseExponent)) {
+            line.append(String.format(" (baseline %5.2f)", baseExponent));
+            if (exponent > baseExponent + tolerance) {
+              line.append("  REGRESSION");
+              failed = true;
+            }
+          }
+        }
+        System.out.println(line);
+      }
+    }
+
+    if (failed) {
+      System.out.printf("FAIL: scaling exponent grew by more than %.2f%n", tolerance);
+      System.exit(1);
+    }
+  }
+
+  private static double exponent(Point smaller, Point larger) {
+    return Math.log(larger.millis / smaller.millis) / Math.log((double) larger.size / smaller.size);
+  }
+
+  private static double baseExponent(List<Point> points, long fromSize, long toSize) {
+    if (points == null) {
+      return Double.NaN;
+    }
+    Point from = null;
+    Point to = null;
+    for (Point point : points) {
+      if (point.size == fromSize) {
+        from = point;
+      } else if (point.size == toSize) {
+        to = point;
+      }
+    }
+    return from != null && to != null ? exponent(from, to) : Double.NaN;
+  }
+
+  /** ベンチマーク（モード・件数以外のパラメータ込み）→ 件数順の計測点 */
+  private static Map<String, List<Point>> read(
+      ObjectMapper objectMapper, File file, String param, String percentile) throws IOException {
+    Map<String, List<Point>> series = new TreeMap<>();
+    for (JsonNode run : objectMapper.readTree(file)) {
+      JsonNode size = run.path("params").path(param);
+      if (size.isMissingNode()) {
+        continue;
+      }
+      StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+      key.append(" [").append(run.path("mode").asText());
+      run.path("params")
+          .fields()
+          .forEachRemaining(
+              field -> {
+                if (!field.getKey().equals(param)) {
+                  key.append(',').append(field.getKey()).append('=').append(field.getValue().asText());
+                }
+              });
+      key.append(']');
+      series
+          .computeIfAbsent(key.toString(), k -> new ArrayList<>())
+          .add(point(run, size.asLong(), percentile));
+    }
+    series.values().forEach(points -> points.sort((a, b) -> Long.compare(a.size, b.size)));
+    return series;
+  }
+
+  private static Point point(JsonNode run, long size, String percentile) {
+    JsonNode primary = run.path("primaryMetric");
+    String mode = run.path("mode").asText();
+    String unit = primary.path("scoreUnit").asText();
+    double score = primary.path("score").asDouble();
+    if (percentile != null && "sample".equals(mode)) {
+      String key = percentile.contains(".") ? percentile : percentile + ".0";
+      JsonNode value = primary.path("scorePercentiles").path(key);
+      if (!value.isMissingNode()) {
+        score = value.asDouble();
+      }
+    }
+    double millis;
+    double rowsPerSecond = Double.NaN;
+    if ("thrpt".equals(mode)) {
+      // ops/ms → ms/op
+      double perMilli = score / unitMillis(unit.substring(unit.indexOf('/') + 1));
+      millis = 1 / perMilli;
+      JsonNode rows = run.path("secondaryMetrics").path("rows");
+      if (!rows.isMissingNode()) {
+        String rowsUnit = rows.path("scoreUnit").asText();
+        rowsPerSecond =
+            rows.path("score").asDouble() / unitMillis(rowsUnit.substring(rowsUnit.indexOf('/') + 1))
+                * 1000;
+      }
+    } else {
+      millis = score * unitMillis(unit.substring(0, unit.indexOf('/')));
+    }
+    return new Point(size, millis, rowsPerSecond);
+  }
+
+  /** 時間単位1つあたりのミリ秒 */
+  private static double unitMillis(String unit) {
+    return switch (unit) {
+      case "ns" -> 1e-6;
+      case "us" -> 1e-3;
+      case "ms" -> 1;
+      case "s" -> 1e3;
+      case "min" -> 60e3;
+      default -> throw new IllegalArgumentException("Unknown time unit: " + unit);
+    };
+  }
+
+  private record Point(long size, double millis, double rowsPerSecond) {}
+}
@@ -0,0 +1,80 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.bench;
+
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/** ベンチマーク用の固定値HttpHeaders */
+public final class StubHttpHeaders implements HttpHeaders {
+
+  private final MultivaluedMap<String, String> values = new MultivaluedHashMap<>();
+
+  public StubHttpHeaders(Map<String, String> headers) {
+    headers.forEach(values::putSingle);
+  }
+
+  public static StubHttpHeaders acceptLanguage(String acceptLanguage) {
+    return new StubHttpHeaders(Map.of(ACCEPT_LANGUAGE, acceptLanguage));
+  }
+
+  @Override
+  public List<String> getRequestHeader(String name) {
+    return values.get(name);
+  }
+
+  @Override
+  public String getHeaderString(String name) {
+    return values.getFirst(name);
+  }
+
+  @Override
+  public MultivaluedMap<String, String> getRequestHeaders() {
+    return values;
+  }
+
+  @Override
+  public List<MediaType> getAcceptableMediaTypes() {
+    return List.of(MediaType.WILDCARD_TYPE);
+  }
+
+  @Override
+  public List<Locale> getAcceptableLanguages() {
+    return List.of();
+  }
+
+  @Override
+  public MediaType getMediaType() {
+    return null;
+  }
+
+  @Override
+  public Locale getLanguage() {
+    return null;
+  }
+
+  @Override
+  public Map<String, Cookie> getCookies() {
+    return Map.of();
+  }
+
+  @Override
+  public Date getDate() {
+    return null;
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+}
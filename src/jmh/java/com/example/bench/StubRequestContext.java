@@ -0,0 +1,162 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.bench;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.UriInfo;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/** ベンチマーク用の固定値ContainerRequestContext（プロパティは再利用するマップに保持） */
+public final class StubRequestContext implements ContainerRequestContext {
+
+  private final String method;
+  private final MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+  private final Map<String, Object> properties = new HashMap<>();
+
+  public StubRequestContext(String method, Map<String, String> headers) {
+    this.method = method;
+    headers.forEach(this.headers::putSingle);
+  }
+
+  @Override
+  public Object getProperty(String name) {
+    return properties.get(name);
+  }
+
+  @Override
+  public Collection<String> getPropertyNames() {
+    return properties.keySet();
+  }
+
+  @Override
+  public void setProperty(String name, Object object) {
+    properties.put(name, object);
+  }
+
+  @Override
+  public void removeProperty(String name) {
+    properties.remove(name);
+  }
+
+  @Override
+  public UriInfo getUriInfo() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setRequestUri(URI requestUri) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setRequestUri(URI baseUri, URI requestUri) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Request getRequest() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String getMethod() {
+    return method;
+  }
+
+  @Override
+  public void setMethod(String method) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public MultivaluedMap<String, String> getHeaders() {
+    return headers;
+  }
+
+  @Override
+  public String getHeaderString(String name) {
+    return headers.getFirst(name);
+  }
+
+  @Override
+  public Date getDate() {
+    return null;
+  }
+
+  @Override
+  public Locale getLanguage() {
+    return null;
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public MediaType getMediaType() {
+    return null;
+  }
+
+  @Override
+  public List<MediaType> getAcceptableMediaTypes() {
+    return List.of(MediaType.WILDCARD_TYPE);
+  }
+
+  @Override
+  public List<Locale> getAcceptableLanguages() {
+    return List.of();
+  }
+
+  @Override
+  public Map<String, Cookie> getCookies() {
+    return Map.of();
+  }
+
+  @Override
+  public boolean hasEntity() {
+    return false;
+  }
+
+  @Override
+  public InputStream getEntityStream() {
+    return InputStream.nullInputStream();
+  }
+
+  @Override
+  public void setEntityStream(InputStream input) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public SecurityContext getSecurityContext() {
+    return null;
+  }
+
+  @Override
+  public void setSecurityContext(SecurityContext context) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void abortWith(Response response) {
+    throw new UnsupportedOperationException();
+  }
+}
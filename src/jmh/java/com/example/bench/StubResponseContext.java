@@ -0,0 +1,190 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.bench;
+
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Link;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.NewCookie;
+import jakarta.ws.rs.core.Response;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/** ベンチマーク用のContainerResponseContext（ヘッダーは{@link #reset()}で値のみ消去して再利用） */
+public final class StubResponseContext implements ContainerResponseContext {
+
+  private final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+  private int status;
+
+  public StubResponseContext(int status, String... headerNames) {
+    this.status = status;
+    for (String name : headerNames) {
+      headers.put(name, new ArrayList<>(1));
+    }
+  }
+
+  /** 追加されたヘッダー値を消去（リストは再利用） */
+  public void reset() {
+    headers.values().forEach(List::clear);
+  }
+
+  @Override
+  public int getStatus() {
+    return status;
+  }
+
+  @Override
+  public void setStatus(int code) {
+    this.status = code;
+  }
+
+  @Override
+  public Response.StatusType getStatusInfo() {
+    return Response.Status.fromStatusCode(status);
+  }
+
+  @Override
+  public void setStatusInfo(Response.StatusType statusInfo) {
+    this.status = statusInfo.getStatusCode();
+  }
+
+  @Override
+  public MultivaluedMap<String, Object> getHeaders() {
+    return headers;
+  }
+
+  @Override
+  public MultivaluedMap<String, String> getStringHeaders() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String getHeaderString(String name) {
+    Object value = headers.getFirst(name);
+    return value != null ? value.toString() : null;
+  }
+
+  @Override
+  public Set<String> getAllowedMethods() {
+    return Set.of();
+  }
+
+  @Override
+  public Date getDate() {
+    return null;
+  }
+
+  @Override
+  public Locale getLanguage() {
+    return null;
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public MediaType getMediaType() {
+    return null;
+  }
+
+  @Override
+  public Map<String, NewCookie> getCookies() {
+    return Map.of();
+  }
+
+  @Override
+  public EntityTag getEntityTag() {
+    return null;
+  }
+
+  @Override
+  public Date getLastModified() {
+    return null;
+  }
+
+  @Override
+  public URI getLocation() {
+    return null;
+  }
+
+  @Override
+  public Set<Link> getLinks() {
+    return Set.of();
+  }
+
+  @Override
+  public boolean hasLink(String relation) {
+    return false;
+  }
+
+  @Override
+  public Link getLink(String relation) {
+    return null;
+  }
+
+  @Override
+  public Link.Builder getLinkBuilder(String relation) {
+    return null;
+  }
+
+  @Override
+  public boolean hasEntity() {
+    return false;
+  }
+
+  @Override
+  public Object getEntity() {
+    return null;
+  }
+
+  @Override
+  public Class<?> getEntityClass() {
+    return null;
+  }
+
+  @Override
+  public Type getEntityType() {
+    return null;
+  }
+
+  @Override
+  public void setEntity(Object entity) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setEntity(Object entity, Annotation[] annotations, MediaType mediaType) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Annotation[] getEntityAnnotations() {
+    return new Annotation[0];
+  }
+
+  @Override
+  public OutputStream getEntityStream() {
+    return OutputStream.nullOutputStream();
+  }
+
+  @Override
+  public void setEntityStream(OutputStream outputStream) {
+    throw new UnsupportedOperationException();
+  }
+}
@@ -0,0 +1,41 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.bench;
+
+import jakarta.ws.rs.core.SecurityContext;
+import java.security.Principal;
+
+/** ベンチマーク用の単一ロールSecurityContext */
+public final class StubSecurityContext implements SecurityContext {
+
+  private final String username;
+  private final String role;
+
+  public StubSecurityContext(String username, String role) {
+    this.username = username;
+    this.role = role;
+  }
+
+  @Override
+  public Principal getUserPrincipal() {
+    return () -> username;
+  }
+
+  @Override
+  public boolean isUserInRole(String role) {
+    return this.role.equals(role);
+  }
+
+  @Override
+  public boolean isSecure() {
+    return false;
+  }
+
+  @Override
+  public String getAuthenticationScheme() {
+    return "Bearer";
+  }
+}
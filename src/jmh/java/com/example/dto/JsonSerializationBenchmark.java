@@ -0,0 +1,105 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.dto;
+
+import com.example.model.AuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * レスポンス本文のJSONシリアライズコスト（監査ログ一覧とエラーレスポンス）
+ *
+ * <p>ObjectMapperはQuarkusの既定に合わせ、クラスパス上のモジュール（JavaTimeModule等）を登録し日時を文字列で出力する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+  private ObjectMapper objectMapper;
+
+  private ErrorResponse errorResponse;
+
+  private ErrorResponse validationError;
+
+  /** 監査ログ一覧（件数ごとに用意し、エラーレスポンスのベンチマークには影響させない） */
+  @State(Scope.Benchmark)
+  public static class AuditLogs {
+
+    /** 件数（/api/dashboard/activity の既定10件と、大きめの一覧） */
+    @Param({"10", "100"})
+    int size;
+
+    List<AuditLog> list;
+
+    @Setup
+    public void setUp() {
+      list = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        AuditLog log =
+            new AuditLog((long) i, "user" + i, "USER_LOGIN", "User", Integer.toString(i));
+        log.setId((long) i);
+        log.setIpAddress("192.168.0." + (i % 256));
+        log.setUserAgent("Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36");
+        log.setRequestId("01JAB3CDEF0123456789ABCDEF");
+        list.add(log);
+      }
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    objectMapper =
+        new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    errorResponse = new ErrorResponse("AUTHENTICATION_FAILED", "認証に失敗しました", "/auth/login");
+    validationError =
+        new ErrorResponse(
+            "VALIDATION_ERROR",
+            "入力値が不正です",
+            "/auth/register",
+            List.of(
+                new ErrorResponse.FieldError("username", "必須項目です", ""),
+                new ErrorResponse.FieldError("password", "8文字以上で入力してください", "short")));
+  }
+
+  /** 監査ログ一覧 */
+  @Benchmark
+  public byte[] auditLogList(AuditLogs auditLogs) throws Exception {
+    return objectMapper.writeValueAsBytes(auditLogs.list);
+  }
+
+  /** エラーレスポンス（認証失敗） */
+  @Benchmark
+  public byte[] errorResponse() throws Exception {
+    return objectMapper.writeValueAsBytes(errorResponse);
+  }
+
+  /** エラーレスポンス（フィールドエラー付き） */
+  @Benchmark
+  public byte[] validationErrorResponse() throws Exception {
+    return objectMapper.writeValueAsBytes(validationError);
+  }
+}
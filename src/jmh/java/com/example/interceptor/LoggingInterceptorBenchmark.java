@@ -0,0 +1,147 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.interceptor;
+
+import com.example.accesslog.AccessLogWriter;
+import com.example.accesslog.AccessLogWriterFactory;
+import com.example.bench.StubRequestContext;
+import com.example.bench.StubResponseContext;
+import com.example.metrics.RouteMetricsFactory;
+import com.example.mybatis.DbRequestStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.container.ResourceInfo;
+import java.lang.reflect.Method;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LoggingInterceptorのリクエスト/レスポンスフィルター1組あたりのコスト
+ *
+ * <p>ルート別レイテンシー・DB往復回数と非同期アクセスログの記録を含む。Server-Timingヘッダーは本番設定に合わせて無効とする。ログ出力先（ハンドラー）のコストを除くため、インターセプターのログカテゴリはWARNにして計測する。
+ * アクセスログはリングへの書き込みまでを計測し、書き込みスレッドの書式化・書き出しは含めない（読み捨てスレッドで消費する）。
+ * 予算判定は{@link LoggingInterceptorBudget}を使用する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.jboss.logging.provider=jdk")
+public class LoggingInterceptorBenchmark {
+
+  /** JULのロガーは弱参照のため、レベル設定を保持する */
+  private static final java.util.logging.Logger CATEGORY =
+      java.util.logging.Logger.getLogger(LoggingInterceptor.class.getPackageName());
+
+  private LoggingInterceptor interceptor;
+
+  private StubRequestContext generatedId;
+
+  private StubRequestContext clientId;
+
+  private StubResponseContext response;
+
+  private RequestIdGenerator generator;
+
+  private AccessLogWriter accessLog;
+
+  @Setup
+  public void setUp() {
+    CATEGORY.setLevel(Level.WARNING);
+    interceptor = new LoggingInterceptor();
+    interceptor.nodeId = Optional.of(1);
+    interceptor.init();
+    interceptor.routeMetrics = RouteMetricsFactory.create();
+    interceptor.dbStats = new DbRequestStats();
+    interceptor.serverTimingEnabled = false;
+    interceptor.resourceInfo = new StubResourceInfo();
+    accessLog = AccessLogWriterFactory.createDiscarding(new SimpleMeterRegistry());
+    interceptor.accessLog = accessLog;
+
+    generatedId = new StubRequestContext("GET", Map.of());
+    clientId =
+        new StubRequestContext(
+            "GET", Map.of("X-Request-ID", "3f1c9a2e-6b7d-4e0f-9a1b-2c3d4e5f6a7b"));
+    response = new StubResponseContext(200, "X-Request-ID");
+    generator = new RequestIdGenerator(1);
+  }
+
+  @TearDown
+  public void tearDown() {
+    AccessLogWriterFactory.shutdown(accessLog);
+  }
+
+  /** リクエストIDを生成する場合 */
+  @Benchmark
+  public Object filterPair() throws IOException {
+    return run(generatedId);
+  }
+
+  /** クライアント指定のX-Request-IDを使う場合 */
+  @Benchmark
+  public Object filterPairClientId() throws IOException {
+    return run(clientId);
+  }
+
+  /** リクエストID生成のみ */
+  @Benchmark
+  public String nextRequestId() {
+    return generator.next();
+  }
+
+  /** 比較用: 従来の{@code UUID.randomUUID()} */
+  @Benchmark
+  public String randomUuid() {
+    return UUID.randomUUID().toString();
+  }
+
+  /** 本クラスのベンチマークメソッドをリソースメソッドとみなす */
+  private static final class StubResourceInfo implements ResourceInfo {
+
+    private final Method method;
+
+    StubResourceInfo() {
+      try {
+        method = LoggingInterceptorBenchmark.class.getMethod("filterPair");
+      } catch (NoSuchMethodException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public Method getResourceMethod() {
+      return method;
+    }
+
+    @Override
+    public Class<?> getResourceClass() {
+      return LoggingInterceptorBenchmark.class;
+    }
+  }
+
+  private Object run(StubRequestContext request) throws IOException {
+    interceptor.filter(request);
+    interceptor.filter(request, response);
+    Object requestId = response.getHeaders().getFirst("X-Request-ID");
+    response.reset();
+    return requestId;
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.interceptor;
+
+import java.util.Collection;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * LoggingInterceptorのコスト予算判定
+ *
+ * <p>{@link LoggingInterceptorBenchmark}のフィルター1組を計測し、時間または割り当てバイト数が予算を超えた場合は終了コード1で終了する。
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *   -Djmh.main=com.example.interceptor.LoggingInterceptorBudget \
+ *   -Djmh.args="--max-ns=500 --max-bytes=176"
+ * </pre>
+ *
+ * <p>割り当ての既定予算（176バイト）は、ID文字列（String＋配列72バイト）・エンコード用の作業配列（48バイト）・
+ * {@link RequestTrace}（24バイト）・MDCエントリ（32バイト）の合計で、これ以外の割り当てが増えると失敗する。
+ * 予算はリクエストスレッド側のコストのみが対象で、アクセスログの書式化・書き出し（書き込みスレッド）は含めない。
+ */
+public final class LoggingInterceptorBudget {
+
+  private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+  private LoggingInterceptorBudget() {}
+
+  public static void main(String[] args) throws RunnerException {
+    double maxNanos = 500;
+    double maxBytes = 176;
+    for (String arg : args) {
+      if (arg.startsWith("--max-ns=")) {
+        maxNanos = Double.parseDouble(arg.substring("--max-ns=".length()));
+      } else if (arg.startsWith("--max-bytes=")) {
+        maxBytes = Double.parseDouble(arg.substring("--max-bytes=".length()));
+      }
+    }
+
+    Options options =
+        new OptionsBuilder()
+            .include(LoggingInterceptorBenchmark.class.getName() + "\\.filterPair")
+            .addProfiler(GCProfiler.class)
+            .build();
+    Collection<RunResult> results = new Runner(options).run();
+
+    boolean failed = false;
+    for (RunResult result : results) {
+      String name = result.getParams().getBenchmark();
+      double nanos = result.getPrimaryResult().getScore();
+      Result<?> alloc = result.getSecondaryResults().get(ALLOC_NORM);
+      double bytes = alloc != null ? alloc.getScore() : Double.NaN;
+      // gc.alloc.rate.normは計測誤差で端数が出るため整数に丸めて比較する
+      boolean withinBudget = nanos <= maxNanos && !(Math.round(bytes) > maxBytes);
+      System.out.printf(
+          "%s %s: %.1f ns/op (budget %.0f), %.1f B/op (budget %.0f)%n",
+          withinBudget ? "OK  " : "FAIL", name, nanos, maxNanos, bytes, maxBytes);
+      failed |= !withinBudget;
+    }
+    if (failed) {
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mapper;
+
+import static com.example.mapper.SeededDatabase.SEED_END;
+
+import com.example.model.AuditLog;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * {@link AuditLogMapper}の全検索・件数・挿入ステートメントの監査ログ件数に対するスケーリング
+ *
+ * <p>ユーザー別の検索は件数によらず約100行、{@link SeededDatabase#RARE_ACTION}と期間（直近1時間）の検索は件数に比例した行数を返す。
+ */
+public class AuditLogMapperBenchmark extends SeededMapperBenchmark {
+
+  private static final LocalDateTime HOUR_AGO = SEED_END.minusHours(1);
+
+  private static final LocalDateTime MONTH_AGO = SEED_END.minusDays(30);
+
+  private AuditLogMapper mapper;
+
+  @Override
+  protected void createMappers() {
+    mapper = session.getMapper(AuditLogMapper.class);
+  }
+
+  @Benchmark
+  public Optional<AuditLog> findById(Rows counter) {
+    return counter.count(mapper.findById(1 + ThreadLocalRandom.current().nextLong(rows)));
+  }
+
+  @Benchmark
+  public List<AuditLog> findByUserId(Rows counter) {
+    long userId =
+        database.getFirstUserId() + ThreadLocalRandom.current().nextLong(database.getUserRows());
+    return counter.count(mapper.findByUserId(userId));
+  }
+
+  @Benchmark
+  public List<AuditLog> findByUsername(Rows counter) {
+    long user = 1 + ThreadLocalRandom.current().nextLong(database.getUserRows());
+    return counter.count(mapper.findByUsername(SeededDatabase.USER_PREFIX + user));
+  }
+
+  @Benchmark
+  public List<AuditLog> findByRareAction(Rows counter) {
+    return counter.count(mapper.findByAction(SeededDatabase.RARE_ACTION));
+  }
+
+  @Benchmark
+  public List<AuditLog> findByDateRangeLastHour(Rows counter) {
+    return counter.count(mapper.findByDateRange(HOUR_AGO, SEED_END));
+  }
+
+  /** 先頭ページ（/api/dashboard/activity の既定） */
+  @Benchmark
+  public List<AuditLog> findAllFirstPage(Rows counter) {
+    return counter.count(mapper.findAll(10, 0));
+  }
+
+  /** 中央付近のページ（OFFSETの読み飛ばしコスト） */
+  @Benchmark
+  public List<AuditLog> findAllDeepPage(Rows counter) {
+    return counter.count(mapper.findAll(10, (int) Math.min(rows / 2, Integer.MAX_VALUE)));
+  }
+
+  @Benchmark
+  public long count() {
+    return mapper.count();
+  }
+
+  /** ダッシュボード統計の直近30日の失敗ログイン数 */
+  @Benchmark
+  public long countByActionAndStatusBetween() {
+    return mapper.countByActionAndStatusBetween(
+        "USER_LOGIN", AuditLog.Status.FAILURE, MONTH_AGO, SEED_END);
+  }
+
+  @Benchmark
+  public AuditLog insert(Rows counter) {
+    AuditLog auditLog = new AuditLog(database.getFirstUserId(), "bench1", "USER_LOGIN", "User", "1");
+    auditLog.setRequestId("bench-insert");
+    mapper.insert(auditLog);
+    counter.add(1);
+    return auditLog;
+  }
+}
@@ -0,0 +1,279 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mapper;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+/**
+ * マッパーベンチマーク用のシード済みデータベース
+ *
+ * <p>既定では{@code target/bench-db}配下に監査ログ件数ごとのH2ファイルDBを作成し、スキーマは
+ * {@code db/migration/h2}のマイグレーション（V1・V2）から作る。シード済みの件数は{@code bench_seed}表に記録し、
+ * 同じ件数で再実行する場合は再投入しない（1000万件の投入には数分かかる）。
+ *
+ * <p>環境変数{@code BENCH_JDBC_URL}（{@code BENCH_JDBC_USERNAME}・{@code BENCH_JDBC_PASSWORD}）を指定すると
+ * ローカルのPostgreSQLなどを使用する（フォークしたJVMにも引き継がれるよう、システムプロパティではなく環境変数で渡す）。
+ * スキーマは{@code ddl/database-setup.sql}で作成済みであること。
+ * 既存データを消して投入し直すため、{@code BENCH_JDBC_RESET=true}を指定した場合のみ投入する。
+ *
+ * <p>データ分布（ユーザー数は監査ログ件数の1/100、最低100）:
+ *
+ * <ul>
+ *   <li>監査ログはユーザーに均等に割り当てるため、ユーザー別の検索結果は件数によらず約100行
+ *   <li>アクションは{@value #RARE_ACTION}が0.1%、{@code USER_LOGIN}が約80%、残りが{@code PAGE_VIEW}
+ *   <li>ステータスは5%が{@code FAILURE}、作成日時は{@link #SEED_END}までの1年間に均等に分布
+ * </ul>
+ */
+public final class SeededDatabase implements AutoCloseable {
+
+  /** シードデータの作成日時の上限 */
+  public static final LocalDateTime SEED_END = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+  /** 全体の0.1%に現れるアクション */
+  public static final String RARE_ACTION = "PASSWORD_RESET";
+
+  /** シード済みユーザー名の接頭辞（{@code bench1}〜） */
+  public static final String USER_PREFIX = "bench";
+
+  /** 分布やスキーマを変えた場合に増やし、既存のシードを作り直す */
+  private static final int SEED_VERSION = 1;
+
+  private static final long SPAN_SECONDS = 365L * 24 * 60 * 60;
+
+  private static final int CHUNK = 500_000;
+
+  /** シードユーザーのパスワード（"Password123"のBCryptハッシュ、ベンチマークでは照合しない） */
+  private static final String PASSWORD_HASH =
+      "$2a$10$N9qo8uLOickgx2ZMRZoMye.Uo0qQZpVy6KI1TK.rS.8xO2T6.S.S2";
+
+  private final PooledDataSource dataSource;
+  private final SqlSessionFactory sqlSessionFactory;
+  private final boolean h2;
+  private final long auditRows;
+  private final long userRows;
+  private long firstUserId;
+  private long seededMaxAuditId;
+  private long seededMaxUserId;
+
+  private SeededDatabase(long auditRows) {
+    String url = System.getenv("BENCH_JDBC_URL");
+    this.h2 = url == null;
+    if (h2) {
+      url =
+          "jdbc:h2:file:./target/bench-db/mapper-"
+              + auditRows
+              + ";CACHE_SIZE=262144;DB_CLOSE_ON_EXIT=FALSE";
+      dataSource = new PooledDataSource("org.h2.Driver", url, "sa", "");
+    } else {
+      dataSource =
+          new PooledDataSource(
+              "org.postgresql.Driver",
+              url,
+              env("BENCH_JDBC_USERNAME", "postgres"),
+              env("BENCH_JDBC_PASSWORD", "password"));
+    }
+    this.auditRows = auditRows;
+    this.userRows = Math.max(auditRows / 100, 100);
+
+    Environment environment =
+        new Environment("benchmark", new JdbcTransactionFactory(), dataSource);
+    Configuration configuration = new Configuration(environment);
+    configuration.setMapUnderscoreToCamelCase(true);
+    // 同一セッションで同じ検索を繰り返すため、セッション内キャッシュを無効にする
+    configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+    // SQLとマッピングの処理時間を測るため、マッパーの2次キャッシュも使わない
+    configuration.setCacheEnabled(false);
+    configuration.addMapper(UserMapper.class);
+    configuration.addMapper(AuditLogMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  /**
+   * 指定件数の監査ログを投入済みのデータベースを開く
+   *
+   * @param auditRows 監査ログ件数
+   * @return データベース
+   */
+  public static SeededDatabase open(long auditRows) throws SQLException {
+    SeededDatabase database = new SeededDatabase(auditRows);
+    database.seedIfNeeded();
+    return database;
+  }
+
+  /** 自動コミットのセッションを開く */
+  public SqlSession openSession() {
+    return sqlSessionFactory.openSession(true);
+  }
+
+  public long getAuditRows() {
+    return auditRows;
+  }
+
+  public long getUserRows() {
+    return userRows;
+  }
+
+  /** シードユーザーの先頭ID（{@code bench1}のID） */
+  public long getFirstUserId() {
+    return firstUserId;
+  }
+
+  /** ベンチマーク中に追加した行を削除し、シード直後の状態に戻す */
+  public void trimToSeed() throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.executeUpdate("DELETE FROM audit_logs WHERE id > " + seededMaxAuditId);
+      statement.executeUpdate("DELETE FROM users WHERE id > " + seededMaxUserId);
+      if (!connection.getAutoCommit()) {
+        connection.commit();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    dataSource.forceCloseAll();
+  }
+
+  private void seedIfNeeded() throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      connection.setAutoCommit(true);
+      statement.execute(
+          "CREATE TABLE IF NOT EXISTS bench_seed (audit_rows BIGINT, user_rows BIGINT,"
+              + " version INT, first_user_id BIGINT, max_audit_id BIGINT, max_user_id BIGINT)");
+      if (!loadSeed(statement)) {
+        reset(statement);
+        seed(statement);
+        if (!loadSeed(statement)) {
+          throw new IllegalStateException("Seed marker was not written");
+        }
+      }
+    }
+  }
+
+  /** 同じ条件でシード済みであればIDの範囲を読み込む */
+  private boolean loadSeed(Statement statement) throws SQLException {
+    try (ResultSet rs =
+        statement.executeQuery(
+            "SELECT audit_rows, user_rows, version, first_user_id, max_audit_id, max_user_id"
+                + " FROM bench_seed")) {
+      if (!rs.next()
+          || rs.getLong(1) != auditRows
+          || rs.getLong(2) != userRows
+          || rs.getInt(3) != SEED_VERSION) {
+        return false;
+      }
+      firstUserId = rs.getLong(4);
+      seededMaxAuditId = rs.getLong(5);
+      seededMaxUserId = rs.getLong(6);
+    }
+    // 前回の実行が途中で終了した場合に備え、追加行を削除しておく
+    statement.executeUpdate("DELETE FROM audit_logs WHERE id > " + seededMaxAuditId);
+    statement.executeUpdate("DELETE FROM users WHERE id > " + seededMaxUserId);
+    return true;
+  }
+
+  private void reset(Statement statement) throws SQLException {
+    if (h2) {
+      statement.execute("DROP TABLE IF EXISTS audit_logs");
+      statement.execute("DROP TABLE IF EXISTS users");
+      statement.execute(
+          "RUNSCRIPT FROM 'classpath:db/migration/h2/V1__create_users_and_audit_logs.sql'"
+              + " CHARSET 'UTF-8'");
+      statement.execute(
+          "RUNSCRIPT FROM 'classpath:db/migration/h2/V2__seed_initial_users.sql' CHARSET 'UTF-8'");
+    } else {
+      if (!Boolean.parseBoolean(System.getenv("BENCH_JDBC_RESET"))) {
+        throw new IllegalStateException(
+            "Seeding " + auditRows + " audit rows deletes existing users and audit_logs;"
+                + " rerun with BENCH_JDBC_RESET=true against a throwaway database");
+      }
+      statement.execute("TRUNCATE audit_logs, users RESTART IDENTITY CASCADE");
+    }
+    statement.execute("DELETE FROM bench_seed");
+  }
+
+  private void seed(Statement statement) throws SQLException {
+    long started = System.nanoTime();
+    System.out.printf("[seed] %d users, %d audit rows%n", userRows, auditRows);
+
+    for (long from = 1; from <= userRows; from += CHUNK) {
+      long to = Math.min(from + CHUNK - 1, userRows);
+      statement.executeUpdate(
+          "INSERT INTO users (username, password, email, role, created_at, is_active)"
+              + " SELECT '" + USER_PREFIX + "' || x, '" + PASSWORD_HASH + "',"
+              + " '" + USER_PREFIX + "' || x || '@example.com',"
+              + " CASE MOD(x, 10) WHEN 0 THEN 'ADMIN' WHEN 1 THEN 'SALES' ELSE 'USER' END,"
+              + " " + seedEnd() + " - INTERVAL '1' SECOND * x,"
+              + " MOD(x, 20) <> 0"
+              + " FROM " + range(from, to));
+    }
+    firstUserId = singleLong(statement, "SELECT id FROM users WHERE username = '" + USER_PREFIX + "1'");
+
+    for (long from = 1; from <= auditRows; from += CHUNK) {
+      long to = Math.min(from + CHUNK - 1, auditRows);
+      statement.executeUpdate(
+          "INSERT INTO audit_logs (user_id, username, action, resource_type, resource_id,"
+              + " ip_address, user_agent, request_id, status, created_at)"
+              + " SELECT " + firstUserId + " + MOD(x, " + userRows + "),"
+              + " '" + USER_PREFIX + "' || (MOD(x, " + userRows + ") + 1),"
+              + " CASE WHEN MOD(x, 1000) = 0 THEN '" + RARE_ACTION + "'"
+              + " WHEN MOD(x, 10) < 8 THEN 'USER_LOGIN' ELSE 'PAGE_VIEW' END,"
+              + " 'User', '' || x,"
+              + " '10.0.' || MOD(x / 256, 256) || '.' || MOD(x, 256),"
+              + " 'Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36',"
+              + " 'bench-' || x,"
+              + " CASE WHEN MOD(x, 20) = 0 THEN 'FAILURE' ELSE 'SUCCESS' END,"
+              + " " + seedEnd() + " - INTERVAL '1' SECOND * (x * " + SPAN_SECONDS + " / " + auditRows + ")"
+              + " FROM " + range(from, to));
+      System.out.printf("[seed] audit_logs %d/%d%n", to, auditRows);
+    }
+
+    statement.execute("ANALYZE");
+    long maxAuditId = singleLong(statement, "SELECT MAX(id) FROM audit_logs");
+    long maxUserId = singleLong(statement, "SELECT MAX(id) FROM users");
+    statement.executeUpdate(
+        "INSERT INTO bench_seed VALUES (" + auditRows + ", " + userRows + ", " + SEED_VERSION
+            + ", " + firstUserId + ", " + maxAuditId + ", " + maxUserId + ")");
+    System.out.printf("[seed] done in %.1fs%n", (System.nanoTime() - started) / 1e9);
+  }
+
+  private static String env(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return value != null ? value : defaultValue;
+  }
+
+  private static String seedEnd() {
+    return "TIMESTAMP '" + SEED_END.toLocalDate() + " 00:00:00'";
+  }
+
+  /** 連番（列名x）を生成する副問い合わせ */
+  private String range(long from, long to) {
+    return h2
+        ? "(SELECT X AS x FROM SYSTEM_RANGE(" + from + ", " + to + ")) t"
+        : "(SELECT g AS x FROM generate_series(" + from + ", " + to + ") g) t";
+  }
+
+  private static long singleLong(Statement statement, String sql) throws SQLException {
+    try (ResultSet rs = statement.executeQuery(sql)) {
+      rs.next();
+      return rs.getLong(1);
+    }
+  }
+}
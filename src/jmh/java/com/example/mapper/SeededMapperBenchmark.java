@@ -0,0 +1,95 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mapper;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * シード済みデータベースに対するマッパーベンチマークの共通部分
+ *
+ * <p>SampleTimeモードでレイテンシーのパーセンタイルを、Throughputモードで{@link Rows}による取得行数/時間を出力する。
+ * 件数ごとのスケーリングは{@code com.example.bench.ScalingCheck}で確認する。
+ * 1000万件は投入・計測とも時間がかかるため、普段は{@code -p rows=10000,1000000}のように絞り込む。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public abstract class SeededMapperBenchmark {
+
+  /** 監査ログ件数 */
+  @Param({"10000", "1000000", "10000000"})
+  public long rows;
+
+  protected SeededDatabase database;
+
+  protected SqlSession session;
+
+  /** 1回の操作で取得/更新した行数（Throughputモードでは行数/時間として出力される） */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Rows {
+
+    public long rows;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      rows = 0;
+    }
+
+    <T extends Collection<?>> T count(T result) {
+      rows += result.size();
+      return result;
+    }
+
+    <T> Optional<T> count(Optional<T> result) {
+      if (result.isPresent()) {
+        rows++;
+      }
+      return result;
+    }
+
+    void add(long count) {
+      rows += count;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void openDatabase() throws SQLException {
+    database = SeededDatabase.open(rows);
+    session = database.openSession();
+    createMappers();
+  }
+
+  @TearDown(Level.Trial)
+  public void closeDatabase() throws SQLException {
+    session.close();
+    database.trimToSeed();
+    database.close();
+  }
+
+  /** {@link #session}からマッパーを取得 */
+  protected abstract void createMappers();
+}
@@ -0,0 +1,88 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mapper;
+
+import com.example.model.User;
+import com.example.model.UserRoleCount;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * {@link UserMapper}の全検索・件数・挿入ステートメントのスケーリング
+ *
+ * <p>ユーザー数は監査ログ件数の1/100（100 / 1万 / 10万）。{@link UserMapper#findAll()}は全件を返す。
+ */
+public class UserMapperBenchmark extends SeededMapperBenchmark {
+
+  private final AtomicLong inserted = new AtomicLong();
+
+  private UserMapper mapper;
+
+  @Override
+  protected void createMappers() {
+    mapper = session.getMapper(UserMapper.class);
+  }
+
+  @Benchmark
+  public Optional<User> findById(Rows counter) {
+    long id =
+        database.getFirstUserId() + ThreadLocalRandom.current().nextLong(database.getUserRows());
+    return counter.count(mapper.findById(id));
+  }
+
+  @Benchmark
+  public Optional<User> findByUsername(Rows counter) {
+    return counter.count(mapper.findByUsername(randomUsername()));
+  }
+
+  @Benchmark
+  public Optional<User> findActiveByUsername(Rows counter) {
+    return counter.count(mapper.findActiveByUsername(randomUsername()));
+  }
+
+  @Benchmark
+  public List<User> findAll(Rows counter) {
+    return counter.count(mapper.findAll());
+  }
+
+  @Benchmark
+  public long count() {
+    return mapper.count();
+  }
+
+  @Benchmark
+  public long countActive() {
+    return mapper.countActive();
+  }
+
+  @Benchmark
+  public long countByRole() {
+    return mapper.countByRole(User.Role.ADMIN);
+  }
+
+  /** ダッシュボード統計の一括集計 */
+  @Benchmark
+  public List<UserRoleCount> countGroupByRoleAndActive(Rows counter) {
+    return counter.count(mapper.countGroupByRoleAndActive());
+  }
+
+  @Benchmark
+  public User insert(Rows counter) {
+    String username = "insert-" + rows + "-" + inserted.incrementAndGet();
+    User user = new User(username, "$2a$10$unused", username + "@example.com", User.Role.USER);
+    mapper.insert(user);
+    counter.add(1);
+    return user;
+  }
+
+  private String randomUsername() {
+    return SeededDatabase.USER_PREFIX
+        + (1 + ThreadLocalRandom.current().nextLong(database.getUserRows()));
+  }
+}
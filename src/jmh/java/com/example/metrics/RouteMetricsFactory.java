@@ -0,0 +1,35 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.metrics;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+
+/** ベンチマーク用に既定設定のRouteMetricsを生成（本番と同じPrometheusレジストリに記録） */
+public final class RouteMetricsFactory {
+
+  private RouteMetricsFactory() {}
+
+  public static RouteMetrics create() {
+    RouteMetrics metrics = new RouteMetrics();
+    metrics.registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    metrics.slo =
+        List.of(
+            Duration.ofMillis(50),
+            Duration.ofMillis(100),
+            Duration.ofMillis(250),
+            Duration.ofMillis(500),
+            Duration.ofSeconds(1),
+            Duration.ofSeconds(2));
+    metrics.percentiles = List.of(0.5, 0.95, 0.99);
+    metrics.window = Duration.ofMinutes(1);
+    metrics.windowSamples = 1024;
+    metrics.init();
+    return metrics;
+  }
+}
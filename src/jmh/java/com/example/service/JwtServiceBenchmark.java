@@ -0,0 +1,78 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.service;
+
+import com.example.model.User;
+import io.smallrye.jwt.build.Jwt;
+import io.smallrye.jwt.util.KeyUtils;
+import io.smallrye.jwt.util.ResourceUtils;
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JWT発行（ログイン成功時）のコスト
+ *
+ * <p>署名鍵はアプリケーションと同じ{@code smallrye.jwt.sign.key.location}（application.yaml）から読み込む。
+ * 比較用に、鍵を事前に読み込んで同じクレームを署名する場合も計測する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+  private static final String ISSUER = "https://example.com";
+
+  private JwtService jwtService;
+
+  private User user;
+
+  private PrivateKey signingKey;
+
+  @Setup
+  public void setUp() throws Exception {
+    jwtService = new JwtService();
+    jwtService.issuer = ISSUER;
+
+    user = new User("bench", "$2a$10$unused", "bench@example.com", User.Role.USER);
+    user.setId(42L);
+
+    signingKey =
+        KeyUtils.decodePrivateKey(
+            ResourceUtils.readResource("META-INF/resources/privateKey.pem"));
+  }
+
+  /** {@link JwtService#generateToken}（署名鍵の解決を含む） */
+  @Benchmark
+  public String generateToken() {
+    return jwtService.generateToken(user);
+  }
+
+  /** 比較用: 読み込み済みの鍵で同じクレームを署名 */
+  @Benchmark
+  public String signWithLoadedKey() {
+    return Jwt.issuer(ISSUER)
+        .upn(user.getUsername())
+        .groups(user.getRole().name())
+        .claim("userId", user.getId())
+        .claim("email", user.getEmail())
+        .expiresIn(Duration.ofHours(24))
+        .sign(signingKey);
+  }
+}
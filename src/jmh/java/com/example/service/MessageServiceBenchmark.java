@@ -0,0 +1,80 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.service;
+
+import com.example.bench.StubHttpHeaders;
+import jakarta.ws.rs.core.HttpHeaders;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** メッセージ参照とAccept-Language解析のコスト */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageServiceBenchmark {
+
+  @Param({"ja", "fr-CA, zh-TW;q=0.9, en;q=0.5"})
+  String acceptLanguage;
+
+  private MessageService messageService;
+
+  private HttpHeaders headers;
+
+  private AcceptLanguageParser parser;
+
+  @Setup
+  public void setUp() {
+    messageService = new MessageService();
+    headers = StubHttpHeaders.acceptLanguage(acceptLanguage);
+    parser =
+        new AcceptLanguageParser(
+            MessageService.DEFAULT_LOCALE, MessageService.SUPPORTED_LOCALES, 0);
+  }
+
+  /** ロケール指定でのメッセージ参照 */
+  @Benchmark
+  public String getMessageByLocale() {
+    return messageService.getMessage("dashboard.total.users", Locale.JAPANESE);
+  }
+
+  /** 未定義キー（フォールバック経路） */
+  @Benchmark
+  public String getMessageMissingKey() {
+    return messageService.getMessage("no.such.key", Locale.CHINESE);
+  }
+
+  /** ヘッダーからのロケール解決を含むメッセージ参照 */
+  @Benchmark
+  public String getMessageByHeaders() {
+    return messageService.getMessage("error.internal.server.error", headers);
+  }
+
+  /** Accept-Languageヘッダー解析 */
+  @Benchmark
+  public Locale parseLocale() {
+    return messageService.parseLocale(acceptLanguage);
+  }
+
+  /** Accept-Languageヘッダー解析（キャッシュなし） */
+  @Benchmark
+  public Locale parseAcceptLanguageUncached() {
+    return parser.parse(acceptLanguage);
+  }
+}
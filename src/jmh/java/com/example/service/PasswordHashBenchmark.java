@@ -0,0 +1,58 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.service;
+
+import io.quarkus.elytron.security.common.BcryptUtil;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BCryptによるパスワードのハッシュ化（登録時）と照合（ログイン時）のコスト
+ *
+ * <p>コスト係数が1増えるごとに処理時間が約2倍になる。{@link UserService}は既定のコスト（10）を使用する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+  private static final String PASSWORD = "TestPass123";
+
+  @Param({"4", "10", "12"})
+  int cost;
+
+  private String hash;
+
+  @Setup
+  public void setUp() {
+    hash = BcryptUtil.bcryptHash(PASSWORD, cost);
+  }
+
+  /** ハッシュ化（ソルト生成を含む） */
+  @Benchmark
+  public String hash() {
+    return BcryptUtil.bcryptHash(PASSWORD, cost);
+  }
+
+  /** 照合 */
+  @Benchmark
+  public boolean verify() {
+    return BcryptUtil.matches(PASSWORD, hash);
+  }
+}
@@ -0,0 +1,172 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+/**
+ * 系列（リクエスト種別・フロー）ごとのレイテンシーと結果の集計
+ *
+ * <p>レイテンシーはHDRヒストグラム（マイクロ秒、有効桁3桁）に記録する。結果はHTTPステータスまたは例外名で数え、
+ * 期待したステータス以外はエラーとする。
+ */
+final class LatencyRecorder {
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private final ConcurrentMap<String, Series> series = new ConcurrentHashMap<>();
+
+  /**
+   * 1件を記録
+   *
+   * @param name 系列名
+   * @param elapsedNanos 経過時間（ナノ秒）
+   * @param outcome HTTPステータスまたは例外名
+   * @param ok 期待どおりの結果か
+   */
+  void record(String name, long elapsedNanos, String outcome, boolean ok) {
+    Series s = series(name);
+    s.histogram.recordValue(Math.max(1, elapsedNanos / 1_000));
+    s.count(outcome, ok);
+  }
+
+  /** 同時実行数の上限により開始できなかった到着を記録（レイテンシーは記録しない） */
+  void recordDropped(String name) {
+    series(name).count("dropped", false);
+  }
+
+  /** 計測区間の結果をJSONで出力 */
+  ObjectNode toJson(ObjectMapper objectMapper, double seconds) {
+    ObjectNode root = objectMapper.createObjectNode();
+    snapshot()
+        .forEach(
+            (name, s) -> {
+              long count = s.total.sum();
+              long errors = s.errors.sum();
+              ObjectNode node = root.putObject(name);
+              node.put("count", count);
+              node.put("errors", errors);
+              node.put("errorRate", count > 0 ? (double) errors / count : 0);
+              node.put("throughput", count / seconds);
+              ObjectNode latency = node.putObject("latencyMs");
+              latency.put("min", millis(s.histogram.getMinValue()));
+              latency.put("mean", s.histogram.getMean() / 1_000);
+              for (double percentile : PERCENTILES) {
+                latency.put(
+                    "p" + percentileLabel(percentile),
+                    millis(s.histogram.getValueAtPercentile(percentile)));
+              }
+              latency.put("max", millis(s.histogram.getMaxValue()));
+              ObjectNode outcomes = node.putObject("outcomes");
+              new TreeMap<>(s.outcomes).forEach((key, value) -> outcomes.put(key, value.sum()));
+            });
+    return root;
+  }
+
+  /** テキストの要約 */
+  String summary(double seconds) {
+    StringBuilder out = new StringBuilder();
+    out.append(
+        String.format(
+            "%-32s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+            "Series", "Count", "Req/s", "Err%", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+    snapshot()
+        .forEach(
+            (name, s) -> {
+              long count = s.total.sum();
+              Histogram h = s.histogram;
+              out.append(
+                  String.format(
+                      "%-32s %9d %9.1f %6.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                      name,
+                      count,
+                      count / seconds,
+                      count > 0 ? s.errors.sum() * 100.0 / count : 0,
+                      millis(h.getValueAtPercentile(50)),
+                      millis(h.getValueAtPercentile(90)),
+                      millis(h.getValueAtPercentile(99)),
+                      millis(h.getValueAtPercentile(99.9)),
+                      millis(h.getMaxValue())));
+              if (s.errors.sum() > 0) {
+                out.append(String.format("%-32s %s%n", "", new TreeMap<>(s.outcomes)));
+              }
+            });
+    return out.toString();
+  }
+
+  /**
+   * HdrHistogramのログ形式で出力（系列名をタグとし、HistogramLogAnalyzer等で読み込める）
+   *
+   * @param file 出力先
+   * @param startMillis 計測開始時刻（エポックミリ秒）
+   * @param endMillis 計測終了時刻（エポックミリ秒）
+   */
+  void writeHistogramLog(File file, long startMillis, long endMillis) throws FileNotFoundException {
+    HistogramLogWriter writer = new HistogramLogWriter(file);
+    try {
+      writer.outputComment("values in microseconds");
+      writer.outputLogFormatVersion();
+      writer.outputStartTime(startMillis);
+      writer.setBaseTime(startMillis);
+      writer.outputLegend();
+      snapshot()
+          .forEach(
+              (name, s) -> {
+                Histogram copy = s.histogram.copy();
+                copy.setTag(name.replaceAll("[^A-Za-z0-9_./:-]", "_"));
+                copy.setStartTimeStamp(startMillis);
+                copy.setEndTimeStamp(endMillis);
+                writer.outputIntervalHistogram(copy);
+              });
+    } finally {
+      writer.close();
+    }
+  }
+
+  private Map<String, Series> snapshot() {
+    return new TreeMap<>(series);
+  }
+
+  private Series series(String name) {
+    return series.computeIfAbsent(name, key -> new Series());
+  }
+
+  private static double millis(long micros) {
+    return micros / 1_000.0;
+  }
+
+  private static String percentileLabel(double percentile) {
+    return percentile == Math.rint(percentile)
+        ? Integer.toString((int) percentile)
+        : Double.toString(percentile).replace(".", "");
+  }
+
+  private static final class Series {
+    final Histogram histogram = new ConcurrentHistogram(3);
+    final LongAdder total = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final ConcurrentMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    void count(String outcome, boolean ok) {
+      total.increment();
+      if (!ok) {
+        errors.increment();
+      }
+      outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+  }
+}
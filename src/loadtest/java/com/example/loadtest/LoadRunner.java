@@ -0,0 +1,201 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 起動済みのアプリに対する負荷テスト（オープンモデル・一定到着率）
+ *
+ * <p>{@code --rate}で指定した間隔でフローを開始し、応答を待たずに次の到着を発生させる（各フローは仮想スレッドで実行）。
+ * フローのレイテンシーは予定した開始時刻から計測するため、サーバーが遅れて到着が滞留した時間も含まれる
+ * （協調的省略を避ける）。個々のリクエストは送信から応答までを計測する。
+ * 同時実行中のフローが{@code --max-in-flight}に達した場合、その到着は開始せず{@code dropped}として数える。
+ *
+ * <p>結果は系列ごとの件数・スループット・エラー率・レイテンシーのパーセンタイルをJSON（{@code --out}）と
+ * テキストで出力し、HDRヒストグラムを同名の{@code .hlog}ファイルに出力する。
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec \
+ *   -Dloadtest.args="--scenario=mixed --rate=50 --duration=60"
+ * </pre>
+ */
+public final class LoadRunner {
+
+  private LoadRunner() {}
+
+  public static void main(String[] args) throws Exception {
+    URI baseUri = URI.create("http://localhost:8082/");
+    String scenarioName = "mixed";
+    double rate = 20;
+    long warmupSeconds = 10;
+    long durationSeconds = 30;
+    int maxInFlight = 1000;
+    Duration timeout = Duration.ofSeconds(10);
+    String users = "admin:AdminPass123,sales:SalesPass123,user:UserPass123";
+    double failRatio = 0.1;
+    String out = "target/loadtest-result.json";
+    double maxErrorRate = Double.NaN;
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (!arg.startsWith("--") || separator < 0) {
+        usage("Unexpected argument: " + arg);
+      }
+      String value = arg.substring(separator + 1);
+      switch (arg.substring(2, separator)) {
+        case "base-url" -> baseUri = URI.create(value.endsWith("/") ? value : value + "/");
+        case "scenario" -> scenarioName = value;
+        case "rate" -> rate = Double.parseDouble(value);
+        case "warmup" -> warmupSeconds = Long.parseLong(value);
+        case "duration" -> durationSeconds = Long.parseLong(value);
+        case "max-in-flight" -> maxInFlight = Integer.parseInt(value);
+        case "timeout" -> timeout = Duration.ofSeconds(Long.parseLong(value));
+        case "users" -> users = value;
+        case "login-fail-ratio" -> failRatio = Double.parseDouble(value);
+        case "out" -> out = value;
+        case "max-error-rate" -> maxErrorRate = Double.parseDouble(value);
+        default -> usage("Unknown option: " + arg);
+      }
+    }
+    if (rate <= 0 || durationSeconds <= 0) {
+      usage("--rate and --duration must be positive");
+    }
+
+    // フローと、HTTPクライアントの応答処理はそれぞれ別の仮想スレッドで実行する
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    HttpClient http =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .executor(httpExecutor)
+            .build();
+    LatencyRecorder recorder = new LatencyRecorder();
+    Session setup = new Session(http, baseUri, timeout, recorder, false);
+    Scenario scenario =
+        Scenario.create(scenarioName, setup, Scenario.Credentials.parse(users), failRatio);
+
+    System.out.printf(
+        "[loadtest] %s against %s: %.1f/s, warmup %ds, duration %ds%n",
+        scenario.name(), baseUri, rate, warmupSeconds, durationSeconds);
+
+    long interval = Math.round(TimeUnit.SECONDS.toNanos(1) / rate);
+    long start = System.nanoTime();
+    long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+    long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    LongAdder arrivals = new LongAdder();
+    long measuredStartMillis = 0;
+
+    for (long i = 0; ; i++) {
+      long intended = start + i * interval;
+      if (intended >= end) {
+        break;
+      }
+      long wait = intended - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      boolean measured = intended >= measureFrom;
+      if (measured && measuredStartMillis == 0) {
+        measuredStartMillis = System.currentTimeMillis();
+      }
+      int index = scenario.pick();
+      String series = "flow:" + scenario.flowName(index);
+      if (measured) {
+        arrivals.increment();
+      }
+      if (!inFlight.tryAcquire()) {
+        if (measured) {
+          recorder.recordDropped(series);
+        }
+        continue;
+      }
+      executor.execute(
+          () -> {
+            Session session = setup.fork(measured);
+            try {
+              scenario.flow(index).run(session);
+            } catch (Exception e) {
+              session.fail();
+            }
+            if (measured) {
+              recorder.record(
+                  series,
+                  System.nanoTime() - intended,
+                  session.failed() ? "error" : "ok",
+                  !session.failed());
+            }
+            inFlight.release();
+          });
+    }
+    long measuredEndMillis = System.currentTimeMillis();
+
+    if (!inFlight.tryAcquire(maxInFlight, timeout.toSeconds() * 2 + 5, TimeUnit.SECONDS)) {
+      System.out.println("[loadtest] some flows did not finish before the timeout");
+    }
+    executor.shutdownNow();
+    httpExecutor.shutdownNow();
+
+    ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    ObjectNode result = objectMapper.createObjectNode();
+    result.put("scenario", scenario.name());
+    result.put("baseUrl", baseUri.toString());
+    result.put("startedAt", Instant.ofEpochMilli(measuredStartMillis).toString());
+    result.put("targetRate", rate);
+    result.put("achievedArrivalRate", arrivals.sum() / (double) durationSeconds);
+    result.put("warmupSeconds", warmupSeconds);
+    result.put("durationSeconds", durationSeconds);
+    result.put("maxInFlight", maxInFlight);
+    result.set("series", recorder.toJson(objectMapper, durationSeconds));
+
+    File outFile = new File(out);
+    if (outFile.getParentFile() != null) {
+      outFile.getParentFile().mkdirs();
+    }
+    objectMapper.writeValue(outFile, result);
+    File histogramLog = new File(out.replaceFirst("\\.json$", "") + ".hlog");
+    recorder.writeHistogramLog(histogramLog, measuredStartMillis, measuredEndMillis);
+
+    System.out.print(recorder.summary(durationSeconds));
+    System.out.printf("[loadtest] results: %s, histograms: %s%n", outFile, histogramLog);
+
+    if (!Double.isNaN(maxErrorRate)) {
+      double worst = 0;
+      for (JsonNode node : result.path("series")) {
+        worst = Math.max(worst, node.path("errorRate").asDouble());
+      }
+      if (worst > maxErrorRate) {
+        System.out.printf("FAIL: error rate %.4f above %.4f%n", worst, maxErrorRate);
+        System.exit(1);
+      }
+    }
+  }
+
+  private static void usage(String message) {
+    System.err.println(message);
+    System.err.println(
+        "usage: LoadRunner [--base-url=http://localhost:8082] [--scenario=login|dashboard|mixed]"
+            + " [--rate=20] [--warmup=10] [--duration=30] [--max-in-flight=1000] [--timeout=10]"
+            + " [--users=user:password,...] [--login-fail-ratio=0.1]"
+            + " [--out=target/loadtest-result.json] [--max-error-rate=0.01]");
+    System.exit(2);
+  }
+}
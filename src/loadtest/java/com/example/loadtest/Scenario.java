@@ -0,0 +1,168 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 負荷シナリオ（重み付きのフローの組）
+ *
+ * <ul>
+ *   <li>{@code login}: {@code /auth/login}へのログイン集中（{@code failRatio}の割合で誤ったパスワード、401を期待）
+ *   <li>{@code dashboard}: ダッシュボード表示（HTML取得後、{@code /menu}と{@code /api/dashboard/*}を並行して取得）
+ *   <li>{@code mixed}: ダッシュボード表示80%、ログイン20%
+ * </ul>
+ */
+final class Scenario {
+
+  /** 1回の到着で実行する一連のリクエスト */
+  @FunctionalInterface
+  interface Flow {
+    void run(Session session) throws Exception;
+  }
+
+  /** ログインに使うユーザー */
+  record Credentials(String username, String password) {
+
+    /** {@code user:password,...}形式を解析 */
+    static List<Credentials> parse(String value) {
+      List<Credentials> users = new ArrayList<>();
+      for (String entry : value.split(",")) {
+        int separator = entry.indexOf(':');
+        if (separator <= 0) {
+          throw new IllegalArgumentException("Expected user:password but got " + entry);
+        }
+        users.add(new Credentials(entry.substring(0, separator), entry.substring(separator + 1)));
+      }
+      return users;
+    }
+  }
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final String name;
+  private final List<String> flowNames = new ArrayList<>();
+  private final List<Flow> flows = new ArrayList<>();
+  private final List<Integer> cumulativeWeights = new ArrayList<>();
+  private int totalWeight;
+
+  private Scenario(String name) {
+    this.name = name;
+  }
+
+  /**
+   * シナリオを作成（ダッシュボードを含む場合は各ユーザーでログインしてトークンを取得しておく）
+   *
+   * @param name シナリオ名
+   * @param session 準備用のセッション（記録しない）
+   * @param users ログインに使うユーザー
+   * @param failRatio ログインで誤ったパスワードを送る割合
+   * @return シナリオ
+   */
+  static Scenario create(String name, Session session, List<Credentials> users, double failRatio)
+      throws Exception {
+    Scenario scenario = new Scenario(name);
+    switch (name) {
+      case "login" -> scenario.add("login", 1, login(users, failRatio));
+      case "dashboard" -> scenario.add("dashboard", 1, dashboard(tokens(session, users)));
+      case "mixed" ->
+          scenario
+              .add("dashboard", 8, dashboard(tokens(session, users)))
+              .add("login", 2, login(users, failRatio));
+      default ->
+          throw new IllegalArgumentException(
+              "Unknown scenario: " + name + " (login, dashboard, mixed)");
+    }
+    return scenario;
+  }
+
+  String name() {
+    return name;
+  }
+
+  /** 重みに従って次のフローの番号を選ぶ */
+  int pick() {
+    int value = ThreadLocalRandom.current().nextInt(totalWeight);
+    for (int i = 0; i < cumulativeWeights.size(); i++) {
+      if (value < cumulativeWeights.get(i)) {
+        return i;
+      }
+    }
+    return cumulativeWeights.size() - 1;
+  }
+
+  String flowName(int index) {
+    return flowNames.get(index);
+  }
+
+  Flow flow(int index) {
+    return flows.get(index);
+  }
+
+  private Scenario add(String flowName, int weight, Flow flow) {
+    totalWeight += weight;
+    flowNames.add(flowName);
+    flows.add(flow);
+    cumulativeWeights.add(totalWeight);
+    return this;
+  }
+
+  private static Flow login(List<Credentials> users, double failRatio) {
+    return session -> {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      Credentials user = users.get(random.nextInt(users.size()));
+      boolean wrongPassword = random.nextDouble() < failRatio;
+      String body =
+          OBJECT_MAPPER.writeValueAsString(
+              Map.of(
+                  "username",
+                  user.username(),
+                  "password",
+                  wrongPassword ? user.password() + "-wrong" : user.password()));
+      session.send("POST /auth/login", session.postJson("/auth/login", body), wrongPassword ? 401 : 200);
+    };
+  }
+
+  private static Flow dashboard(List<String> tokens) {
+    return session -> {
+      String token = tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+      session.send("GET /dashboard", session.get("/dashboard", null), 200);
+      CompletableFuture.allOf(
+              session.sendAsync("GET /menu", session.get("/menu", token), 200),
+              session.sendAsync(
+                  "GET /api/dashboard/stats", session.get("/api/dashboard/stats", token), 200),
+              session.sendAsync(
+                  "GET /api/dashboard/activity", session.get("/api/dashboard/activity", token), 200))
+          .join();
+    };
+  }
+
+  /** 各ユーザーでログインしてトークンを取得 */
+  private static List<String> tokens(Session session, List<Credentials> users) throws Exception {
+    List<String> tokens = new ArrayList<>();
+    for (Credentials user : users) {
+      String body =
+          OBJECT_MAPPER.writeValueAsString(
+              Map.of("username", user.username(), "password", user.password()));
+      HttpResponse<String> response =
+          session.send("setup", session.postJson("/auth/login", body), 200);
+      if (response == null || response.statusCode() != 200) {
+        throw new IllegalStateException(
+            "Login failed for "
+                + user.username()
+                + (response != null ? ": HTTP " + response.statusCode() : ""));
+      }
+      tokens.add(OBJECT_MAPPER.readTree(response.body()).path("token").asText());
+    }
+    return tokens;
+  }
+}
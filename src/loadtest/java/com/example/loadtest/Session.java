@@ -0,0 +1,114 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 1回の到着（フロー1回分）のリクエスト送信
+ *
+ * <p>HTTPクライアントと記録先は全フローで共有し、フローごとに{@link #fork(boolean)}で作成する。
+ * 送信したリクエストは計測区間内のフローの場合のみ記録する。
+ */
+final class Session {
+
+  private final HttpClient http;
+  private final URI baseUri;
+  private final Duration timeout;
+  private final LatencyRecorder recorder;
+  private final boolean measured;
+  private volatile boolean failed;
+
+  Session(HttpClient http, URI baseUri, Duration timeout, LatencyRecorder recorder, boolean measured) {
+    this.http = http;
+    this.baseUri = baseUri;
+    this.timeout = timeout;
+    this.recorder = recorder;
+    this.measured = measured;
+  }
+
+  /** 同じクライアント・記録先を使う新しいフロー用のセッション */
+  Session fork(boolean measured) {
+    return new Session(http, baseUri, timeout, recorder, measured);
+  }
+
+  /** GETリクエスト（tokenがnullでなければBearer認証） */
+  HttpRequest get(String path, String token) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(timeout);
+    if (token != null) {
+      builder.header("Authorization", "Bearer " + token);
+    }
+    return builder.GET().build();
+  }
+
+  /** JSON本文のPOSTリクエスト */
+  HttpRequest postJson(String path, String json) {
+    return HttpRequest.newBuilder(baseUri.resolve(path))
+        .timeout(timeout)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(json))
+        .build();
+  }
+
+  /**
+   * 同期送信
+   *
+   * @param name 記録する系列名
+   * @param request リクエスト
+   * @param expectedStatus 期待するステータス（それ以外はエラー）
+   * @return レスポンス（送信に失敗した場合はnull）
+   */
+  HttpResponse<String> send(String name, HttpRequest request, int expectedStatus) {
+    return sendAsync(name, request, expectedStatus).join();
+  }
+
+  /** 非同期送信（ブラウザーが並行して行うAPI呼び出し用） */
+  CompletableFuture<HttpResponse<String>> sendAsync(
+      String name, HttpRequest request, int expectedStatus) {
+    long started = System.nanoTime();
+    return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        .handle(
+            (response, error) -> {
+              long elapsed = System.nanoTime() - started;
+              if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                record(name, elapsed, cause.getClass().getSimpleName(), false);
+                return null;
+              }
+              record(
+                  name,
+                  elapsed,
+                  Integer.toString(response.statusCode()),
+                  response.statusCode() == expectedStatus);
+              return response;
+            });
+  }
+
+  /** フロー内のいずれかのリクエストが失敗したか */
+  boolean failed() {
+    return failed;
+  }
+
+  /** フロー自体の失敗（例外等）を記録 */
+  void fail() {
+    failed = true;
+  }
+
+  private void record(String name, long elapsedNanos, String outcome, boolean ok) {
+    if (!ok) {
+      failed = true;
+    }
+    if (measured) {
+      recorder.record(name, elapsedNanos, outcome, ok);
+    }
+  }
+}
@@ -19,6 +19,7 @@ import com.example.dto.RegisterRequest;
 import com.example.model.User;
 import com.example.service.JwtService;
 import com.example.service.UserService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
@@ -31,6 +32,7 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
 @Path("/auth")
+@RunOnVirtualThread
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "認証", description = "ユーザー認証関連のAPI")
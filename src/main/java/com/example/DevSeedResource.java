@@ -0,0 +1,80 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import com.example.config.SyntheticDataSeeder;
+import io.quarkus.arc.profile.UnlessBuildProfile;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.Map;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * 開発用: 規模テスト向けの合成データ投入（dev専用）
+ *
+ * <p>本番プロファイルでビルドした場合は登録しない。それ以外でも{@code app.dev-seed.enabled}がtrueの場合のみ有効（無効時は404）。
+ * 投入はバックグラウンドで実行し、進捗はGETで確認する。
+ */
+@UnlessBuildProfile("prod")
+@Path("/dev/seed")
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("ADMIN")
+public class DevSeedResource {
+
+  /** 1回の投入で指定できるユーザー数の上限 */
+  static final int MAX_USERS = 10_000_000;
+
+  @Inject SyntheticDataSeeder seeder;
+
+  @ConfigProperty(name = "app.dev-seed.enabled", defaultValue = "false")
+  boolean enabled;
+
+  @POST
+  public Response start(
+      @QueryParam("users") @DefaultValue("1000") int users,
+      @QueryParam("events") @DefaultValue("10000") long events,
+      @QueryParam("seed") @DefaultValue("42") long seed) {
+    checkEnabled();
+    if (users < 0 || users > MAX_USERS || events < 0 || (events > 0 && users == 0)) {
+      return Response.status(Response.Status.BAD_REQUEST)
+          .entity(
+              Map.of(
+                  "error",
+                  "users must be 0.." + MAX_USERS + ", events must be >= 0 and needs users > 0"))
+          .build();
+    }
+    SyntheticDataSeeder.Status status = seeder.start(users, events, seed);
+    if (status == null) {
+      return Response.status(Response.Status.CONFLICT).entity(seeder.status()).build();
+    }
+    return Response.accepted(status).build();
+  }
+
+  @GET
+  public SyntheticDataSeeder.Status status() {
+    checkEnabled();
+    SyntheticDataSeeder.Status status = seeder.status();
+    if (status == null) {
+      throw new NotFoundException();
+    }
+    return status;
+  }
+
+  private void checkEnabled() {
+    if (!enabled) {
+      throw new NotFoundException();
+    }
+  }
+}
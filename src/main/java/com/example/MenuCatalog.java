@@ -0,0 +1,90 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import com.example.cache.CachedPayload;
+import com.example.model.MenuItem;
+import com.example.model.User;
+import com.example.service.MessageService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.jboss.logging.Logger;
+
+/**
+ * メニューレスポンスカタログ
+ *
+ * <p>メニューの内容はロールとロケールのみで決まるため、{@link MenuItem}の定義から全組み合わせのJSONを起動時に生成しておき、リクエスト時は表引きのみを行う。
+ */
+@Startup
+@ApplicationScoped
+public class MenuCatalog {
+
+  private static final Logger LOG = Logger.getLogger(MenuCatalog.class);
+
+  @Inject MessageService messageService;
+
+  @Inject ObjectMapper objectMapper;
+
+  private final Map<User.Role, Map<Locale, CachedPayload>> table = new EnumMap<>(User.Role.class);
+
+  @PostConstruct
+  void compile() {
+    for (User.Role role : User.Role.values()) {
+      Map<Locale, CachedPayload> byLocale = new HashMap<>();
+      for (Locale locale : MessageService.SUPPORTED_LOCALES) {
+        byLocale.put(locale, render(role, locale));
+      }
+      table.put(role, Map.copyOf(byLocale));
+    }
+    LOG.debugf(
+        "メニューカタログを生成しました: roles=%d, locales=%d",
+        table.size(), MessageService.SUPPORTED_LOCALES.size());
+  }
+
+  /**
+   * ロール・ロケールに対応するメニューを取得
+   *
+   * @param role ロール
+   * @param locale {@link MessageService#parseLocale}で解決済みのロケール
+   * @return シリアライズ済みメニュー
+   */
+  public CachedPayload get(User.Role role, Locale locale) {
+    Map<Locale, CachedPayload> byLocale = table.get(role);
+    CachedPayload payload = byLocale.get(locale);
+    return payload != null ? payload : byLocale.get(MessageService.DEFAULT_LOCALE);
+  }
+
+  private CachedPayload render(User.Role role, Locale locale) {
+    List<Map<String, String>> menus = new ArrayList<>();
+    for (MenuItem item : MenuItem.values()) {
+      if (item.isVisibleTo(role)) {
+        Map<String, String> menu = new LinkedHashMap<>();
+        menu.put("name", messageService.getMessage(item.getMessageKey(), locale));
+        menu.put("path", item.getPath());
+        menus.add(menu);
+      }
+    }
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("role", role.name());
+    body.put("menus", menus);
+    try {
+      return CachedPayload.json(objectMapper.writeValueAsBytes(body));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize menu for " + role + "/" + locale, e);
+    }
+  }
+}
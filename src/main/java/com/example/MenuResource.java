@@ -5,6 +5,8 @@
 
 package com.example;
 
+import com.example.model.User;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
@@ -13,11 +15,11 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
-import java.util.List;
-import java.util.Map;
 
 @Path("/menu")
+@RunOnVirtualThread
 @Produces(MediaType.APPLICATION_JSON)
 public class MenuResource {
 
@@ -27,63 +29,25 @@ public class MenuResource {
 
   @Inject com.example.service.MessageService messageService;
 
+  @Inject MenuCatalog menuCatalog;
+
   @GET
   @RolesAllowed({"ADMIN", "USER", "SALES"})
-  public Map<String, Object> getMenu() {
+  public Response getMenu() {
+    User.Role role;
     if (securityContext.isUserInRole("ADMIN")) {
-      return Map.of(
-          "role",
-          "ADMIN",
-          "menus",
-          List.of(
-              Map.of(
-                  "name",
-                  messageService.getMessage("menu.user.management", headers),
-                  "path",
-                  "/admin/users"),
-              Map.of(
-                  "name",
-                  messageService.getMessage("menu.system.settings", headers),
-                  "path",
-                  "/admin/settings"),
-              Map.of(
-                  "name",
-                  messageService.getMessage("menu.sales.management", headers),
-                  "path",
-                  "/sales"),
-              Map.of(
-                  "name", messageService.getMessage("menu.reports", headers), "path", "/reports")));
+      role = User.Role.ADMIN;
     } else if (securityContext.isUserInRole("SALES")) {
-      return Map.of(
-          "role",
-          "SALES",
-          "menus",
-          List.of(
-              Map.of(
-                  "name",
-                  messageService.getMessage("menu.sales.management", headers),
-                  "path",
-                  "/sales"),
-              Map.of(
-                  "name",
-                  messageService.getMessage("menu.customer.management", headers),
-                  "path",
-                  "/customers"),
-              Map.of(
-                  "name", messageService.getMessage("menu.reports", headers), "path", "/reports")));
+      role = User.Role.SALES;
     } else {
-      return Map.of(
-          "role",
-          "USER",
-          "menus",
-          List.of(
-              Map.of(
-                  "name", messageService.getMessage("menu.profile", headers), "path", "/profile"),
-              Map.of(
-                  "name",
-                  messageService.getMessage("menu.settings", headers),
-                  "path",
-                  "/settings")));
+      role = User.Role.USER;
     }
+
+    return menuCatalog
+        .get(role, messageService.parseLocale(headers.getHeaderString(HttpHeaders.ACCEPT_LANGUAGE)))
+        .toResponse(headers)
+        .header("Vary", "Accept-Language, Authorization")
+        .header("Cache-Control", "private, no-cache")
+        .build();
   }
 }
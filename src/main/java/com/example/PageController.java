@@ -5,8 +5,9 @@
 
 package com.example;
 
+import com.example.cache.PageRenderCache;
 import io.quarkus.qute.Template;
-import io.quarkus.qute.TemplateInstance;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
@@ -15,12 +16,19 @@ import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Function;
 
-/** ページコントローラー - Quteテンプレートを使用してページを表示 */
+/**
+ * ページコントローラー - Quteテンプレートを使用してページを表示
+ *
+ * <p>ページはロケールごとに{@link PageRenderCache}で描画済みのものを返す（ETag・gzip対応）。
+ */
 @Path("/")
+@RunOnVirtualThread
 public class PageController {
 
   @Inject Template login;
@@ -29,6 +37,8 @@ public class PageController {
 
   @Inject com.example.service.MessageService messageService;
 
+  @Inject PageRenderCache pageRenderCache;
+
   @Context HttpHeaders headers;
 
   /**
@@ -40,9 +50,8 @@ public class PageController {
   @GET
   @Path("/")
   @Produces(MediaType.TEXT_HTML)
-  public TemplateInstance index(@QueryParam("lang") String lang) {
-    Locale locale = getLocale(lang);
-    return login.data("messages", getMessages(locale));
+  public Response index(@QueryParam("lang") String lang) {
+    return render(login, getLocale(lang), locale -> Map.of("messages", getMessages(locale)));
   }
 
   /**
@@ -54,9 +63,19 @@ public class PageController {
   @GET
   @Path("/login")
   @Produces(MediaType.TEXT_HTML)
-  public TemplateInstance loginPage(@QueryParam("lang") String lang) {
-    Locale locale = getLocale(lang);
-    return login.data("messages", getMessages(locale));
+  public Response loginPage(@QueryParam("lang") String lang) {
+    return render(login, getLocale(lang), locale -> Map.of("messages", getMessages(locale)));
+  }
+
+  /** 描画済みページを条件付きGET・gzipを考慮して返す */
+  private Response render(
+      Template template, Locale locale, Function<Locale, Map<String, ?>> data) {
+    return pageRenderCache
+        .get(template, locale, data)
+        .toResponse(headers)
+        .header("Vary", "Accept-Language, Accept-Encoding")
+        .header("Cache-Control", "no-cache")
+        .build();
   }
 
   /** 言語パラメータまたはAccept-Languageヘッダーからロケールを取得 */
@@ -102,8 +121,13 @@ public class PageController {
   @GET
   @Path("/dashboard")
   @Produces(MediaType.TEXT_HTML)
-  public TemplateInstance dashboardPage(@QueryParam("lang") String lang) {
-    Locale locale = getLocale(lang);
+  public Response dashboardPage(@QueryParam("lang") String lang) {
+    return render(
+        dashboard, getLocale(lang), locale -> Map.of("messages", getDashboardMessages(locale)));
+  }
+
+  /** ダッシュボード用のメッセージマップを作成 */
+  private Map<String, String> getDashboardMessages(Locale locale) {
     Map<String, String> messages = getMessages(locale);
 
     // ダッシュボード固有のメッセージを追加
@@ -129,6 +153,6 @@ public class PageController {
     messages.put("settings", messageService.getMessage("dashboard.settings", locale));
     messages.put("logout", messageService.getMessage("dashboard.logout", locale));
 
-    return dashboard.data("messages", messages);
+    return messages;
   }
 }
@@ -0,0 +1,133 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import com.example.cache.PrecompressedPayload;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import org.jboss.logging.Logger;
+
+/**
+ * フィンガープリント付き静的アセットの配信
+ *
+ * <p>ビルド時のアセット処理（{@code src/build/java}のAssetPipeline、prepare-packageフェーズ）が生成した{@code /assets/}配下のファイルを起動時にメモリへ読み込み、
+ * Accept-Encodingに応じて圧縮済みバリアントを返す。URLは内容ハッシュを含むため、{@code immutable}で長期キャッシュさせる。
+ */
+@Startup
+@ApplicationScoped
+@Path("/assets")
+public class StaticAssetResource {
+
+  private static final Logger LOG = Logger.getLogger(StaticAssetResource.class);
+
+  /** 出力先ディレクトリ（クラスパス相対） */
+  static final String OUTPUT_DIR = "assets";
+
+  /** 論理パス → ハッシュ付きパスの対応表 */
+  static final String MANIFEST = OUTPUT_DIR + "/manifest.properties";
+
+  /** gzipバリアントの拡張子 */
+  static final String GZIP_SUFFIX = ".gz";
+
+  private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+  private static final Map<String, String> MEDIA_TYPES =
+      Map.of(
+          "css", "text/css;charset=UTF-8",
+          "js", "text/javascript;charset=UTF-8",
+          "svg", "image/svg+xml");
+
+  private Map<String, PrecompressedPayload> assets = Map.of();
+
+  @Context HttpHeaders headers;
+
+  /** マニフェストに記載されたアセットを読み込み */
+  @PostConstruct
+  void load() {
+    Properties manifest = new Properties();
+    try (InputStream in = resource(MANIFEST)) {
+      if (in == null) {
+        LOG.info("アセットマニフェストがないため、フィンガープリント付きアセットは配信しません");
+        return;
+      }
+      manifest.load(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    Map<String, PrecompressedPayload> loaded = new HashMap<>();
+    long identityBytes = 0;
+    long gzipBytes = 0;
+    for (String logical : manifest.stringPropertyNames()) {
+      String hashed = manifest.getProperty(logical);
+      String path = OUTPUT_DIR + "/" + hashed;
+      byte[] body = readResource(path);
+      if (body == null) {
+        LOG.warnf("アセットが見つかりません: %s", path);
+        continue;
+      }
+      byte[] gzip = readResource(path + GZIP_SUFFIX);
+      PrecompressedPayload payload = PrecompressedPayload.of(body, gzip, mediaType(hashed));
+      loaded.put(hashed, payload);
+      identityBytes += body.length;
+      gzipBytes += payload.getGzip() != null ? payload.getGzip().getBody().length : body.length;
+    }
+    assets = Map.copyOf(loaded);
+    LOG.infof(
+        "静的アセットを読み込みました: count=%d, size=%d, gzip=%d",
+        assets.size(), identityBytes, gzipBytes);
+  }
+
+  /**
+   * アセットを取得
+   *
+   * @param path ハッシュ付きパス（例: {@code css/auth.1a2b3c4d.css}）
+   * @return アセット（条件付きGET・gzip対応）
+   */
+  @GET
+  @Path("/{path: .+}")
+  public Response get(@PathParam("path") String path) {
+    PrecompressedPayload payload = assets.get(path);
+    if (payload == null) {
+      return Response.status(Response.Status.NOT_FOUND).build();
+    }
+    return payload
+        .toResponse(headers)
+        .header("Vary", "Accept-Encoding")
+        .header("Cache-Control", CACHE_CONTROL)
+        .build();
+  }
+
+  private static String mediaType(String path) {
+    String extension = path.substring(path.lastIndexOf('.') + 1);
+    return MEDIA_TYPES.getOrDefault(extension, "application/octet-stream");
+  }
+
+  private static byte[] readResource(String path) {
+    try (InputStream in = resource(path)) {
+      return in != null ? in.readAllBytes() : null;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static InputStream resource(String path) {
+    return Thread.currentThread().getContextClassLoader().getResourceAsStream(path);
+  }
+}
@@ -0,0 +1,39 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.accesslog;
+
+/**
+ * アクセスログの1レコード（リングバッファのスロット）
+ *
+ * <p>起動時にバッファ容量分だけ生成して再利用する。フィールドはリクエストスレッドが書き込んだ後に{@link #sequence}を公開し、
+ * 書き込みスレッドは{@link #sequence}を読んでから各フィールドを参照する。
+ */
+final class AccessLogRecord {
+
+  /** 公開済みのシーケンス番号（未公開は-1） */
+  volatile long sequence = -1;
+
+  long timestampMillis;
+  String requestId;
+  String method;
+  String route;
+  int status;
+  long durationNanos;
+
+  /** クライアントIP（X-Forwarded-Forの場合は未加工のヘッダー値） */
+  String clientIp;
+
+  /** レスポンス本文のバイト数（不明な場合は-1） */
+  long bytes;
+
+  /** 書き出し後に参照を解放 */
+  void clear() {
+    requestId = null;
+    method = null;
+    route = null;
+    clientIp = null;
+  }
+}
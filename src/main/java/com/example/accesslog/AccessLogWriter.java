@@ -0,0 +1,392 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.accesslog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * 非同期アクセスログ
+ *
+ * <p>リクエストスレッドは起動時に確保したリングバッファのスロットに固定レイアウトのレコードを書き込むだけで、書式化やI/Oは行わない。
+ * 専用の書き込みスレッド1本がJSON Lines形式に変換し、大きなバッファ単位でローカルファイルへ書き出す（サイズでローテーション）。
+ * バッファが満杯の場合はレコードを破棄して{@value #DROPPED_COUNTER}を加算し、リクエストを待たせない。
+ * 成功レスポンス（1xx〜3xx）はサンプリング率に応じて間引く。
+ *
+ * <p>ローテーションは新しいファイルを開けた場合のみ切り替える。開けない場合はERRORを1回出力して無効化し、
+ * 以降は{@code LoggingInterceptor}がINFOのレスポンスログを出力する。書き込みの失敗は成功するまで1回だけWARNを出力する。
+ */
+@Startup
+@ApplicationScoped
+public class AccessLogWriter {
+
+  private static final Logger LOG = Logger.getLogger(AccessLogWriter.class);
+
+  /** 書き出さずに破棄したレコード数（バッファ満杯・書き込み失敗・無効化時の未処理分） */
+  public static final String DROPPED_COUNTER = "app.access.log.dropped";
+
+  /** ファイルに書き出したレコード数 */
+  public static final String WRITTEN_COUNTER = "app.access.log.written";
+
+  private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+
+  /** 書き込み待ちがないときの待機時間 */
+  private static final long IDLE_PARK_NANOS = Duration.ofMillis(5).toNanos();
+
+  @Inject MeterRegistry registry;
+
+  /** 書き込みスレッドがローテーション失敗時に無効化するためvolatile */
+  @ConfigProperty(name = "app.access-log.enabled", defaultValue = "true")
+  volatile boolean enabled;
+
+  @ConfigProperty(name = "app.access-log.path", defaultValue = "logs/access.log")
+  Path path;
+
+  @ConfigProperty(name = "app.access-log.buffer-size", defaultValue = "8192")
+  int bufferSize;
+
+  @ConfigProperty(name = "app.access-log.success-sample-rate", defaultValue = "1.0")
+  double successSampleRate;
+
+  @ConfigProperty(name = "app.access-log.max-file-size", defaultValue = "100M")
+  MemorySize maxFileSize;
+
+  @ConfigProperty(name = "app.access-log.max-backups", defaultValue = "5")
+  int maxBackups;
+
+  @ConfigProperty(name = "app.access-log.flush-interval", defaultValue = "1s")
+  Duration flushInterval;
+
+  AccessLogRecord[] ring;
+  int mask;
+
+  /** 次に割り当てるシーケンス番号（リクエストスレッド間で共有） */
+  final AtomicLong claimed = new AtomicLong();
+
+  /** 書き込みスレッドが処理済みのシーケンス番号（書き込みスレッドのみ更新） */
+  volatile long consumed;
+
+  private Counter dropped;
+  private Counter written;
+
+  private volatile boolean running;
+  private Thread writerThread;
+
+  private OutputStream out;
+  private long fileSize;
+  private boolean failing;
+  private final JsonLine line = new JsonLine();
+  private long cachedSecond = Long.MIN_VALUE;
+  private String cachedSecondPrefix;
+
+  @PostConstruct
+  void init() {
+    init(true);
+  }
+
+  /**
+   * リングバッファとファイルを準備
+   *
+   * @param startWriter 書き込みスレッドを起動するか（falseの場合は{@link #drain()}を直接呼び出す）
+   */
+  void init(boolean startWriter) {
+    if (!enabled) {
+      return;
+    }
+    int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+    ring = new AccessLogRecord[capacity];
+    for (int i = 0; i < capacity; i++) {
+      ring[i] = new AccessLogRecord();
+    }
+    mask = capacity - 1;
+    dropped =
+        Counter.builder(DROPPED_COUNTER)
+            .description("書き出さずに破棄したアクセスログ数")
+            .register(registry);
+    written =
+        Counter.builder(WRITTEN_COUNTER)
+            .description("書き出したアクセスログ数")
+            .register(registry);
+
+    try {
+      out = open();
+    } catch (IOException e) {
+      LOG.errorf(e, "アクセスログを開けないため無効化します: %s", path);
+      enabled = false;
+      return;
+    }
+    running = true;
+    if (startWriter) {
+      writerThread = new Thread(this::run, "access-log-writer");
+      writerThread.setDaemon(true);
+      writerThread.start();
+    }
+    LOG.infof("アクセスログを出力します: path=%s, buffer=%d", path, capacity);
+  }
+
+  /** 書き込みスレッドを停止し、残りのレコードを書き出す */
+  @PreDestroy
+  void shutdown() {
+    if (writerThread == null) {
+      // 書き込みスレッドなしで初期化した場合は呼び出し側がdrain()済みのものを閉じるだけ
+      if (running) {
+        running = false;
+        flushQuietly();
+        closeQuietly(out);
+      }
+      return;
+    }
+    running = false;
+    LockSupport.unpark(writerThread);
+    try {
+      writerThread.join(Duration.ofSeconds(5).toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * アクセスログを記録（リクエストスレッドから呼び出し、ブロックしない）
+   *
+   * @param requestId リクエストID
+   * @param method HTTPメソッド
+   * @param route ルートテンプレート
+   * @param status HTTPステータス
+   * @param durationNanos 処理時間（ナノ秒）
+   * @param clientIp クライアントIP（X-Forwarded-Forの値をそのまま渡してよい）
+   * @param bytes レスポンス本文のバイト数（不明な場合は-1）
+   */
+  public void log(
+      String requestId,
+      String method,
+      String route,
+      int status,
+      long durationNanos,
+      String clientIp,
+      long bytes) {
+    if (!enabled) {
+      return;
+    }
+    if (status < 400
+        && successSampleRate < 1.0
+        && ThreadLocalRandom.current().nextDouble() >= successSampleRate) {
+      return;
+    }
+
+    long sequence;
+    do {
+      sequence = claimed.get();
+      if (sequence - consumed >= ring.length) {
+        dropped.increment();
+        return;
+      }
+    } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+    AccessLogRecord record = ring[(int) sequence & mask];
+    record.timestampMillis = System.currentTimeMillis();
+    record.requestId = requestId;
+    record.method = method;
+    record.route = route;
+    record.status = status;
+    record.durationNanos = durationNanos;
+    record.clientIp = clientIp;
+    record.bytes = bytes;
+    record.sequence = sequence;
+  }
+
+  private void run() {
+    long lastFlush = System.nanoTime();
+    boolean dirty = false;
+    while (enabled) {
+      if (drain() > 0) {
+        dirty = true;
+        continue;
+      }
+
+      // 書き込み待ちなし: 一定間隔でフラッシュして待機
+      boolean stopping = !running;
+      if (dirty && (stopping || System.nanoTime() - lastFlush >= flushInterval.toNanos())) {
+        flushQuietly();
+        dirty = false;
+        lastFlush = System.nanoTime();
+      }
+      if (stopping && claimed.get() == consumed) {
+        break;
+      }
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+    flushQuietly();
+    closeQuietly(out);
+  }
+
+  /**
+   * 公開済みのレコードを順に書き出す（書き込みスレッドのみ呼び出す）
+   *
+   * @return 処理したレコード数（無効化した場合は書き出さずに破棄した分を含む）
+   */
+  int drain() {
+    long next = consumed;
+    int processed = 0;
+    while (true) {
+      AccessLogRecord record = ring[(int) next & mask];
+      if (record.sequence != next) {
+        return processed;
+      }
+      if (enabled) {
+        write(record);
+      } else {
+        dropped.increment();
+      }
+      record.clear();
+      consumed = ++next;
+      processed++;
+    }
+  }
+
+  /** 1レコードを書き出す（書き込みの失敗は連続している間1回だけWARN） */
+  private void write(AccessLogRecord record) {
+    JsonLine json = line;
+    json.reset();
+    json.ascii("{\"timestamp\":\"");
+    appendTimestamp(json, record.timestampMillis);
+    json.ascii("\",\"requestId\":").string(record.requestId);
+    json.ascii(",\"method\":").string(record.method);
+    json.ascii(",\"route\":").string(record.route);
+    json.ascii(",\"status\":").number(record.status);
+    json.ascii(",\"durationMs\":").millis(record.durationNanos);
+    json.ascii(",\"clientIp\":").string(clientIp(record.clientIp));
+    json.ascii(",\"bytes\":").number(record.bytes);
+    json.ascii("}\n");
+
+    if (fileSize + json.length() > maxFileSize.asLongValue() && fileSize > 0) {
+      try {
+        rotate();
+      } catch (IOException e) {
+        LOG.errorf(e, "アクセスログのローテーションに失敗したため無効化します（以降はINFOログに出力）: %s", path);
+        enabled = false;
+        dropped.increment();
+        return;
+      }
+    }
+    try {
+      json.writeTo(out);
+      fileSize += json.length();
+      written.increment();
+      failing = false;
+    } catch (IOException e) {
+      if (!failing) {
+        LOG.warnf(e, "アクセスログの書き込みに失敗しました: %s", path);
+        failing = true;
+      }
+      dropped.increment();
+    }
+  }
+
+  /** ISO-8601（UTC、ミリ秒）。秒までの部分は秒が変わったときのみ書式化する */
+  private void appendTimestamp(JsonLine json, long millis) {
+    long second = Math.floorDiv(millis, 1000);
+    if (second != cachedSecond) {
+      cachedSecond = second;
+      String formatted = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(second));
+      // "2024-01-01T00:00:00Z" → "2024-01-01T00:00:00."
+      cachedSecondPrefix = formatted.substring(0, formatted.length() - 1) + ".";
+    }
+    json.ascii(cachedSecondPrefix).digits(Math.floorMod(millis, 1000), 3).ascii("Z");
+  }
+
+  /** X-Forwarded-Forの場合は先頭（元のクライアント）のみ */
+  private static String clientIp(String value) {
+    if (value == null) {
+      return null;
+    }
+    int comma = value.indexOf(',');
+    return (comma < 0 ? value : value.substring(0, comma)).trim();
+  }
+
+  /** 追記用に開く（成功した場合のみファイルサイズを更新） */
+  private OutputStream open() throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    long size = Files.exists(path) ? Files.size(path) : 0;
+    OutputStream stream =
+        new BufferedOutputStream(
+            Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+            WRITE_BUFFER_SIZE);
+    fileSize = size;
+    return stream;
+  }
+
+  /**
+   * access.log → access.log.1 → … → access.log.{maxBackups}（最古は削除）
+   *
+   * <p>現在のストリームは新しいファイルを開けてから閉じる（失敗した場合も閉じたストリームを残さない）。
+   */
+  private void rotate() throws IOException {
+    out.flush();
+    if (maxBackups > 0) {
+      Files.deleteIfExists(backup(maxBackups));
+      for (int i = maxBackups - 1; i >= 1; i--) {
+        Path source = backup(i);
+        if (Files.exists(source)) {
+          Files.move(source, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      Files.move(path, backup(1), StandardCopyOption.REPLACE_EXISTING);
+    } else {
+      Files.deleteIfExists(path);
+    }
+    OutputStream previous = out;
+    out = open();
+    closeQuietly(previous);
+  }
+
+  private Path backup(int index) {
+    return path.resolveSibling(path.getFileName() + "." + index);
+  }
+
+  private void closeQuietly(OutputStream stream) {
+    try {
+      stream.close();
+    } catch (IOException e) {
+      LOG.warnf(e, "アクセスログのクローズに失敗しました: %s", path);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      out.flush();
+    } catch (IOException e) {
+      LOG.warnf(e, "アクセスログのフラッシュに失敗しました: %s", path);
+    }
+  }
+}
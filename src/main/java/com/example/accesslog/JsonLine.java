@@ -0,0 +1,139 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.accesslog;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * JSON Linesの1行をUTF-8で直接組み立てる再利用バッファ
+ *
+ * <p>書き込みスレッド専用。StringBuilderからの文字列化やエンコードを経ないため、1行ごとの割り当てが発生しない。
+ */
+final class JsonLine {
+
+  private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+  private byte[] buffer = new byte[512];
+  private int length;
+
+  void reset() {
+    length = 0;
+  }
+
+  int length() {
+    return length;
+  }
+
+  void writeTo(OutputStream out) throws IOException {
+    out.write(buffer, 0, length);
+  }
+
+  /** エスケープ不要なASCII文字列を追加 */
+  JsonLine ascii(String value) {
+    ensure(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      buffer[length++] = (byte) value.charAt(i);
+    }
+    return this;
+  }
+
+  /** JSON文字列（nullの場合はnull）を追加 */
+  JsonLine string(String value) {
+    if (value == null) {
+      return ascii("null");
+    }
+    // エスケープ（最大6バイト）・UTF-8（最大3バイト/char）を見込んで確保
+    ensure(value.length() * 6 + 2);
+    buffer[length++] = '"';
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        buffer[length++] = '\\';
+        buffer[length++] = (byte) c;
+      } else if (c < 0x20) {
+        buffer[length++] = '\\';
+        buffer[length++] = 'u';
+        buffer[length++] = '0';
+        buffer[length++] = '0';
+        buffer[length++] = HEX[c >> 4];
+        buffer[length++] = HEX[c & 15];
+      } else if (c < 0x80) {
+        buffer[length++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[length++] = (byte) (0xC0 | (c >> 6));
+        buffer[length++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+        buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        buffer[length++] = '?';
+      } else {
+        buffer[length++] = (byte) (0xE0 | (c >> 12));
+        buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buffer[length++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    buffer[length++] = '"';
+    return this;
+  }
+
+  /** 整数を追加 */
+  JsonLine number(long value) {
+    ensure(20);
+    if (value < 0) {
+      if (value == Long.MIN_VALUE) {
+        return ascii(Long.toString(value));
+      }
+      buffer[length++] = '-';
+      value = -value;
+    }
+    int start = length;
+    do {
+      buffer[length++] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value > 0);
+    reverse(start, length - 1);
+    return this;
+  }
+
+  /** 0埋めした固定桁の整数を追加 */
+  JsonLine digits(long value, int width) {
+    ensure(width);
+    for (int i = width - 1; i >= 0; i--) {
+      buffer[length + i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    length += width;
+    return this;
+  }
+
+  /** ナノ秒をミリ秒（小数3桁）で追加 */
+  JsonLine millis(long nanos) {
+    long micros = Math.max(0, nanos) / 1000;
+    return number(micros / 1000).ascii(".").digits(micros % 1000, 3);
+  }
+
+  private void reverse(int from, int to) {
+    while (from < to) {
+      byte tmp = buffer[from];
+      buffer[from++] = buffer[to];
+      buffer[to--] = tmp;
+    }
+  }
+
+  private void ensure(int additional) {
+    if (length + additional > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+    }
+  }
+}
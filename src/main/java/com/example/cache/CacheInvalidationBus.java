@@ -0,0 +1,548 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.cache;
+
+import com.example.event.CacheInvalidatedEvent;
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * インスタンス間のキャッシュ無効化（PostgreSQLのLISTEN/NOTIFY）
+ *
+ * <p>{@link #publish}した領域（例: {@value #USERS}）の版を{@code cache_invalidation_version}で1つ進め、同じ文で
+ * {@code NOTIFY}する。トランザクション内で発行した場合は、完了直前に同じデータソース（トランザクションに参加中の接続）で実行するため、
+ * 版の更新と通知は変更と一緒にコミットされ、ロールバックした変更は通知しない。各インスタンスは専用の接続（プール外）で{@code LISTEN}し、
+ * 他のインスタンスからの無効化を版の順序に関係なく{@link CacheInvalidatedEvent}としてインスタンス内に発火する。
+ * 自インスタンスの変更はコミット後に同じイベントで配信する。
+ *
+ * <p>{@code LISTEN}の接続が切れると間隔を倍にしながら再接続し（{@code reconnect-delay}〜{@code max-reconnect-delay}）、
+ * 再接続後に版の表を読んで、受信済みより進んだ領域を無効化する（通知は接続中のセッションにしか届かないため）。
+ * 受信済みの版は{@code LISTEN}の接続で受け取った通知（自インスタンスの分を含む）だけで進め、この確認にのみ使う。
+ *
+ * <p>通知に失敗しても変更のトランザクションは失敗させない（セーブポイントまで戻し、ERRORログと{@value #PUBLISHED_NAME}の
+ * {@code result=error}に記録する。他のインスタンスではキャッシュのTTLまで古い値が残る）。版の表（{@code
+ * ddl/database-setup.sql}・マイグレーションV2で作成）は起動時に1回確認し、ない場合はERRORログを出してインスタンス内の配信に切り替える。
+ *
+ * <p>PostgreSQL以外（開発・テストのH2）または{@code app.cache.invalidation.enabled=false}の場合は、版をメモリに持ち、
+ * インスタンス内にのみ配信する。
+ */
+@ApplicationScoped
+public class CacheInvalidationBus {
+
+  private static final Logger LOG = Logger.getLogger(CacheInvalidationBus.class);
+
+  /** ユーザー（{@code users}テーブル）の領域 */
+  public static final String USERS = "users";
+
+  /** 発行した無効化の数（{@code region}・{@code result}別） */
+  public static final String PUBLISHED_NAME = "app.cache.invalidation.published";
+
+  /** 他のインスタンスから受け取った無効化の数（{@code region}・{@code source}別） */
+  public static final String RECEIVED_NAME = "app.cache.invalidation.received";
+
+  /** {@code LISTEN}の接続の再接続回数 */
+  public static final String RECONNECTS_NAME = "app.cache.invalidation.reconnects";
+
+  /** {@code LISTEN}の接続が有効か（1/0） */
+  public static final String CONNECTED_NAME = "app.cache.invalidation.connected";
+
+  /** {@code LISTEN}の接続のアプリケーション名（{@code pg_stat_activity.application_name}） */
+  public static final String LISTENER_APPLICATION_NAME = "cache-invalidation-listener";
+
+  private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+
+  private static final Pattern REGION = Pattern.compile("[A-Za-z0-9_.-]{1,64}");
+
+  /** {@code getNotifications}の待ち時間（停止・接続確認の間隔の下限） */
+  private static final int POLL_TIMEOUT_MILLIS = 1000;
+
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+  /** 版を進めて通知（1文なので版の更新と通知が同じトランザクションでコミットされる） */
+  private static final String PUBLISH =
+      "WITH v AS ("
+          + "INSERT INTO cache_invalidation_version (region, version) VALUES (?, 1) "
+          + "ON CONFLICT (region) DO UPDATE SET version = cache_invalidation_version.version + 1 "
+          + "RETURNING version) "
+          + "SELECT version, pg_notify(?, ? || ':' || version || ':' || ?) FROM v";
+
+  private static final String CHECK_TABLE = "SELECT 1 FROM cache_invalidation_version WHERE 1 = 0";
+
+  /** トランザクション内の通知の失敗で変更ごと中断されないように、通知の前に設定する */
+  private static final String SAVEPOINT = "cache_invalidation";
+
+  private static final String SELECT_VERSIONS =
+      "SELECT region, version FROM cache_invalidation_version";
+
+  @Inject AgroalDataSource dataSource;
+
+  @Inject Event<CacheInvalidatedEvent> invalidated;
+
+  @Inject MeterRegistry registry;
+
+  @Inject TransactionSynchronizationRegistry synchronizationRegistry;
+
+  /** PostgreSQLの場合にLISTEN/NOTIFYでインスタンス間に配信する */
+  @ConfigProperty(name = "app.cache.invalidation.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "app.cache.invalidation.channel", defaultValue = "app_cache_invalidation")
+  String channel;
+
+  @ConfigProperty(name = "app.cache.invalidation.reconnect-delay", defaultValue = "1s")
+  Duration reconnectDelay;
+
+  @ConfigProperty(name = "app.cache.invalidation.max-reconnect-delay", defaultValue = "30s")
+  Duration maxReconnectDelay;
+
+  /** 通知のない間に{@code LISTEN}の接続を確認する間隔 */
+  @ConfigProperty(name = "app.cache.invalidation.check-interval", defaultValue = "30s")
+  Duration checkInterval;
+
+  @ConfigProperty(name = "quarkus.datasource.db-kind")
+  String dbKind;
+
+  @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+  Optional<String> jdbcUrl;
+
+  @ConfigProperty(name = "quarkus.datasource.username")
+  Optional<String> username;
+
+  @ConfigProperty(name = "quarkus.datasource.password")
+  Optional<String> password;
+
+  /** 自インスタンスの識別子（自分の通知を無視するため） */
+  private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+  /** 領域→自インスタンスが発行した最新の版 */
+  private final Map<String, Long> ownVersions = new ConcurrentHashMap<>();
+
+  /** 領域→{@code LISTEN}の接続で受け取った最新の版（再接続時に切断中の変更を判定するためだけに使う） */
+  private final Map<String, Long> seenVersions = new ConcurrentHashMap<>();
+
+  /** 発行待ちの領域（短時間に続いた発行をまとめる） */
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+  private boolean cluster;
+
+  private volatile boolean running;
+
+  private volatile boolean connected;
+
+  private volatile Connection listenerConnection;
+
+  /** 起動後の最初の版の読み込みを終えたか（受信スレッドのみ参照） */
+  private boolean caughtUp;
+
+  private Thread listenerThread;
+
+  private ExecutorService publisher;
+
+  private Counter reconnects;
+
+  void start(@Observes StartupEvent event) {
+    if (!CHANNEL.matcher(channel).matches()) {
+      throw new IllegalArgumentException(
+          "app.cache.invalidation.channel must be a lower-case SQL identifier: " + channel);
+    }
+    cluster = enabled && "postgresql".equals(dbKind) && jdbcUrl.isPresent();
+    if (!cluster) {
+      LOG.debugf("キャッシュ無効化はインスタンス内にのみ配信します（db-kind=%s）", dbKind);
+      return;
+    }
+    if (!versionTableExists()) {
+      cluster = false;
+      return;
+    }
+    reconnects =
+        Counter.builder(RECONNECTS_NAME)
+            .description("キャッシュ無効化の受信接続の再接続回数")
+            .register(registry);
+    Gauge.builder(CONNECTED_NAME, this, bus -> bus.connected ? 1 : 0)
+        .description("キャッシュ無効化の受信接続が有効か")
+        .register(registry);
+    publisher =
+        Executors.newSingleThreadExecutor(
+            task -> {
+              Thread thread = new Thread(task, "cache-invalidation-publisher");
+              thread.setDaemon(true);
+              return thread;
+            });
+    running = true;
+    listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+    listenerThread.setDaemon(true);
+    listenerThread.start();
+    LOG.infof("キャッシュ無効化をLISTEN/NOTIFYで配信します: channel=%s, node=%s", channel, nodeId);
+  }
+
+  /** 版の表を参照できるか（できない場合はERRORログを出す） */
+  private boolean versionTableExists() {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery(CHECK_TABLE)) {
+      return true;
+    } catch (SQLException e) {
+      LOG.errorf(
+          "キャッシュ無効化の版の表を参照できないため、インスタンス内にのみ配信します"
+              + "（他のインスタンスではTTLまで古い値が残ります。ddl/database-setup.sqlを確認してください）: %s",
+          e.getMessage());
+      return false;
+    }
+  }
+
+  /** 受信を停止し、発行待ちの無効化を送り切る */
+  @PreDestroy
+  void shutdown() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    closeQuietly(listenerConnection);
+    listenerThread.interrupt();
+    publisher.shutdown();
+    try {
+      publisher.awaitTermination(5, TimeUnit.SECONDS);
+      listenerThread.join(Duration.ofSeconds(5).toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * 領域の無効化を発行
+   *
+   * <p>トランザクション内では完了直前に同じトランザクションで通知し、コミット後にインスタンス内へ配信する（同じトランザクションでの2回目以降は何もしない）。
+   * 通知できなかった場合も変更はそのままコミットする。トランザクション外（コミット済みの変更）では、PostgreSQLの場合は非同期に送信する。
+   *
+   * @param region 領域
+   */
+  public void publish(String region) {
+    if (!REGION.matcher(region).matches()) {
+      throw new IllegalArgumentException("Invalid cache region: " + region);
+    }
+    if (synchronizationRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+      publishOnCommit(region);
+      return;
+    }
+    if (!cluster) {
+      publishLocal(region);
+      return;
+    }
+    if (running && pending.add(region)) {
+      publisher.execute(
+          () -> {
+            pending.remove(region);
+            send(region);
+          });
+    }
+  }
+
+  private void publishOnCommit(String region) {
+    Object key = new PublishKey(region);
+    if (synchronizationRegistry.getResource(key) != null) {
+      return;
+    }
+    synchronizationRegistry.putResource(key, Boolean.TRUE);
+    synchronizationRegistry.registerInterposedSynchronization(
+        new Synchronization() {
+          /** 通知した版（未通知・失敗は-1） */
+          private long version = -1;
+
+          @Override
+          public void beforeCompletion() {
+            if (!cluster) {
+              return;
+            }
+            // トランザクションに参加中の接続が返るため、版の更新と通知は変更と一緒にコミットされる
+            try {
+              version = notifyInTransaction(region);
+            } catch (SQLException | RuntimeException e) {
+              published(region, "error").increment();
+              LOG.errorf(
+                  "キャッシュ無効化を発行できませんでした（変更はコミットし、他のインスタンスではTTLまで古い値が残ります）:"
+                      + " region=%s, %s",
+                  region, e.getMessage());
+            }
+          }
+
+          @Override
+          public void afterCompletion(int status) {
+            if (status != Status.STATUS_COMMITTED) {
+              return;
+            }
+            if (cluster) {
+              if (version >= 0) {
+                sent(region, version);
+              }
+            } else {
+              publishLocal(region);
+            }
+          }
+        });
+  }
+
+  private void publishLocal(String region) {
+    long version =
+        ownVersions.compute(
+            region,
+            (key, own) -> Math.max(own != null ? own : 0L, seenVersions.getOrDefault(key, 0L)) + 1);
+    published(region, "local").increment();
+    deliver(region, version, false);
+  }
+
+  private void send(String region) {
+    try (Connection connection = dataSource.getConnection()) {
+      sent(region, notifyVersion(connection, region));
+    } catch (SQLException e) {
+      published(region, "error").increment();
+      LOG.errorf(
+          "キャッシュ無効化を発行できませんでした（他のインスタンスではTTLまで古い値が残ります）: region=%s, %s",
+          region, e.getMessage());
+    }
+  }
+
+  /** トランザクション内で版を進めて通知（失敗した場合はセーブポイントまで戻し、変更のトランザクションは続行できる） */
+  private long notifyInTransaction(String region) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement savepoint = connection.createStatement()) {
+      savepoint.execute("SAVEPOINT " + SAVEPOINT);
+      long version;
+      try {
+        version = notifyVersion(connection, region);
+      } catch (SQLException e) {
+        savepoint.execute("ROLLBACK TO SAVEPOINT " + SAVEPOINT);
+        throw e;
+      }
+      savepoint.execute("RELEASE SAVEPOINT " + SAVEPOINT);
+      return version;
+    }
+  }
+
+  /** 版を進めて通知（トランザクション外では文の実行時、トランザクション内ではコミット時に配信される） */
+  private long notifyVersion(Connection connection, String region) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(PUBLISH)) {
+      statement.setString(1, region);
+      statement.setString(2, channel);
+      statement.setString(3, region);
+      statement.setString(4, nodeId);
+      try (ResultSet rs = statement.executeQuery()) {
+        rs.next();
+        return rs.getLong(1);
+      }
+    }
+  }
+
+  /** 発行済みの版を記録してインスタンス内に配信 */
+  private void sent(String region, long version) {
+    ownVersions.merge(region, version, Math::max);
+    published(region, "notify").increment();
+    deliver(region, version, false);
+  }
+
+  /**
+   * 通知を受信（{@code 領域:版:発行元}）
+   *
+   * @param payload 通知の本文
+   */
+  public void handle(String payload) {
+    String[] parts = payload.split(":", 3);
+    long version;
+    try {
+      version = parts.length == 3 ? Long.parseLong(parts[1]) : -1;
+    } catch (NumberFormatException e) {
+      version = -1;
+    }
+    if (version < 0 || !REGION.matcher(parts[0]).matches()) {
+      LOG.warnf("不正なキャッシュ無効化の通知を無視します: %s", payload);
+      return;
+    }
+    String region = parts[0];
+    seenVersions.merge(region, version, Math::max);
+    // 自インスタンスの変更はコミット後に配信済み。他のインスタンスの通知は版が前後して届いても必ず反映する
+    if (nodeId.equals(parts[2])) {
+      return;
+    }
+    received(region, "notify").increment();
+    deliver(region, version, true);
+  }
+
+  private void deliver(String region, long version, boolean remote) {
+    try {
+      invalidated.fire(new CacheInvalidatedEvent(region, version, remote));
+    } catch (RuntimeException e) {
+      LOG.errorf(e, "キャッシュ無効化の処理に失敗しました: region=%s, version=%d", region, version);
+    }
+  }
+
+  /** 専用の接続で{@code LISTEN}し、切断時は再接続する（受信スレッド） */
+  private void listen() {
+    long delay = reconnectDelay.toMillis();
+    while (running) {
+      try (Connection connection =
+          DriverManager.getConnection(jdbcUrl.get(), listenerProperties())) {
+        listenerConnection = connection;
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + channel);
+        }
+        // LISTENの後に版を読むため、その間の通知も取りこぼさない
+        catchUp(connection);
+        connected = true;
+        delay = reconnectDelay.toMillis();
+        receive(connection);
+      } catch (SQLException | RuntimeException e) {
+        if (!running) {
+          break;
+        }
+        reconnects.increment();
+        LOG.warnf("キャッシュ無効化の受信接続が切れました。%dms後に再接続します: %s", delay, e.getMessage());
+      } finally {
+        connected = false;
+        listenerConnection = null;
+      }
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      delay = Math.min(delay * 2, maxReconnectDelay.toMillis());
+    }
+  }
+
+  private Properties listenerProperties() {
+    Properties properties = new Properties();
+    username.ifPresent(value -> properties.setProperty("user", value));
+    password.ifPresent(value -> properties.setProperty("password", value));
+    properties.setProperty("ApplicationName", LISTENER_APPLICATION_NAME);
+    return properties;
+  }
+
+  private void receive(Connection connection) throws SQLException {
+    PGConnection pg = connection.unwrap(PGConnection.class);
+    long lastCheck = System.nanoTime();
+    while (running) {
+      PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MILLIS);
+      if (notifications != null) {
+        for (PGNotification notification : notifications) {
+          handle(notification.getParameter());
+        }
+        lastCheck = System.nanoTime();
+      } else if (System.nanoTime() - lastCheck >= checkInterval.toNanos()) {
+        // 相手が応答しなくなった接続はgetNotificationsでは検出できない
+        if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+          throw new SQLException("LISTEN connection is no longer valid");
+        }
+        lastCheck = System.nanoTime();
+      }
+    }
+  }
+
+  /**
+   * 版の表を読み、受信済みより進んだ領域を無効化する（起動直後は版を覚えるだけ）
+   *
+   * <p>切断中に自インスタンスが発行した分も進んだ領域に含まれる（余分な消去になるだけで、他のインスタンスの変更を取りこぼさない）。
+   */
+  private void catchUp(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery(SELECT_VERSIONS)) {
+      while (rs.next()) {
+        String region = rs.getString(1);
+        long version = rs.getLong(2);
+        long seen = seenVersions.getOrDefault(region, 0L);
+        seenVersions.merge(region, version, Math::max);
+        if (caughtUp && version > seen) {
+          received(region, "catch-up").increment();
+          LOG.infof("切断中のキャッシュ無効化を反映します: region=%s, version=%d", region, version);
+          deliver(region, version, true);
+        }
+      }
+    }
+    caughtUp = true;
+  }
+
+  private Counter published(String region, String result) {
+    return Counter.builder(PUBLISHED_NAME)
+        .description("発行したキャッシュ無効化の数")
+        .tags("region", region, "result", result)
+        .register(registry);
+  }
+
+  private Counter received(String region, String source) {
+    return Counter.builder(RECEIVED_NAME)
+        .description("他のインスタンスから受け取ったキャッシュ無効化の数")
+        .tags("region", region, "source", source)
+        .register(registry);
+  }
+
+  private static void closeQuietly(Connection connection) {
+    if (connection != null) {
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        LOG.debugf("キャッシュ無効化の受信接続を閉じられませんでした: %s", e.getMessage());
+      }
+    }
+  }
+
+  /** トランザクションに登録済みの発行のキー */
+  private record PublishKey(String region) {}
+
+  /**
+   * 領域の受信・発行済みの版
+   *
+   * @param region 領域
+   * @return 版（未発行は0）
+   */
+  public long version(String region) {
+    return Math.max(ownVersions.getOrDefault(region, 0L), seenVersions.getOrDefault(region, 0L));
+  }
+
+  /** LISTEN/NOTIFYでインスタンス間に配信しているか */
+  public boolean isCluster() {
+    return cluster;
+  }
+
+  /** {@code LISTEN}の接続が有効か */
+  public boolean isConnected() {
+    return connected;
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+}
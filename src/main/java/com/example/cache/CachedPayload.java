@@ -0,0 +1,153 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.cache;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * シリアライズ済みレスポンス本文とETagの組
+ *
+ * <p>生成時に一度だけ本文をバイト列化してETagを計算し、リクエスト毎は条件付きGET（If-None-Match）の判定と書き出しのみを行う。
+ */
+public final class CachedPayload {
+
+  private final byte[] body;
+  private final String etag;
+  private final String mediaType;
+
+  private CachedPayload(byte[] body, String etag, String mediaType) {
+    this.body = body;
+    this.etag = etag;
+    this.mediaType = mediaType;
+  }
+
+  /**
+   * バイト列からペイロードを生成
+   *
+   * @param body レスポンス本文（以後変更しないこと）
+   * @param mediaType Content-Type
+   * @return ペイロード
+   */
+  public static CachedPayload of(byte[] body, String mediaType) {
+    return new CachedPayload(body, computeEtag(body), mediaType);
+  }
+
+  /**
+   * ETagを指定してペイロードを生成
+   *
+   * @param body レスポンス本文（以後変更しないこと）
+   * @param mediaType Content-Type
+   * @param etag 引用符付きのETag
+   * @return ペイロード
+   */
+  public static CachedPayload of(byte[] body, String mediaType, String etag) {
+    return new CachedPayload(body, etag, mediaType);
+  }
+
+  /**
+   * JSONバイト列からペイロードを生成
+   *
+   * @param body JSON本文
+   * @return ペイロード
+   */
+  public static CachedPayload json(byte[] body) {
+    return of(body, MediaType.APPLICATION_JSON + ";charset=UTF-8");
+  }
+
+  /** 強いETag（本文のSHA-256先頭64bit） */
+  public static String computeEtag(byte[] body) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+      return '"' + HexFormat.of().formatHex(digest, 0, 8) + '"';
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  public String getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * If-None-Matchヘッダーがこのペイロードに一致するか判定
+   *
+   * @param ifNoneMatch If-None-Matchヘッダーの値
+   * @return 一致する場合true（304を返してよい）
+   */
+  public boolean matches(String ifNoneMatch) {
+    if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+      return false;
+    }
+    if ("*".equals(ifNoneMatch.trim())) {
+      return true;
+    }
+    // 弱い比較（W/接頭辞を無視）でカンマ区切りの各タグを照合
+    int length = ifNoneMatch.length();
+    int start = 0;
+    while (start < length) {
+      int end = ifNoneMatch.indexOf(',', start);
+      if (end < 0) {
+        end = length;
+      }
+      int from = start;
+      int to = end;
+      while (from < to && ifNoneMatch.charAt(from) == ' ') {
+        from++;
+      }
+      while (to > from && ifNoneMatch.charAt(to - 1) == ' ') {
+        to--;
+      }
+      if (to - from > 2 && ifNoneMatch.startsWith("W/", from)) {
+        from += 2;
+      }
+      if (to - from == etag.length() && ifNoneMatch.regionMatches(from, etag, 0, etag.length())) {
+        return true;
+      }
+      start = end + 1;
+    }
+    return false;
+  }
+
+  /**
+   * 条件付きGETを考慮したレスポンスビルダーを作成
+   *
+   * @param headers リクエストヘッダー
+   * @return 一致時は304、それ以外は本文付き200のビルダー
+   */
+  public Response.ResponseBuilder toResponse(HttpHeaders headers) {
+    String ifNoneMatch = headers != null ? headers.getHeaderString(HttpHeaders.IF_NONE_MATCH) : null;
+    if (matches(ifNoneMatch)) {
+      return Response.notModified().header(HttpHeaders.ETAG, etag);
+    }
+    return Response.ok(body, mediaType).header(HttpHeaders.ETAG, etag);
+  }
+
+  @Override
+  public String toString() {
+    return "CachedPayload{"
+        + "etag="
+        + etag
+        + ", mediaType='"
+        + mediaType
+        + '\''
+        + ", size="
+        + body.length
+        + '}';
+  }
+}
@@ -0,0 +1,79 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.cache;
+
+import io.quarkus.qute.Template;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.MediaType;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.jboss.logging.Logger;
+
+/**
+ * 描画済みHTMLページキャッシュ
+ *
+ * <p>ページの出力はテンプレートとロケールのみで決まるため、(テンプレート, ロケール)ごとに一度だけ描画し、非圧縮・gzipの両バリアントを保持する。
+ * テンプレートが再解析された場合（開発モードでの変更など）は生成IDが変わるため、次回参照時に描画し直す。
+ */
+@ApplicationScoped
+public class PageRenderCache {
+
+  private static final Logger LOG = Logger.getLogger(PageRenderCache.class);
+
+  private static final String HTML = MediaType.TEXT_HTML + ";charset=UTF-8";
+
+  private record Key(String templateId, Locale locale) {}
+
+  private record Entry(String generatedId, PrecompressedPayload payload) {}
+
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * 描画済みページを取得
+   *
+   * @param template テンプレート
+   * @param locale ロケール
+   * @param data 未描画時に呼び出すテンプレートデータ生成関数
+   * @return 描画済みページ
+   */
+  public PrecompressedPayload get(
+      Template template, Locale locale, Function<Locale, Map<String, ?>> data) {
+    Key key = new Key(template.getId(), locale);
+    String generatedId = template.getGeneratedId();
+    Entry entry = entries.get(key);
+    if (entry == null || !entry.generatedId().equals(generatedId)) {
+      entry = entries.compute(key, (k, existing) -> render(existing, template, locale, data));
+    }
+    return entry.payload();
+  }
+
+  /** キャッシュをすべて破棄 */
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  private Entry render(
+      Entry existing, Template template, Locale locale, Function<Locale, Map<String, ?>> data) {
+    String generatedId = template.getGeneratedId();
+    if (existing != null && existing.generatedId().equals(generatedId)) {
+      return existing;
+    }
+    var instance = template.instance();
+    data.apply(locale).forEach(instance::data);
+    byte[] html = instance.render().getBytes(StandardCharsets.UTF_8);
+    PrecompressedPayload payload = PrecompressedPayload.of(html, HTML);
+    LOG.debugf(
+        "ページを描画しました: template=%s, locale=%s, size=%d, gzip=%d",
+        template.getId(),
+        locale,
+        html.length,
+        payload.getGzip() != null ? payload.getGzip().getBody().length : -1);
+    return new Entry(generatedId, payload);
+  }
+}
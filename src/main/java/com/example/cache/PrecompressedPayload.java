@@ -0,0 +1,171 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.cache;
+
+import com.example.service.QualityValues;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 圧縮済みバリアント付きのレスポンス本文
+ *
+ * <p>非圧縮とgzipの両バリアントを生成時に用意し、リクエスト時はAccept-Encodingに応じて選択して書き出すだけにする。
+ * ETagはバリアントごとに区別する（gzipは{@code -gz}接尾辞）。
+ */
+public final class PrecompressedPayload {
+
+  private static final String GZIP = "gzip";
+
+  private static final String IDENTITY = "identity";
+
+  private final CachedPayload identity;
+  private final CachedPayload gzip;
+
+  private PrecompressedPayload(CachedPayload identity, CachedPayload gzip) {
+    this.identity = identity;
+    this.gzip = gzip;
+  }
+
+  /**
+   * 本文から各バリアントを生成
+   *
+   * <p>gzipで小さくならない場合はgzipバリアントを持たない。
+   *
+   * @param body 非圧縮の本文
+   * @param mediaType Content-Type
+   * @return ペイロード
+   */
+  public static PrecompressedPayload of(byte[] body, String mediaType) {
+    return of(body, gzip(body), mediaType);
+  }
+
+  /**
+   * 圧縮済みの本文から各バリアントを生成（ビルド時に圧縮済みのアセット用）
+   *
+   * @param body 非圧縮の本文
+   * @param compressed gzip圧縮済みの本文（存在しない場合はnull）
+   * @param mediaType Content-Type
+   * @return ペイロード
+   */
+  public static PrecompressedPayload of(byte[] body, byte[] compressed, String mediaType) {
+    CachedPayload identity = CachedPayload.of(body, mediaType);
+    CachedPayload gzip = null;
+    if (compressed != null && compressed.length < body.length) {
+      String etag = identity.getEtag();
+      gzip =
+          CachedPayload.of(
+              compressed, mediaType, etag.substring(0, etag.length() - 1) + "-gz\"");
+    }
+    return new PrecompressedPayload(identity, gzip);
+  }
+
+  /** 最大圧縮レベルでgzip圧縮（生成時に一度だけ実行） */
+  public static byte[] gzip(byte[] body) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 3 + 64);
+    try (GZIPOutputStream gz =
+        new GZIPOutputStream(out) {
+          {
+            def.setLevel(Deflater.BEST_COMPRESSION);
+          }
+        }) {
+      gz.write(body);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  public CachedPayload getIdentity() {
+    return identity;
+  }
+
+  /** gzipバリアント（圧縮効果がない場合はnull） */
+  public CachedPayload getGzip() {
+    return gzip;
+  }
+
+  /**
+   * Accept-Encodingに応じたバリアントを選択
+   *
+   * @param acceptEncoding Accept-Encodingヘッダーの値
+   * @return 選択されたバリアント
+   */
+  public CachedPayload select(String acceptEncoding) {
+    return gzip != null && acceptsGzip(acceptEncoding) ? gzip : identity;
+  }
+
+  /**
+   * 条件付きGETとコンテンツネゴシエーションを考慮したレスポンスビルダーを作成
+   *
+   * @param headers リクエストヘッダー
+   * @return 一致時は304、それ以外は選択されたバリアントの200のビルダー
+   */
+  public Response.ResponseBuilder toResponse(HttpHeaders headers) {
+    String acceptEncoding =
+        headers != null ? headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING) : null;
+    CachedPayload selected = select(acceptEncoding);
+    Response.ResponseBuilder builder = selected.toResponse(headers);
+    if (selected == gzip) {
+      builder.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+    }
+    return builder;
+  }
+
+  /**
+   * Accept-Encodingがgzipを選ぶか
+   *
+   * <p>q値（RFC 9110 §12.5.3）で判定する。{@code gzip}の明示指定がなければ{@code *}のq値を使い、q=0は拒否とみなす。
+   * identityは明示指定（または{@code *}）がない限り最も低い優先度とし、gzipのq値がidentity以上ならgzipを選ぶ。
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    int gzipQ = -1;
+    int identityQ = -1;
+    int wildcardQ = -1;
+    int length = acceptEncoding.length();
+    int pos = 0;
+    while (pos < length) {
+      int end = acceptEncoding.indexOf(',', pos);
+      if (end < 0) {
+        end = length;
+      }
+      int params = acceptEncoding.indexOf(';', pos);
+      if (params < 0 || params > end) {
+        params = end;
+      }
+      int start = QualityValues.skipWhitespace(acceptEncoding, pos, params);
+      int tokenLength = QualityValues.trimWhitespace(acceptEncoding, start, params) - start;
+      int q =
+          params < end ? QualityValues.parse(acceptEncoding, params + 1, end) : QualityValues.MAX;
+      if (gzipQ < 0 && isToken(acceptEncoding, start, tokenLength, GZIP)) {
+        gzipQ = q;
+      } else if (identityQ < 0 && isToken(acceptEncoding, start, tokenLength, IDENTITY)) {
+        identityQ = q;
+      } else if (wildcardQ < 0 && tokenLength == 1 && acceptEncoding.charAt(start) == '*') {
+        wildcardQ = q;
+      }
+      pos = end + 1;
+    }
+    if (gzipQ < 0) {
+      gzipQ = Math.max(wildcardQ, 0);
+    }
+    if (identityQ < 0) {
+      identityQ = Math.max(wildcardQ, 0);
+    }
+    return gzipQ > 0 && gzipQ >= identityQ;
+  }
+
+  private static boolean isToken(String value, int start, int length, String token) {
+    return length == token.length() && value.regionMatches(true, start, token, 0, length);
+  }
+}
@@ -0,0 +1,366 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.config;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * バージョン付きのスキーママイグレーション
+ *
+ * <p>{@code db/migration/<場所>/index.txt}に列挙した{@code V<版>__<説明>.sql}を版の順に適用し、{@value #HISTORY_TABLE}に
+ * 版・チェックサム（SHA-256）・所要時間を記録する。適用済みの版は読み飛ばすため、既存のデータベースでは履歴を1回読むだけで起動する。
+ * 適用済みのスクリプトが変更されている場合は起動を中止する（適用済みのスクリプトは編集せず、新しい版を追加する）。
+ *
+ * <p>各スクリプトの文は1つのJDBCバッチとして、履歴の記録と同じトランザクションで実行する（失敗した版は記録されず、次回の起動で再実行される）。
+ * H2はDDLを暗黙にコミットするため、DDLの途中で失敗した場合は{@code IF NOT EXISTS}で再実行できるように書く。
+ * PostgreSQLではアドバイザリロックで、同時に起動した複数のインスタンスが同じ版を適用しないようにする。
+ *
+ * <p>場所は{@code app.database.migration.location}（未設定はdb-kind、つまり{@code h2}・{@code postgresql}）。
+ * 起動時の適用は{@code app.database.migration.enabled}で切り替える（本番は{@code DB_MIGRATE_AT_START=true}で有効化）。
+ */
+@ApplicationScoped
+public class SchemaMigrator {
+
+  private static final Logger LOG = Logger.getLogger(SchemaMigrator.class);
+
+  /** 適用済みの版の履歴 */
+  public static final String HISTORY_TABLE = "schema_history";
+
+  private static final String BASE = "db/migration/";
+
+  private static final Pattern SCRIPT = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+  private static final Pattern DOLLAR_TAG = Pattern.compile("\\$(?:[A-Za-z_][A-Za-z0-9_]*)?\\$");
+
+  /** マイグレーション中に保持するPostgreSQLのアドバイザリロックのキー */
+  private static final long LOCK_KEY = 0x5343_4845_4D41L;
+
+  private static final String CREATE_HISTORY =
+      "CREATE TABLE IF NOT EXISTS "
+          + HISTORY_TABLE
+          + " (version INT PRIMARY KEY, description VARCHAR(200) NOT NULL,"
+          + " script VARCHAR(200) NOT NULL, checksum VARCHAR(64) NOT NULL,"
+          + " execution_time_ms BIGINT NOT NULL,"
+          + " installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+
+  private static final String INSERT_HISTORY =
+      "INSERT INTO "
+          + HISTORY_TABLE
+          + " (version, description, script, checksum, execution_time_ms) VALUES (?, ?, ?, ?, ?)";
+
+  @Inject DataSource dataSource;
+
+  @ConfigProperty(name = "app.database.migration.enabled", defaultValue = "true")
+  boolean enabled;
+
+  /** {@code db/migration/}配下の場所（未設定はdb-kind） */
+  @ConfigProperty(name = "app.database.migration.location")
+  Optional<String> location;
+
+  @ConfigProperty(name = "quarkus.datasource.db-kind")
+  String dbKind;
+
+  /**
+   * マイグレーション
+   *
+   * @param version 版
+   * @param description 説明
+   * @param script スクリプト名
+   * @param checksum スクリプトのSHA-256（16進）
+   * @param sql スクリプト
+   */
+  public record Migration(
+      int version, String description, String script, String checksum, String sql) {
+
+    /**
+     * スクリプト名と内容からマイグレーションを生成
+     *
+     * @param script スクリプト名（{@code V<版>__<説明>.sql}）
+     * @param sql スクリプト
+     * @return マイグレーション
+     */
+    public static Migration of(String script, String sql) {
+      Matcher matcher = SCRIPT.matcher(script);
+      if (!matcher.matches()) {
+        throw new IllegalArgumentException(
+            "Migration script must be named V<version>__<description>.sql: " + script);
+      }
+      return new Migration(
+          Integer.parseInt(matcher.group(1)),
+          matcher.group(2).replace('_', ' '),
+          script,
+          sha256(sql),
+          sql);
+    }
+  }
+
+  /**
+   * マイグレーションの結果
+   *
+   * @param currentVersion 適用後の版（未適用は0）
+   * @param applied 今回適用した版
+   * @param elapsedMillis 所要時間
+   */
+  public record Result(int currentVersion, List<Integer> applied, long elapsedMillis) {}
+
+  /** 起動時にマイグレーションを適用（データベースを使う他の起動処理より先） */
+  void onStart(@Observes @Priority(0) StartupEvent event) {
+    if (!enabled) {
+      LOG.info("スキーママイグレーションは無効です（app.database.migration.enabled=false）");
+      return;
+    }
+    String from = location.orElse(dbKind);
+    try (Connection connection = dataSource.getConnection()) {
+      Result result = migrate(connection, load(from));
+      if (result.applied().isEmpty()) {
+        LOG.infof("スキーマは最新です: V%d（%dms）", result.currentVersion(), result.elapsedMillis());
+      } else {
+        LOG.infof(
+            "スキーママイグレーションを適用しました: %s → V%d（%dms）",
+            result.applied(), result.currentVersion(), result.elapsedMillis());
+      }
+    } catch (SQLException | IOException | RuntimeException e) {
+      LOG.errorf(e, "スキーママイグレーションに失敗しました: %s", from);
+      throw new IllegalStateException("Schema migration failed: " + from, e);
+    }
+  }
+
+  /**
+   * 場所のマイグレーションを読み込む
+   *
+   * @param from {@code db/migration/}配下の場所
+   * @return 版の順のマイグレーション
+   */
+  public List<Migration> load(String from) throws IOException {
+    String index = read(BASE + from + "/index.txt");
+    List<Migration> migrations = new ArrayList<>();
+    for (String line : index.split("\n")) {
+      String script = line.trim();
+      if (script.isEmpty() || script.startsWith("#")) {
+        continue;
+      }
+      Migration migration = Migration.of(script, read(BASE + from + "/" + script));
+      if (!migrations.isEmpty()
+          && migrations.get(migrations.size() - 1).version() >= migration.version()) {
+        throw new IllegalStateException(
+            "Migrations in " + from + "/index.txt must be in ascending version order: " + script);
+      }
+      migrations.add(migration);
+    }
+    return migrations;
+  }
+
+  /**
+   * 未適用のマイグレーションを適用
+   *
+   * @param connection 接続
+   * @param migrations 版の順のマイグレーション
+   * @return 結果
+   * @throws IllegalStateException 適用済みのスクリプトが変更されている
+   */
+  public Result migrate(Connection connection, List<Migration> migrations) throws SQLException {
+    long start = System.nanoTime();
+    boolean postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+    if (postgres) {
+      execute(connection, "SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+    }
+    try {
+      execute(connection, CREATE_HISTORY);
+      Map<Integer, String> applied = applied(connection);
+      List<Integer> appliedNow = new ArrayList<>();
+      for (Migration migration : migrations) {
+        String checksum = applied.remove(migration.version());
+        if (checksum == null) {
+          apply(connection, migration);
+          appliedNow.add(migration.version());
+        } else if (!checksum.equals(migration.checksum())) {
+          throw new IllegalStateException(
+              "Migration "
+                  + migration.script()
+                  + " has changed since it was applied (checksum "
+                  + migration.checksum()
+                  + ", applied "
+                  + checksum
+                  + "); add a new version instead");
+        }
+      }
+      if (!applied.isEmpty()) {
+        LOG.warnf("このアプリケーションにない版が適用されています: %s", applied.keySet());
+      }
+      int current =
+          Math.max(
+              migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version(),
+              applied.keySet().stream().mapToInt(Integer::intValue).max().orElse(0));
+      return new Result(current, appliedNow, (System.nanoTime() - start) / 1_000_000L);
+    } finally {
+      if (postgres) {
+        execute(connection, "SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+      }
+    }
+  }
+
+  private static Map<Integer, String> applied(Connection connection) throws SQLException {
+    Map<Integer, String> applied = new TreeMap<>();
+    try (Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT version, checksum FROM " + HISTORY_TABLE)) {
+      while (rs.next()) {
+        applied.put(rs.getInt(1), rs.getString(2));
+      }
+    }
+    return applied;
+  }
+
+  /** スクリプトの文を1つのバッチで実行し、同じトランザクションで履歴に記録する */
+  private static void apply(Connection connection, Migration migration) throws SQLException {
+    long start = System.nanoTime();
+    List<String> statements = split(migration.sql());
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try (Statement statement = connection.createStatement();
+        PreparedStatement history = connection.prepareStatement(INSERT_HISTORY)) {
+      for (String sql : statements) {
+        LOG.debugf("V%d: %s", migration.version(), sql);
+        statement.addBatch(sql);
+      }
+      statement.executeBatch();
+      history.setInt(1, migration.version());
+      history.setString(2, migration.description());
+      history.setString(3, migration.script());
+      history.setString(4, migration.checksum());
+      history.setLong(5, (System.nanoTime() - start) / 1_000_000L);
+      history.executeUpdate();
+      connection.commit();
+    } catch (SQLException e) {
+      connection.rollback();
+      throw new SQLException(
+          "Migration " + migration.script() + " failed: " + e.getMessage(), e.getSQLState(), e);
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+    LOG.infof(
+        "V%d %sを適用しました（%d文、%dms）",
+        migration.version(),
+        migration.description(),
+        statements.size(),
+        (System.nanoTime() - start) / 1_000_000L);
+  }
+
+  private static void execute(Connection connection, String sql) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  /**
+   * スクリプトを文に分割（コメントを除き、文字列・引用符付き識別子・ドル引用符内のセミコロンでは分割しない）
+   *
+   * @param script スクリプト
+   * @return 文
+   */
+  public static List<String> split(String script) {
+    List<String> statements = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    int length = script.length();
+    int i = 0;
+    while (i < length) {
+      char c = script.charAt(i);
+      char next = i + 1 < length ? script.charAt(i + 1) : '\0';
+      if (c == '-' && next == '-') {
+        int end = script.indexOf('\n', i);
+        i = end < 0 ? length : end;
+      } else if (c == '/' && next == '*') {
+        int end = script.indexOf("*/", i + 2);
+        i = end < 0 ? length : end + 2;
+        current.append(' ');
+      } else if (c == '\'' || c == '"') {
+        int end = script.indexOf(c, i + 1);
+        end = end < 0 ? length : end + 1;
+        current.append(script, i, end);
+        i = end;
+      } else if (c == '$' && lookingAtDollarTag(script, i)) {
+        Matcher tag = DOLLAR_TAG.matcher(script).region(i, length);
+        tag.lookingAt();
+        int end = script.indexOf(tag.group(), tag.end());
+        end = end < 0 ? length : end + tag.group().length();
+        current.append(script, i, end);
+        i = end;
+      } else if (c == ';') {
+        add(statements, current);
+        i++;
+      } else {
+        current.append(c);
+        i++;
+      }
+    }
+    add(statements, current);
+    return statements;
+  }
+
+  private static boolean lookingAtDollarTag(String script, int i) {
+    // 識別子の途中の$（例: a$b）は引用符ではない
+    if (i > 0 && Character.isLetterOrDigit(script.charAt(i - 1))) {
+      return false;
+    }
+    return DOLLAR_TAG.matcher(script).region(i, script.length()).lookingAt();
+  }
+
+  private static void add(List<String> statements, StringBuilder current) {
+    String statement = current.toString().strip();
+    if (!statement.isEmpty()) {
+      statements.add(statement);
+    }
+    current.setLength(0);
+  }
+
+  private static String read(String resource) throws IOException {
+    try (InputStream in =
+        Thread.currentThread().getContextClassLoader().getResourceAsStream(resource)) {
+      if (in == null) {
+        throw new IOException("Migration resource not found: " + resource);
+      }
+      try (BufferedReader reader =
+          new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+        return String.join("\n", reader.lines().toList());
+      }
+    }
+  }
+
+  private static String sha256(String sql) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(sql.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
@@ -0,0 +1,436 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.config;
+
+import com.example.event.UserChangedEvent;
+import io.quarkus.elytron.security.common.BcryptUtil;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sql.DataSource;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * 規模テスト用の合成データ投入（開発専用）
+ *
+ * <p>N件のユーザーとM件の監査ログを、バッチ単位のチャンクに分けて複数スレッドで生成し、JDBCバッチで投入する。
+ * 乱数はチャンク番号から決まるため、同じシード値・件数であればスレッド数によらず同じデータになる。
+ * パスワードは全ユーザー共通（{@value #PASSWORD}）で、BCryptハッシュは投入ごとに1回だけ計算する。
+ *
+ * <p>データ分布:
+ *
+ * <ul>
+ *   <li>ロールはADMIN 1%・SALES 19%・USER 80%、5%が無効ユーザー
+ *   <li>監査ログのユーザーはべき乗分布（上位1%のユーザーに約2割、上位10%に約半数が集中）
+ *   <li>作成日時は直近{@value #EVENT_DAYS}日、時刻は日中（9〜18時）にピークを持つ日周分布
+ *   <li>ログインの8%、その他の操作の1%が{@code FAILURE}、全体の0.2%が{@code ERROR}
+ * </ul>
+ */
+@ApplicationScoped
+public class SyntheticDataSeeder {
+
+  private static final Logger LOG = Logger.getLogger(SyntheticDataSeeder.class);
+
+  /** 投入したユーザー共通のパスワード */
+  public static final String PASSWORD = "SeedPass123";
+
+  /** 監査ログの作成日時の範囲（日） */
+  static final int EVENT_DAYS = 90;
+
+  /** ユーザーのべき乗分布の指数（大きいほど上位ユーザーに集中） */
+  private static final double USER_SKEW = 3.0;
+
+  /** 時刻（0〜23時）ごとの重み */
+  private static final int[] HOUR_WEIGHTS = {
+    2, 1, 1, 1, 1, 2, 4, 8, 14, 18, 17, 15, 12, 15, 17, 16, 14, 11, 8, 6, 5, 4, 3, 2
+  };
+
+  private static final int[] HOUR_CUMULATIVE = new int[HOUR_WEIGHTS.length];
+
+  static {
+    int total = 0;
+    for (int i = 0; i < HOUR_WEIGHTS.length; i++) {
+      total += HOUR_WEIGHTS[i];
+      HOUR_CUMULATIVE[i] = total;
+    }
+  }
+
+  private static final String[] USER_AGENTS = {
+    "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 Chrome/126.0 Safari/537.36",
+    "Mozilla/5.0 (Macintosh; Intel Mac OS X 14_5) AppleWebKit/605.1.15 Version/17.5 Safari/605.1.15",
+    "Mozilla/5.0 (iPhone; CPU iPhone OS 17_5 like Mac OS X) AppleWebKit/605.1.15 Mobile/15E148",
+    "Mozilla/5.0 (X11; Linux x86_64; rv:127.0) Gecko/20100101 Firefox/127.0"
+  };
+
+  private static final String INSERT_USER =
+      "INSERT INTO users (username, password, email, role, created_at, is_active)"
+          + " VALUES (?, ?, ?, ?, ?, ?)";
+
+  private static final String INSERT_AUDIT_LOG =
+      "INSERT INTO audit_logs (user_id, username, action, resource_type, resource_id,"
+          + " ip_address, user_agent, status, error_message, created_at)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  /** 直近に払い出した接頭辞の時刻（同一ミリ秒内の投入でも重複させない） */
+  private static final AtomicLong LAST_PREFIX = new AtomicLong();
+
+  @Inject DataSource dataSource;
+
+  @Inject Event<UserChangedEvent> userChangedEvent;
+
+  @ConfigProperty(name = "app.dev-seed.batch-size", defaultValue = "1000")
+  int batchSize;
+
+  /** 投入スレッド数（0はCPU数） */
+  @ConfigProperty(name = "app.dev-seed.threads", defaultValue = "0")
+  int threads;
+
+  private final ExecutorService jobExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "dev-seed");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final AtomicReference<Status> status = new AtomicReference<>();
+
+  /**
+   * 投入の進捗
+   *
+   * @param state RUNNING / COMPLETED / FAILED
+   * @param prefix 投入したユーザー名の接頭辞
+   * @param users 投入するユーザー数
+   * @param events 投入する監査ログ数
+   * @param usersInserted 投入済みユーザー数
+   * @param eventsInserted 投入済み監査ログ数
+   * @param elapsedMillis 経過時間（ミリ秒）
+   * @param error 失敗時のメッセージ
+   */
+  public record Status(
+      String state,
+      String prefix,
+      int users,
+      long events,
+      long usersInserted,
+      long eventsInserted,
+      long elapsedMillis,
+      String error) {}
+
+  /** 実行中の投入の進捗 */
+  private static final class Progress {
+    final String prefix;
+    final int users;
+    final long events;
+    final long startedNanos = System.nanoTime();
+    final AtomicLong usersInserted = new AtomicLong();
+    final AtomicLong eventsInserted = new AtomicLong();
+
+    Progress(String prefix, int users, long events) {
+      this.prefix = prefix;
+      this.users = users;
+      this.events = events;
+    }
+
+    Status toStatus(String state, String error) {
+      return new Status(
+          state,
+          prefix,
+          users,
+          events,
+          usersInserted.get(),
+          eventsInserted.get(),
+          (System.nanoTime() - startedNanos) / 1_000_000L,
+          error);
+    }
+  }
+
+  private volatile Progress running;
+
+  /**
+   * バックグラウンドで投入を開始
+   *
+   * @param users ユーザー数
+   * @param events 監査ログ数
+   * @param seed 乱数のシード値
+   * @return 開始時の進捗（既に実行中の場合はnull）
+   */
+  public synchronized Status start(int users, long events, long seed) {
+    if (running != null) {
+      return null;
+    }
+    Progress progress = new Progress(newPrefix(), users, events);
+    running = progress;
+    status.set(progress.toStatus("RUNNING", null));
+    jobExecutor.execute(
+        () -> {
+          try {
+            run(progress, seed);
+            status.set(progress.toStatus("COMPLETED", null));
+          } catch (Exception e) {
+            LOG.error("合成データの投入に失敗しました", e);
+            status.set(progress.toStatus("FAILED", e.getMessage()));
+          } finally {
+            running = null;
+          }
+        });
+    return status.get();
+  }
+
+  /**
+   * 投入を実行し、完了まで待つ
+   *
+   * @param users ユーザー数
+   * @param events 監査ログ数
+   * @param seed 乱数のシード値
+   * @return 完了時の進捗
+   */
+  public Status seed(int users, long events, long seed) throws SQLException {
+    Progress progress = new Progress(newPrefix(), users, events);
+    run(progress, seed);
+    return progress.toStatus("COMPLETED", null);
+  }
+
+  /** 直近の投入の進捗（未実行の場合はnull） */
+  public Status status() {
+    Progress progress = running;
+    return progress != null ? progress.toStatus("RUNNING", null) : status.get();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    jobExecutor.shutdownNow();
+  }
+
+  private void run(Progress progress, long seed) throws SQLException {
+    LOG.infof(
+        "合成データ投入開始: prefix=%s, users=%d, events=%d",
+        progress.prefix, progress.users, progress.events);
+    String passwordHash = BcryptUtil.bcryptHash(PASSWORD);
+    int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    ExecutorService pool = Executors.newFixedThreadPool(workers);
+    try {
+      LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+      parallel(
+          pool,
+          workers,
+          chunks(progress.users),
+          (connection, chunk) ->
+              insertUsers(
+                  connection, progress, passwordHash, now, chunk, new SplittableRandom(seed ^ chunk)));
+
+      long[] userIds = loadUserIds(progress);
+      parallel(
+          pool,
+          workers,
+          chunks(progress.events),
+          (connection, chunk) ->
+              insertEvents(
+                  connection, progress, userIds, now, chunk, new SplittableRandom(~seed ^ chunk)));
+    } finally {
+      pool.shutdownNow();
+    }
+    // 監査ログの最後のチャンクまでコミットしてから通知する（統計・キャッシュが途中の件数を拾わないように）
+    userChangedEvent.fire(new UserChangedEvent(null, UserChangedEvent.Type.CREATED, true));
+    LOG.infof(
+        "合成データ投入完了: users=%d, events=%d, %dms",
+        progress.usersInserted.get(),
+        progress.eventsInserted.get(),
+        (System.nanoTime() - progress.startedNanos) / 1_000_000L);
+  }
+
+  @FunctionalInterface
+  private interface ChunkWriter {
+    void write(Connection connection, long chunk) throws SQLException;
+  }
+
+  /** チャンクを各ワーカーが順に取り出し、ワーカーごとの接続で投入する */
+  private void parallel(ExecutorService pool, int workers, long chunks, ChunkWriter writer)
+      throws SQLException {
+    AtomicLong next = new AtomicLong();
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < Math.min(workers, Math.max(chunks, 1)); i++) {
+      futures.add(
+          pool.submit(
+              () -> {
+                try (Connection connection = dataSource.getConnection()) {
+                  connection.setAutoCommit(false);
+                  for (long chunk = next.getAndIncrement();
+                      chunk < chunks;
+                      chunk = next.getAndIncrement()) {
+                    writer.write(connection, chunk);
+                    connection.commit();
+                  }
+                }
+                return null;
+              }));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SQLException("Seeding interrupted", e);
+      } catch (ExecutionException e) {
+        futures.forEach(f -> f.cancel(true));
+        if (e.getCause() instanceof SQLException sqlException) {
+          throw sqlException;
+        }
+        throw new SQLException(e.getCause());
+      }
+    }
+  }
+
+  private long chunks(long rows) {
+    return (rows + batchSize - 1) / batchSize;
+  }
+
+  private void insertUsers(
+      Connection connection,
+      Progress progress,
+      String passwordHash,
+      LocalDateTime now,
+      long chunk,
+      SplittableRandom random)
+      throws SQLException {
+    int from = (int) (chunk * batchSize);
+    int to = Math.min(from + batchSize, progress.users);
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_USER)) {
+      for (int i = from; i < to; i++) {
+        String username = progress.prefix + i;
+        int roll = random.nextInt(100);
+        statement.setString(1, username);
+        statement.setString(2, passwordHash);
+        statement.setString(3, username + "@example.com");
+        statement.setString(4, roll == 0 ? "ADMIN" : roll < 20 ? "SALES" : "USER");
+        statement.setTimestamp(
+            5, Timestamp.valueOf(now.minusSeconds(random.nextLong(365L * 24 * 60 * 60))));
+        statement.setBoolean(6, random.nextInt(20) != 0);
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+    progress.usersInserted.addAndGet(to - from);
+  }
+
+  /** 投入したユーザーのID（ユーザー番号順） */
+  private long[] loadUserIds(Progress progress) throws SQLException {
+    long[] ids = new long[progress.users];
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement =
+            connection.prepareStatement("SELECT id, username FROM users WHERE username LIKE ?")) {
+      statement.setString(1, progress.prefix + "%");
+      statement.setFetchSize(10_000);
+      try (ResultSet rs = statement.executeQuery()) {
+        int prefixLength = progress.prefix.length();
+        while (rs.next()) {
+          ids[Integer.parseInt(rs.getString(2).substring(prefixLength))] = rs.getLong(1);
+        }
+      }
+    }
+    return ids;
+  }
+
+  private void insertEvents(
+      Connection connection,
+      Progress progress,
+      long[] userIds,
+      LocalDateTime now,
+      long chunk,
+      SplittableRandom random)
+      throws SQLException {
+    long from = chunk * batchSize;
+    long to = Math.min(from + batchSize, progress.events);
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_AUDIT_LOG)) {
+      for (long i = from; i < to; i++) {
+        int user = (int) (userIds.length * Math.pow(random.nextDouble(), USER_SKEW));
+        String action = action(random);
+        boolean login = "USER_LOGIN".equals(action);
+        int roll = random.nextInt(1000);
+        String status = roll < 2 ? "ERROR" : roll < (login ? 82 : 12) ? "FAILURE" : "SUCCESS";
+
+        // ログイン失敗は認証前のためユーザーIDを持たない
+        if (login && !"SUCCESS".equals(status)) {
+          statement.setNull(1, Types.BIGINT);
+        } else {
+          statement.setLong(1, userIds[user]);
+        }
+        statement.setString(2, progress.prefix + user);
+        statement.setString(3, action);
+        statement.setString(4, "User");
+        statement.setString(5, Long.toString(userIds[user]));
+        statement.setString(
+            6, "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256));
+        statement.setString(7, USER_AGENTS[random.nextInt(USER_AGENTS.length)]);
+        statement.setString(8, status);
+        statement.setString(
+            9,
+            "SUCCESS".equals(status)
+                ? null
+                : login ? "Authentication failed" : "Operation failed");
+        statement.setTimestamp(10, Timestamp.valueOf(timestamp(now, random)));
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+    progress.eventsInserted.addAndGet(to - from);
+  }
+
+  private static String action(SplittableRandom random) {
+    int roll = random.nextInt(100);
+    if (roll < 60) {
+      return "USER_LOGIN";
+    } else if (roll < 85) {
+      return "PAGE_VIEW";
+    } else if (roll < 95) {
+      return "USER_LOGOUT";
+    } else if (roll < 99) {
+      return "USER_UPDATE";
+    }
+    return "PASSWORD_RESET";
+  }
+
+  /** 直近{@value #EVENT_DAYS}日の日周分布に従う日時（未来にはしない） */
+  private static LocalDateTime timestamp(LocalDateTime now, SplittableRandom random) {
+    int value = random.nextInt(HOUR_CUMULATIVE[HOUR_CUMULATIVE.length - 1]);
+    int hour = 0;
+    while (value >= HOUR_CUMULATIVE[hour]) {
+      hour++;
+    }
+    LocalDateTime time =
+        now.toLocalDate()
+            .minusDays(random.nextInt(EVENT_DAYS))
+            .atTime(hour, random.nextInt(60), random.nextInt(60));
+    return time.isAfter(now) ? time.minusDays(1) : time;
+  }
+
+  /** 投入ごとに異なるユーザー名の接頭辞（繰り返し投入しても重複しない） */
+  private static String newPrefix() {
+    long millis =
+        LAST_PREFIX.updateAndGet(last -> Math.max(last + 1, Instant.now().toEpochMilli()));
+    return "seed-" + Long.toString(millis, 36) + "-";
+  }
+}
@@ -5,10 +5,17 @@
 
 package com.example.controller;
 
+import com.example.cache.CachedPayload;
+import com.example.exception.GlobalExceptionMapper;
+import com.example.health.DatabaseProbe;
+import com.example.health.JvmRuntimeSampler;
 import com.example.mapper.AuditLogMapper;
-import com.example.mapper.UserMapper;
+import com.example.metrics.RouteMetrics;
 import com.example.model.AuditLog;
+import com.example.mybatis.ConnectionPoolRejectedException;
+import com.example.service.DashboardStatsService;
 import com.example.service.MessageService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
@@ -24,22 +31,30 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
 /** ダッシュボードAPI */
 @Path("/api/dashboard")
+@RunOnVirtualThread
 @Produces(MediaType.APPLICATION_JSON)
 @Tag(name = "ダッシュボード", description = "ダッシュボード関連のAPI")
 public class DashboardController {
 
-  @Inject UserMapper userMapper;
-
   @Inject AuditLogMapper auditLogMapper;
 
   @Inject MessageService messageService;
 
+  @Inject DashboardStatsService dashboardStatsService;
+
+  @Inject RouteMetrics routeMetrics;
+
+  @Inject DatabaseProbe databaseProbe;
+
+  @Inject JvmRuntimeSampler jvmRuntimeSampler;
+
   @Context SecurityContext securityContext;
 
   @Context HttpHeaders headers;
@@ -48,52 +63,26 @@ public class DashboardController {
   @GET
   @Path("/stats")
   @RolesAllowed({"ADMIN", "USER", "SALES"})
-  @Operation(summary = "ダッシュボード統計情報取得", description = "ユーザー数、ログイン数などの統計情報を取得します")
+  @Operation(
+      summary = "ダッシュボード統計情報取得",
+      description = "ユーザー数、ログイン数などの統計情報を取得します（定期更新されるスナップショット、Ageヘッダーに経過秒数）")
   @APIResponse(responseCode = "200", description = "取得成功")
+  @APIResponse(responseCode = "304", description = "前回取得時から変更なし（If-None-Match一致）")
   public Response getStatistics() {
     try {
-      Map<String, Object> stats = new HashMap<>();
-
-      // ユーザー統計
-      long totalUsers = userMapper.count();
-      long activeUsers = userMapper.countActive();
+      // 集計済みスナップショットを返す（リクエスト毎のDBアクセスなし）
+      DashboardStatsService.StatsSnapshot snapshot = dashboardStatsService.getSnapshot();
+      CachedPayload payload = snapshot.view(securityContext.isUserInRole("ADMIN"));
 
-      stats.put("totalUsers", totalUsers);
-      stats.put("activeUsers", activeUsers);
-      stats.put("inactiveUsers", totalUsers - activeUsers);
-
-      // 今日のログイン数（監査ログから取得）
-      LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-      LocalDateTime endOfDay = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59);
-
-      List<AuditLog> todayLogins = auditLogMapper.findByDateRange(startOfDay, endOfDay);
-      long todayLoginCount =
-          todayLogins.stream()
-              .filter(
-                  log ->
-                      "USER_LOGIN".equals(log.getAction())
-                          && AuditLog.Status.SUCCESS.equals(log.getStatus()))
-              .count();
-
-      stats.put("todayLogins", todayLoginCount);
-
-      // システムステータス（簡易実装）
-      stats.put("systemStatus", "online");
-
-      // ロール別統計（管理者のみ）
-      if (securityContext.isUserInRole("ADMIN")) {
-        Map<String, Long> roleStats = new HashMap<>();
-        roleStats.put("ADMIN", userMapper.countByRole(com.example.model.User.Role.ADMIN));
-        roleStats.put("USER", userMapper.countByRole(com.example.model.User.Role.USER));
-        roleStats.put("SALES", userMapper.countByRole(com.example.model.User.Role.SALES));
-        stats.put("roleStats", roleStats);
-      }
-
-      return Response.ok(stats).build();
+      return payload
+          .toResponse(headers)
+          .header("Age", snapshot.ageMillis() / 1000)
+          .header("Vary", "Authorization")
+          .header("Cache-Control", "private, no-cache")
+          .build();
 
     } catch (Exception e) {
-      String message = messageService.getMessage("error.internal.server.error", headers);
-      return Response.status(500).entity(Map.of("error", message)).build();
+      return errorResponse(e, "/api/dashboard/stats");
     }
   }
 
@@ -129,8 +118,7 @@ public class DashboardController {
       return Response.ok(activities).build();
 
     } catch (Exception e) {
-      String message = messageService.getMessage("error.internal.server.error", headers);
-      return Response.status(500).entity(Map.of("error", message)).build();
+      return errorResponse(e, "/api/dashboard/activity");
     }
   }
 
@@ -144,19 +132,29 @@ public class DashboardController {
     try {
       Map<String, Object> health = new HashMap<>();
 
-      // データベース接続チェック
-      try {
-        userMapper.count();
-        health.put(
-            "database",
-            Map.of(
-                "status", "UP",
-                "message", "Database connection is healthy"));
-      } catch (Exception e) {
-        health.put(
-            "database",
-            Map.of("status", "DOWN", "message", "Database connection failed: " + e.getMessage()));
-      }
+      // データベース接続チェック（バックグラウンド監視の直近の結果）
+      DatabaseProbe.Result database = databaseProbe.getResult();
+      DatabaseProbe.PoolStats pool = database.pool();
+      Map<String, Object> databaseHealth = new HashMap<>();
+      databaseHealth.put("status", database.up() ? "UP" : "DOWN");
+      databaseHealth.put(
+          "message",
+          database.up()
+              ? "Database connection is healthy"
+              : "Database connection failed: " + database.error());
+      databaseHealth.put("checkedAt", database.checkedAt().toString());
+      databaseHealth.put("latencyMs", database.latency().toMillis());
+      databaseHealth.put(
+          "pool",
+          Map.of(
+              "active", pool.active(),
+              "idle", pool.idle(),
+              "waiting", pool.waiting(),
+              "maxSize", pool.maxSize(),
+              "maxUsed", pool.maxUsed(),
+              "averageWaitMs", pool.averageWait().toMillis(),
+              "maxWaitMs", pool.maxWait().toMillis()));
+      health.put("database", databaseHealth);
 
       // メモリ使用量
       Runtime runtime = Runtime.getRuntime();
@@ -172,6 +170,9 @@ public class DashboardController {
               "free", freeMemory,
               "usagePercent", (double) usedMemory / totalMemory * 100));
 
+      // JVMランタイム（GC・割り当て・メモリプール・スレッド・ワーカープール・セーフポイント。バックグラウンド採取の直近の要約）
+      health.put("jvm", jvmRuntimeSampler.getSummary());
+
       // システム情報
       health.put(
           "system",
@@ -181,6 +182,13 @@ public class DashboardController {
               "osVersion", System.getProperty("os.version"),
               "processors", Runtime.getRuntime().availableProcessors()));
 
+      // ルート別レイテンシー（スライディングウィンドウ内のパーセンタイル）
+      health.put(
+          "latency",
+          Map.of(
+              "window", routeMetrics.getWindow().toString(),
+              "routes", routeMetrics.summarize()));
+
       // 全体ステータス
       boolean isHealthy =
           health.entrySet().stream()
@@ -200,8 +208,7 @@ public class DashboardController {
       return Response.ok(health).build();
 
     } catch (Exception e) {
-      String message = messageService.getMessage("error.internal.server.error", headers);
-      return Response.status(500).entity(Map.of("error", message)).build();
+      return errorResponse(e, "/api/dashboard/health");
     }
   }
 
@@ -254,8 +261,17 @@ public class DashboardController {
       return Response.ok(summary).build();
 
     } catch (Exception e) {
-      String message = messageService.getMessage("error.internal.server.error", headers);
-      return Response.status(500).entity(Map.of("error", message)).build();
+      return errorResponse(e, "/api/dashboard/user-activity-summary");
+    }
+  }
+
+  /** 例外をレスポンスに変換（接続プールの拒否は503で再試行を促す） */
+  private Response errorResponse(Exception e, String path) {
+    Optional<ConnectionPoolRejectedException> rejected = ConnectionPoolRejectedException.find(e);
+    if (rejected.isPresent()) {
+      return GlobalExceptionMapper.serviceUnavailable(rejected.get(), messageService, headers, path);
     }
+    String message = messageService.getMessage("error.internal.server.error", headers);
+    return Response.status(500).entity(Map.of("error", message)).build();
   }
 }
@@ -0,0 +1,121 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.controller;
+
+import com.example.diagnostics.SamplingProfiler;
+import com.example.service.AuditLogService;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+/**
+ * 本番診断用のオンデマンドプロファイラーAPI（管理者のみ）
+ *
+ * <p>{@link SamplingProfiler}で指定秒数だけJFRのサンプルを記録し、collapsed形式のスタックを返す。
+ * 記録中はリクエストを保持したままブロックする。{@code app.profiler.enabled}がfalseの場合は404。
+ */
+@Path("/api/admin/profile")
+@Tag(name = "診断", description = "本番診断用のAPI（管理者のみ）")
+public class ProfilerController {
+
+  @Inject SamplingProfiler profiler;
+
+  @Inject AuditLogService auditLogService;
+
+  @Context SecurityContext securityContext;
+
+  /** プロファイルの記録 */
+  @POST
+  @RolesAllowed("ADMIN")
+  @Produces(MediaType.TEXT_PLAIN)
+  @Operation(
+      summary = "プロファイルの記録",
+      description =
+          "指定秒数だけCPU（実行サンプル）または割り当てのサンプルを記録し、collapsed形式（flame graph用）で返します（管理者のみ、同時に1件）")
+  @APIResponse(responseCode = "200", description = "記録成功（1行1スタック、末尾が重み）")
+  @APIResponse(responseCode = "400", description = "パラメータ不正")
+  @APIResponse(responseCode = "409", description = "別のプロファイルを記録中（Retry-Afterに秒数）")
+  @APIResponse(responseCode = "429", description = "直前のプロファイルのクールダウン中（Retry-Afterに秒数）")
+  @APIResponse(responseCode = "503", description = "JFRを使用できない環境")
+  public Response profile(
+      @QueryParam("mode") @DefaultValue("cpu") String mode,
+      @QueryParam("seconds") @DefaultValue("30") int seconds,
+      @QueryParam("intervalMs") Integer intervalMs) {
+    if (!profiler.isEnabled()) {
+      throw new NotFoundException();
+    }
+
+    SamplingProfiler.Mode profileMode;
+    try {
+      profileMode = SamplingProfiler.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      return badRequest("mode must be cpu or alloc");
+    }
+    Duration duration = Duration.ofSeconds(seconds);
+    if (seconds <= 0 || duration.compareTo(profiler.getMaxDuration()) > 0) {
+      return badRequest("seconds must be 1.." + profiler.getMaxDuration().toSeconds());
+    }
+    Duration interval =
+        intervalMs != null ? Duration.ofMillis(intervalMs) : profiler.getDefaultInterval();
+    if (interval.compareTo(profiler.getMinInterval()) < 0) {
+      return badRequest("intervalMs must be >= " + profiler.getMinInterval().toMillis());
+    }
+
+    String username = securityContext.getUserPrincipal().getName();
+    SamplingProfiler.Profile profile;
+    try {
+      profile = profiler.profile(profileMode, duration, interval);
+    } catch (SamplingProfiler.RejectedException e) {
+      Response.Status status =
+          e.getReason() == SamplingProfiler.Rejection.RUNNING
+              ? Response.Status.CONFLICT
+              : Response.Status.TOO_MANY_REQUESTS;
+      return Response.status(status)
+          .type(MediaType.APPLICATION_JSON)
+          .header("Retry-After", Math.max(1, e.getRetryAfter().toSeconds()))
+          .entity(Map.of("error", e.getMessage()))
+          .build();
+    } catch (IllegalStateException e) {
+      auditLogService.logError(null, username, "PROFILE", "System", mode, e.getMessage());
+      return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+          .type(MediaType.APPLICATION_JSON)
+          .entity(Map.of("error", e.getMessage()))
+          .build();
+    }
+
+    auditLogService.logSuccess(null, username, "PROFILE", "System", mode);
+    return Response.ok(profile.collapsed())
+        .header("X-Profile-Mode", profile.mode().name().toLowerCase(Locale.ROOT))
+        .header("X-Profile-Duration", profile.duration().toSeconds())
+        .header("X-Profile-Samples", profile.samples())
+        .header("X-Profile-Stacks", profile.stacks())
+        .header("X-Profile-Overflowed", profile.overflowed())
+        .header("Cache-Control", "no-store")
+        .build();
+  }
+
+  private static Response badRequest(String message) {
+    return Response.status(Response.Status.BAD_REQUEST)
+        .type(MediaType.APPLICATION_JSON)
+        .entity(Map.of("error", message))
+        .build();
+  }
+}
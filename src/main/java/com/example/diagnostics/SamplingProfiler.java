@@ -0,0 +1,297 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.diagnostics;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jdk.jfr.EventSettings;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * JFRによるオンデマンドのサンプリングプロファイラー
+ *
+ * <p>指定時間だけJFRの実行サンプル（{@code jdk.ExecutionSample}）または割り当てサンプル
+ * （{@code jdk.ObjectAllocationSample}）をストリーミングで受け取り、スタックごとに集計して
+ * collapsed形式（{@code frame;frame;frame count}、FlameGraph・speedscope等で読み込める）で返す。
+ * 外部プロファイラーのアタッチやシェルアクセスなしで、本番負荷下のホットパスを確認するためのもの。
+ *
+ * <p>オーバーヘッドの上限:
+ *
+ * <ul>
+ *   <li>同時に実行できるのは1件のみで、終了後もクールダウンの間は次を受け付けない
+ *   <li>記録時間は{@code app.profiler.max-duration}まで、CPUのサンプル間隔は{@code app.profiler.min-interval}以上
+ *   <li>割り当てサンプルはJFRのthrottle（{@code app.profiler.allocation-throttle}）で毎秒の件数を制限する
+ *   <li>集計するスタックの種類は{@code app.profiler.max-stacks}までで、超えた分は{@value #OVERFLOW}にまとめる
+ * </ul>
+ */
+@ApplicationScoped
+public class SamplingProfiler {
+
+  private static final Logger LOG = Logger.getLogger(SamplingProfiler.class);
+
+  /** スタックの種類が上限を超えたサンプルをまとめるフレーム */
+  static final String OVERFLOW = "[overflow]";
+
+  /** JFRのスタック深さの上限で根元側が切れたスタックの先頭に付けるフレーム */
+  static final String TRUNCATED = "[truncated]";
+
+  /** サンプルの種類 */
+  public enum Mode {
+    /** Javaコードを実行中のスレッドのサンプル（重みはサンプル数） */
+    CPU("jdk.ExecutionSample"),
+    /** オブジェクト割り当てのサンプル（重みは推定割り当てバイト数、割り当てたクラスを末端のフレームにする） */
+    ALLOC("jdk.ObjectAllocationSample");
+
+    private final String eventName;
+
+    Mode(String eventName) {
+      this.eventName = eventName;
+    }
+
+    public String getEventName() {
+      return eventName;
+    }
+  }
+
+  /**
+   * プロファイル結果
+   *
+   * @param mode サンプルの種類
+   * @param duration 記録時間
+   * @param samples サンプル数
+   * @param stacks スタックの種類数
+   * @param overflowed スタックの種類が上限を超えたか
+   * @param collapsed collapsed形式のスタック（重みの降順、1行1スタック）
+   */
+  public record Profile(
+      Mode mode,
+      Duration duration,
+      long samples,
+      int stacks,
+      boolean overflowed,
+      String collapsed) {}
+
+  /** 実行を受け付けなかった理由 */
+  public enum Rejection {
+    /** 別のプロファイルを実行中 */
+    RUNNING,
+    /** 直前のプロファイルのクールダウン中 */
+    COOLDOWN
+  }
+
+  /** 実行を受け付けなかった場合の例外 */
+  public static final class RejectedException extends RuntimeException {
+
+    private final Rejection reason;
+    private final Duration retryAfter;
+
+    RejectedException(Rejection reason, Duration retryAfter) {
+      super("Profiler " + reason.name().toLowerCase(Locale.ROOT) + ", retry after " + retryAfter);
+      this.reason = reason;
+      this.retryAfter = retryAfter;
+    }
+
+    public Rejection getReason() {
+      return reason;
+    }
+
+    /** 次に受け付けられるまでの目安 */
+    public Duration getRetryAfter() {
+      return retryAfter;
+    }
+  }
+
+  @ConfigProperty(name = "app.profiler.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "app.profiler.max-duration", defaultValue = "60s")
+  Duration maxDuration;
+
+  @ConfigProperty(name = "app.profiler.interval", defaultValue = "20ms")
+  Duration defaultInterval;
+
+  @ConfigProperty(name = "app.profiler.min-interval", defaultValue = "10ms")
+  Duration minInterval;
+
+  @ConfigProperty(name = "app.profiler.allocation-throttle", defaultValue = "150/s")
+  String allocationThrottle;
+
+  @ConfigProperty(name = "app.profiler.max-stacks", defaultValue = "10000")
+  int maxStacks;
+
+  @ConfigProperty(name = "app.profiler.cooldown", defaultValue = "30s")
+  Duration cooldown;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  private volatile long runningUntilNanos;
+
+  private volatile long cooldownUntilNanos;
+
+  /** 有効か（{@code app.profiler.enabled}） */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public Duration getMaxDuration() {
+    return maxDuration;
+  }
+
+  public Duration getDefaultInterval() {
+    return defaultInterval;
+  }
+
+  public Duration getMinInterval() {
+    return minInterval;
+  }
+
+  /**
+   * 指定時間プロファイルを記録して集計（記録が終わるまで呼び出し元のスレッドをブロックする）
+   *
+   * @param mode サンプルの種類
+   * @param duration 記録時間（{@link #getMaxDuration()}以下）
+   * @param interval CPUのサンプル間隔（{@link #getMinInterval()}以上、割り当てサンプルでは無視）
+   * @return プロファイル結果
+   * @throws RejectedException 実行中またはクールダウン中の場合
+   * @throws IllegalStateException JFRを使えない環境の場合
+   */
+  public Profile profile(Mode mode, Duration duration, Duration interval) {
+    if (!running.compareAndSet(false, true)) {
+      throw new RejectedException(
+          Rejection.RUNNING, remaining(runningUntilNanos).plus(cooldown));
+    }
+    try {
+      long now = System.nanoTime();
+      if (now < cooldownUntilNanos) {
+        throw new RejectedException(Rejection.COOLDOWN, remaining(cooldownUntilNanos));
+      }
+      runningUntilNanos = now + duration.toNanos();
+      try {
+        return record(mode, duration, interval);
+      } finally {
+        cooldownUntilNanos = System.nanoTime() + cooldown.toNanos();
+      }
+    } finally {
+      running.set(false);
+    }
+  }
+
+  private Profile record(Mode mode, Duration duration, Duration interval) {
+    StackAggregator aggregator = new StackAggregator(mode, maxStacks);
+    LOG.infof("プロファイルを開始します: mode=%s, duration=%s, interval=%s", mode, duration, interval);
+    try (RecordingStream stream = new RecordingStream()) {
+      EventSettings settings = stream.enable(mode.getEventName()).withStackTrace();
+      if (mode == Mode.CPU) {
+        settings.withPeriod(interval);
+      } else {
+        settings.with("throttle", allocationThrottle);
+      }
+      stream.onEvent(mode.getEventName(), aggregator::add);
+      stream.startAsync();
+      stream.awaitTermination(duration);
+      // 記録済みのイベントをすべて処理してから集計結果を読む
+      stream.stop();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("プロファイルの記録が中断されました", e);
+    } catch (RuntimeException | LinkageError e) {
+      // JFRを含まないネイティブイメージ等
+      throw new IllegalStateException("JFRを使用できません: " + e.getMessage(), e);
+    }
+    Profile profile = aggregator.toProfile(duration);
+    LOG.infof(
+        "プロファイルを終了しました: mode=%s, samples=%d, stacks=%d",
+        mode, profile.samples(), profile.stacks());
+    return profile;
+  }
+
+  private static Duration remaining(long untilNanos) {
+    return Duration.ofNanos(Math.max(0, untilNanos - System.nanoTime()));
+  }
+
+  /** スタック（根元→末端）ごとの重みの集計 */
+  static final class StackAggregator {
+
+    private final Mode mode;
+    private final int maxStacks;
+    private final Map<String, Long> weights = new HashMap<>();
+    private long samples;
+    private boolean overflowed;
+
+    StackAggregator(Mode mode, int maxStacks) {
+      this.mode = mode;
+      this.maxStacks = maxStacks;
+    }
+
+    synchronized void add(RecordedEvent event) {
+      RecordedStackTrace stackTrace = event.getStackTrace();
+      if (stackTrace == null) {
+        return;
+      }
+      String leaf = null;
+      long weight = 1;
+      if (mode == Mode.ALLOC) {
+        leaf = event.getClass("objectClass").getName();
+        weight = event.getLong("weight");
+      }
+      samples++;
+      String stack = collapse(stackTrace.getFrames(), stackTrace.isTruncated(), leaf);
+      if (!weights.containsKey(stack) && weights.size() >= maxStacks) {
+        overflowed = true;
+        stack = OVERFLOW;
+      }
+      weights.merge(stack, weight, Long::sum);
+    }
+
+    /** フレーム（JFRでは末端が先頭）を根元から{@code ;}区切りで連結 */
+    static String collapse(List<RecordedFrame> frames, boolean truncated, String leaf) {
+      StringBuilder sb = new StringBuilder(frames.size() * 48);
+      if (truncated) {
+        sb.append(TRUNCATED);
+      }
+      for (int i = frames.size() - 1; i >= 0; i--) {
+        RecordedFrame frame = frames.get(i);
+        if (frame.getMethod() == null) {
+          continue;
+        }
+        if (!sb.isEmpty()) {
+          sb.append(';');
+        }
+        sb.append(frame.getMethod().getType().getName())
+            .append('.')
+            .append(frame.getMethod().getName());
+      }
+      if (leaf != null) {
+        if (!sb.isEmpty()) {
+          sb.append(';');
+        }
+        sb.append(leaf);
+      }
+      return sb.toString();
+    }
+
+    synchronized Profile toProfile(Duration duration) {
+      List<Map.Entry<String, Long>> entries = new ArrayList<>(weights.entrySet());
+      entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+      StringBuilder out = new StringBuilder(entries.size() * 256);
+      for (Map.Entry<String, Long> entry : entries) {
+        out.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+      }
+      return new Profile(mode, duration, samples, weights.size(), overflowed, out.toString());
+    }
+  }
+}
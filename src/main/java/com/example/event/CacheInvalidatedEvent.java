@@ -0,0 +1,18 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.event;
+
+/**
+ * キャッシュ無効化イベント
+ *
+ * <p>{@code CacheInvalidationBus}が無効化を配信するたびに発火し、インスタンス内のキャッシュが観測して対象の領域を破棄する。
+ * 自インスタンスでの変更（{@code remote = false}）も同じ経路で配信される。
+ *
+ * @param region 無効化する領域（例: {@code users}）
+ * @param version 領域の版（領域ごとに単調増加）
+ * @param remote 他のインスタンスでの変更か
+ */
+public record CacheInvalidatedEvent(String region, long version, boolean remote) {}
@@ -0,0 +1,29 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.event;
+
+/**
+ * ユーザー変更イベント
+ *
+ * <p>usersテーブルを変更した処理が発火し、統計スナップショット等のキャッシュがトランザクション完了後に観測して無効化する。
+ *
+ * @param userId 変更されたユーザーID（一括変更時はnull）
+ * @param type 変更種別
+ * @param bypassedMapper {@code UserMapper}を通さずに変更したか（マッパー経由の変更は{@code MapperCaches}が無効化済み）
+ */
+public record UserChangedEvent(Long userId, Type type, boolean bypassedMapper) {
+
+  /** {@code UserMapper}経由の変更 */
+  public UserChangedEvent(Long userId, Type type) {
+    this(userId, type, false);
+  }
+
+  public enum Type {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+}
@@ -6,11 +6,13 @@
 package com.example.exception;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.jboss.logging.Logger;
 
 import com.example.dto.ErrorResponse;
+import com.example.mybatis.ConnectionPoolRejectedException;
 
 import jakarta.inject.Inject;
 import jakarta.validation.ConstraintViolation;
@@ -56,6 +58,13 @@ public class GlobalExceptionMapper implements ExceptionMapper<Exception> {
       return handleBusinessException((BusinessException) exception, path);
     }
 
+    // 接続プールの拒否（取得待ちのタイムアウト）は再試行を促す
+    Optional<ConnectionPoolRejectedException> rejected =
+        ConnectionPoolRejectedException.find(exception);
+    if (rejected.isPresent()) {
+      return serviceUnavailable(rejected.get(), messageService, headers, path);
+    }
+
     // その他の例外
     LOG.error("予期しないエラーが発生しました", exception);
     String message = messageService.getMessage("error.internal.server.error", headers);
@@ -63,6 +72,28 @@ public class GlobalExceptionMapper implements ExceptionMapper<Exception> {
     return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(errorResponse).build();
   }
 
+  /**
+   * 接続プールの拒否を503（Retry-After付き）に変換
+   *
+   * @param exception 接続プールの拒否
+   * @param messageService メッセージサービス
+   * @param headers リクエストヘッダー（言語の判定用）
+   * @param path リクエストパス
+   * @return レスポンス
+   */
+  public static Response serviceUnavailable(
+      ConnectionPoolRejectedException exception,
+      com.example.service.MessageService messageService,
+      HttpHeaders headers,
+      String path) {
+    String message = messageService.getMessage("error.service.busy", headers);
+    ErrorResponse errorResponse = new ErrorResponse("SERVICE_BUSY", message, path);
+    return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+        .header("Retry-After", Math.max(1, exception.getRetryAfter().toSeconds()))
+        .entity(errorResponse)
+        .build();
+  }
+
   private Response handleConstraintViolationException(
       ConstraintViolationException exception, String path) {
     List<ErrorResponse.FieldError> fieldErrors =
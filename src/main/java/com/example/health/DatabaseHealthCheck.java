@@ -5,35 +5,97 @@
 
 package com.example.health;
 
+import com.example.mybatis.ConnectionPoolRouter;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import java.sql.Connection;
-import java.sql.SQLException;
-import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.health.HealthCheck;
 import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
 import org.eclipse.microprofile.health.Readiness;
 
-/** データベース接続ヘルスチェック */
+/**
+ * データベース接続ヘルスチェック
+ *
+ * <p>{@link DatabaseProbe}がバックグラウンドで取得した直近の結果を返し、プローブのたびに接続を借りない。
+ * 結果が古すぎる場合（監視が止まっている）と、接続待ち時間がしきい値を超えた場合（プールが飽和している）はDOWNとし、
+ * 飽和したレプリカへの振り分けを止める。
+ *
+ * <p>判定は既定のプール（認証・ユーザー管理）のみで行う。名前付きプール（audit・analyticsなど）の結果は{@code <プール名>.}で始まる
+ * データとして返すだけで、飽和・停止してもDOWNにしない（監査・集計のためにログインまでローテーションから外さない）。
+ *
+ * <p>認証なしで公開するため、{@code reason}は固定の文言とする（接続エラーの詳細は{@link DatabaseProbe}がログに出力する）。
+ */
 @Readiness
 @ApplicationScoped
 public class DatabaseHealthCheck implements HealthCheck {
 
-  @Inject DataSource dataSource;
+  static final String NAME = "Database connection";
+
+  @Inject DatabaseProbe probe;
+
+  /** この時間を超えて更新されていない結果はDOWNとする */
+  @ConfigProperty(name = "app.health.database.max-age", defaultValue = "30s")
+  Duration maxAge;
+
+  /** 平均接続待ち時間がこの値を超えたらDOWNとする */
+  @ConfigProperty(name = "app.health.database.max-pool-wait", defaultValue = "500ms")
+  Duration maxPoolWait;
 
   @Override
   public HealthCheckResponse call() {
-    try (Connection connection = dataSource.getConnection()) {
-      // 簡単なクエリでデータベース接続を確認
-      boolean isValid = connection.isValid(5); // 5秒タイムアウト
-
-      if (isValid) {
-        return HealthCheckResponse.up("Database connection");
-      } else {
-        return HealthCheckResponse.down("Database connection");
+    Map<String, DatabaseProbe.Result> results = probe.getResults();
+    DatabaseProbe.Result result = results.get(ConnectionPoolRouter.DEFAULT_POOL);
+    DatabaseProbe.PoolStats pool = result.pool();
+    Duration age = result.age();
+
+    HealthCheckResponseBuilder builder =
+        HealthCheckResponse.named(NAME)
+            .withData("checkedAt", result.checkedAt().toString())
+            .withData("ageMs", age.toMillis())
+            .withData("latencyMs", result.latency().toMillis())
+            .withData("poolActive", pool.active())
+            .withData("poolIdle", pool.idle())
+            .withData("poolWaiting", pool.waiting())
+            .withData("poolMaxSize", pool.maxSize())
+            .withData("poolAverageWaitMs", pool.averageWait().toMillis());
+
+    for (Map.Entry<String, DatabaseProbe.Result> entry : results.entrySet()) {
+      if (ConnectionPoolRouter.DEFAULT_POOL.equals(entry.getKey())) {
+        continue;
       }
-    } catch (SQLException e) {
-      return HealthCheckResponse.down("Database connection");
+      DatabaseProbe.Result named = entry.getValue();
+      String prefix = entry.getKey() + ".";
+      builder
+          .withData(prefix + "status", downReason(named, named.age()) == null ? "UP" : "DOWN")
+          .withData(prefix + "latencyMs", named.latency().toMillis())
+          .withData(prefix + "poolActive", named.pool().active())
+          .withData(prefix + "poolWaiting", named.pool().waiting())
+          .withData(prefix + "poolMaxSize", named.pool().maxSize())
+          .withData(prefix + "poolAverageWaitMs", named.pool().averageWait().toMillis());
+    }
+    String reason = downReason(result, age);
+    if (reason != null) {
+      return builder.withData("reason", reason).down().build();
+    }
+    return builder.up().build();
+  }
+
+  /** DOWNとする理由（UPの場合はnull。接続エラーの内容は含めない） */
+  String downReason(DatabaseProbe.Result result, Duration age) {
+    if (!result.up()) {
+      return "Connection validation failed";
+    }
+    if (age.compareTo(maxAge) > 0) {
+      return "Probe result is stale";
+    }
+    if (result.pool().averageWait().compareTo(maxPoolWait) > 0) {
+      return "Connection pool saturated: average wait "
+          + result.pool().averageWait().toMillis()
+          + "ms";
     }
+    return null;
   }
 }
@@ -0,0 +1,248 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.health;
+
+import com.example.mybatis.ConnectionPoolRouter;
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.arc.InjectableInstance;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Any;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * データベースのバックグラウンド監視
+ *
+ * <p>一定間隔で接続を1本借りて{@code isValid}を実行し、結果・所要時間・接続プールの状態を不変の{@link Result}として保持する。
+ * ヘルスチェックや管理画面はこの結果を読むだけで、プローブのたびに接続を借りない。
+ * 接続待ち時間は前回のプローブからの差分（待ち時間合計 / 取得回数）で算出する。
+ *
+ * <p>既定のデータソースに加え、{@code app.datasource.pools.statements}で振り分けている名前付きプール（audit・analyticsなど）も
+ * 同じ間隔でプローブする。未定義・無効のプールは既定のデータソースで代用されるため対象外とする。
+ */
+@ApplicationScoped
+public class DatabaseProbe {
+
+  private static final Logger LOG = Logger.getLogger(DatabaseProbe.class);
+
+  @Inject AgroalDataSource dataSource;
+
+  @Inject @Any InjectableInstance<AgroalDataSource> dataSources;
+
+  /** ステートメントIDまたはマッパー名=プール名（{@link ConnectionPoolRouter}と同じ設定） */
+  @ConfigProperty(name = "app.datasource.pools.statements")
+  Optional<List<String>> statements;
+
+  @ConfigProperty(name = "app.health.database.validation-timeout", defaultValue = "5s")
+  Duration validationTimeout;
+
+  /** プローブの排他（接続取得・検証中に仮想スレッドのキャリアを固定しないようsynchronizedは使わない） */
+  private final ReentrantLock probeLock = new ReentrantLock();
+
+  /** 既定のデータソース */
+  private Target primary;
+
+  /** プローブ対象（先頭は既定のデータソース） */
+  private List<Target> targets = List.of();
+
+  /** プローブ対象の接続プールと直近の結果 */
+  private static final class Target {
+    final String name;
+    final AgroalDataSource dataSource;
+    final AtomicReference<Result> last = new AtomicReference<>();
+
+    /** 前回のプローブ時点の接続取得回数と待ち時間合計（差分計算用） */
+    long lastAcquireCount;
+
+    long lastBlockingNanos;
+
+    Target(String name, AgroalDataSource dataSource) {
+      this.name = name;
+      this.dataSource = dataSource;
+    }
+  }
+
+  /**
+   * プローブ結果
+   *
+   * @param up 接続が有効か
+   * @param checkedAt 実行時刻
+   * @param checkedAtNanos 実行時刻（経過時間計算用の単調時刻）
+   * @param latency 接続取得と検証の所要時間
+   * @param error 失敗時のメッセージ
+   * @param pool 接続プールの状態
+   */
+  public record Result(
+      boolean up,
+      Instant checkedAt,
+      long checkedAtNanos,
+      Duration latency,
+      String error,
+      PoolStats pool) {
+
+    /** 結果の経過時間 */
+    public Duration age() {
+      return Duration.ofNanos(System.nanoTime() - checkedAtNanos);
+    }
+  }
+
+  /**
+   * 接続プールの状態
+   *
+   * @param active 使用中の接続数
+   * @param idle 空き接続数
+   * @param waiting 接続待ちのスレッド数
+   * @param maxSize 最大接続数
+   * @param maxUsed 起動以降の最大同時使用数
+   * @param averageWait 前回のプローブ以降の平均接続待ち時間
+   * @param maxWait 起動以降の最大接続待ち時間
+   */
+  public record PoolStats(
+      long active,
+      long idle,
+      long waiting,
+      int maxSize,
+      long maxUsed,
+      Duration averageWait,
+      Duration maxWait) {}
+
+  @PostConstruct
+  void init() {
+    primary = new Target(ConnectionPoolRouter.DEFAULT_POOL, dataSource);
+    List<Target> list = new ArrayList<>();
+    list.add(primary);
+    for (String name :
+        new TreeSet<>(ConnectionPoolRouter.parse(statements.orElse(List.of())).values())) {
+      List<AgroalDataSource> active =
+          dataSources.select(new DataSource.DataSourceLiteral(name)).listActive();
+      if (!active.isEmpty()) {
+        list.add(new Target(name, active.get(0)));
+      }
+    }
+    targets = List.copyOf(list);
+  }
+
+  void onStart(@Observes StartupEvent event) {
+    probe();
+  }
+
+  @Scheduled(
+      identity = "database-probe",
+      every = "${app.health.database.probe-interval:5s}",
+      delayed = "${app.health.database.probe-interval:5s}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void scheduledProbe() {
+    probe();
+  }
+
+  /** 既定のデータソースの直近の結果（未実行の場合は同期的にプローブする） */
+  public Result getResult() {
+    Result result = primary.last.get();
+    return result != null ? result : probe();
+  }
+
+  /**
+   * プール名ごとの直近の結果（既定のデータソースが先頭、未実行の場合は同期的にプローブする）
+   *
+   * @return プール名→結果
+   */
+  public Map<String, Result> getResults() {
+    Map<String, Result> results = new LinkedHashMap<>();
+    for (Target target : targets) {
+      Result result = target.last.get();
+      if (result == null) {
+        probe();
+        result = target.last.get();
+      }
+      results.put(target.name, result);
+    }
+    return results;
+  }
+
+  /**
+   * すべての対象をプローブして結果を差し替える
+   *
+   * @return 既定のデータソースの新しい結果
+   */
+  public Result probe() {
+    probeLock.lock();
+    try {
+      for (Target target : targets) {
+        probe(target);
+      }
+      return primary.last.get();
+    } finally {
+      probeLock.unlock();
+    }
+  }
+
+  private void probe(Target target) {
+    Instant checkedAt = Instant.now();
+    long started = System.nanoTime();
+    boolean up;
+    String error = null;
+    try (Connection connection = target.dataSource.getConnection()) {
+      up = connection.isValid((int) Math.max(1, validationTimeout.toSeconds()));
+      if (!up) {
+        error = "Connection validation failed";
+      }
+    } catch (Exception e) {
+      up = false;
+      error = e.getMessage();
+    }
+    long finished = System.nanoTime();
+
+    Duration latency = Duration.ofNanos(finished - started);
+    Result result = new Result(up, checkedAt, finished, latency, error, poolStats(target));
+    Result previous = target.last.getAndSet(result);
+    if (previous != null && previous.up() != up) {
+      if (up) {
+        LOG.infof("データベース接続が回復しました: pool=%s, %dms", target.name, result.latency().toMillis());
+      } else {
+        LOG.warnf("データベース接続の確認に失敗しました: pool=%s, %s", target.name, error);
+      }
+    }
+  }
+
+  private PoolStats poolStats(Target target) {
+    AgroalDataSourceMetrics metrics = target.dataSource.getMetrics();
+    long acquireCount = metrics.acquireCount();
+    long blockingNanos = metrics.blockingTimeTotal().toNanos();
+    long acquired = acquireCount - target.lastAcquireCount;
+    Duration averageWait =
+        acquired > 0
+            ? Duration.ofNanos((blockingNanos - target.lastBlockingNanos) / acquired)
+            : Duration.ZERO;
+    target.lastAcquireCount = acquireCount;
+    target.lastBlockingNanos = blockingNanos;
+    return new PoolStats(
+        metrics.activeCount(),
+        metrics.availableCount(),
+        metrics.awaitingCount(),
+        target.dataSource.getConfiguration().connectionPoolConfiguration().maxSize(),
+        metrics.maxUsedCount(),
+        averageWait,
+        metrics.blockingTimeMax());
+  }
+}
@@ -0,0 +1,445 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.health;
+
+import com.example.metrics.VirtualThreadPinningMonitor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * JVMランタイムのバックグラウンドサンプリング
+ *
+ * <p>一定間隔でGC・割り当て量・メモリプール・スレッド状態・ワーカープール・仮想スレッドのキャリアを採取し、
+ * 直近のウィンドウ分のサンプルから要約を作って保持する。管理画面のヘルスAPIはこの要約を読むだけで、呼び出しのたびに採取しない。
+ *
+ * <p>GCの停止時間とセーフポイント時間はJFR（{@code jdk.GarbageCollection}・{@code jdk.SafepointBegin/End}）から取る。
+ * GC MXBeanの累積時間は並行GCの処理時間を含むため停止時間にはならない。JFRを使えない環境ではこれらの項目はnullになる。
+ */
+@ApplicationScoped
+public class JvmRuntimeSampler {
+
+  private static final Logger LOG = Logger.getLogger(JvmRuntimeSampler.class);
+
+  /** Quarkusのワーカープール（Micrometerの{@code worker.pool.*}メーターの{@value #POOL_NAME_TAG}タグ） */
+  static final String WORKER_POOL_NAME = "vert.x-worker-thread";
+
+  private static final String POOL_NAME_TAG = "pool.name";
+
+  /** 仮想スレッドのスケジューラー（ForkJoinPool）のキャリアスレッド名 */
+  private static final String CARRIER_PREFIX = "ForkJoinPool-";
+
+  private static final String CARRIER_INFIX = "-worker-";
+
+  /** 対応するSafepointEndを待つSafepointBeginの上限（取りこぼし時の保護） */
+  private static final int MAX_OPEN_SAFEPOINTS = 1024;
+
+  @Inject MeterRegistry registry;
+
+  @ConfigProperty(name = "quarkus.virtual-threads.enabled", defaultValue = "true")
+  boolean virtualThreadsEnabled;
+
+  /** 要約の対象とする期間 */
+  @ConfigProperty(name = "app.health.jvm.window", defaultValue = "1m")
+  Duration window;
+
+  /** GC停止時間とセーフポイント時間をJFRで採取するか */
+  @ConfigProperty(name = "app.health.jvm.jfr-enabled", defaultValue = "true")
+  boolean jfrEnabled;
+
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+  private final ArrayDeque<Sample> samples = new ArrayDeque<>();
+
+  private final AtomicReference<Map<String, Object>> summary = new AtomicReference<>();
+
+  private final Pauses gcPauses = new Pauses();
+
+  private final Pauses safepoints = new Pauses();
+
+  /** JFRストリームのスレッドからのみ参照する */
+  private final Map<Long, Instant> openSafepoints = new HashMap<>();
+
+  private RecordingStream stream;
+
+  /**
+   * 1回分のサンプル
+   *
+   * <p>カウンター系は起動以降の累積値で、ウィンドウ内の最初と最後のサンプルの差分を取る。
+   * 停止時間は前回のサンプル以降の値、キャリアの使用数は採取時点の値。
+   */
+  record Sample(
+      long nanos,
+      long gcCount,
+      long gcTimeMillis,
+      long allocatedBytes,
+      double workerBusySeconds,
+      long pinnedCount,
+      double pinnedSeconds,
+      Pause gcPause,
+      Pause safepoint,
+      int carriers,
+      int carriersBusy) {}
+
+  /**
+   * 前回のサンプル以降の停止の集計
+   *
+   * @param count 回数
+   * @param totalNanos 合計時間
+   * @param maxNanos 最大時間
+   */
+  record Pause(long count, long totalNanos, long maxNanos) {}
+
+  /** JFRイベントから停止時間を集計し、サンプルごとに取り出す */
+  static final class Pauses {
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    synchronized void add(Duration duration) {
+      long nanos = duration.toNanos();
+      count++;
+      totalNanos += nanos;
+      maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    synchronized Pause drain() {
+      Pause pause = new Pause(count, totalNanos, maxNanos);
+      count = 0;
+      totalNanos = 0;
+      maxNanos = 0;
+      return pause;
+    }
+  }
+
+  void onStart(@Observes StartupEvent event) {
+    if (jfrEnabled) {
+      startRecording();
+    }
+    sample();
+  }
+
+  void onStop(@Observes ShutdownEvent event) {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
+  @Scheduled(
+      identity = "jvm-runtime-sampler",
+      every = "${app.health.jvm.sample-interval:5s}",
+      delayed = "${app.health.jvm.sample-interval:5s}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void scheduledSample() {
+    sample();
+  }
+
+  /** JFRで停止時間を採取しているか */
+  public boolean isRecording() {
+    return stream != null;
+  }
+
+  /** 直近の要約（未採取の場合は同期的に採取する） */
+  public Map<String, Object> getSummary() {
+    Map<String, Object> result = summary.get();
+    return result != null ? result : sample();
+  }
+
+  /**
+   * サンプルを採取して要約を差し替える
+   *
+   * @return 新しい要約
+   */
+  public synchronized Map<String, Object> sample() {
+    ThreadInfo[] infos = threads.getThreadInfo(threads.getAllThreadIds(), 0);
+    Map<Thread.State, Integer> states = new EnumMap<>(Thread.State.class);
+    for (Thread.State state : Thread.State.values()) {
+      states.put(state, 0);
+    }
+    int carriers = 0;
+    int carriersBusy = 0;
+    for (ThreadInfo info : infos) {
+      if (info == null) {
+        continue;
+      }
+      states.merge(info.getThreadState(), 1, Integer::sum);
+      if (isCarrier(info.getThreadName())) {
+        carriers++;
+        if (info.getThreadState() == Thread.State.RUNNABLE) {
+          carriersBusy++;
+        }
+      }
+    }
+
+    long gcCount = 0;
+    long gcTime = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcCount += Math.max(0, gc.getCollectionCount());
+      gcTime += Math.max(0, gc.getCollectionTime());
+    }
+
+    long pinnedCount = 0;
+    double pinnedSeconds = 0;
+    for (Timer timer : registry.find(VirtualThreadPinningMonitor.TIMER_NAME).timers()) {
+      pinnedCount += timer.count();
+      pinnedSeconds += timer.totalTime(TimeUnit.SECONDS);
+    }
+    Timer workerUsage =
+        registry.find("worker.pool.usage").tag(POOL_NAME_TAG, WORKER_POOL_NAME).timer();
+
+    Sample sample =
+        new Sample(
+            System.nanoTime(),
+            gcCount,
+            gcTime,
+            allocatedBytes(),
+            workerUsage != null ? workerUsage.totalTime(TimeUnit.SECONDS) : 0,
+            pinnedCount,
+            pinnedSeconds,
+            gcPauses.drain(),
+            safepoints.drain(),
+            carriers,
+            carriersBusy);
+    samples.addLast(sample);
+    while (samples.size() > 2 && sample.nanos() - samples.peekFirst().nanos() > window.toNanos()) {
+      samples.removeFirst();
+    }
+
+    Map<String, Object> result = summarize(states, infos.length);
+    summary.set(result);
+    return result;
+  }
+
+  private Map<String, Object> summarize(Map<Thread.State, Integer> states, int live) {
+    Sample first = samples.peekFirst();
+    Sample last = samples.peekLast();
+    double seconds = Math.max((last.nanos() - first.nanos()) / 1e9, 1e-9);
+    boolean hasSpan = last != first;
+
+    Pause gcPause = combine(Sample::gcPause);
+    Pause safepoint = combine(Sample::safepoint);
+
+    Map<String, Object> gc = new LinkedHashMap<>();
+    gc.put("collections", last.gcCount() - first.gcCount());
+    gc.put("collectorTimeMs", last.gcTimeMillis() - first.gcTimeMillis());
+    putPauses(gc, "pause", gcPause, seconds, hasSpan);
+
+    Map<String, Object> safepointMap = new LinkedHashMap<>();
+    putPauses(safepointMap, "", safepoint, seconds, hasSpan);
+
+    Map<String, Object> allocation = new LinkedHashMap<>();
+    allocation.put(
+        "bytesPerSecond",
+        hasSpan && last.allocatedBytes() >= 0
+            ? Math.round((last.allocatedBytes() - first.allocatedBytes()) / seconds)
+            : null);
+
+    Map<String, Object> threadMap = new LinkedHashMap<>();
+    threadMap.put("live", live);
+    threadMap.put("daemon", threads.getDaemonThreadCount());
+    threadMap.put("peak", threads.getPeakThreadCount());
+    Map<String, Integer> byState = new LinkedHashMap<>();
+    states.forEach((state, count) -> byState.put(state.name(), count));
+    threadMap.put("states", byState);
+
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("sampledAt", Instant.now().toString());
+    result.put("window", Duration.ofNanos(last.nanos() - first.nanos()).toString());
+    result.put("samples", samples.size());
+    result.put("gc", gc);
+    result.put("safepoints", safepointMap);
+    result.put("allocation", allocation);
+    result.put("memoryPools", memoryPools());
+    result.put("threads", threadMap);
+    result.put("workerPool", workerPool(first, last, seconds, hasSpan));
+    result.put("virtualThreads", virtualThreads(first, last));
+    return result;
+  }
+
+  private void putPauses(
+      Map<String, Object> map, String prefix, Pause pause, double seconds, boolean hasSpan) {
+    if (stream == null) {
+      map.put(key(prefix, "count"), null);
+      map.put(key(prefix, "totalMs"), null);
+      map.put(key(prefix, "maxMs"), null);
+      map.put(key(prefix, "timePercent"), null);
+      return;
+    }
+    map.put(key(prefix, "count"), pause.count());
+    map.put(key(prefix, "totalMs"), pause.totalNanos() / 1e6);
+    map.put(key(prefix, "maxMs"), pause.maxNanos() / 1e6);
+    map.put(key(prefix, "timePercent"), hasSpan ? pause.totalNanos() / 1e9 / seconds * 100 : null);
+  }
+
+  private static String key(String prefix, String name) {
+    return prefix.isEmpty()
+        ? name
+        : prefix + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+  }
+
+  /** 最初のサンプル（差分の基準）を除いた停止時間の合計 */
+  private Pause combine(Function<Sample, Pause> field) {
+    long count = 0;
+    long total = 0;
+    long max = 0;
+    boolean baseline = true;
+    for (Sample sample : samples) {
+      if (baseline) {
+        baseline = false;
+        continue;
+      }
+      Pause pause = field.apply(sample);
+      count += pause.count();
+      total += pause.totalNanos();
+      max = Math.max(max, pause.maxNanos());
+    }
+    return new Pause(count, total, max);
+  }
+
+  private static List<Map<String, Object>> memoryPools() {
+    List<Map<String, Object>> pools = new ArrayList<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      MemoryUsage usage = pool.getUsage();
+      if (usage == null) {
+        continue;
+      }
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("name", pool.getName());
+      map.put("type", pool.getType().name());
+      map.put("used", usage.getUsed());
+      map.put("committed", usage.getCommitted());
+      map.put("max", usage.getMax());
+      map.put(
+          "usagePercent", usage.getMax() > 0 ? (double) usage.getUsed() / usage.getMax() * 100 : null);
+      pools.add(map);
+    }
+    return pools;
+  }
+
+  private Map<String, Object> workerPool(
+      Sample first, Sample last, double seconds, boolean hasSpan) {
+    double active = gauge("worker.pool.active");
+    double idle = gauge("worker.pool.idle");
+    double max = active + idle;
+    // 完了したタスクの処理時間の合計 / 経過時間 = 平均同時実行数
+    Double busy =
+        hasSpan ? (last.workerBusySeconds() - first.workerBusySeconds()) / seconds : null;
+
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("name", WORKER_POOL_NAME);
+    map.put("active", (long) active);
+    map.put("max", (long) max);
+    map.put("queueSize", (long) gauge("worker.pool.queue.size"));
+    map.put("averageBusyThreads", busy);
+    map.put("utilizationPercent", busy != null && max > 0 ? busy / max * 100 : null);
+    return map;
+  }
+
+  private double gauge(String name) {
+    Gauge gauge = registry.find(name).tag(POOL_NAME_TAG, WORKER_POOL_NAME).gauge();
+    if (gauge == null) {
+      return 0;
+    }
+    double value = gauge.value();
+    return Double.isNaN(value) ? 0 : value;
+  }
+
+  private Map<String, Object> virtualThreads(Sample first, Sample last) {
+    double busy = 0;
+    for (Sample sample : samples) {
+      busy += sample.carriersBusy();
+    }
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("enabled", virtualThreadsEnabled);
+    map.put(
+        "parallelism",
+        Integer.getInteger(
+            "jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors()));
+    map.put("carriers", last.carriers());
+    map.put("averageBusyCarriers", busy / samples.size());
+    map.put(
+        "utilizationPercent",
+        last.carriers() > 0 ? busy / samples.size() / last.carriers() * 100 : null);
+    map.put("pinned", last.pinnedCount() - first.pinnedCount());
+    map.put("pinnedTotalMs", (last.pinnedSeconds() - first.pinnedSeconds()) * 1000);
+    return map;
+  }
+
+  /** 起動以降に全スレッドが割り当てたヒープの合計（取得できない場合は-1） */
+  private long allocatedBytes() {
+    if (threads instanceof com.sun.management.ThreadMXBean sun
+        && sun.isThreadAllocatedMemorySupported()
+        && sun.isThreadAllocatedMemoryEnabled()) {
+      return sun.getTotalThreadAllocatedBytes();
+    }
+    return -1;
+  }
+
+  private static boolean isCarrier(String name) {
+    return name != null && name.startsWith(CARRIER_PREFIX) && name.contains(CARRIER_INFIX);
+  }
+
+  private void startRecording() {
+    try {
+      stream = new RecordingStream();
+      stream.enable("jdk.GarbageCollection");
+      stream.enable("jdk.SafepointBegin");
+      stream.enable("jdk.SafepointEnd");
+      stream.onEvent(
+          "jdk.GarbageCollection", event -> gcPauses.add(event.getDuration("sumOfPauses")));
+      stream.onEvent("jdk.SafepointBegin", this::onSafepointBegin);
+      stream.onEvent("jdk.SafepointEnd", this::onSafepointEnd);
+      stream.startAsync();
+    } catch (RuntimeException | LinkageError e) {
+      // JFRを含まないネイティブイメージ等
+      LOG.warnf("GC停止時間とセーフポイント時間を採取できません: %s", e.getMessage());
+      stream = null;
+    }
+  }
+
+  void onSafepointBegin(RecordedEvent event) {
+    if (openSafepoints.size() >= MAX_OPEN_SAFEPOINTS) {
+      openSafepoints.clear();
+    }
+    openSafepoints.put(event.getLong("safepointId"), event.getStartTime());
+  }
+
+  void onSafepointEnd(RecordedEvent event) {
+    // SafepointBeginの期間は同期までの時間のみのため、開始から終了までをセーフポイント時間とする
+    Instant begin = openSafepoints.remove(event.getLong("safepointId"));
+    if (begin != null) {
+      safepoints.add(Duration.between(begin, event.getEndTime()));
+    }
+  }
+}
@@ -5,46 +5,91 @@
 
 package com.example.interceptor;
 
+import com.example.accesslog.AccessLogWriter;
+import com.example.metrics.RouteMetrics;
+import com.example.mybatis.DbRequestStats;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
+import jakarta.annotation.PostConstruct;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.container.ContainerResponseContext;
 import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.ext.Provider;
 import java.io.IOException;
-import java.util.UUID;
+import java.util.Optional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import org.jboss.logging.MDC;
 
-/** リクエスト/レスポンスログインターセプター */
+/**
+ * リクエスト/レスポンスログインターセプター
+ *
+ * <p>リクエストIDは{@link RequestIdGenerator}で生成し（クライアント指定の妥当なX-Request-IDがあればそれを使用）、
+ * 開始時刻とともに{@link RequestTrace}としてリクエストプロパティに保持する。
+ * 処理時間はルート別レイテンシーとして{@link RouteMetrics}に記録し、レスポンスは{@link AccessLogWriter}に非同期で記録する。
+ * リクエスト内のDB往復回数と所要時間（{@link DbRequestStats}）はルート別メトリクスに記録し、
+ * 有効な場合は処理時間とともに{@code Server-Timing}ヘッダーで返す。
+ * リクエストログはDEBUGで出力し、アクセスログが無効な場合のみレスポンスログをINFOで出力する（無効なレベルでは書式化しない）。
+ */
 @Provider
 public class LoggingInterceptor implements ContainerRequestFilter, ContainerResponseFilter {
 
   private static final Logger LOG = Logger.getLogger(LoggingInterceptor.class);
   private static final String REQUEST_ID_HEADER = "X-Request-ID";
   private static final String REQUEST_ID_KEY = "requestId";
-  private static final String START_TIME_KEY = "startTime";
+  private static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+  /** クライアント指定のリクエストIDとして受け入れる最大長 */
+  private static final int MAX_CLIENT_REQUEST_ID_LENGTH = 64;
+
+  @ConfigProperty(name = "app.request-id.node-id")
+  Optional<Integer> nodeId;
+
+  @ConfigProperty(name = "app.server-timing.enabled", defaultValue = "true")
+  boolean serverTimingEnabled;
+
+  @Inject RouteMetrics routeMetrics;
+
+  @Inject DbRequestStats dbStats;
+
+  @Inject AccessLogWriter accessLog;
+
+  @Context ResourceInfo resourceInfo;
+
+  @Context HttpServerRequest httpRequest;
+
+  private RequestIdGenerator generator;
+
+  @PostConstruct
+  void init() {
+    generator = new RequestIdGenerator(nodeId.orElseGet(RequestIdGenerator::defaultNodeId));
+    LOG.debugf("リクエストIDのノードID: %d", generator.getNodeId());
+  }
 
   @Override
   public void filter(ContainerRequestContext requestContext) throws IOException {
+    long startNanos = System.nanoTime();
+
     // リクエストIDの生成または取得
     String requestId = requestContext.getHeaderString(REQUEST_ID_HEADER);
-    if (requestId == null || requestId.isEmpty()) {
-      requestId = UUID.randomUUID().toString();
+    if (!isValidRequestId(requestId)) {
+      requestId = generator.next();
     }
 
-    // MDCにリクエストIDを設定
     MDC.put(REQUEST_ID_KEY, requestId);
-    MDC.put(START_TIME_KEY, String.valueOf(System.currentTimeMillis()));
-
-    // リクエストログ
-    LOG.infof(
-        "HTTP Request: %s %s from %s",
-        requestContext.getMethod(),
-        requestContext.getUriInfo().getPath(),
-        getClientIp(requestContext));
+    requestContext.setProperty(RequestTrace.PROPERTY, new RequestTrace(requestId, startNanos));
 
-    // レスポンスヘッダーにリクエストIDを設定
-    requestContext.setProperty(REQUEST_ID_KEY, requestId);
+    if (LOG.isDebugEnabled()) {
+      LOG.debugf(
+          "HTTP Request: %s %s from %s",
+          requestContext.getMethod(),
+          requestContext.getUriInfo().getPath(),
+          getClientIp(requestContext));
+    }
   }
 
   @Override
@@ -52,39 +97,123 @@ public class LoggingInterceptor implements ContainerRequestFilter, ContainerResp
       ContainerRequestContext requestContext, ContainerResponseContext responseContext)
       throws IOException {
     try {
-      String requestId = (String) requestContext.getProperty(REQUEST_ID_KEY);
-      String startTimeStr = (String) MDC.get(START_TIME_KEY);
+      RequestTrace trace = RequestTrace.of(requestContext);
+      if (trace == null) {
+        return;
+      }
 
       // レスポンスヘッダーにリクエストIDを追加
-      if (requestId != null) {
-        responseContext.getHeaders().add(REQUEST_ID_HEADER, requestId);
+      responseContext.getHeaders().add(REQUEST_ID_HEADER, trace.getRequestId());
+
+      long elapsedNanos = trace.elapsedNanos();
+      int status = responseContext.getStatus();
+      routeMetrics.record(
+          resourceInfo, requestContext.getSecurityContext(), status, elapsedNanos);
+
+      int queries = dbStats.getQueries();
+      long dbNanos = dbStats.getNanos();
+      routeMetrics.recordDb(resourceInfo, queries, dbNanos);
+      if (serverTimingEnabled) {
+        responseContext
+            .getHeaders()
+            .add(SERVER_TIMING_HEADER, serverTiming(queries, dbNanos, elapsedNanos));
       }
 
-      // 処理時間の計算
-      long duration = 0;
-      if (startTimeStr != null) {
-        long startTime = Long.parseLong(startTimeStr);
-        duration = System.currentTimeMillis() - startTime;
+      if (accessLog.isEnabled()) {
+        accessLog.log(
+            trace.getRequestId(),
+            requestContext.getMethod(),
+            routeMetrics.route(resourceInfo),
+            status,
+            elapsedNanos,
+            getClientAddress(requestContext),
+            getResponseLength(responseContext));
+      } else if (LOG.isInfoEnabled()) {
+        LOG.infof(
+            "HTTP Response: %s %s -> %d (%.3fms)",
+            requestContext.getMethod(),
+            requestContext.getUriInfo().getPath(),
+            status,
+            elapsedNanos / 1_000_000.0);
       }
-
-      // レスポンスログ
-      LOG.infof(
-          "HTTP Response: %s %s -> %d (%dms)",
-          requestContext.getMethod(),
-          requestContext.getUriInfo().getPath(),
-          responseContext.getStatus(),
-          duration);
-
     } finally {
       // MDCをクリア
       MDC.clear();
     }
   }
 
+  /** {@code db;dur=1.234;desc="3 queries", total;dur=5.678}（所要時間はミリ秒） */
+  static String serverTiming(int queries, long dbNanos, long totalNanos) {
+    StringBuilder sb = new StringBuilder(64).append("db;dur=");
+    appendMillis(sb, dbNanos);
+    sb.append(";desc=\"").append(queries).append(" queries\", total;dur=");
+    appendMillis(sb, totalNanos);
+    return sb.toString();
+  }
+
+  /** ナノ秒をミリ秒（小数点以下3桁）で追記 */
+  private static void appendMillis(StringBuilder sb, long nanos) {
+    long micros = nanos / 1_000;
+    long fraction = micros % 1_000;
+    sb.append(micros / 1_000).append('.');
+    if (fraction < 100) {
+      sb.append(fraction < 10 ? "00" : "0");
+    }
+    sb.append(fraction);
+  }
+
+  /** ログやヘッダーにそのまま載せられる値か（英数字と {@code -_.:} のみ） */
+  static boolean isValidRequestId(String requestId) {
+    if (requestId == null
+        || requestId.isEmpty()
+        || requestId.length() > MAX_CLIENT_REQUEST_ID_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < requestId.length(); i++) {
+      char c = requestId.charAt(i);
+      boolean valid =
+          (c >= 'a' && c <= 'z')
+              || (c >= 'A' && c <= 'Z')
+              || (c >= '0' && c <= '9')
+              || c == '-'
+              || c == '_'
+              || c == '.'
+              || c == ':';
+      if (!valid) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** アクセスログ用のクライアントアドレス（X-Forwarded-Forは未加工のまま渡し、書き込みスレッドで先頭を取り出す） */
+  private String getClientAddress(ContainerRequestContext requestContext) {
+    String forwarded = requestContext.getHeaderString("X-Forwarded-For");
+    if (forwarded != null && !forwarded.isEmpty()) {
+      return forwarded;
+    }
+    String realIp = requestContext.getHeaderString("X-Real-IP");
+    if (realIp != null && !realIp.isEmpty()) {
+      return realIp;
+    }
+    SocketAddress remote = httpRequest != null ? httpRequest.remoteAddress() : null;
+    return remote != null ? remote.hostAddress() : null;
+  }
+
+  /** レスポンス本文のバイト数（Content-Lengthまたはbyte[]エンティティから分かる場合のみ） */
+  private static long getResponseLength(ContainerResponseContext responseContext) {
+    int length = responseContext.getLength();
+    if (length >= 0) {
+      return length;
+    }
+    return responseContext.getEntity() instanceof byte[] body ? body.length : -1;
+  }
+
   private String getClientIp(ContainerRequestContext requestContext) {
     String xForwardedFor = requestContext.getHeaderString("X-Forwarded-For");
     if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-      return xForwardedFor.split(",")[0].trim();
+      int comma = xForwardedFor.indexOf(',');
+      return (comma < 0 ? xForwardedFor : xForwardedFor.substring(0, comma)).trim();
     }
 
     String xRealIp = requestContext.getHeaderString("X-Real-IP");
@@ -0,0 +1,89 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.interceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ULID形式のリクエストID生成
+ *
+ * <p>26文字のCrockford Base32で、先頭からミリ秒タイムスタンプ（10文字）・ノードID（2文字）・乱数（14文字）を並べる。
+ * 文字列順がそのまま生成時刻順になるようノードIDはタイムスタンプの後に置き、タイムスタンプはシステム時刻が巻き戻っても減少しない。
+ * 乱数は{@link ThreadLocalRandom}から取得するため、{@code UUID.randomUUID()}のようなSecureRandomの競合がない。
+ */
+public final class RequestIdGenerator {
+
+  /** 生成されるIDの長さ */
+  public static final int LENGTH = 26;
+
+  /** ノードIDの上限（10ビット） */
+  public static final int MAX_NODE_ID = (1 << 10) - 1;
+
+  private static final byte[] ALPHABET =
+      "0123456789ABCDEFGHJKMNPQRSTVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+  private final int nodeId;
+  private final AtomicLong lastMillis = new AtomicLong();
+
+  /**
+   * @param nodeId ノードID（0〜{@value #MAX_NODE_ID}）
+   */
+  public RequestIdGenerator(int nodeId) {
+    if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+      throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID);
+    }
+    this.nodeId = nodeId;
+  }
+
+  /**
+   * 環境からノードIDを決定（HOSTNAMEがあればそのハッシュ、なければ乱数）
+   *
+   * @return ノードID
+   */
+  public static int defaultNodeId() {
+    String hostname = System.getenv("HOSTNAME");
+    if (hostname != null && !hostname.isEmpty()) {
+      return hostname.hashCode() & MAX_NODE_ID;
+    }
+    return ThreadLocalRandom.current().nextInt(MAX_NODE_ID + 1);
+  }
+
+  public int getNodeId() {
+    return nodeId;
+  }
+
+  /**
+   * 新しいリクエストIDを生成
+   *
+   * @return 26文字のID
+   */
+  public String next() {
+    long millis = lastMillis.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long randomHigh = random.nextLong();
+    int randomLow = random.nextInt();
+
+    byte[] id = new byte[LENGTH];
+    // タイムスタンプ 48ビット → 10文字（上位2ビットは0）
+    for (int i = 9; i >= 0; i--) {
+      id[i] = ALPHABET[(int) (millis & 31)];
+      millis >>>= 5;
+    }
+    // ノードID 10ビット → 2文字
+    id[10] = ALPHABET[(nodeId >>> 5) & 31];
+    id[11] = ALPHABET[nodeId & 31];
+    // 乱数 70ビット → 14文字（60ビット + 10ビット）
+    for (int i = 23; i >= 12; i--) {
+      id[i] = ALPHABET[(int) (randomHigh & 31)];
+      randomHigh >>>= 5;
+    }
+    id[24] = ALPHABET[(randomLow >>> 5) & 31];
+    id[25] = ALPHABET[randomLow & 31];
+    return new String(id, StandardCharsets.ISO_8859_1);
+  }
+}
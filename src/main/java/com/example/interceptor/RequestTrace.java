@@ -0,0 +1,51 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.interceptor;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+
+/**
+ * リクエスト単位のトレース情報（リクエストIDと開始時刻）
+ *
+ * <p>{@link LoggingInterceptor}がリクエストプロパティ{@value #PROPERTY}に設定する。
+ * 開始時刻は{@link System#nanoTime()}で保持し、文字列化やboxingを伴わない。
+ */
+public final class RequestTrace {
+
+  /** リクエストプロパティ名 */
+  public static final String PROPERTY = RequestTrace.class.getName();
+
+  private final String requestId;
+  private final long startNanos;
+
+  public RequestTrace(String requestId, long startNanos) {
+    this.requestId = requestId;
+    this.startNanos = startNanos;
+  }
+
+  /**
+   * リクエストに設定されたトレース情報を取得
+   *
+   * @param requestContext リクエストコンテキスト
+   * @return トレース情報（フィルター適用前はnull）
+   */
+  public static RequestTrace of(ContainerRequestContext requestContext) {
+    return (RequestTrace) requestContext.getProperty(PROPERTY);
+  }
+
+  public String getRequestId() {
+    return requestId;
+  }
+
+  public long getStartNanos() {
+    return startNanos;
+  }
+
+  /** 開始からの経過時間（ナノ秒） */
+  public long elapsedNanos() {
+    return System.nanoTime() - startNanos;
+  }
+}
@@ -0,0 +1,63 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.jboss.logging.MDC;
+
+/**
+ * アプリケーションのJFRイベントの基底クラス
+ *
+ * <p>リクエストID・操作・結果を共通で持つ。既定では無効で、有効化していない間は{@link #begin()}と
+ * {@link #finish(String)}はほぼ何もしない（リクエストIDの取得も行わない）。記録するには
+ * {@code src/main/jfr/application.jfc}を設定に加えてJFRを開始する。
+ *
+ * <pre>{@code
+ * PasswordHashEvent event = new PasswordHashEvent(PasswordHashEvent.VERIFY);
+ * event.begin();
+ * boolean matches = BcryptUtil.matches(password, hash);
+ * event.finish(matches ? "match" : "mismatch");
+ * }</pre>
+ */
+@Category({"Quarkus Template App"})
+@Enabled(false)
+@StackTrace(false)
+public abstract class AppEvent extends Event {
+
+  /** 処理中に例外が発生した場合の結果 */
+  public static final String ERROR = "error";
+
+  @Label("Request ID")
+  String requestId;
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Outcome")
+  String outcome;
+
+  protected AppEvent(String operation) {
+    this.operation = operation;
+  }
+
+  /**
+   * 結果を設定して記録（無効時やしきい値未満の場合は何もしない）
+   *
+   * @param outcome 結果
+   */
+  public void finish(String outcome) {
+    end();
+    if (shouldCommit()) {
+      this.requestId = (String) MDC.get("requestId");
+      this.outcome = outcome;
+      commit();
+    }
+  }
+}
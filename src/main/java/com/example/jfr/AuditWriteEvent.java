@@ -0,0 +1,32 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** 監査ログの書き込み（{@code AuditLogService}） */
+@Name("com.example.AuditWrite")
+@Label("Audit Write")
+@Description("監査ログ1件の挿入")
+public class AuditWriteEvent extends AppEvent {
+
+  /** 結果: 挿入成功 */
+  public static final String WRITTEN = "written";
+
+  @Label("Action")
+  String action;
+
+  @Label("Status")
+  String status;
+
+  public AuditWriteEvent(String action, String status) {
+    super("insert");
+    this.action = action;
+    this.status = status;
+  }
+}
@@ -0,0 +1,46 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * マッパー呼び出し（{@code StatementMetricsInterceptor}が全マップドステートメントについて記録）
+ *
+ * <p>操作はステートメントID（例: {@code UserMapper.findActiveByUsername}）。
+ */
+@Name("com.example.MapperCall")
+@Label("Mapper Call")
+@Description("MyBatisのマップドステートメント1回の実行")
+public class MapperCallEvent extends AppEvent {
+
+  /** 結果: 正常終了 */
+  public static final String SUCCESS = "success";
+
+  @Label("Command")
+  String command;
+
+  @Label("Rows")
+  long rows;
+
+  public MapperCallEvent(String statement, String command) {
+    super(statement);
+    this.command = command;
+  }
+
+  /**
+   * 行数と結果を設定して記録
+   *
+   * @param rows 取得/更新行数（不明な場合は-1）
+   * @param outcome 結果
+   */
+  public void finish(long rows, String outcome) {
+    this.rows = rows;
+    finish(outcome);
+  }
+}
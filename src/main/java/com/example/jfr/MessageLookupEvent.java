@@ -0,0 +1,36 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.jfr;
+
+import java.util.Locale;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** メッセージの参照（{@code MessageService}） */
+@Name("com.example.MessageLookup")
+@Label("Message Lookup")
+@Description("ロケール別メッセージの参照")
+public class MessageLookupEvent extends AppEvent {
+
+  /** 結果: カタログにあった */
+  public static final String HIT = "hit";
+
+  /** 結果: カタログになくキーを返した */
+  public static final String MISSING = "missing";
+
+  @Label("Key")
+  String key;
+
+  @Label("Locale")
+  String locale;
+
+  public MessageLookupEvent(String key, Locale locale) {
+    super("get");
+    this.key = key;
+    this.locale = locale != null ? locale.getLanguage() : null;
+  }
+}
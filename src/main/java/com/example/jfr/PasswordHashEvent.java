@@ -0,0 +1,27 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** パスワードのハッシュ化と照合（{@code UserService}のBCrypt） */
+@Name("com.example.PasswordHash")
+@Label("Password Hash")
+@Description("BCryptによるパスワードのハッシュ化・照合")
+public class PasswordHashEvent extends AppEvent {
+
+  /** 操作: 登録時のハッシュ化 */
+  public static final String HASH = "hash";
+
+  /** 操作: ログイン時の照合 */
+  public static final String VERIFY = "verify";
+
+  public PasswordHashEvent(String operation) {
+    super(operation);
+  }
+}
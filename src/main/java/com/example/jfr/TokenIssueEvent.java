@@ -0,0 +1,25 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** JWTの発行（{@code JwtService}） */
+@Name("com.example.TokenIssue")
+@Label("Token Issue")
+@Description("JWTの生成と署名")
+public class TokenIssueEvent extends AppEvent {
+
+  @Label("Role")
+  String role;
+
+  public TokenIssueEvent(String role) {
+    super("sign");
+    this.role = role;
+  }
+}
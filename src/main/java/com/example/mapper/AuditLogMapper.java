@@ -6,6 +6,7 @@
 package com.example.mapper;
 
 import com.example.model.AuditLog;
+import com.example.mybatis.ReadReplica;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -69,6 +70,7 @@ public interface AuditLogMapper {
   List<AuditLog> findByUserId(Long userId);
 
   /** ユーザー名で監査ログを検索 */
+  @ReadReplica
   @Select(
       "SELECT id, user_id, username, action, resource_type, resource_id, "
           + "details, ip_address, user_agent, request_id, status, error_message, created_at "
@@ -113,6 +115,7 @@ public interface AuditLogMapper {
   List<AuditLog> findByAction(String action);
 
   /** 期間で監査ログを検索 */
+  @ReadReplica
   @Select(
       "SELECT id, user_id, username, action, resource_type, resource_id, "
           + "details, ip_address, user_agent, request_id, status, error_message, created_at "
@@ -137,6 +140,7 @@ public interface AuditLogMapper {
       @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
   /** 全監査ログを取得（ページング対応） */
+  @ReadReplica
   @Select(
       "SELECT id, user_id, username, action, resource_type, resource_id, "
           + "details, ip_address, user_agent, request_id, status, error_message, created_at "
@@ -162,6 +166,17 @@ public interface AuditLogMapper {
   @Select("SELECT COUNT(*) FROM audit_logs")
   long count();
 
+  /** 期間内のアクション・ステータス別監査ログ数を取得 */
+  @ReadReplica
+  @Select(
+      "SELECT COUNT(*) FROM audit_logs WHERE action = #{action} AND status = #{status} "
+          + "AND created_at BETWEEN #{startDate} AND #{endDate}")
+  long countByActionAndStatusBetween(
+      @Param("action") String action,
+      @Param("status") AuditLog.Status status,
+      @Param("startDate") LocalDateTime startDate,
+      @Param("endDate") LocalDateTime endDate);
+
   /** 古い監査ログを削除 */
   @Delete("DELETE FROM audit_logs WHERE created_at < #{cutoffDate}")
   int deleteOlderThan(@Param("cutoffDate") LocalDateTime cutoffDate);
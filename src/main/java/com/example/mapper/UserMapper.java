@@ -6,12 +6,23 @@
 package com.example.mapper;
 
 import com.example.model.User;
+import com.example.model.UserRoleCount;
+import com.example.mybatis.ReadReplica;
+import com.example.mybatis.WeightedLruCache;
 import java.util.List;
 import java.util.Optional;
 import org.apache.ibatis.annotations.*;
 
-/** ユーザーマッパー（MyBatis） */
+/**
+ * ユーザーマッパー（MyBatis）
+ *
+ * <p>ID・ユーザー名での検索は2次キャッシュ（{@code app.mybatis.cache.user}）を使う。更新系のステートメントのコミット時に全消去されるため、
+ * 一覧・件数の検索はキャッシュしない（{@code useCache = false}、更新のたびに消えて効果がない）。
+ */
 @Mapper
+@CacheNamespace(
+    implementation = WeightedLruCache.class,
+    properties = @Property(name = "configPrefix", value = "app.mybatis.cache.user"))
 public interface UserMapper {
 
   /** ユーザーを挿入 */
@@ -79,6 +90,7 @@ public interface UserMapper {
     @Result(property = "createdAt", column = "created_at"),
     @Result(property = "active", column = "is_active")
   })
+  @Options(useCache = false)
   List<User> findAll();
 
   /** ユーザーを更新 */
@@ -98,13 +110,29 @@ public interface UserMapper {
 
   /** ユーザー数を取得 */
   @Select("SELECT COUNT(*) FROM users")
+  @Options(useCache = false)
   long count();
 
   /** アクティブユーザー数を取得 */
   @Select("SELECT COUNT(*) FROM users WHERE is_active = true")
+  @Options(useCache = false)
   long countActive();
 
   /** ロール別ユーザー数を取得 */
   @Select("SELECT COUNT(*) FROM users WHERE role = #{role}")
+  @Options(useCache = false)
   long countByRole(@Param("role") User.Role role);
+
+  /** ロール・有効状態別ユーザー数を一括取得（ダッシュボード統計用） */
+  @ReadReplica
+  @Select(
+      "SELECT role, is_active, COUNT(*) AS user_count "
+          + "FROM users GROUP BY role, is_active")
+  @Results({
+    @Result(property = "role", column = "role"),
+    @Result(property = "active", column = "is_active"),
+    @Result(property = "count", column = "user_count")
+  })
+  @Options(useCache = false)
+  List<UserRoleCount> countGroupByRoleAndActive();
 }
@@ -0,0 +1,96 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * スライディングウィンドウ内の処理時間（クライアント側パーセンタイル用）
+ *
+ * <p>記録は直近の{@code capacity}件を保持するリングへの書き込みのみで、ヒストグラムの更新やロックは行わない。
+ * パーセンタイルは参照時（ダッシュボードの要約・Prometheusのスクレイプ）にウィンドウ内のサンプルを並べ替えて求め、
+ * 結果は{@link #SNAPSHOT_TTL_NANOS}の間再利用する。ウィンドウ内の件数が容量を超える場合は直近{@code capacity}件から求める。
+ */
+final class LatencyWindow {
+
+  /** 計算済みスナップショットを再利用する期間 */
+  private static final long SNAPSHOT_TTL_NANOS = 1_000_000_000L;
+
+  private final long windowNanos;
+  private final int mask;
+  private final AtomicLongArray durations;
+  private final AtomicLongArray completedAt;
+  private final AtomicLong next = new AtomicLong();
+
+  private volatile Snapshot snapshot;
+
+  /** ウィンドウ内のサンプル（昇順） */
+  record Snapshot(long[] sorted, long takenAt) {
+
+    int count() {
+      return sorted.length;
+    }
+
+    /** 最近傍順位法のパーセンタイル（ナノ秒、サンプルなしは0） */
+    long percentile(double percentile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(percentile * sorted.length);
+      return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+    }
+
+    long max() {
+      return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+    }
+  }
+
+  /**
+   * @param window ウィンドウの長さ（ナノ秒）
+   * @param capacity 保持するサンプル数（2のべき乗に切り上げ）
+   */
+  LatencyWindow(long window, int capacity) {
+    int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+    this.windowNanos = window;
+    this.mask = size - 1;
+    this.durations = new AtomicLongArray(size);
+    this.completedAt = new AtomicLongArray(size);
+  }
+
+  /** 処理時間を記録（割り当てなし） */
+  void record(long nanos) {
+    int index = (int) next.getAndIncrement() & mask;
+    durations.setPlain(index, nanos);
+    // 時刻の公開を最後に行い、参照側は時刻を読んでから処理時間を読む
+    completedAt.setRelease(index, System.nanoTime());
+  }
+
+  /** ウィンドウ内のサンプルの集計（直近の計算結果を再利用） */
+  Snapshot snapshot() {
+    long now = System.nanoTime();
+    Snapshot current = snapshot;
+    if (current != null && now - current.takenAt() < SNAPSHOT_TTL_NANOS) {
+      return current;
+    }
+    int recorded = (int) Math.min(next.get(), mask + 1L);
+    long[] samples = new long[recorded];
+    int count = 0;
+    for (int i = 0; i < recorded; i++) {
+      long at = completedAt.getAcquire(i);
+      // 0は割り当て済みで未書き込みのスロット
+      if (at != 0 && now - at <= windowNanos) {
+        samples[count++] = durations.getPlain(i);
+      }
+    }
+    long[] sorted = Arrays.copyOf(samples, count);
+    Arrays.sort(sorted);
+    current = new Snapshot(sorted, now);
+    snapshot = current;
+    return current;
+  }
+}
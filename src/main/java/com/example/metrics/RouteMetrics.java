@@ -0,0 +1,318 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.SecurityContext;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * ルート別レイテンシーメトリクス
+ *
+ * <p>リソースメソッドごとに次のメーターを記録する。
+ *
+ * <ul>
+ *   <li>{@value #TIMER_NAME}: JAX-RSのルートテンプレート（生のパスではない）・ロール・ステータスクラスをタグとし、SLOバケットを持つヒストグラム
+ *   <li>{@value #WINDOW_TIMER_NAME}: ルート単位の、スライディングウィンドウ内のクライアント側パーセンタイル（{@code quantile}タグ付きゲージ、ダッシュボードの要約にも使用）
+ *   <li>{@value #DB_QUERIES_NAME}・{@value #DB_TIMER_NAME}: ルート単位の1リクエストあたりのDB往復回数とDB所要時間
+ * </ul>
+ *
+ * <p>クライアント側パーセンタイルはタグ間で集約できないため、ロール・ステータス別には持たない。
+ * タイマーはリソースメソッドごとの配列に（ロール × ステータスクラス）で保持するため、2回目以降の記録ではタグ生成や割り当てが発生しない。
+ * パーセンタイル用の記録は{@link LatencyWindow}のリングへの書き込みのみで、ヒストグラムの更新と並べ替えは参照時に行う（リクエスト毎のコストに含めない）。
+ */
+@ApplicationScoped
+public class RouteMetrics {
+
+  /** タイマー名（Prometheusでは {@code app_http_route_seconds}） */
+  public static final String TIMER_NAME = "app.http.route";
+
+  /** ルート単位のパーセンタイル用ゲージ名（Prometheusでは {@code app_http_route_window_seconds}） */
+  public static final String WINDOW_TIMER_NAME = "app.http.route.window";
+
+  /** 1リクエストあたりのDB往復回数（Prometheusでは {@code app_http_route_db_queries}） */
+  public static final String DB_QUERIES_NAME = "app.http.route.db.queries";
+
+  /** 1リクエストあたりのDB所要時間（Prometheusでは {@code app_http_route_db_seconds}） */
+  public static final String DB_TIMER_NAME = "app.http.route.db";
+
+  /** DB往復回数のヒストグラムバケット（0回は le="1" に含まれる。バケット境界は正の値のみ） */
+  private static final double[] DB_QUERY_BUCKETS = {1, 2, 3, 5, 10, 20, 50};
+
+  /** ロールのタグ値（判定順） */
+  private static final String[] ROLES = {"ADMIN", "SALES", "USER"};
+
+  private static final String ANONYMOUS = "anonymous";
+
+  private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+  /** リソースメソッドに一致しなかったリクエストのルート */
+  private static final String UNMATCHED = "UNMATCHED";
+
+  @Inject MeterRegistry registry;
+
+  @ConfigProperty(name = "app.metrics.route.slo", defaultValue = "50ms,100ms,250ms,500ms,1s,2s")
+  List<Duration> slo;
+
+  @ConfigProperty(name = "app.metrics.route.percentiles", defaultValue = "0.5,0.95,0.99")
+  List<Double> percentiles;
+
+  @ConfigProperty(name = "app.metrics.route.window", defaultValue = "1m")
+  Duration window;
+
+  @ConfigProperty(name = "app.metrics.route.window-samples", defaultValue = "1024")
+  int windowSamples;
+
+  private final Map<Method, RouteTimers> routes = new ConcurrentHashMap<>();
+
+  private RouteTimers unmatched;
+
+  private double[] percentileArray;
+
+  private Duration[] sloArray;
+
+  @PostConstruct
+  void init() {
+    percentileArray = percentiles.stream().mapToDouble(Double::doubleValue).toArray();
+    sloArray = slo.toArray(new Duration[0]);
+    unmatched = new RouteTimers("", UNMATCHED);
+  }
+
+  /**
+   * リクエストの処理時間を記録
+   *
+   * @param resourceInfo マッチしたリソース（一致なしの場合はメソッドがnull）
+   * @param securityContext セキュリティコンテキスト
+   * @param status HTTPステータス
+   * @param nanos 処理時間（ナノ秒）
+   */
+  public void record(
+      ResourceInfo resourceInfo, SecurityContext securityContext, int status, long nanos) {
+    RouteTimers timers = timers(resourceInfo);
+    timers
+        .timer(roleIndex(securityContext), statusIndex(status))
+        .record(nanos, TimeUnit.NANOSECONDS);
+    timers.window.record(nanos);
+  }
+
+  /**
+   * リクエスト内のDB往復回数と所要時間を記録
+   *
+   * @param resourceInfo マッチしたリソース（一致なしの場合はメソッドがnull）
+   * @param queries 実行したステートメント数
+   * @param nanos ステートメントの所要時間の合計（ナノ秒）
+   */
+  public void recordDb(ResourceInfo resourceInfo, int queries, long nanos) {
+    RouteTimers timers = timers(resourceInfo);
+    timers.dbQueries.record(queries);
+    timers.dbTime.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * ルートテンプレートを取得
+   *
+   * @param resourceInfo マッチしたリソース
+   * @return ルートテンプレート（一致なしの場合は{@value #UNMATCHED}）
+   */
+  public String route(ResourceInfo resourceInfo) {
+    return timers(resourceInfo).route;
+  }
+
+  private RouteTimers timers(ResourceInfo resourceInfo) {
+    Method method = resourceInfo != null ? resourceInfo.getResourceMethod() : null;
+    if (method == null) {
+      return unmatched;
+    }
+    RouteTimers timers = routes.get(method);
+    if (timers == null) {
+      timers = routes.computeIfAbsent(method, m -> create(resourceInfo.getResourceClass(), m));
+    }
+    return timers;
+  }
+
+  /**
+   * ルートごとのレイテンシー要約（スライディングウィンドウ内のパーセンタイル）
+   *
+   * @return ルート（{@code GET /api/menu}形式）→ 件数・パーセンタイル（ミリ秒）
+   */
+  public Map<String, Map<String, Object>> summarize() {
+    Map<String, Map<String, Object>> result = new TreeMap<>();
+    summarize(unmatched, result);
+    routes.values().forEach(timers -> summarize(timers, result));
+    return result;
+  }
+
+  /** スライディングウィンドウの長さ */
+  public Duration getWindow() {
+    return window;
+  }
+
+  private void summarize(RouteTimers timers, Map<String, Map<String, Object>> result) {
+    LatencyWindow.Snapshot snapshot = timers.window.snapshot();
+    if (snapshot.count() == 0) {
+      return;
+    }
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("count", snapshot.count());
+    for (double percentile : percentileArray) {
+      summary.put(percentileLabel(percentile), millis(snapshot.percentile(percentile)));
+    }
+    summary.put("maxMs", millis(snapshot.max()));
+    result.put(timers.key(), summary);
+  }
+
+  /** 0.95 → p95、0.999 → p99.9 */
+  private static String percentileLabel(double percentile) {
+    String value = Double.toString(percentile * 100);
+    if (value.endsWith(".0")) {
+      value = value.substring(0, value.length() - 2);
+    }
+    return "p" + value + "Ms";
+  }
+
+  /** ナノ秒 → ミリ秒（小数点以下3桁） */
+  private static double millis(long nanos) {
+    return Math.round(nanos / 1_000.0) / 1000.0;
+  }
+
+  private RouteTimers create(Class<?> resourceClass, Method method) {
+    return new RouteTimers(httpMethod(method), routeTemplate(resourceClass, method));
+  }
+
+  private static int roleIndex(SecurityContext securityContext) {
+    if (securityContext != null && securityContext.getUserPrincipal() != null) {
+      for (int i = 0; i < ROLES.length; i++) {
+        if (securityContext.isUserInRole(ROLES[i])) {
+          return i;
+        }
+      }
+    }
+    return ROLES.length;
+  }
+
+  private static int statusIndex(int status) {
+    int index = status / 100 - 1;
+    return index >= 0 && index < STATUS_CLASSES.length ? index : STATUS_CLASSES.length - 1;
+  }
+
+  /** クラスとメソッドの{@code @Path}を連結したルートテンプレート */
+  static String routeTemplate(Class<?> resourceClass, Method method) {
+    StringBuilder route = new StringBuilder();
+    appendPath(route, resourceClass.getAnnotation(Path.class));
+    appendPath(route, method.getAnnotation(Path.class));
+    return route.isEmpty() ? "/" : route.toString();
+  }
+
+  private static void appendPath(StringBuilder route, Path path) {
+    if (path == null) {
+      return;
+    }
+    String value = path.value();
+    int start = 0;
+    int end = value.length();
+    while (start < end && value.charAt(start) == '/') {
+      start++;
+    }
+    while (end > start && value.charAt(end - 1) == '/') {
+      end--;
+    }
+    if (start < end) {
+      route.append('/').append(value, start, end);
+    }
+  }
+
+  private static String httpMethod(Method method) {
+    for (var annotation : method.getAnnotations()) {
+      HttpMethod httpMethod = annotation.annotationType().getAnnotation(HttpMethod.class);
+      if (httpMethod != null) {
+        return httpMethod.value();
+      }
+    }
+    return "";
+  }
+
+  /** 1ルート分のタイマー（ロール × ステータスクラスは初回記録時に登録） */
+  private final class RouteTimers {
+
+    private final String httpMethod;
+    private final String route;
+    private final AtomicReferenceArray<Timer> timers =
+        new AtomicReferenceArray<>((ROLES.length + 1) * STATUS_CLASSES.length);
+    private final LatencyWindow window;
+    private final DistributionSummary dbQueries;
+    private final Timer dbTime;
+
+    RouteTimers(String httpMethod, String route) {
+      this.httpMethod = httpMethod;
+      this.route = route;
+      this.window = new LatencyWindow(RouteMetrics.this.window.toNanos(), windowSamples);
+      for (double percentile : percentileArray) {
+        Gauge.builder(
+                WINDOW_TIMER_NAME,
+                window,
+                w -> w.snapshot().percentile(percentile) / 1_000_000_000.0)
+            .description("ルート別の処理時間（スライディングウィンドウ内のパーセンタイル）")
+            .tags("method", httpMethod, "route", route, "quantile", Double.toString(percentile))
+            .baseUnit("seconds")
+            .register(registry);
+      }
+      this.dbQueries =
+          DistributionSummary.builder(DB_QUERIES_NAME)
+              .description("ルート別の1リクエストあたりのDB往復回数")
+              .tags("method", httpMethod, "route", route)
+              .serviceLevelObjectives(DB_QUERY_BUCKETS)
+              .register(registry);
+      this.dbTime =
+          Timer.builder(DB_TIMER_NAME)
+              .description("ルート別の1リクエストあたりのDB所要時間")
+              .tags("method", httpMethod, "route", route)
+              .serviceLevelObjectives(sloArray)
+              .register(registry);
+    }
+
+    String key() {
+      return httpMethod.isEmpty() ? route : httpMethod + " " + route;
+    }
+
+    Timer timer(int roleIndex, int statusIndex) {
+      int index = roleIndex * STATUS_CLASSES.length + statusIndex;
+      Timer timer = timers.get(index);
+      if (timer == null) {
+        // 同時に登録されてもレジストリが同一のタイマーを返す
+        timer =
+            Timer.builder(TIMER_NAME)
+                .description("リソースメソッド別の処理時間")
+                .tags(
+                    "method", httpMethod,
+                    "route", route,
+                    "role", roleIndex < ROLES.length ? ROLES[roleIndex] : ANONYMOUS,
+                    "status", STATUS_CLASSES[statusIndex])
+                .serviceLevelObjectives(sloArray)
+                .register(registry);
+        timers.set(index, timer);
+      }
+      return timer;
+    }
+  }
+}
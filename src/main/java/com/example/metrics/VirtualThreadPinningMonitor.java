@@ -0,0 +1,182 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * 仮想スレッドのキャリアスレッド固定（pinning）の検出
+ *
+ * <p>仮想スレッドモード（{@code quarkus.virtual-threads.enabled=true}）のとき、JFRの{@code jdk.VirtualThreadPinned}
+ * イベント（synchronized内やネイティブフレーム上でのブロックがしきい値を超えたもの）をストリーミングで受け取り、
+ * {@value #TIMER_NAME}に経路（mybatis / jdbc / bcrypt / other）と発生箇所をタグとして記録する。
+ * 発生箇所はJDK以外の最初のフレームで、新しい発生箇所は初回のみスタックトレース付きでWARN出力する。
+ */
+@Startup
+@ApplicationScoped
+public class VirtualThreadPinningMonitor {
+
+  private static final Logger LOG = Logger.getLogger(VirtualThreadPinningMonitor.class);
+
+  /** 固定の発生回数と時間（Prometheusでは {@code app_virtual_threads_pinned_seconds}） */
+  public static final String TIMER_NAME = "app.virtual-threads.pinned";
+
+  private static final String EVENT_NAME = "jdk.VirtualThreadPinned";
+
+  /** 発生箇所タグの上限（超えた分は "other" にまとめる） */
+  private static final int MAX_SITES = 50;
+
+  private static final int LOGGED_FRAMES = 20;
+
+  @Inject MeterRegistry registry;
+
+  @ConfigProperty(name = "quarkus.virtual-threads.enabled", defaultValue = "false")
+  boolean virtualThreadsEnabled;
+
+  @ConfigProperty(name = "app.virtual-threads.pinning-monitor.enabled", defaultValue = "true")
+  boolean enabled;
+
+  /** 記録する固定時間の下限（JFRの既定は20ms） */
+  @ConfigProperty(name = "app.virtual-threads.pinning-monitor.threshold", defaultValue = "20ms")
+  Duration threshold;
+
+  private final Set<String> sites = ConcurrentHashMap.newKeySet();
+
+  private RecordingStream stream;
+
+  @PostConstruct
+  void init() {
+    if (!virtualThreadsEnabled || !enabled) {
+      return;
+    }
+    try {
+      stream = new RecordingStream();
+      stream.enable(EVENT_NAME).withThreshold(threshold).withStackTrace();
+      stream.onEvent(EVENT_NAME, this::onPinned);
+      stream.startAsync();
+      LOG.infof("仮想スレッドの固定を監視します: threshold=%s", threshold);
+    } catch (RuntimeException | LinkageError e) {
+      // JFRを含まないネイティブイメージ等
+      LOG.warnf("仮想スレッドの固定を監視できません: %s", e.getMessage());
+      stream = null;
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
+  /** 監視中か */
+  public boolean isRunning() {
+    return stream != null;
+  }
+
+  void onPinned(RecordedEvent event) {
+    List<RecordedFrame> frames =
+        event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+    String site = site(frames);
+    if (!sites.contains(site) && sites.size() >= MAX_SITES) {
+      site = "other";
+    }
+    Timer.builder(TIMER_NAME)
+        .description("仮想スレッドがキャリアスレッドに固定された時間")
+        .tag("component", component(frames))
+        .tag("site", site)
+        .register(registry)
+        .record(event.getDuration());
+    if (sites.add(site)) {
+      LOG.warnf(
+          "仮想スレッドがキャリアスレッドに固定されました: %dms at %s%n%s",
+          event.getDuration().toMillis(), site, format(event.getStackTrace()));
+    }
+  }
+
+  /** JDK以外の最初のフレーム（クラス名.メソッド名） */
+  static String site(List<RecordedFrame> frames) {
+    for (RecordedFrame frame : frames) {
+      if (!frame.isJavaFrame() || frame.getMethod() == null) {
+        continue;
+      }
+      String type = frame.getMethod().getType().getName();
+      if (!isJdk(type)) {
+        return type + "." + frame.getMethod().getName();
+      }
+    }
+    return "jdk";
+  }
+
+  /** 固定が起きた処理の経路 */
+  static String component(List<RecordedFrame> frames) {
+    String component = "other";
+    for (RecordedFrame frame : frames) {
+      if (frame.getMethod() == null) {
+        continue;
+      }
+      String type = frame.getMethod().getType().getName();
+      if (type.startsWith("org.apache.ibatis.") || type.startsWith("io.quarkiverse.mybatis.")) {
+        return "mybatis";
+      } else if (type.contains("Bcrypt") || type.startsWith("org.wildfly.security.password.")) {
+        return "bcrypt";
+      } else if ("other".equals(component)
+          && (type.startsWith("io.agroal.")
+              || type.startsWith("org.h2.")
+              || type.startsWith("org.postgresql.")
+              || type.startsWith("java.sql."))) {
+        // JDBC呼び出しの上位にMyBatisがあればそちらを優先する
+        component = "jdbc";
+      }
+    }
+    return component;
+  }
+
+  private static boolean isJdk(String type) {
+    return type.startsWith("java.")
+        || type.startsWith("javax.")
+        || type.startsWith("jdk.")
+        || type.startsWith("sun.");
+  }
+
+  private static String format(RecordedStackTrace stackTrace) {
+    if (stackTrace == null) {
+      return "  (no stack trace)";
+    }
+    StringBuilder out = new StringBuilder();
+    List<RecordedFrame> frames = stackTrace.getFrames();
+    for (int i = 0; i < Math.min(frames.size(), LOGGED_FRAMES); i++) {
+      RecordedFrame frame = frames.get(i);
+      out.append("  at ")
+          .append(frame.getMethod().getType().getName())
+          .append('.')
+          .append(frame.getMethod().getName())
+          .append(':')
+          .append(frame.getLineNumber())
+          .append('\n');
+    }
+    if (frames.size() > LOGGED_FRAMES || stackTrace.isTruncated()) {
+      out.append("  ...\n");
+    }
+    return out.toString();
+  }
+}
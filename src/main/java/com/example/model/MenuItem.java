@@ -0,0 +1,47 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * メニュー定義
+ *
+ * <p>表示順は定義順。各項目はメッセージキー・遷移先パス・表示対象ロールのみを宣言し、ロール×ロケールごとのレスポンスは起動時に生成される。
+ */
+public enum MenuItem {
+  USER_MANAGEMENT("menu.user.management", "/admin/users", User.Role.ADMIN),
+  SYSTEM_SETTINGS("menu.system.settings", "/admin/settings", User.Role.ADMIN),
+  SALES_MANAGEMENT("menu.sales.management", "/sales", User.Role.ADMIN, User.Role.SALES),
+  CUSTOMER_MANAGEMENT("menu.customer.management", "/customers", User.Role.SALES),
+  REPORTS("menu.reports", "/reports", User.Role.ADMIN, User.Role.SALES),
+  PROFILE("menu.profile", "/profile", User.Role.USER),
+  SETTINGS("menu.settings", "/settings", User.Role.USER);
+
+  private final String messageKey;
+  private final String path;
+  private final Set<User.Role> roles;
+
+  MenuItem(String messageKey, String path, User.Role first, User.Role... rest) {
+    this.messageKey = messageKey;
+    this.path = path;
+    this.roles = EnumSet.of(first, rest);
+  }
+
+  public String getMessageKey() {
+    return messageKey;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  /** 指定ロールに表示するか */
+  public boolean isVisibleTo(User.Role role) {
+    return roles.contains(role);
+  }
+}
@@ -5,10 +5,23 @@
 
 package com.example.model;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.io.Serializable;
 import java.time.LocalDateTime;
-
-/** ユーザーモデル（MyBatis用POJO） */
-public class User {
+import java.util.ArrayList;
+
+/**
+ * ユーザーモデル（MyBatis用POJO）
+ *
+ * <p>{@code UserMapper}の2次キャッシュが検索結果（{@link ArrayList}）をシリアライズして保持するため、ネイティブイメージでもシリアライズできるように登録する。
+ */
+@RegisterForReflection(
+    serialization = true,
+    targets = {User.class, User.Role.class, ArrayList.class, LocalDateTime.class},
+    classNames = "java.time.Ser")
+public class User implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private Long id;
   private String username;
@@ -0,0 +1,44 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.model;
+
+/** ロール・有効状態別ユーザー数（集計クエリ結果用POJO） */
+public class UserRoleCount {
+
+  private User.Role role;
+  private boolean active;
+  private long count;
+
+  // Getter/Setter
+  public User.Role getRole() {
+    return role;
+  }
+
+  public void setRole(User.Role role) {
+    this.role = role;
+  }
+
+  public boolean isActive() {
+    return active;
+  }
+
+  public void setActive(boolean active) {
+    this.active = active;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+
+  @Override
+  public String toString() {
+    return "UserRoleCount{" + "role=" + role + ", active=" + active + ", count=" + count + '}';
+  }
+}
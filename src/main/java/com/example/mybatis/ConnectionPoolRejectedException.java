@@ -0,0 +1,49 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mybatis;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Optional;
+
+/** 接続プールから接続を取得できなかった（取得待ちのタイムアウト・プールの停止） */
+public class ConnectionPoolRejectedException extends SQLTransientConnectionException {
+
+  private final String pool;
+
+  private final transient Duration retryAfter;
+
+  public ConnectionPoolRejectedException(String pool, Duration retryAfter, Throwable cause) {
+    super("Connection pool '" + pool + "' rejected the request: " + cause.getMessage(), cause);
+    this.pool = pool;
+    this.retryAfter = retryAfter;
+  }
+
+  /** 接続プール名 */
+  public String getPool() {
+    return pool;
+  }
+
+  /** 再試行までの目安 */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  /**
+   * 原因をたどって接続プールの拒否を探す（MyBatisの{@code PersistenceException}などに包まれている）
+   *
+   * @param throwable 例外
+   * @return 接続プールの拒否
+   */
+  public static Optional<ConnectionPoolRejectedException> find(Throwable throwable) {
+    for (Throwable t = throwable; t != null; t = t.getCause()) {
+      if (t instanceof ConnectionPoolRejectedException rejected) {
+        return Optional.of(rejected);
+      }
+    }
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,315 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mybatis;
+
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.arc.InjectableInstance;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Any;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.TransactionManager;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * ワークロード別の接続プール（バルクヘッド）への振り分け（MyBatisプラグイン）
+ *
+ * <p>{@code app.datasource.pools.statements}（{@code AuditLogMapper.insert=audit,AuditLogMapper=analytics}のようにステートメントIDまたはマッパー名とプール名の組、
+ * ステートメントIDの指定を優先）に該当するステートメントが開く接続を、同名の名前付きデータソース（{@code quarkus.datasource.<name>}）から取得する。
+ * 指定のないステートメント（認証・ユーザー管理）は既定のデータソースを使うため、監査ログの書き込みや集計が詰まっても認証の接続は枯渇しない。
+ * 名前付きデータソースが未定義・無効（{@code active=false}）のプールは既定のデータソースで代用する。
+ *
+ * <p>Quarkus MyBatis拡張はマッパー呼び出しごとにセッションを開くため、トランザクション内でプールを切り替えると、1つのJTAトランザクションに
+ * 非XAのデータソースが複数参加してしまう（Narayanaは既定で拒否する）。このためJTAトランザクション中は、指定に関係なく既定のデータソースを使う
+ * （{@link ReadReplicaRouter}のトランザクション中のフォールバックと同じ）。
+ * プールごとの最大接続数と取得待ちの上限（{@code acquisition-timeout}）はデータソースの設定で指定し、取得できなかった場合は
+ * {@link ConnectionPoolRejectedException}で拒否する（{@code app.datasource.pool.rejected}を加算）。
+ * 取得待ち時間は{@code app.datasource.pool.acquire}（{@code pool}別）に記録する。
+ *
+ * <p>{@link ReadReplicaRouter}より先に登録し、レプリカを使えない場合のフォールバック先もこのプールになるようにする。
+ */
+@ApplicationScoped
+@Intercepts({
+  @Signature(
+      type = Executor.class,
+      method = "query",
+      args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+  @Signature(
+      type = Executor.class,
+      method = "query",
+      args = {
+        MappedStatement.class,
+        Object.class,
+        RowBounds.class,
+        ResultHandler.class,
+        CacheKey.class,
+        BoundSql.class
+      }),
+  @Signature(
+      type = Executor.class,
+      method = "update",
+      args = {MappedStatement.class, Object.class})
+})
+public class ConnectionPoolRouter implements Interceptor {
+
+  private static final Logger LOG = Logger.getLogger(ConnectionPoolRouter.class);
+
+  /** 既定のデータソースのプール名（メトリクスのタグ） */
+  public static final String DEFAULT_POOL = "default";
+
+  /** プール別の接続取得待ち時間 */
+  public static final String ACQUIRE_NAME = "app.datasource.pool.acquire";
+
+  /** プール別の接続取得の拒否数 */
+  public static final String REJECTED_NAME = "app.datasource.pool.rejected";
+
+  /** 実行中のステートメントのプール名 */
+  private static final ThreadLocal<String> POOL = new ThreadLocal<>();
+
+  @Inject SqlSessionFactory sqlSessionFactory;
+
+  @Inject MeterRegistry registry;
+
+  @Inject @Any InjectableInstance<AgroalDataSource> dataSources;
+
+  @Inject TransactionManager transactionManager;
+
+  /** ステートメントIDまたはマッパー名=プール名 */
+  @ConfigProperty(name = "app.datasource.pools.statements")
+  Optional<List<String>> statements;
+
+  /** 拒否したリクエストに返す再試行までの目安 */
+  @ConfigProperty(name = "app.datasource.pools.retry-after", defaultValue = "1s")
+  Duration retryAfter;
+
+  /** ステートメントID・マッパー名→プール名 */
+  private Map<String, String> routes = Map.of();
+
+  /** ステートメントIDの完全名→プール名 */
+  private final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+  /** プール名→接続の取得元（既定のデータソースを含む） */
+  private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+  /**
+   * 振り分け先のプール
+   *
+   * @param name プール名
+   * @param dataSource 接続の取得元
+   * @param acquire 取得待ち時間
+   * @param rejected 拒否数
+   */
+  private record Pool(
+      String name, javax.sql.DataSource dataSource, Timer acquire, Counter rejected) {}
+
+  /** MyBatisのデータソースを差し替えてプラグインを登録（{@link ReadReplicaRouter}より先） */
+  void register(@Observes @Priority(2) StartupEvent event) {
+    routes = parse(statements.orElse(List.of()));
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    javax.sql.DataSource primary = environment.getDataSource();
+    pools.put(DEFAULT_POOL, pool(DEFAULT_POOL, primary));
+
+    Map<String, String> targets = new HashMap<>();
+    for (String name : Set.copyOf(routes.values())) {
+      List<AgroalDataSource> active =
+          dataSources.select(new DataSource.DataSourceLiteral(name)).listActive();
+      if (active.isEmpty()) {
+        LOG.debugf("接続プール%sは無効なため、既定のデータソースを使います", name);
+        pools.put(name, pool(name, primary));
+        targets.put(name, DEFAULT_POOL);
+      } else {
+        AgroalDataSource dataSource = active.get(0);
+        pools.put(name, pool(name, dataSource));
+        int maxSize = dataSource.getConfiguration().connectionPoolConfiguration().maxSize();
+        targets.put(name, name + "(max=" + maxSize + ")");
+      }
+    }
+
+    configuration.setEnvironment(
+        new Environment(
+            environment.getId(), environment.getTransactionFactory(), new RoutingDataSource(primary)));
+    configuration.addInterceptor(this);
+    LOG.infof("ワークロード別の接続プール: %s", targets);
+  }
+
+  /** {@code 名前=プール名}の一覧を解析 */
+  public static Map<String, String> parse(List<String> entries) {
+    Map<String, String> parsed = new HashMap<>();
+    for (String entry : entries) {
+      int separator = entry.indexOf('=');
+      if (separator <= 0 || separator == entry.length() - 1) {
+        throw new IllegalArgumentException(
+            "app.datasource.pools.statements must be name=pool: " + entry);
+      }
+      parsed.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+    }
+    return Map.copyOf(parsed);
+  }
+
+  private Pool pool(String name, javax.sql.DataSource dataSource) {
+    return new Pool(
+        name,
+        dataSource,
+        Timer.builder(ACQUIRE_NAME)
+            .description("接続プール別の接続取得待ち時間")
+            .tags("pool", name)
+            .publishPercentileHistogram()
+            .register(registry),
+        Counter.builder(REJECTED_NAME)
+            .description("接続プール別の接続取得の拒否数（取得待ちのタイムアウトなど）")
+            .tags("pool", name)
+            .register(registry));
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    String pool = poolOf((MappedStatement) invocation.getArgs()[0]);
+    String outer = POOL.get();
+    POOL.set(pool);
+    try {
+      return invocation.proceed();
+    } finally {
+      if (outer == null) {
+        POOL.remove();
+      } else {
+        POOL.set(outer);
+      }
+    }
+  }
+
+  private String poolOf(MappedStatement statement) {
+    return resolved.computeIfAbsent(
+        statement.getId(),
+        id -> {
+          String shortId = StatementMetricsInterceptor.shortId(id);
+          String pool = routes.get(shortId);
+          if (pool == null) {
+            int dot = shortId.lastIndexOf('.');
+            pool = dot > 0 ? routes.get(shortId.substring(0, dot)) : null;
+          }
+          return pool != null ? pool : DEFAULT_POOL;
+        });
+  }
+
+  /** 実行中のステートメントのプール名（JTAトランザクション中は既定のデータソース） */
+  private String currentPool() {
+    String name = POOL.get();
+    if (name == null || DEFAULT_POOL.equals(name) || inTransaction()) {
+      return DEFAULT_POOL;
+    }
+    return name;
+  }
+
+  private boolean inTransaction() {
+    try {
+      return transactionManager.getStatus() != Status.STATUS_NO_TRANSACTION;
+    } catch (SystemException e) {
+      return true;
+    }
+  }
+
+  /** 実行中のステートメントのプールから接続を取得するデータソース */
+  private final class RoutingDataSource implements javax.sql.DataSource {
+
+    private final javax.sql.DataSource primary;
+
+    RoutingDataSource(javax.sql.DataSource primary) {
+      this.primary = primary;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      Pool pool = pools.get(currentPool());
+      long start = System.nanoTime();
+      try {
+        Connection connection = pool.dataSource().getConnection();
+        pool.acquire().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return connection;
+      } catch (SQLException e) {
+        pool.rejected().increment();
+        LOG.warnf(
+            "接続プール%sから接続を取得できませんでした（%dms）: %s",
+            pool.name(), (System.nanoTime() - start) / 1_000_000L, e.getMessage());
+        throw new ConnectionPoolRejectedException(pool.name(), retryAfter, e);
+      }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      return primary.getConnection(username, password);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+      return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+      return primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+      return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+      primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+      primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+      return primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      return primary.getParentLogger();
+    }
+  }
+}
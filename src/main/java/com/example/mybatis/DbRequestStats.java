@@ -0,0 +1,42 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mybatis;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * リクエスト単位のデータベース往復回数と所要時間
+ *
+ * <p>{@link StatementMetricsInterceptor}がステートメント実行ごとに加算し、
+ * レスポンスフィルターが{@code Server-Timing}ヘッダーとルート別メトリクスに反映する。
+ * リクエストスコープのため、起動時やスケジューラーなどリクエスト外の実行は対象外となる。
+ */
+@RequestScoped
+public class DbRequestStats {
+
+  private int queries;
+  private long nanos;
+
+  /**
+   * ステートメント1回分を加算
+   *
+   * @param elapsedNanos 所要時間（ナノ秒）
+   */
+  public void record(long elapsedNanos) {
+    queries++;
+    nanos += elapsedNanos;
+  }
+
+  /** 実行したステートメント数 */
+  public int getQueries() {
+    return queries;
+  }
+
+  /** ステートメントの所要時間の合計（ナノ秒） */
+  public long getNanos() {
+    return nanos;
+  }
+}
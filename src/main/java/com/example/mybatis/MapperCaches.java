@@ -0,0 +1,275 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mybatis;
+
+import com.example.cache.CacheInvalidationBus;
+import com.example.event.CacheInvalidatedEvent;
+import com.example.event.UserChangedEvent;
+import com.example.mapper.UserMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.Transaction;
+import jakarta.transaction.TransactionManager;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.jboss.logging.Logger;
+
+/**
+ * マッパーの2次キャッシュ（{@link WeightedLruCache}）のメトリクスと無効化（MyBatisプラグイン）
+ *
+ * <p>MyBatisは同じネームスペースの更新系ステートメントを実行したセッションのコミット時にキャッシュを全消去するが、Quarkus
+ * MyBatis拡張はJTAトランザクション内でもマッパー呼び出しごとにセッションをコミットするため、消去がデータベースのコミットより先になる。
+ * その間に他のスレッドが変更前の行を読んでキャッシュすると古い結果が残り、ロールバックした変更を読んだ結果も残るため、
+ * トランザクション内の更新はトランザクションの完了後にもう一度消去する。また、更新したトランザクションの中ではそのネームスペースのキャッシュを
+ * 参照も格納もしない（コミット前の行を他のスレッドに返さず、自身の更新より古い結果も読まない）。
+ * トランザクション外の検索と更新が競合した場合は、{@link WeightedLruCache}が検索中に全消去されたキーを格納しないことで防ぐ。
+ * マッパーを通さずに{@code users}を変更した場合（合成データの投入など）は{@link UserChangedEvent}で{@link UserMapper}のキャッシュを消去する。
+ *
+ * <p>キャッシュはインスタンスごとのため、ユーザー（{@link UserMapper}）の更新は{@link CacheInvalidationBus}で他のインスタンスへ伝え（トランザクション内では変更と一緒にコミットされる）、
+ * 他のインスタンスでの更新を受け取った場合も同じキャッシュを消去する。
+ *
+ * <p>キャッシュごとにMicrometer標準の{@code cache.gets}・{@code cache.puts}・{@code cache.evictions}・{@code
+ * cache.size}（{@code cache}タグはマッパー名）と、重みの合計{@value #WEIGHT_NAME}・期限切れ数{@value
+ * #EXPIRATIONS_NAME}・全消去数{@value #CLEARS_NAME}を登録する。
+ */
+@ApplicationScoped
+@Intercepts({
+  @Signature(
+      type = Executor.class,
+      method = "update",
+      args = {MappedStatement.class, Object.class})
+})
+public class MapperCaches implements Interceptor {
+
+  private static final Logger LOG = Logger.getLogger(MapperCaches.class);
+
+  /** キャッシュ中のエントリの重みの合計（バイト） */
+  public static final String WEIGHT_NAME = "cache.weight";
+
+  /** 有効期限切れによる破棄数 */
+  public static final String EXPIRATIONS_NAME = "cache.expirations";
+
+  /** 全消去の回数 */
+  public static final String CLEARS_NAME = "cache.clears";
+
+  /** ネームスペース→{@link CacheInvalidationBus}の領域（更新を他のインスタンスへ伝えるマッパー） */
+  private static final Map<String, String> REGIONS =
+      Map.of(UserMapper.class.getName(), CacheInvalidationBus.USERS);
+
+  @Inject SqlSessionFactory sqlSessionFactory;
+
+  @Inject TransactionManager transactionManager;
+
+  @Inject TransactionSynchronizationRegistry synchronizationRegistry;
+
+  @Inject MeterRegistry registry;
+
+  @Inject CacheInvalidationBus bus;
+
+  /** キャッシュのメトリクスを登録してプラグインを登録 */
+  void register(@Observes StartupEvent event) {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    for (String id : configuration.getCacheNames()) {
+      WeightedLruCache.forNamespace(id)
+          .ifPresent(
+              cache -> {
+                new Metrics(cache, name(id)).bindTo(registry);
+                cache.bypassWhile(() -> hasPendingWrites(id));
+                LOG.infof(
+                    "%sの2次キャッシュ: enabled=%s, max-entries=%d, max-weight=%d, ttl=%s",
+                    name(id),
+                    cache.isEnabled(),
+                    cache.getMaxEntries(),
+                    cache.getMaxWeight(),
+                    cache.getTtl());
+              });
+    }
+    configuration.addInterceptor(this);
+  }
+
+  /**
+   * マッパーの2次キャッシュを取得
+   *
+   * @param mapper マッパー
+   * @return キャッシュ（{@link WeightedLruCache}を使っていないマッパーは空）
+   */
+  public Optional<WeightedLruCache> of(Class<?> mapper) {
+    return WeightedLruCache.forNamespace(mapper.getName());
+  }
+
+  /**
+   * マッパーを通さないユーザー変更のコミット後にユーザーのキャッシュを消去し、他のインスタンスへ無効化を発行
+   *
+   * <p>マッパー経由の変更は{@link #intercept}で発行済みのため、ここでは何もしない（版と通知が二重にならないように）。
+   */
+  void onUserChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserChangedEvent event) {
+    if (!event.bypassedMapper()) {
+      return;
+    }
+    of(UserMapper.class).ifPresent(Cache::clear);
+    bus.publish(CacheInvalidationBus.USERS);
+  }
+
+  /** 他のインスタンスでの変更を受け取ったら該当するマッパーのキャッシュを消去 */
+  void onInvalidated(@Observes CacheInvalidatedEvent event) {
+    if (!event.remote()) {
+      return;
+    }
+    REGIONS.forEach(
+        (namespace, region) -> {
+          if (region.equals(event.region())) {
+            WeightedLruCache.forNamespace(namespace).ifPresent(Cache::clear);
+          }
+        });
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    Cache cache = ((MappedStatement) invocation.getArgs()[0]).getCache();
+    if (cache == null) {
+      return invocation.proceed();
+    }
+    String region = REGIONS.get(cache.getId());
+    if (clearAfterCompletion(cache, region)) {
+      return invocation.proceed();
+    }
+    // トランザクション外の更新は実行した時点でコミットされている
+    Object result = invocation.proceed();
+    if (region != null) {
+      bus.publish(region);
+    }
+    return result;
+  }
+
+  /**
+   * 実行中のトランザクションの完了後にキャッシュを消去し、同じトランザクションで他のインスタンスへ無効化を発行
+   *
+   * @return トランザクション中か（トランザクション外では何もしない）
+   */
+  private boolean clearAfterCompletion(Cache cache, String region) throws SystemException {
+    Transaction transaction = transactionManager.getTransaction();
+    if (transaction == null || transaction.getStatus() != Status.STATUS_ACTIVE) {
+      return false;
+    }
+    // 同じトランザクションでの2回目以降の更新では登録しない
+    Object key = new ResourceKey(cache.getId());
+    if (synchronizationRegistry.getResource(key) != null) {
+      return true;
+    }
+    synchronizationRegistry.putResource(key, Boolean.TRUE);
+    synchronizationRegistry.registerInterposedSynchronization(
+        new Synchronization() {
+          @Override
+          public void beforeCompletion() {}
+
+          @Override
+          public void afterCompletion(int status) {
+            cache.clear();
+          }
+        });
+    if (region != null) {
+      bus.publish(region);
+    }
+    return true;
+  }
+
+  /** 実行中のトランザクションがネームスペースを更新済みか（コミットまたはロールバックまでキャッシュを使わない） */
+  private boolean hasPendingWrites(String cacheId) {
+    if (synchronizationRegistry.getTransactionKey() == null) {
+      return false;
+    }
+    try {
+      return synchronizationRegistry.getResource(new ResourceKey(cacheId)) != null;
+    } catch (IllegalStateException e) {
+      // 完了処理中などリソースを参照できない状態はトランザクション外と同じに扱う
+      return false;
+    }
+  }
+
+  /** トランザクションに登録済みの消去のキー */
+  private record ResourceKey(String cacheId) {}
+
+  private static String name(String id) {
+    return id.substring(id.lastIndexOf('.') + 1);
+  }
+
+  /** {@link WeightedLruCache}のメトリクス */
+  private static final class Metrics extends CacheMeterBinder<WeightedLruCache> {
+
+    Metrics(WeightedLruCache cache, String name) {
+      super(cache, name, Tags.empty());
+    }
+
+    @Override
+    protected Long size() {
+      WeightedLruCache cache = getCache();
+      return cache != null ? (long) cache.getSize() : null;
+    }
+
+    @Override
+    protected long hitCount() {
+      WeightedLruCache cache = getCache();
+      return cache != null ? cache.stats().hits() : 0;
+    }
+
+    @Override
+    protected Long missCount() {
+      WeightedLruCache cache = getCache();
+      return cache != null ? cache.stats().misses() : null;
+    }
+
+    @Override
+    protected Long evictionCount() {
+      WeightedLruCache cache = getCache();
+      return cache != null ? cache.stats().evictions() : null;
+    }
+
+    @Override
+    protected long putCount() {
+      WeightedLruCache cache = getCache();
+      return cache != null ? cache.stats().puts() : 0;
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+      WeightedLruCache cache = getCache();
+      Gauge.builder(WEIGHT_NAME, cache, c -> c.stats().weight())
+          .description("キャッシュ中のエントリの重み（シリアライズ後のバイト数）の合計")
+          .tags(getTagsWithCacheName())
+          .baseUnit("bytes")
+          .register(registry);
+      FunctionCounter.builder(EXPIRATIONS_NAME, cache, c -> c.stats().expirations())
+          .description("有効期限切れによるキャッシュの破棄数")
+          .tags(getTagsWithCacheName())
+          .register(registry);
+      FunctionCounter.builder(CLEARS_NAME, cache, c -> c.stats().clears())
+          .description("更新によるキャッシュの全消去の回数")
+          .tags(getTagsWithCacheName())
+          .register(registry);
+    }
+  }
+}
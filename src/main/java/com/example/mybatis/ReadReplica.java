@@ -0,0 +1,23 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mybatis;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 読み取り専用レプリカで実行してよい検索
+ *
+ * <p>マッパーのメソッド（型に付与した場合はマッパーの全検索）を{@link ReadReplicaRouter}がトランザクション外の実行時にレプリカへ振り分ける。
+ * 直前の書き込みが反映されていなくてもよい集計・一覧（ダッシュボード、監査ログの参照）に限って付与する。
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ReadReplica {}
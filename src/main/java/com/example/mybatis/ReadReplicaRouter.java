@@ -0,0 +1,432 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mybatis;
+
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.arc.InjectableInstance;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.TransactionManager;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * 読み取り専用レプリカへの検索の振り分け（MyBatisプラグイン）
+ *
+ * <p>名前付きデータソース{@code replica}（{@code quarkus.datasource.replica.*}）が有効な場合のみ、
+ * MyBatisの{@link Environment}のデータソースを振り分け用のデータソースに差し替える。
+ * {@link ReadReplica}を付与した検索の実行中に開かれた接続だけをレプリカから取得し、それ以外はプライマリから取得する。
+ *
+ * <p>次の場合はプライマリにフォールバックする。
+ *
+ * <ul>
+ *   <li>JTAトランザクション中（同じトランザクションの書き込みを読めるように）
+ *   <li>直近の監視でレプリカに接続できない、またはレプリカからの接続取得に失敗した
+ *   <li>直近の監視で測定した遅延（{@code app.datasource.replica.lag-query}）が{@code max-lag}を超えている
+ * </ul>
+ *
+ * <p>接続はセッションで最初のステートメントの実行時に開かれるため、振り分けが効くのはマッパー呼び出しごとのセッション（トランザクション外）の場合である。
+ * 振り分け先は{@code app.datasource.replica.routed}（{@code target}・{@code reason}別）で確認できる。
+ */
+@ApplicationScoped
+@Intercepts({
+  @Signature(
+      type = Executor.class,
+      method = "query",
+      args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+  @Signature(
+      type = Executor.class,
+      method = "query",
+      args = {
+        MappedStatement.class,
+        Object.class,
+        RowBounds.class,
+        ResultHandler.class,
+        CacheKey.class,
+        BoundSql.class
+      })
+})
+public class ReadReplicaRouter implements Interceptor {
+
+  private static final Logger LOG = Logger.getLogger(ReadReplicaRouter.class);
+
+  /** 読み取りレプリカのデータソース名（{@code quarkus.datasource.replica.*}） */
+  public static final String REPLICA = "replica";
+
+  /** 振り分け先別の接続取得数 */
+  public static final String ROUTED_NAME = "app.datasource.replica.routed";
+
+  /** プライマリへのフォールバック理由 */
+  static final String TRANSACTION = "transaction";
+
+  static final String UNAVAILABLE = "unavailable";
+
+  static final String LAGGING = "lagging";
+
+  static final String ERROR = "error";
+
+  /** {@link ReadReplica}の検索を実行中のスレッド */
+  private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+  @Inject SqlSessionFactory sqlSessionFactory;
+
+  @Inject TransactionManager transactionManager;
+
+  @Inject MeterRegistry registry;
+
+  /** 読み取りレプリカ（未定義・{@code active=false}の場合は解決できない） */
+  @Inject
+  @DataSource(REPLICA)
+  InjectableInstance<AgroalDataSource> replicaDataSource;
+
+  @ConfigProperty(name = "app.datasource.replica.max-lag", defaultValue = "5s")
+  Duration maxLag;
+
+  /** レプリカの遅延（秒）を返すSQL（未設定は遅延なしとみなす） */
+  @ConfigProperty(name = "app.datasource.replica.lag-query")
+  Optional<String> lagQuery;
+
+  @ConfigProperty(name = "app.datasource.replica.validation-timeout", defaultValue = "2s")
+  Duration validationTimeout;
+
+  private AgroalDataSource replica;
+
+  /** 振り分け対象のステートメントID（完全名） */
+  private Set<String> readOnlyStatements = Set.of();
+
+  private final AtomicReference<ReplicaState> state = new AtomicReference<>();
+
+  /** 監視の排他（接続取得・遅延確認中に仮想スレッドのキャリアを固定しないようsynchronizedは使わない） */
+  private final ReentrantLock probeLock = new ReentrantLock();
+
+  private Counter replicaRouted;
+
+  private final Map<String, Counter> fallbacks = new ConcurrentHashMap<>();
+
+  /**
+   * 監視結果
+   *
+   * @param available 接続が有効か
+   * @param lag 遅延（接続できない場合はnull）
+   * @param checkedAt 実行時刻
+   * @param error 失敗時のメッセージ
+   */
+  public record ReplicaState(boolean available, Duration lag, Instant checkedAt, String error) {}
+
+  /** レプリカが有効な場合のみ、データソースを差し替えてプラグインを登録 */
+  void register(@Observes StartupEvent event) {
+    List<AgroalDataSource> active = replicaDataSource.listActive();
+    if (active.isEmpty()) {
+      LOG.debugf("読み取りレプリカは無効です: datasource=%s", REPLICA);
+      return;
+    }
+    replica = active.get(0);
+
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    readOnlyStatements = scan(configuration);
+    Environment environment = configuration.getEnvironment();
+    configuration.setEnvironment(
+        new Environment(
+            environment.getId(),
+            environment.getTransactionFactory(),
+            new RoutingDataSource(environment.getDataSource())));
+    configuration.addInterceptor(this);
+
+    replicaRouted =
+        Counter.builder(ROUTED_NAME)
+            .description("@ReadReplicaの検索の振り分け先別の接続取得数")
+            .tags("target", "replica", "reason", "none")
+            .register(registry);
+    for (String reason : new String[] {TRANSACTION, UNAVAILABLE, LAGGING, ERROR}) {
+      fallback(reason);
+    }
+    Gauge.builder("app.datasource.replica.available", this, r -> r.isAvailable() ? 1 : 0)
+        .description("読み取りレプリカに接続できるか（直近の監視結果）")
+        .register(registry);
+    Gauge.builder("app.datasource.replica.lag", this, ReadReplicaRouter::lagSeconds)
+        .description("読み取りレプリカの遅延（直近の監視結果）")
+        .baseUnit("seconds")
+        .register(registry);
+
+    probe();
+    LOG.infof(
+        "読み取りレプリカへの振り分けを有効化しました: datasource=%s, statements=%s",
+        REPLICA,
+        readOnlyStatements.stream().map(StatementMetricsInterceptor::shortId).sorted().toList());
+  }
+
+  /** {@link ReadReplica}を付与したマッパーの検索を収集 */
+  private static Set<String> scan(Configuration configuration) {
+    Set<String> ids = new HashSet<>();
+    for (Class<?> mapper : configuration.getMapperRegistry().getMappers()) {
+      boolean wholeMapper = mapper.isAnnotationPresent(ReadReplica.class);
+      for (Method method : mapper.getMethods()) {
+        if (!wholeMapper && !method.isAnnotationPresent(ReadReplica.class)) {
+          continue;
+        }
+        String id = mapper.getName() + "." + method.getName();
+        if (!configuration.hasStatement(id, false)) {
+          continue;
+        }
+        if (configuration.getMappedStatement(id, false).getSqlCommandType()
+            != SqlCommandType.SELECT) {
+          LOG.warnf("検索以外のステートメントはレプリカに振り分けません: %s", id);
+          continue;
+        }
+        ids.add(id);
+      }
+    }
+    return Set.copyOf(ids);
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+    if (!readOnlyStatements.contains(statement.getId())) {
+      return invocation.proceed();
+    }
+    Boolean outer = READ_ONLY.get();
+    READ_ONLY.set(Boolean.TRUE);
+    try {
+      return invocation.proceed();
+    } finally {
+      if (outer == null) {
+        READ_ONLY.remove();
+      } else {
+        READ_ONLY.set(outer);
+      }
+    }
+  }
+
+  @Scheduled(
+      identity = "read-replica-probe",
+      every = "${app.datasource.replica.probe-interval:5s}",
+      delayed = "${app.datasource.replica.probe-interval:5s}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void scheduledProbe() {
+    if (replica != null) {
+      probe();
+    }
+  }
+
+  /**
+   * レプリカの接続と遅延を確認して結果を差し替える
+   *
+   * @return 新しい結果
+   */
+  public ReplicaState probe() {
+    probeLock.lock();
+    try {
+      return probeOnce();
+    } finally {
+      probeLock.unlock();
+    }
+  }
+
+  private ReplicaState probeOnce() {
+    Instant checkedAt = Instant.now();
+    ReplicaState result;
+    try (Connection connection = replica.getConnection()) {
+      if (connection.isValid((int) Math.max(1, validationTimeout.toSeconds()))) {
+        result = new ReplicaState(true, measureLag(connection), checkedAt, null);
+      } else {
+        result = new ReplicaState(false, null, checkedAt, "Connection validation failed");
+      }
+    } catch (Exception e) {
+      result = new ReplicaState(false, null, checkedAt, e.getMessage());
+    }
+    update(result);
+    return result;
+  }
+
+  private Duration measureLag(Connection connection) throws SQLException {
+    if (lagQuery.isEmpty()) {
+      return Duration.ZERO;
+    }
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(lagQuery.get())) {
+      double seconds = resultSet.next() ? resultSet.getDouble(1) : 0;
+      return Duration.ofNanos((long) (Math.max(0, seconds) * 1_000_000_000L));
+    }
+  }
+
+  private void update(ReplicaState result) {
+    ReplicaState previous = state.getAndSet(result);
+    boolean wasUsable = previous == null || usable(previous);
+    if (wasUsable && !usable(result)) {
+      LOG.warnf(
+          "読み取りレプリカを使用できないため、プライマリで検索します: available=%s, lag=%s, error=%s",
+          result.available(), result.lag(), result.error());
+    } else if (!wasUsable && usable(result)) {
+      LOG.infof("読み取りレプリカが回復しました: lag=%s", result.lag());
+    }
+  }
+
+  private boolean usable(ReplicaState result) {
+    return result.available() && result.lag().compareTo(maxLag) <= 0;
+  }
+
+  /** 直近の監視結果（無効な場合はnull） */
+  public ReplicaState getState() {
+    return state.get();
+  }
+
+  /** レプリカへの振り分けが有効か */
+  public boolean isEnabled() {
+    return replica != null;
+  }
+
+  private boolean isAvailable() {
+    ReplicaState current = state.get();
+    return current != null && current.available();
+  }
+
+  private double lagSeconds() {
+    ReplicaState current = state.get();
+    return current != null && current.lag() != null ? current.lag().toNanos() / 1e9 : Double.NaN;
+  }
+
+  /** プライマリへのフォールバック理由（レプリカを使える場合はnull） */
+  private String fallbackReason() {
+    if (inTransaction()) {
+      return TRANSACTION;
+    }
+    ReplicaState current = state.get();
+    if (current == null || !current.available()) {
+      return UNAVAILABLE;
+    }
+    return current.lag().compareTo(maxLag) > 0 ? LAGGING : null;
+  }
+
+  private boolean inTransaction() {
+    try {
+      return transactionManager.getStatus() != Status.STATUS_NO_TRANSACTION;
+    } catch (SystemException e) {
+      return true;
+    }
+  }
+
+  private Counter fallback(String reason) {
+    return fallbacks.computeIfAbsent(
+        reason,
+        r ->
+            Counter.builder(ROUTED_NAME)
+                .description("@ReadReplicaの検索の振り分け先別の接続取得数")
+                .tags("target", "primary", "reason", r)
+                .register(registry));
+  }
+
+  /** {@link ReadReplica}の検索中のみレプリカの接続を返すデータソース */
+  private final class RoutingDataSource implements javax.sql.DataSource {
+
+    private final javax.sql.DataSource primary;
+
+    RoutingDataSource(javax.sql.DataSource primary) {
+      this.primary = primary;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      if (READ_ONLY.get() == null) {
+        return primary.getConnection();
+      }
+      String reason = fallbackReason();
+      if (reason == null) {
+        try {
+          Connection connection = replica.getConnection();
+          replicaRouted.increment();
+          return connection;
+        } catch (SQLException e) {
+          // 次の監視まではプライマリを使う
+          update(new ReplicaState(false, null, Instant.now(), e.getMessage()));
+          reason = ERROR;
+        }
+      }
+      fallback(reason).increment();
+      return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      return primary.getConnection(username, password);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+      return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+      return primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+      return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+      primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+      primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+      return primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      return primary.getParentLogger();
+    }
+  }
+}
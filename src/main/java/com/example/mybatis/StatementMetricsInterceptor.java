@@ -0,0 +1,289 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mybatis;
+
+import com.example.jfr.AppEvent;
+import com.example.jfr.MapperCallEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.MDC;
+
+/**
+ * マップドステートメント別のメトリクスとスロークエリーログ（MyBatisプラグイン）
+ *
+ * <p>ステートメントID（例: {@code UserMapper.countByRole}）ごとに、処理時間のヒストグラム{@value #TIMER_NAME}・
+ * 取得/更新行数{@value #ROWS_NAME}・エラー数{@value #ERRORS_NAME}を記録する。
+ * 閾値を超えたステートメントはバインドパラメータ（{@code password}を含む名前は伏せ字）とリクエストIDを付けてWARNで出力する。
+ * リクエストIDはタグにすると系列数が際限なく増えるため、メトリクスには付けずログにのみ出力する。
+ * リクエスト処理中の実行は{@link DbRequestStats}にも加算し、リクエスト単位の往復回数として集計する。
+ * JFRの{@link MapperCallEvent}（既定では無効）も記録する。
+ * 2次キャッシュ（{@link WeightedLruCache}）から返した検索はSQLを実行していないため、処理時間を{@code outcome=cache}で記録するだけで、
+ * 行数・往復回数・JFRイベント・スロークエリーログには含めない。
+ *
+ * <p>Quarkus MyBatis拡張はプラグインの設定項目を持たないため、起動時に{@link SqlSessionFactory}の設定へ登録する。
+ * プラグインはセッション（Executor）生成時に適用されるため、以降に開かれるすべてのセッションが対象になる。
+ */
+@ApplicationScoped
+@Intercepts({
+  @Signature(
+      type = Executor.class,
+      method = "query",
+      args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+  @Signature(
+      type = Executor.class,
+      method = "query",
+      args = {
+        MappedStatement.class,
+        Object.class,
+        RowBounds.class,
+        ResultHandler.class,
+        CacheKey.class,
+        BoundSql.class
+      }),
+  @Signature(
+      type = Executor.class,
+      method = "update",
+      args = {MappedStatement.class, Object.class})
+})
+public class StatementMetricsInterceptor implements Interceptor {
+
+  private static final Logger LOG = Logger.getLogger(StatementMetricsInterceptor.class);
+
+  /** 処理時間（Prometheusでは {@code app_mybatis_statement_seconds}） */
+  public static final String TIMER_NAME = "app.mybatis.statement";
+
+  /** 取得/更新行数 */
+  public static final String ROWS_NAME = "app.mybatis.statement.rows";
+
+  /** エラー数 */
+  public static final String ERRORS_NAME = "app.mybatis.statement.errors";
+
+  private static final String REDACTED = "****";
+
+  @Inject MeterRegistry registry;
+
+  @Inject SqlSessionFactory sqlSessionFactory;
+
+  @Inject DbRequestStats requestStats;
+
+  @ConfigProperty(name = "app.mybatis.slow-query-threshold", defaultValue = "200ms")
+  Duration slowQueryThreshold;
+
+  @ConfigProperty(
+      name = "app.mybatis.statement-slo",
+      defaultValue = "1ms,5ms,10ms,25ms,50ms,100ms,250ms,500ms")
+  List<Duration> slo;
+
+  private final Map<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+  private long slowQueryNanos;
+
+  private ManagedContext requestContext;
+
+  /** MyBatisの設定にプラグインとして登録 */
+  void register(@Observes @Priority(1) StartupEvent event) {
+    slowQueryNanos = slowQueryThreshold.toNanos();
+    requestContext = Arc.container().requestContext();
+    sqlSessionFactory.getConfiguration().addInterceptor(this);
+    LOG.debugf("ステートメントメトリクスを登録しました: slowQueryThreshold=%s", slowQueryThreshold);
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+    StatementMeters statementMeters = meters(statement);
+    MapperCallEvent event = new MapperCallEvent(statementMeters.statement, statementMeters.command);
+    event.begin();
+    boolean cacheable = statement.getCache() != null && statement.isUseCache();
+    long hitsBefore = cacheable ? WeightedLruCache.threadHits() : 0;
+    long start = System.nanoTime();
+    try {
+      Object result = invocation.proceed();
+      long elapsed = System.nanoTime() - start;
+      if (cacheable && WeightedLruCache.threadHits() != hitsBefore) {
+        statementMeters.cacheHit.record(elapsed, TimeUnit.NANOSECONDS);
+        return result;
+      }
+      long rows = rows(result);
+      event.finish(rows, MapperCallEvent.SUCCESS);
+      recordRequest(elapsed);
+      statementMeters.success.record(elapsed, TimeUnit.NANOSECONDS);
+      if (rows >= 0) {
+        statementMeters.rows.record(rows);
+      }
+      if (elapsed >= slowQueryNanos) {
+        logSlowQuery(invocation, statement, elapsed, rows, null);
+      }
+      return result;
+    } catch (Throwable e) {
+      long elapsed = System.nanoTime() - start;
+      event.finish(-1, AppEvent.ERROR);
+      recordRequest(elapsed);
+      statementMeters.failure.record(elapsed, TimeUnit.NANOSECONDS);
+      statementMeters.errors.increment();
+      if (elapsed >= slowQueryNanos) {
+        logSlowQuery(invocation, statement, elapsed, -1, e);
+      }
+      throw e;
+    }
+  }
+
+  /** リクエスト処理中であればリクエスト単位の往復回数に加算 */
+  private void recordRequest(long elapsed) {
+    if (requestContext.isActive()) {
+      requestStats.record(elapsed);
+    }
+  }
+
+  private StatementMeters meters(MappedStatement statement) {
+    StatementMeters statementMeters = meters.get(statement.getId());
+    if (statementMeters == null) {
+      statementMeters =
+          meters.computeIfAbsent(
+              statement.getId(),
+              id ->
+                  new StatementMeters(
+                      shortId(id), statement.getSqlCommandType().name().toLowerCase(Locale.ROOT)));
+    }
+    return statementMeters;
+  }
+
+  /** {@code com.example.mapper.UserMapper.countByRole} → {@code UserMapper.countByRole} */
+  static String shortId(String id) {
+    int method = id.lastIndexOf('.');
+    int type = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+    return id.substring(type + 1);
+  }
+
+  private static long rows(Object result) {
+    if (result instanceof Collection<?> collection) {
+      return collection.size();
+    }
+    if (result instanceof Integer count) {
+      return count;
+    }
+    return -1;
+  }
+
+  private void logSlowQuery(
+      Invocation invocation, MappedStatement statement, long elapsed, long rows, Throwable error) {
+    Object parameter = invocation.getArgs()[1];
+    BoundSql boundSql =
+        invocation.getArgs().length == 6
+            ? (BoundSql) invocation.getArgs()[5]
+            : statement.getBoundSql(parameter);
+    LOG.warnf(
+        "Slow query: %s took %.1fms (rows=%d, error=%s, requestId=%s) sql=[%s] params=%s",
+        statement.getId(),
+        elapsed / 1_000_000.0,
+        rows,
+        error != null ? error.getClass().getSimpleName() : "none",
+        MDC.get("requestId"),
+        boundSql.getSql().replaceAll("\\s+", " ").trim(),
+        parameters(statement.getConfiguration(), boundSql, parameter));
+  }
+
+  /** バインドパラメータを名前付きで列挙（DefaultParameterHandlerと同じ解決順、パスワードは伏せ字） */
+  static String parameters(Configuration configuration, BoundSql boundSql, Object parameter) {
+    StringBuilder sb = new StringBuilder("[");
+    MetaObject metaObject = null;
+    for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+      String property = mapping.getProperty();
+      Object value;
+      if (property.toLowerCase(Locale.ROOT).contains("password")) {
+        value = REDACTED;
+      } else if (boundSql.hasAdditionalParameter(property)) {
+        value = boundSql.getAdditionalParameter(property);
+      } else if (parameter == null) {
+        value = null;
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+        value = parameter;
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameter);
+        }
+        value = metaObject.hasGetter(property) ? metaObject.getValue(property) : null;
+      }
+      if (sb.length() > 1) {
+        sb.append(", ");
+      }
+      sb.append(property).append('=').append(value);
+    }
+    return sb.append(']').toString();
+  }
+
+  /** 1ステートメント分のメーター */
+  private final class StatementMeters {
+
+    private final String statement;
+    private final String command;
+    private final Timer success;
+    private final Timer failure;
+    private final Timer cacheHit;
+    private final DistributionSummary rows;
+    private final Counter errors;
+
+    StatementMeters(String statement, String command) {
+      this.statement = statement;
+      this.command = command;
+      Duration[] buckets = slo.toArray(new Duration[0]);
+      this.success = timer(statement, command, "success", buckets);
+      this.failure = timer(statement, command, "error", buckets);
+      this.cacheHit = timer(statement, command, "cache", buckets);
+      this.rows =
+          DistributionSummary.builder(ROWS_NAME)
+              .description("マップドステートメント別の取得/更新行数")
+              .tags("statement", statement, "command", command)
+              .serviceLevelObjectives(1, 10, 100, 1000, 10000)
+              .register(registry);
+      this.errors =
+          Counter.builder(ERRORS_NAME)
+              .description("マップドステートメント別のエラー数")
+              .tags("statement", statement, "command", command)
+              .register(registry);
+    }
+
+    private Timer timer(String statement, String command, String outcome, Duration[] buckets) {
+      return Timer.builder(TIMER_NAME)
+          .description("マップドステートメント別の処理時間")
+          .tags("statement", statement, "command", command, "outcome", outcome)
+          .serviceLevelObjectives(buckets)
+          .register(registry);
+    }
+  }
+}
@@ -0,0 +1,399 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mybatis;
+
+import io.quarkus.runtime.configuration.DurationConverter;
+import io.quarkus.runtime.configuration.MemorySizeConverter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Resources;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * 件数・重み・有効期限に上限のあるMyBatisの2次キャッシュ
+ *
+ * <p>{@code @CacheNamespace(implementation = WeightedLruCache.class, properties = @Property(name =
+ * "configPrefix", value = "app.mybatis.cache.user"))}のように指定し、設定をプレフィックス配下の{@code enabled}・
+ * {@code max-entries}・{@code max-weight}・{@code ttl}から読む。
+ *
+ * <p>検索結果はシリアライズしたバイト列で保持し、取得のたびに複製を返す（MyBatis標準の読み書き可能キャッシュと同じく、呼び出し側が結果を変更してもキャッシュは変わらない）。
+ * バイト数をエントリの重みとし、件数か重みの合計が上限を超えると最も長く参照されていないエントリから追い出す。有効期限を過ぎたエントリは参照時に破棄する。
+ *
+ * <p>MyBatisは検索時にキャッシュになかったキーを、セッションのコミット時に同じスレッドで格納する。その間に全消去された場合
+ * （検索中に他のスレッドの更新がコミットされた場合）は変更前の行を読んだ可能性があるため格納しない。判定のため、ミスしたキーと
+ * その時点の全消去の回数をスレッドごとに記録する。{@link #bypassWhile}の条件が成り立つ間（実行中のトランザクションがこのネームスペースを
+ * 更新済みの場合など）は参照も格納も行わない。
+ *
+ * <p>インスタンスはMyBatisがネームスペースごとに生成するため（CDI管理外）、{@link #forNamespace}で参照できるように保持する。
+ */
+public class WeightedLruCache implements Cache, InitializingObject {
+
+  private static final Map<String, WeightedLruCache> INSTANCES = new ConcurrentHashMap<>();
+
+  /** 現在のスレッドでキャッシュから結果を返した回数（{@link StatementMetricsInterceptor}がヒットの判定に使う） */
+  private static final ThreadLocal<long[]> THREAD_HITS = ThreadLocal.withInitial(() -> new long[1]);
+
+  /** スレッドごとに記録するミスの上限（コミット・ロールバックされないセッションがあっても増え続けない） */
+  private static final int MAX_PENDING_MISSES = 1024;
+
+  private final String id;
+
+  /** 設定のプレフィックス（未指定は既定値を使う） */
+  private String configPrefix;
+
+  private boolean enabled = true;
+
+  private int maxEntries = 10_000;
+
+  private long maxWeight = 16L * 1024 * 1024;
+
+  private long ttlNanos = Duration.ofMinutes(5).toNanos();
+
+  /** 成り立つ間は参照・格納しない条件 */
+  private volatile BooleanSupplier bypass = () -> false;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** アクセス順（先頭が最も長く参照されていない） */
+  private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+  /** 保持中のエントリの重みの合計（バイト） */
+  private long weight;
+
+  /** 全消去の回数（{@link #lock}を保持して読み書きする） */
+  private long generation;
+
+  /** このスレッドでミスしたキー→ミスした時点の{@link #generation} */
+  private final ThreadLocal<Map<Object, Long>> pendingMisses = new ThreadLocal<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+  private final LongAdder clears = new LongAdder();
+
+  /**
+   * キャッシュのエントリ
+   *
+   * @param value シリアライズした検索結果
+   * @param expiresAt 有効期限（{@link System#nanoTime()}基準）
+   */
+  private record Entry(byte[] value, long expiresAt) {}
+
+  /**
+   * キャッシュの統計
+   *
+   * @param hits ヒット数
+   * @param misses ミス数（期限切れを含む）
+   * @param puts 格納数
+   * @param evictions 件数・重みの上限による追い出し数
+   * @param expirations 有効期限切れによる破棄数
+   * @param clears 全消去の回数
+   * @param size エントリ数
+   * @param weight 重みの合計（バイト）
+   */
+  public record Stats(
+      long hits,
+      long misses,
+      long puts,
+      long evictions,
+      long expirations,
+      long clears,
+      int size,
+      long weight) {}
+
+  /**
+   * MyBatisから呼ばれるコンストラクタ
+   *
+   * @param id ネームスペース（マッパーの完全名）
+   */
+  public WeightedLruCache(String id) {
+    this.id = id;
+  }
+
+  /** 設定のプレフィックス（{@code @CacheNamespace}の{@code properties}で指定） */
+  public void setConfigPrefix(String configPrefix) {
+    this.configPrefix = configPrefix;
+  }
+
+  @Override
+  public void initialize() {
+    if (configPrefix != null) {
+      Config config = ConfigProvider.getConfig();
+      enabled = config.getOptionalValue(configPrefix + ".enabled", Boolean.class).orElse(enabled);
+      maxEntries =
+          config.getOptionalValue(configPrefix + ".max-entries", Integer.class).orElse(maxEntries);
+      maxWeight =
+          config
+              .getOptionalValue(configPrefix + ".max-weight", String.class)
+              .map(value -> new MemorySizeConverter().convert(value).asLongValue())
+              .orElse(maxWeight);
+      ttlNanos =
+          config
+              .getOptionalValue(configPrefix + ".ttl", String.class)
+              .map(value -> DurationConverter.parseDuration(value).toNanos())
+              .orElse(ttlNanos);
+    }
+    if (maxEntries <= 0 || maxWeight <= 0 || ttlNanos <= 0) {
+      throw new IllegalArgumentException(
+          "Cache " + id + " requires positive max-entries, max-weight and ttl");
+    }
+    INSTANCES.put(id, this);
+  }
+
+  /**
+   * ネームスペースのキャッシュを取得
+   *
+   * @param id ネームスペース（マッパーの完全名）
+   * @return キャッシュ（このクラスを使っていないネームスペースは空）
+   */
+  public static Optional<WeightedLruCache> forNamespace(String id) {
+    return Optional.ofNullable(INSTANCES.get(id));
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  public Duration getTtl() {
+    return Duration.ofNanos(ttlNanos);
+  }
+
+  /**
+   * 参照・格納を行わない条件を設定
+   *
+   * @param condition 呼び出し元のスレッドで評価し、trueの間はミスとして扱い格納しない
+   */
+  public void bypassWhile(BooleanSupplier condition) {
+    this.bypass = condition;
+  }
+
+  /** 現在のスレッドでキャッシュから結果を返した回数（前後の差でヒットを判定する） */
+  public static long threadHits() {
+    return THREAD_HITS.get()[0];
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    Long missedAt = takeMiss(key);
+    // MyBatisはキャッシュになかったキーをコミット時にnullで格納する（ブロッキングキャッシュのロック解放用）
+    if (!enabled || value == null || bypass.getAsBoolean()) {
+      return;
+    }
+    byte[] bytes = serialize(value);
+    if (bytes.length > maxWeight) {
+      return;
+    }
+    Entry entry = new Entry(bytes, System.nanoTime() + ttlNanos);
+    lock.lock();
+    try {
+      // 検索してから全消去された（検索中に更新がコミットされた）場合は変更前の行の可能性があるため格納しない
+      if (missedAt == null || missedAt != generation) {
+        return;
+      }
+      Entry previous = entries.put(key, entry);
+      weight += bytes.length - (previous != null ? previous.value().length : 0);
+      evictOverflow();
+    } finally {
+      lock.unlock();
+    }
+    puts.increment();
+  }
+
+  private void evictOverflow() {
+    Iterator<Entry> eldest = entries.values().iterator();
+    while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+      weight -= eldest.next().value().length;
+      eldest.remove();
+      evictions.increment();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    if (!enabled || bypass.getAsBoolean()) {
+      misses.increment();
+      return null;
+    }
+    Entry entry;
+    long missedAt;
+    lock.lock();
+    try {
+      entry = entries.get(key);
+      if (entry != null && entry.expiresAt() - System.nanoTime() <= 0) {
+        entries.remove(key);
+        weight -= entry.value().length;
+        expirations.increment();
+        entry = null;
+      }
+      missedAt = generation;
+    } finally {
+      lock.unlock();
+    }
+    if (entry == null) {
+      misses.increment();
+      recordMiss(key, missedAt);
+      return null;
+    }
+    hits.increment();
+    THREAD_HITS.get()[0]++;
+    return deserialize(entry.value());
+  }
+
+  private void recordMiss(Object key, long missedAt) {
+    Map<Object, Long> missed = pendingMisses.get();
+    if (missed == null) {
+      missed = new HashMap<>();
+      pendingMisses.set(missed);
+    } else if (missed.size() >= MAX_PENDING_MISSES) {
+      missed.clear();
+    }
+    missed.put(key, missedAt);
+  }
+
+  /** このスレッドでミスした時点の全消去の回数（記録がない場合はnull） */
+  private Long takeMiss(Object key) {
+    Map<Object, Long> missed = pendingMisses.get();
+    if (missed == null) {
+      return null;
+    }
+    Long missedAt = missed.remove(key);
+    if (missed.isEmpty()) {
+      pendingMisses.remove();
+    }
+    return missedAt;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    // MyBatisはロールバック時にミスしたキーを削除する（格納されないためミスの記録も破棄する）
+    takeMiss(key);
+    lock.lock();
+    try {
+      Entry entry = entries.remove(key);
+      if (entry != null) {
+        weight -= entry.value().length;
+      }
+    } finally {
+      lock.unlock();
+    }
+    return null;
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      entries.clear();
+      weight = 0;
+      generation++;
+    } finally {
+      lock.unlock();
+    }
+    clears.increment();
+  }
+
+  @Override
+  public int getSize() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 現在の統計 */
+  public Stats stats() {
+    int size;
+    long currentWeight;
+    lock.lock();
+    try {
+      size = entries.size();
+      currentWeight = weight;
+    } finally {
+      lock.unlock();
+    }
+    return new Stats(
+        hits.sum(),
+        misses.sum(),
+        puts.sum(),
+        evictions.sum(),
+        expirations.sum(),
+        clears.sum(),
+        size,
+        currentWeight);
+  }
+
+  private byte[] serialize(Object value) {
+    if (!(value instanceof Serializable)) {
+      throw new CacheException("Cached result of " + id + " is not Serializable: " + value);
+    }
+    try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new CacheException("Error serializing cached result of " + id, e);
+    }
+  }
+
+  private Object deserialize(byte[] value) {
+    try (ObjectInputStream in = new ResourcesObjectInputStream(new ByteArrayInputStream(value))) {
+      return in.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new CacheException("Error deserializing cached result of " + id, e);
+    }
+  }
+
+  /** アプリケーションのクラスローダーでクラスを解決する（MyBatisの{@code SerializedCache}と同じ） */
+  private static final class ResourcesObjectInputStream extends ObjectInputStream {
+
+    ResourcesObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException {
+      return Resources.classForName(desc.getName());
+    }
+  }
+}
@@ -0,0 +1,151 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accept-Languageヘッダー解析
+ *
+ * <p>RFC 4647 Lookup方式で、q値（RFC 9110 §12.4.2）の最も高い言語範囲から順に対応ロケールを探す。
+ * 対応ロケールは言語単位のため、言語範囲は主言語サブタグまで切り詰めて照合する（例: {@code zh-Hant-TW} → {@code zh}）。
+ * 解析は文字列を分割せず1パスで行い、結果はヘッダー値ごとに上限付きでキャッシュする。
+ *
+ * <p>キャッシュは2世代の近似LRUで、新世代が満杯になると旧世代を捨てて世代を繰り上げる。旧世代で参照された値は新世代へ戻すため、
+ * 不正なヘッダー値が大量に届いても、よく使われる値は追い出されず、上限を超えて増えることもない。
+ */
+public final class AcceptLanguageParser {
+
+  /** キャッシュするヘッダー値の最大長（これを超える値は毎回解析する） */
+  private static final int MAX_CACHEABLE_LENGTH = 256;
+
+  private final Locale defaultLocale;
+  private final Locale[] locales;
+  private final String[] languages;
+  private final int generationSize;
+  private volatile ConcurrentHashMap<String, Locale> young = new ConcurrentHashMap<>();
+  private volatile ConcurrentHashMap<String, Locale> old = new ConcurrentHashMap<>();
+
+  /**
+   * @param defaultLocale 一致しない場合のロケール
+   * @param supported 対応ロケール
+   * @param maxCacheSize キャッシュするヘッダー値の最大件数（2世代の合計、0はキャッシュなし）
+   */
+  public AcceptLanguageParser(Locale defaultLocale, List<Locale> supported, int maxCacheSize) {
+    this.defaultLocale = defaultLocale;
+    this.locales = supported.toArray(new Locale[0]);
+    this.languages = new String[locales.length];
+    for (int i = 0; i < locales.length; i++) {
+      languages[i] = locales[i].getLanguage();
+    }
+    this.generationSize = maxCacheSize / 2;
+  }
+
+  /**
+   * ヘッダー値からロケールを解決（キャッシュ利用）
+   *
+   * @param header Accept-Languageヘッダーの値
+   * @return 対応ロケール
+   */
+  public Locale resolve(String header) {
+    if (header == null || header.isEmpty()) {
+      return defaultLocale;
+    }
+    Locale cached = young.get(header);
+    if (cached != null) {
+      return cached;
+    }
+    cached = old.get(header);
+    if (cached != null) {
+      admit(header, cached);
+      return cached;
+    }
+    Locale locale = parse(header);
+    if (generationSize > 0 && header.length() <= MAX_CACHEABLE_LENGTH) {
+      admit(header, locale);
+    }
+    return locale;
+  }
+
+  /** 新世代へ登録（満杯なら世代を繰り上げる） */
+  private void admit(String header, Locale locale) {
+    ConcurrentHashMap<String, Locale> current = young;
+    if (current.size() >= generationSize) {
+      synchronized (this) {
+        if (young == current) {
+          old = current;
+          young = new ConcurrentHashMap<>();
+        }
+      }
+    }
+    young.put(header, locale);
+  }
+
+  /** キャッシュ件数 */
+  public int cacheSize() {
+    return young.size() + old.size();
+  }
+
+  /**
+   * ヘッダー値を解析（キャッシュなし）
+   *
+   * @param header Accept-Languageヘッダーの値
+   * @return 対応ロケール（一致なしの場合はデフォルト）
+   */
+  public Locale parse(String header) {
+    Locale best = null;
+    int bestQ = 0;
+    int length = header.length();
+    int pos = 0;
+    while (pos < length) {
+      int end = header.indexOf(',', pos);
+      if (end < 0) {
+        end = length;
+      }
+      int params = header.indexOf(';', pos);
+      if (params < 0 || params > end) {
+        params = end;
+      }
+      int tagStart = QualityValues.skipWhitespace(header, pos, params);
+      int tagEnd = QualityValues.trimWhitespace(header, tagStart, params);
+      int q = params < end ? QualityValues.parse(header, params + 1, end) : QualityValues.MAX;
+
+      // 同じq値の場合はヘッダー内で先に現れた範囲を優先する
+      if (q > bestQ && tagEnd > tagStart) {
+        Locale match = match(header, tagStart, tagEnd);
+        if (match != null) {
+          best = match;
+          bestQ = q;
+          if (q == QualityValues.MAX) {
+            break;
+          }
+        }
+      }
+      pos = end + 1;
+    }
+    return best != null ? best : defaultLocale;
+  }
+
+  private Locale match(String header, int start, int end) {
+    if (end - start == 1 && header.charAt(start) == '*') {
+      return defaultLocale;
+    }
+    int primaryEnd = start;
+    while (primaryEnd < end && header.charAt(primaryEnd) != '-' && header.charAt(primaryEnd) != '_') {
+      primaryEnd++;
+    }
+    int primaryLength = primaryEnd - start;
+    for (int i = 0; i < languages.length; i++) {
+      if (languages[i].length() == primaryLength
+          && header.regionMatches(true, start, languages[i], 0, primaryLength)) {
+        return locales[i];
+      }
+    }
+    return null;
+  }
+}
@@ -5,6 +5,8 @@
 
 package com.example.service;
 
+import com.example.jfr.AppEvent;
+import com.example.jfr.AuditWriteEvent;
 import com.example.mapper.AuditLogMapper;
 import com.example.model.AuditLog;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -13,7 +15,13 @@ import jakarta.transaction.Transactional;
 import org.jboss.logging.Logger;
 import org.jboss.logging.MDC;
 
-/** 監査ログサービス */
+/**
+ * 監査ログサービス
+ *
+ * <p>監査ログは1件のINSERTで完結するため、呼び出し元にトランザクションがなければトランザクションを開始しない。
+ * JTAトランザクション中は{@code ConnectionPoolRouter}が既定のデータソースを使うため、トランザクションを開始すると監査ログ用のプール
+ * （{@code audit}）が使われなくなる。呼び出し元のトランザクション中は、そのトランザクションに参加して既定のデータソースで記録する。
+ */
 @ApplicationScoped
 public class AuditLogService {
 
@@ -21,18 +29,18 @@ public class AuditLogService {
 
   @Inject AuditLogMapper auditLogMapper;
 
-  @Transactional
+  @Transactional(Transactional.TxType.SUPPORTS)
   public void log(Long userId, String username, String action) {
     log(userId, username, action, null, null, null);
   }
 
-  @Transactional
+  @Transactional(Transactional.TxType.SUPPORTS)
   public void log(
       Long userId, String username, String action, String resourceType, String resourceId) {
     log(userId, username, action, resourceType, resourceId, null);
   }
 
-  @Transactional
+  @Transactional(Transactional.TxType.SUPPORTS)
   public void log(
       Long userId,
       String username,
@@ -40,28 +48,32 @@ public class AuditLogService {
       String resourceType,
       String resourceId,
       String details) {
+    AuditWriteEvent event = new AuditWriteEvent(action, AuditLog.Status.SUCCESS.name());
+    event.begin();
     try {
       AuditLog auditLog = new AuditLog(userId, username, action, resourceType, resourceId);
       auditLog.setDetails(details);
       auditLog.setRequestId((String) MDC.get("requestId"));
       auditLogMapper.insert(auditLog);
+      event.finish(AuditWriteEvent.WRITTEN);
 
       LOG.infof(
           "監査ログ記録: user=%s, action=%s, resource=%s:%s", username, action, resourceType, resourceId);
 
     } catch (Exception e) {
+      event.finish(AppEvent.ERROR);
       LOG.errorf(e, "監査ログの記録に失敗しました: user=%s, action=%s", username, action);
     }
   }
 
-  @Transactional
+  @Transactional(Transactional.TxType.SUPPORTS)
   public void logSuccess(
       Long userId, String username, String action, String resourceType, String resourceId) {
     logWithStatus(
         userId, username, action, resourceType, resourceId, null, AuditLog.Status.SUCCESS, null);
   }
 
-  @Transactional
+  @Transactional(Transactional.TxType.SUPPORTS)
   public void logFailure(
       Long userId,
       String username,
@@ -80,7 +92,7 @@ public class AuditLogService {
         errorMessage);
   }
 
-  @Transactional
+  @Transactional(Transactional.TxType.SUPPORTS)
   public void logError(
       Long userId,
       String username,
@@ -108,6 +120,8 @@ public class AuditLogService {
       String details,
       AuditLog.Status status,
       String errorMessage) {
+    AuditWriteEvent event = new AuditWriteEvent(action, status.name());
+    event.begin();
     try {
       AuditLog auditLog = new AuditLog(userId, username, action, resourceType, resourceId);
       auditLog.setDetails(details);
@@ -115,12 +129,14 @@ public class AuditLogService {
       auditLog.setErrorMessage(errorMessage);
       auditLog.setRequestId((String) MDC.get("requestId"));
       auditLogMapper.insert(auditLog);
+      event.finish(AuditWriteEvent.WRITTEN);
 
       LOG.infof(
           "監査ログ記録: user=%s, action=%s, resource=%s:%s, status=%s",
           username, action, resourceType, resourceId, status);
 
     } catch (Exception e) {
+      event.finish(AppEvent.ERROR);
       LOG.errorf(e, "監査ログの記録に失敗しました: user=%s, action=%s", username, action);
     }
   }
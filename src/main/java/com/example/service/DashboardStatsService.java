@@ -0,0 +1,218 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.service;
+
+import com.example.cache.CacheInvalidationBus;
+import com.example.cache.CachedPayload;
+import com.example.event.CacheInvalidatedEvent;
+import com.example.event.UserChangedEvent;
+import com.example.mapper.AuditLogMapper;
+import com.example.mapper.UserMapper;
+import com.example.model.AuditLog;
+import com.example.model.User;
+import com.example.model.UserRoleCount;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * ダッシュボード統計スナップショットサービス
+ *
+ * <p>統計値は集計クエリ1本（＋当日ログイン数1本）でまとめて取得し、ロール別表示ごとにJSONへシリアライズ済みの不変スナップショットとして保持する。
+ * スナップショットは定期リフレッシュとユーザー変更イベントで更新され、参照側は{@link AtomicReference}を読むだけでDBへアクセスしない。
+ */
+@ApplicationScoped
+public class DashboardStatsService {
+
+  private static final Logger LOG = Logger.getLogger(DashboardStatsService.class);
+
+  @Inject UserMapper userMapper;
+
+  @Inject AuditLogMapper auditLogMapper;
+
+  @Inject ObjectMapper objectMapper;
+
+  @ConfigProperty(name = "app.dashboard.stats.max-staleness", defaultValue = "30s")
+  Duration maxStaleness;
+
+  private final AtomicReference<StatsSnapshot> current = new AtomicReference<>();
+
+  private volatile boolean dirty = true;
+
+  /** 再生成の排他（DB問い合わせ中に仮想スレッドのキャリアを固定しないようsynchronizedは使わない） */
+  private final ReentrantLock refreshLock = new ReentrantLock();
+
+  /**
+   * 統計スナップショット
+   *
+   * @param adminView 管理者向け（ロール別統計を含む）
+   * @param userView 一般ユーザー向け
+   * @param generatedAt 生成時刻
+   * @param generatedAtNanos 生成時刻（経過時間計算用の単調時刻）
+   */
+  public record StatsSnapshot(
+      CachedPayload adminView, CachedPayload userView, Instant generatedAt, long generatedAtNanos) {
+
+    /** スナップショットの経過時間（ミリ秒） */
+    public long ageMillis() {
+      return (System.nanoTime() - generatedAtNanos) / 1_000_000L;
+    }
+
+    /** ロールに応じた表示を取得 */
+    public CachedPayload view(boolean admin) {
+      return admin ? adminView : userView;
+    }
+  }
+
+  /**
+   * 現在のスナップショットを取得
+   *
+   * <p>未生成・ユーザー変更後・最大許容経過時間超過の場合のみ同期的に再生成する。
+   *
+   * @return 統計スナップショット
+   */
+  public StatsSnapshot getSnapshot() {
+    StatsSnapshot snapshot = current.get();
+    if (needsRefresh(snapshot)) {
+      return refreshIfStale();
+    }
+    return snapshot;
+  }
+
+  private boolean needsRefresh(StatsSnapshot snapshot) {
+    return snapshot == null || dirty || snapshot.ageMillis() > maxStaleness.toMillis();
+  }
+
+  /** 同時に再生成を要求したリクエストのうち、最初の1件のみがDBへ問い合わせる */
+  private StatsSnapshot refreshIfStale() {
+    refreshLock.lock();
+    try {
+      StatsSnapshot snapshot = current.get();
+      if (needsRefresh(snapshot)) {
+        return rebuild();
+      }
+      return snapshot;
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  /** 定期リフレッシュ */
+  @Scheduled(
+      identity = "dashboard-stats-refresh",
+      every = "${app.dashboard.stats.refresh-interval:10s}",
+      delayed = "${app.dashboard.stats.refresh-interval:10s}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void scheduledRefresh() {
+    try {
+      refresh();
+    } catch (Exception e) {
+      LOG.warnf("ダッシュボード統計の定期更新に失敗しました: %s", e.getMessage());
+    }
+  }
+
+  /** ユーザー変更のコミット後にスナップショットを無効化 */
+  void onUserChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserChangedEvent event) {
+    LOG.debugf("ダッシュボード統計を無効化: %s", event);
+    dirty = true;
+  }
+
+  /** 他のインスタンス・マッパー経由のユーザー変更でもスナップショットを無効化 */
+  void onCacheInvalidated(@Observes CacheInvalidatedEvent event) {
+    if (CacheInvalidationBus.USERS.equals(event.region())) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * スナップショットを再生成して差し替え
+   *
+   * @return 新しいスナップショット
+   */
+  public StatsSnapshot refresh() {
+    refreshLock.lock();
+    try {
+      return rebuild();
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  /** 集計クエリを実行してスナップショットを差し替える（{@link #refreshLock}を保持して呼び出す） */
+  private StatsSnapshot rebuild() {
+    dirty = false;
+
+    EnumMap<User.Role, Long> roleCounts = new EnumMap<>(User.Role.class);
+    for (User.Role role : User.Role.values()) {
+      roleCounts.put(role, 0L);
+    }
+    long totalUsers = 0;
+    long activeUsers = 0;
+    List<UserRoleCount> rows = userMapper.countGroupByRoleAndActive();
+    for (UserRoleCount row : rows) {
+      totalUsers += row.getCount();
+      if (row.isActive()) {
+        activeUsers += row.getCount();
+      }
+      if (row.getRole() != null) {
+        roleCounts.merge(row.getRole(), row.getCount(), Long::sum);
+      }
+    }
+
+    LocalDate today = LocalDate.now();
+    long todayLogins =
+        auditLogMapper.countByActionAndStatusBetween(
+            "USER_LOGIN",
+            AuditLog.Status.SUCCESS,
+            today.atStartOfDay(),
+            LocalDateTime.of(today, LocalTime.MAX));
+
+    Instant generatedAt = Instant.now();
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("totalUsers", totalUsers);
+    stats.put("activeUsers", activeUsers);
+    stats.put("inactiveUsers", totalUsers - activeUsers);
+    stats.put("todayLogins", todayLogins);
+    stats.put("systemStatus", "online");
+    // 生成時刻は本文に含めない（件数が変わらない限りETagを維持し、経過時間はAgeヘッダーで返す）
+    CachedPayload userView = serialize(stats);
+
+    Map<String, Long> roleStats = new LinkedHashMap<>();
+    roleCounts.forEach((role, count) -> roleStats.put(role.name(), count));
+    stats.put("roleStats", roleStats);
+    CachedPayload adminView = serialize(stats);
+
+    StatsSnapshot snapshot = new StatsSnapshot(adminView, userView, generatedAt, System.nanoTime());
+    current.set(snapshot);
+    LOG.debugf("ダッシュボード統計を更新しました: totalUsers=%d, activeUsers=%d", totalUsers, activeUsers);
+    return snapshot;
+  }
+
+  private CachedPayload serialize(Map<String, Object> stats) {
+    try {
+      return CachedPayload.json(objectMapper.writeValueAsBytes(stats));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize dashboard statistics", e);
+    }
+  }
+}
@@ -5,6 +5,8 @@
 
 package com.example.service;
 
+import com.example.jfr.AppEvent;
+import com.example.jfr.TokenIssueEvent;
 import com.example.model.User;
 import io.smallrye.jwt.build.Jwt;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -18,12 +20,22 @@ public class JwtService {
   String issuer;
 
   public String generateToken(User user) {
-    return Jwt.issuer(issuer)
-        .upn(user.getUsername())
-        .groups(user.getRole().name())
-        .claim("userId", user.getId())
-        .claim("email", user.getEmail())
-        .expiresIn(Duration.ofHours(24))
-        .sign();
+    TokenIssueEvent event = new TokenIssueEvent(user.getRole().name());
+    event.begin();
+    try {
+      String token =
+          Jwt.issuer(issuer)
+              .upn(user.getUsername())
+              .groups(user.getRole().name())
+              .claim("userId", user.getId())
+              .claim("email", user.getEmail())
+              .expiresIn(Duration.ofHours(24))
+              .sign();
+      event.finish("issued");
+      return token;
+    } catch (RuntimeException e) {
+      event.finish(AppEvent.ERROR);
+      throw e;
+    }
   }
 }
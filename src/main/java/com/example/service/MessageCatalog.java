@@ -0,0 +1,165 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.TreeSet;
+
+/**
+ * コンパイル済みメッセージカタログ
+ *
+ * <p>{@code messages*.properties}を一度だけ読み込み、全キーに連番IDを振ってロケールごとの不変配列に展開する。
+ * ロケール間のフォールバック（対象ロケール → デフォルトロケール → キー自体）は生成時に解決済みのため、参照時は配列アクセスのみで例外も発生しない。
+ */
+public final class MessageCatalog {
+
+  /** デフォルトロケールのスロット番号 */
+  private static final int DEFAULT_SLOT = 0;
+
+  private final Map<String, Integer> keyIds;
+  private final String[] keys;
+  private final List<Locale> locales;
+  private final String[][] messages;
+
+  private MessageCatalog(
+      Map<String, Integer> keyIds, String[] keys, List<Locale> locales, String[][] messages) {
+    this.keyIds = keyIds;
+    this.keys = keys;
+    this.locales = locales;
+    this.messages = messages;
+  }
+
+  /**
+   * リソースバンドルからカタログを生成
+   *
+   * @param bundleName バンドル名
+   * @param defaultLocale デフォルトロケール（欠落キーのフォールバック先）
+   * @param locales 対応ロケール
+   * @return カタログ
+   */
+  public static MessageCatalog compile(
+      String bundleName, Locale defaultLocale, List<Locale> locales) {
+    // 先頭スロットをデフォルトロケールとする
+    List<Locale> slots = new ArrayList<>();
+    slots.add(defaultLocale);
+    for (Locale locale : locales) {
+      if (!locale.equals(defaultLocale)) {
+        slots.add(locale);
+      }
+    }
+
+    ResourceBundle[] bundles = new ResourceBundle[slots.size()];
+    TreeSet<String> allKeys = new TreeSet<>();
+    for (int i = 0; i < slots.size(); i++) {
+      bundles[i] = loadBundle(bundleName, slots.get(i));
+      if (bundles[i] != null) {
+        allKeys.addAll(bundles[i].keySet());
+      }
+    }
+
+    String[] keys = allKeys.toArray(new String[0]);
+    Map<String, Integer> keyIds = new HashMap<>(keys.length * 2);
+    for (int id = 0; id < keys.length; id++) {
+      keys[id] = keys[id].intern();
+      keyIds.put(keys[id], id);
+    }
+
+    String[][] messages = new String[slots.size()][keys.length];
+    for (int id = 0; id < keys.length; id++) {
+      String fallback = lookup(bundles[0], keys[id]);
+      messages[0][id] = fallback != null ? fallback : keys[id];
+    }
+    for (int slot = 1; slot < slots.size(); slot++) {
+      for (int id = 0; id < keys.length; id++) {
+        String value = lookup(bundles[slot], keys[id]);
+        messages[slot][id] = value != null ? value : messages[0][id];
+      }
+    }
+
+    return new MessageCatalog(Map.copyOf(keyIds), keys, List.copyOf(slots), messages);
+  }
+
+  private static ResourceBundle loadBundle(String bundleName, Locale locale) {
+    try {
+      return ResourceBundle.getBundle(bundleName, locale);
+    } catch (MissingResourceException e) {
+      return null;
+    }
+  }
+
+  private static String lookup(ResourceBundle bundle, String key) {
+    return bundle != null && bundle.containsKey(key) ? bundle.getString(key) : null;
+  }
+
+  /**
+   * キーIDを取得
+   *
+   * @param key メッセージキー
+   * @return キーID（未定義の場合は-1）
+   */
+  public int keyId(String key) {
+    Integer id = keyIds.get(key);
+    return id != null ? id : -1;
+  }
+
+  /**
+   * キーIDに対応するメッセージを取得
+   *
+   * @param keyId {@link #keyId}で取得したID
+   * @param locale ロケール
+   * @return ローカライズされたメッセージ（フォールバック解決済み）
+   */
+  public String get(int keyId, Locale locale) {
+    return messages[slot(locale)][keyId];
+  }
+
+  /**
+   * メッセージキーに対応するメッセージを取得
+   *
+   * @param key メッセージキー
+   * @param locale ロケール
+   * @return ローカライズされたメッセージ（未定義キーの場合はnull）
+   */
+  public String get(String key, Locale locale) {
+    Integer id = keyIds.get(key);
+    return id != null ? messages[slot(locale)][id] : null;
+  }
+
+  /** 登録キー数 */
+  public int size() {
+    return keys.length;
+  }
+
+  /** 対応ロケール（先頭がデフォルト） */
+  public List<Locale> getLocales() {
+    return locales;
+  }
+
+  private int slot(Locale locale) {
+    if (locale == null) {
+      return DEFAULT_SLOT;
+    }
+    // parseLocaleが返す定数ロケールは参照比較で解決する
+    for (int i = 0; i < locales.size(); i++) {
+      if (locales.get(i) == locale) {
+        return i;
+      }
+    }
+    String language = locale.getLanguage();
+    for (int i = 0; i < locales.size(); i++) {
+      if (locales.get(i).getLanguage().equals(language)) {
+        return i;
+      }
+    }
+    return DEFAULT_SLOT;
+  }
+}
@@ -5,20 +5,42 @@
 
 package com.example.service;
 
+import com.example.jfr.MessageLookupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.core.HttpHeaders;
+import java.util.List;
 import java.util.Locale;
-import java.util.ResourceBundle;
 import org.jboss.logging.Logger;
 
-/** 国際化メッセージサービス Accept-Languageヘッダーに基づいて適切な言語のメッセージを返す */
+/**
+ * 国際化メッセージサービス Accept-Languageヘッダーに基づいて適切な言語のメッセージを返す
+ *
+ * <p>メッセージは起動時に{@link MessageCatalog}へコンパイル済みで、参照時にリソースバンドルの解決や例外処理は発生しない。
+ */
 @ApplicationScoped
 public class MessageService {
 
   private static final Logger LOG = Logger.getLogger(MessageService.class);
 
   private static final String BUNDLE_NAME = "messages";
-  private static final Locale DEFAULT_LOCALE = Locale.ENGLISH;
+
+  /** デフォルトロケール */
+  public static final Locale DEFAULT_LOCALE = Locale.ENGLISH;
+
+  /** {@link #parseLocale}が返しうるロケール一覧 */
+  public static final List<Locale> SUPPORTED_LOCALES =
+      List.of(Locale.JAPANESE, Locale.ENGLISH, Locale.CHINESE);
+
+  /** Accept-Language解析結果をキャッシュするヘッダー値の最大件数 */
+  private static final int LOCALE_CACHE_SIZE = 1024;
+
+  /** クラスロード時に一度だけ生成（CDIプロキシ生成時の重複初期化を避ける） */
+  private static final class Holder {
+    static final MessageCatalog CATALOG =
+        MessageCatalog.compile(BUNDLE_NAME, DEFAULT_LOCALE, SUPPORTED_LOCALES);
+    static final AcceptLanguageParser PARSER =
+        new AcceptLanguageParser(DEFAULT_LOCALE, SUPPORTED_LOCALES, LOCALE_CACHE_SIZE);
+  }
 
   /**
    * メッセージキーに対応するローカライズされたメッセージを取得
@@ -28,20 +50,16 @@ public class MessageService {
    * @return ローカライズされたメッセージ
    */
   public String getMessage(String key, Locale locale) {
-    try {
-      ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE_NAME, locale);
-      return bundle.getString(key);
-    } catch (Exception e) {
-      LOG.warn("メッセージが見つかりません: key=" + key + ", locale=" + locale);
-      // フォールバックとしてデフォルトロケールを試す
-      try {
-        ResourceBundle defaultBundle = ResourceBundle.getBundle(BUNDLE_NAME, DEFAULT_LOCALE);
-        return defaultBundle.getString(key);
-      } catch (Exception ex) {
-        LOG.error("デフォルトメッセージも見つかりません: key=" + key, ex);
-        return key; // キー自体を返す
-      }
+    MessageLookupEvent event = new MessageLookupEvent(key, locale);
+    event.begin();
+    String message = Holder.CATALOG.get(key, locale);
+    if (message == null) {
+      LOG.warnf("メッセージが見つかりません: key=%s, locale=%s", key, locale);
+      event.finish(MessageLookupEvent.MISSING);
+      return key; // キー自体を返す
     }
+    event.finish(MessageLookupEvent.HIT);
+    return message;
   }
 
   /**
@@ -57,41 +75,13 @@ public class MessageService {
   /**
    * Accept-Languageヘッダーからロケールを解析
    *
+   * <p>q値の高い順に対応言語（ja/en/zh）を探し、見つからない場合はデフォルトロケールを返す。
+   *
    * @param acceptLanguage Accept-Languageヘッダーの値
    * @return 解析されたロケール
    */
   public Locale parseLocale(String acceptLanguage) {
-    if (acceptLanguage == null || acceptLanguage.trim().isEmpty()) {
-      return DEFAULT_LOCALE;
-    }
-
-    // Accept-Languageヘッダーの最初の言語を使用
-    String[] languages = acceptLanguage.split(",");
-    if (languages.length > 0) {
-      String primaryLanguage = languages[0].trim();
-      // q値を除去
-      if (primaryLanguage.contains(";")) {
-        primaryLanguage = primaryLanguage.split(";")[0].trim();
-      }
-
-      // サポートされている言語かチェック
-      switch (primaryLanguage.toLowerCase()) {
-        case "ja":
-        case "ja-jp":
-          return Locale.JAPANESE;
-        case "zh":
-        case "zh-cn":
-        case "zh-hans":
-          return Locale.CHINESE;
-        case "en":
-        case "en-us":
-        case "en-gb":
-        default:
-          return Locale.ENGLISH;
-      }
-    }
-
-    return DEFAULT_LOCALE;
+    return Holder.PARSER.resolve(acceptLanguage);
   }
 
   /**
@@ -109,4 +99,9 @@ public class MessageService {
     }
     return getMessage(key);
   }
+
+  /** コンパイル済みカタログ */
+  public MessageCatalog getCatalog() {
+    return Holder.CATALOG;
+  }
 }
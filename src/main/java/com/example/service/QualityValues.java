@@ -0,0 +1,87 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.service;
+
+/**
+ * q値（RFC 9110 §12.4.2）の解析
+ *
+ * <p>Accept-Language・Accept-Encodingなど重み付きリストのヘッダーで共通に使う。q値は千分率の整数で扱い、文字列を分割せずに範囲指定で解析する。
+ */
+public final class QualityValues {
+
+  /** q=1 */
+  public static final int MAX = 1000;
+
+  private QualityValues() {}
+
+  /**
+   * 要素のパラメータ部からq値を取得
+   *
+   * @param header ヘッダーの値
+   * @param from パラメータ部の開始位置（最初の{@code ;}の次）
+   * @param to 要素の終了位置（{@code ,}またはヘッダー末尾）
+   * @return q値の千分率（q指定なしは{@link #MAX}、不正値は0）
+   */
+  public static int parse(String header, int from, int to) {
+    int pos = from;
+    while (pos < to) {
+      int paramEnd = header.indexOf(';', pos);
+      if (paramEnd < 0 || paramEnd > to) {
+        paramEnd = to;
+      }
+      int nameStart = skipWhitespace(header, pos, paramEnd);
+      if (paramEnd - nameStart >= 2
+          && (header.charAt(nameStart) == 'q' || header.charAt(nameStart) == 'Q')
+          && header.charAt(nameStart + 1) == '=') {
+        return parseValue(header, nameStart + 2, trimWhitespace(header, nameStart + 2, paramEnd));
+      }
+      pos = paramEnd + 1;
+    }
+    return MAX;
+  }
+
+  private static int parseValue(String header, int start, int end) {
+    if (start >= end) {
+      return 0;
+    }
+    char first = header.charAt(start);
+    if (first != '0' && first != '1') {
+      return 0;
+    }
+    int value = (first - '0') * MAX;
+    if (start + 1 < end) {
+      if (header.charAt(start + 1) != '.' || end - (start + 2) > 3) {
+        return 0;
+      }
+      int scale = 100;
+      for (int i = start + 2; i < end; i++) {
+        char c = header.charAt(i);
+        if (c < '0' || c > '9') {
+          return 0;
+        }
+        value += (c - '0') * scale;
+        scale /= 10;
+      }
+    }
+    return Math.min(value, MAX);
+  }
+
+  /** 先頭の空白を読み飛ばした位置 */
+  public static int skipWhitespace(String s, int from, int to) {
+    while (from < to && (s.charAt(from) == ' ' || s.charAt(from) == '\t')) {
+      from++;
+    }
+    return from;
+  }
+
+  /** 末尾の空白を除いた終了位置 */
+  public static int trimWhitespace(String s, int from, int to) {
+    while (to > from && (s.charAt(to - 1) == ' ' || s.charAt(to - 1) == '\t')) {
+      to--;
+    }
+    return to;
+  }
+}
@@ -10,11 +10,15 @@ import java.util.Optional;
 import org.jboss.logging.Logger;
 
 import com.example.dto.RegisterRequest;
+import com.example.event.UserChangedEvent;
+import com.example.jfr.AppEvent;
+import com.example.jfr.PasswordHashEvent;
 import com.example.mapper.UserMapper;
 import com.example.model.User;
 
 import io.quarkus.elytron.security.common.BcryptUtil;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.core.HttpHeaders;
@@ -28,6 +32,8 @@ public class UserService {
 
   @Inject UserMapper userMapper;
 
+  @Inject Event<UserChangedEvent> userChangedEvent;
+
   @Transactional
   public User register(RegisterRequest request, HttpHeaders headers) {
     LOG.infof("User registration started: username=%s, email=%s", request.username, request.email);
@@ -43,12 +49,13 @@ public class UserService {
     // ユーザー作成
     User user = new User();
     user.setUsername(request.username);
-    user.setPassword(BcryptUtil.bcryptHash(request.password));
+    user.setPassword(hash(request.password));
     user.setEmail(request.email);
     user.setRole(request.role);
 
     LOG.debugf("Starting database insertion: username=%s", request.username);
     userMapper.insert(user);
+    userChangedEvent.fire(new UserChangedEvent(user.getId(), UserChangedEvent.Type.CREATED));
 
     LOG.infof("User registration successful: userId=%d, username=%s", user.getId(), user.getUsername());
     return user;
@@ -63,10 +70,38 @@ public class UserService {
     Optional<User> userOpt = userMapper.findActiveByUsername(username);
     if (userOpt.isPresent()) {
       User user = userOpt.get();
-      if (BcryptUtil.matches(password, user.getPassword())) {
+      if (verify(password, user.getPassword())) {
         return Optional.of(user);
       }
     }
     return Optional.empty();
   }
+
+  /** パスワードをBCryptでハッシュ化（JFRイベントcom.example.PasswordHashを記録） */
+  private static String hash(String password) {
+    PasswordHashEvent event = new PasswordHashEvent(PasswordHashEvent.HASH);
+    event.begin();
+    try {
+      String hashed = BcryptUtil.bcryptHash(password);
+      event.finish("hashed");
+      return hashed;
+    } catch (RuntimeException e) {
+      event.finish(AppEvent.ERROR);
+      throw e;
+    }
+  }
+
+  /** パスワードをBCryptハッシュと照合（JFRイベントcom.example.PasswordHashを記録） */
+  private static boolean verify(String password, String hashed) {
+    PasswordHashEvent event = new PasswordHashEvent(PasswordHashEvent.VERIFY);
+    event.begin();
+    try {
+      boolean matches = BcryptUtil.matches(password, hashed);
+      event.finish(matches ? "match" : "mismatch");
+      return matches;
+    } catch (RuntimeException e) {
+      event.finish(AppEvent.ERROR);
+      throw e;
+    }
+  }
 }
@@ -0,0 +1,50 @@
+-- 初期ユーザーと初期監査ログ（H2、開発・テスト用）
+--
+-- 初期ユーザー:
+-- - admin/AdminPass123 (ADMIN)
+-- - sales/SalesPass123 (SALES)
+-- - user/UserPass123 (USER)
+-- - testuser/Password123 (USER) - テスト用
+-- - demouser/DemoPass123 (USER) - デモ用
+
+-- 管理者ユーザー作成
+-- パスワード: AdminPass123 (BCryptハッシュ化済み)
+MERGE INTO users (username, password, email, role, is_active)
+KEY(username) VALUES
+('admin', '$2a$10$xKMPj0.8AFMpQccsQGTVaup1iHSeEitp1jilIF.qsL3at8Ty.AwSK', 'admin@example.com', 'ADMIN', true);
+
+-- 営業ユーザー作成
+-- パスワード: SalesPass123 (BCryptハッシュ化済み)
+MERGE INTO users (username, password, email, role, is_active)
+KEY(username) VALUES
+('sales', '$2a$10$DjzPtjbl5VG3n8jsYMQrQuBUTi7Ft6MtL6JvuWm1CcCRslMsdvyhC', 'sales@example.com', 'SALES', true);
+
+-- 一般ユーザー作成
+-- パスワード: UserPass123 (BCryptハッシュ化済み)
+MERGE INTO users (username, password, email, role, is_active)
+KEY(username) VALUES
+('user', '$2a$10$9tXyp6YwMHpVwbgqo5wIv.G/Gz1XDlV9MAEShtV2AR/h5vJjn8TuO', 'user@example.com', 'USER', true);
+
+-- テストユーザー作成（開発・テスト用）
+-- パスワード: Password123 (BCryptハッシュ化済み)
+MERGE INTO users (username, password, email, role, is_active)
+KEY(username) VALUES
+('testuser', '$2a$10$N9qo8uLOickgx2ZMRZoMye.Uo0qQZpVy6KI1TK.rS.8xO2T6.S.S2', 'test@example.com', 'USER', true);
+
+-- デモユーザー作成（画面テスト用）
+-- パスワード: DemoPass123 (BCryptハッシュ化済み)
+MERGE INTO users (username, password, email, role, is_active)
+KEY(username) VALUES
+('demouser', '$2a$10$N9qo8uLOickgx2ZMRZoMye.Uo0qQZpVy6KI1TK.rS.8xO2T6.S.S2', 'demo@example.com', 'USER', true);
+
+-- システム初期化ログ
+INSERT INTO audit_logs (user_id, username, action, resource_type, details, status) VALUES
+(1, 'admin', 'SYSTEM_INIT', 'SYSTEM', 'システム初期化完了', 'SUCCESS');
+
+-- ユーザー作成ログ
+INSERT INTO audit_logs (user_id, username, action, resource_type, resource_id, details, status) VALUES
+(1, 'admin', 'USER_CREATE', 'USER', '1', '管理者ユーザー作成', 'SUCCESS'),
+(1, 'admin', 'USER_CREATE', 'USER', '2', '営業ユーザー作成', 'SUCCESS'),
+(1, 'admin', 'USER_CREATE', 'USER', '3', '一般ユーザー作成', 'SUCCESS'),
+(1, 'admin', 'USER_CREATE', 'USER', '4', 'テストユーザー作成', 'SUCCESS'),
+(1, 'admin', 'USER_CREATE', 'USER', '5', 'デモユーザー作成', 'SUCCESS');
@@ -0,0 +1,5 @@
+-- インスタンス間のキャッシュ無効化の版（CacheInvalidationBus）
+CREATE TABLE IF NOT EXISTS cache_invalidation_version (
+    region VARCHAR(64) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
@@ -0,0 +1,97 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.service.AcceptLanguageParser;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+/** Accept-Languageヘッダー解析の単体テスト */
+class AcceptLanguageParserTest {
+
+  private static final List<Locale> SUPPORTED =
+      List.of(Locale.JAPANESE, Locale.ENGLISH, Locale.CHINESE);
+
+  private final AcceptLanguageParser parser =
+      new AcceptLanguageParser(Locale.ENGLISH, SUPPORTED, 64);
+
+  @Test
+  void testMissingHeaderUsesDefault() {
+    assertEquals(Locale.ENGLISH, parser.resolve(null));
+    assertEquals(Locale.ENGLISH, parser.resolve(""));
+  }
+
+  @Test
+  void testHighestQualityWins() {
+    assertEquals(Locale.JAPANESE, parser.parse("ja"));
+    assertEquals(Locale.ENGLISH, parser.parse("en-US,en;q=0.9"));
+    assertEquals(Locale.JAPANESE, parser.parse("fr;q=1, zh;q=0.5, ja;q=0.8"));
+    assertEquals(Locale.CHINESE, parser.parse(" ja ; q=0.7 , zh ; q=0.8"));
+  }
+
+  @Test
+  void testEqualQualityPrefersFirstRange() {
+    assertEquals(Locale.CHINESE, parser.parse("zh;q=0.5, ja;q=0.5"));
+    assertEquals(Locale.JAPANESE, parser.parse("ja, zh"));
+  }
+
+  @Test
+  void testRegionAndScriptFallBackToLanguage() {
+    assertEquals(Locale.CHINESE, parser.parse("zh-Hant-TW"));
+    assertEquals(Locale.JAPANESE, parser.parse("ja_JP"));
+    assertEquals(Locale.JAPANESE, parser.parse("JA-jp"));
+  }
+
+  @Test
+  void testWildcardUsesDefault() {
+    assertEquals(Locale.ENGLISH, parser.parse("*"));
+    assertEquals(Locale.ENGLISH, parser.parse("fr, *;q=0.1"));
+    assertEquals(Locale.JAPANESE, parser.parse("*;q=0.1, ja;q=0.5"));
+  }
+
+  @Test
+  void testZeroQualityIsNotAcceptable() {
+    assertEquals(Locale.CHINESE, parser.parse("ja;q=0, zh;q=0.1"));
+    assertEquals(Locale.ENGLISH, parser.parse("ja;q=0"));
+    assertEquals(Locale.ENGLISH, parser.parse("ja;q=0.000"));
+  }
+
+  @Test
+  void testUnsupportedLanguagesUseDefault() {
+    assertEquals(Locale.ENGLISH, parser.parse("de-DE, fr"));
+  }
+
+  @Test
+  void testMalformedInput() {
+    // 不正なq値はq=0（受け入れ不可）として扱う
+    assertEquals(Locale.CHINESE, parser.parse("ja;q=abc, zh;q=0.5"));
+    assertEquals(Locale.CHINESE, parser.parse("ja;q=0.1234, zh;q=0.2"));
+    assertEquals(Locale.CHINESE, parser.parse("ja;q=, zh;q=0.2"));
+    assertEquals(Locale.ENGLISH, parser.parse(";;;,,,"));
+    assertEquals(Locale.ENGLISH, parser.parse(" , ;q=1"));
+    assertEquals(Locale.JAPANESE, parser.parse(",,ja;;"));
+  }
+
+  @Test
+  void testCacheStaysBoundedUnderJunkHeaders() {
+    for (int i = 0; i < 10_000; i++) {
+      assertEquals(Locale.ENGLISH, parser.resolve("x-junk-" + i));
+      assertEquals(Locale.JAPANESE, parser.resolve("ja-JP,ja;q=0.9"));
+    }
+    assertTrue(parser.cacheSize() <= 64, "cache size: " + parser.cacheSize());
+  }
+
+  @Test
+  void testZeroCacheSizeDisablesCaching() {
+    AcceptLanguageParser uncached = new AcceptLanguageParser(Locale.ENGLISH, SUPPORTED, 0);
+    assertEquals(Locale.JAPANESE, uncached.resolve("ja"));
+    assertEquals(0, uncached.cacheSize());
+  }
+}
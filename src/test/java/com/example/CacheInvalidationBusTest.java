@@ -0,0 +1,142 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.cache.CacheInvalidationBus;
+import com.example.mapper.UserMapper;
+import com.example.model.User;
+import com.example.mybatis.MapperCaches;
+import com.example.mybatis.WeightedLruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** キャッシュ無効化のテスト（H2のためインスタンス内の配信。他のインスタンスからの通知は受信処理を直接呼んで再現する） */
+@QuarkusTest
+@TestProfile(CacheInvalidationBusTest.TestProfile.class)
+class CacheInvalidationBusTest {
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "");
+    }
+  }
+
+  @Inject CacheInvalidationBus bus;
+
+  @Inject UserMapper userMapper;
+
+  @Inject MapperCaches caches;
+
+  @Inject MeterRegistry registry;
+
+  @Test
+  void testUserMapperWritesPublishUsers() {
+    assertFalse(bus.isCluster());
+    User admin = userMapper.findByUsername("admin").orElseThrow();
+    long version = bus.version(CacheInvalidationBus.USERS);
+
+    userMapper.update(admin);
+    assertEquals(version + 1, bus.version(CacheInvalidationBus.USERS));
+
+    // 同じトランザクションの複数の更新はコミット後に1回だけ発行する
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              userMapper.update(admin);
+              userMapper.update(admin);
+              assertEquals(version + 1, bus.version(CacheInvalidationBus.USERS));
+            });
+    assertEquals(version + 2, bus.version(CacheInvalidationBus.USERS));
+
+    // ロールバックした変更は発行しない
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              userMapper.update(admin);
+              QuarkusTransaction.setRollbackOnly();
+            });
+    assertEquals(version + 2, bus.version(CacheInvalidationBus.USERS));
+  }
+
+  @Test
+  void testRemoteNotificationClearsUserCache() {
+    WeightedLruCache cache = caches.of(UserMapper.class).orElseThrow();
+    User admin = userMapper.findByUsername("admin").orElseThrow();
+    userMapper.findById(admin.getId());
+    assertTrue(cache.getSize() > 0);
+    double received = received("notify");
+
+    long next = bus.version(CacheInvalidationBus.USERS) + 1;
+    bus.handle(CacheInvalidationBus.USERS + ":" + next + ":other-node");
+
+    assertEquals(0, cache.getSize());
+    assertEquals(next, bus.version(CacheInvalidationBus.USERS));
+    assertEquals(received + 1, received("notify"));
+  }
+
+  @Test
+  void testOutOfOrderRemoteNotificationStillClearsUserCache() {
+    WeightedLruCache cache = caches.of(UserMapper.class).orElseThrow();
+    User admin = userMapper.findByUsername("admin").orElseThrow();
+    // 自インスタンスの発行で版が進んだ後に、それより前の版の他のインスタンスの通知が届いた
+    userMapper.update(admin);
+    long version = bus.version(CacheInvalidationBus.USERS);
+    userMapper.findById(admin.getId());
+    assertTrue(cache.getSize() > 0);
+
+    bus.handle(CacheInvalidationBus.USERS + ":" + version + ":other-node");
+    assertEquals(0, cache.getSize());
+
+    userMapper.findById(admin.getId());
+    bus.handle(CacheInvalidationBus.USERS + ":1:other-node");
+    assertEquals(0, cache.getSize());
+    assertEquals(version, bus.version(CacheInvalidationBus.USERS));
+  }
+
+  @Test
+  void testOwnAndMalformedNotificationsAreIgnored() {
+    WeightedLruCache cache = caches.of(UserMapper.class).orElseThrow();
+    User admin = userMapper.findByUsername("admin").orElseThrow();
+    userMapper.findById(admin.getId());
+    double received = received("notify");
+
+    // 自インスタンスの通知（コミット後に配信済み）
+    long next = bus.version(CacheInvalidationBus.USERS) + 1;
+    bus.handle(CacheInvalidationBus.USERS + ":" + next + ":" + bus.getNodeId());
+    bus.handle("malformed");
+    bus.handle(CacheInvalidationBus.USERS + ":x:other-node");
+    bus.handle("users table:1:other-node");
+
+    assertTrue(cache.getSize() > 0);
+    assertEquals(received, received("notify"));
+  }
+
+  private double received(String source) {
+    return registry
+        .find(CacheInvalidationBus.RECEIVED_NAME)
+        .tags("region", CacheInvalidationBus.USERS, "source", source)
+        .counters()
+        .stream()
+        .mapToDouble(counter -> counter.count())
+        .sum();
+  }
+}
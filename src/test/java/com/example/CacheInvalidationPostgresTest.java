@@ -0,0 +1,272 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.cache.CacheInvalidationBus;
+import com.example.mapper.UserMapper;
+import com.example.model.User;
+import com.example.mybatis.MapperCaches;
+import com.example.mybatis.WeightedLruCache;
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * PostgreSQLのLISTEN/NOTIFYによるキャッシュ無効化のテスト（Dev ServicesでPostgreSQLのコンテナを起動する）
+ *
+ * <p>Dockerが必要なため、{@code -Ppostgresql-test}（{@code test.postgresql=true}）を指定した場合のみ実行する。
+ * 他のインスタンスはテストの接続で再現する。
+ */
+@QuarkusTest
+@TestProfile(CacheInvalidationPostgresTest.TestProfile.class)
+@EnabledIfSystemProperty(named = "test.postgresql", matches = "true")
+class CacheInvalidationPostgresTest {
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // 接続先を指定しないことでDev Servicesが起動する
+      return Map.of(
+          "quarkus.datasource.db-kind", "postgresql",
+          "app.cache.invalidation.reconnect-delay", "2s",
+          "app.cache.invalidation.check-interval", "1s");
+    }
+  }
+
+  private static final String CHANNEL = "app_cache_invalidation";
+
+  @Inject CacheInvalidationBus bus;
+
+  @Inject UserMapper userMapper;
+
+  @Inject MapperCaches caches;
+
+  @Inject AgroalDataSource dataSource;
+
+  @Inject MeterRegistry registry;
+
+  /** 他のインスタンスとして通知を受け取る接続 */
+  private Connection listener;
+
+  @BeforeEach
+  void listen() throws SQLException {
+    assertTrue(bus.isCluster());
+    await(bus::isConnected, "LISTENの接続");
+    listener = dataSource.getConnection();
+    try (Statement statement = listener.createStatement()) {
+      statement.execute("LISTEN " + CHANNEL);
+    }
+    // プールから借りた接続に前のテストの通知が残っていれば捨てる
+    listener.unwrap(PGConnection.class).getNotifications();
+  }
+
+  @AfterEach
+  void unlisten() throws SQLException {
+    try (Statement statement = listener.createStatement()) {
+      statement.execute("UNLISTEN *");
+    }
+    listener.close();
+  }
+
+  @Test
+  void testCommittedUpdateNotifiesWithTransaction() throws SQLException {
+    User admin = userMapper.findByUsername("admin").orElseThrow();
+    long version = tableVersion();
+
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              userMapper.update(admin);
+              userMapper.update(admin);
+            });
+
+    // 同じトランザクションの更新は版を1つだけ進め、コミットと同時に1回だけ通知する
+    assertEquals(version + 1, tableVersion());
+    assertEquals(
+        List.of(CacheInvalidationBus.USERS + ":" + (version + 1) + ":" + bus.getNodeId()),
+        notifications(1));
+    assertEquals(version + 1, bus.version(CacheInvalidationBus.USERS));
+  }
+
+  @Test
+  void testRolledBackUpdateDoesNotNotify() throws SQLException {
+    User admin = userMapper.findByUsername("admin").orElseThrow();
+    long version = tableVersion();
+
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              userMapper.update(admin);
+              QuarkusTransaction.setRollbackOnly();
+            });
+
+    assertEquals(version, tableVersion());
+    assertEquals(List.of(), notifications(0));
+  }
+
+  @Test
+  void testFailedNotifyDoesNotRollBackTheChange() throws SQLException {
+    User admin = userMapper.findByUsername("admin").orElseThrow();
+    String email = admin.getEmail();
+    double errors = published("error");
+
+    // 版の表を一時的に参照できなくして、通知の文を失敗させる
+    try (Statement statement = listener.createStatement()) {
+      statement.execute(
+          "ALTER TABLE cache_invalidation_version RENAME TO cache_invalidation_hidden");
+    }
+    try {
+      admin.setEmail("notify-failure@example.com");
+      QuarkusTransaction.requiringNew().run(() -> userMapper.update(admin));
+    } finally {
+      try (Statement statement = listener.createStatement()) {
+        statement.execute(
+            "ALTER TABLE cache_invalidation_hidden RENAME TO cache_invalidation_version");
+      }
+    }
+
+    assertEquals(
+        "notify-failure@example.com",
+        userMapper.findByUsername("admin").orElseThrow().getEmail());
+    assertEquals(errors + 1, published("error"));
+    assertEquals(List.of(), notifications(0));
+
+    admin.setEmail(email);
+    QuarkusTransaction.requiringNew().run(() -> userMapper.update(admin));
+  }
+
+  @Test
+  void testPeerNotificationClearsCacheRegardlessOfVersion() throws SQLException {
+    WeightedLruCache cache = caches.of(UserMapper.class).orElseThrow();
+    User admin = userMapper.findByUsername("admin").orElseThrow();
+    QuarkusTransaction.requiringNew().run(() -> userMapper.update(admin));
+    userMapper.findById(admin.getId());
+    assertTrue(cache.getSize() > 0);
+    double received = received("notify");
+
+    // 自インスタンスの版より古い版の通知も反映する
+    try (PreparedStatement statement = listener.prepareStatement("SELECT pg_notify(?, ?)")) {
+      statement.setString(1, CHANNEL);
+      statement.setString(2, CacheInvalidationBus.USERS + ":1:other-node");
+      statement.execute();
+    }
+
+    await(() -> cache.getSize() == 0, "他のインスタンスの通知によるキャッシュの消去");
+    assertEquals(received + 1, received("notify"));
+  }
+
+  @Test
+  void testReconnectCatchesUpMissedInvalidations() throws SQLException {
+    WeightedLruCache cache = caches.of(UserMapper.class).orElseThrow();
+    User admin = userMapper.findByUsername("admin").orElseThrow();
+    QuarkusTransaction.requiringNew().run(() -> userMapper.update(admin));
+    userMapper.findById(admin.getId());
+    assertTrue(cache.getSize() > 0);
+    double received = received("catch-up");
+
+    // LISTENの接続を切断し、再接続までの間に他のインスタンスが通知なしで版を進めた
+    try (Statement statement = listener.createStatement()) {
+      statement.execute(
+          "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = '"
+              + CacheInvalidationBus.LISTENER_APPLICATION_NAME
+              + "'");
+      statement.executeUpdate(
+          "UPDATE cache_invalidation_version SET version = version + 1 WHERE region = '"
+              + CacheInvalidationBus.USERS
+              + "'");
+    }
+
+    await(() -> cache.getSize() == 0, "再接続後の版の確認によるキャッシュの消去");
+    await(bus::isConnected, "LISTENの再接続");
+    assertEquals(received + 1, received("catch-up"));
+  }
+
+  private long tableVersion() throws SQLException {
+    try (PreparedStatement statement =
+        listener.prepareStatement(
+            "SELECT version FROM cache_invalidation_version WHERE region = ?")) {
+      statement.setString(1, CacheInvalidationBus.USERS);
+      try (ResultSet rs = statement.executeQuery()) {
+        return rs.next() ? rs.getLong(1) : 0;
+      }
+    }
+  }
+
+  /** 通知を受け取る（期待する件数を受け取るか、なければ2秒待って打ち切る） */
+  private List<String> notifications(int expected) throws SQLException {
+    PGConnection pg = listener.unwrap(PGConnection.class);
+    List<String> payloads = new ArrayList<>();
+    long deadline = System.nanoTime() + 2_000_000_000L;
+    while (System.nanoTime() < deadline && (expected == 0 || payloads.size() < expected)) {
+      PGNotification[] received = pg.getNotifications(200);
+      if (received != null) {
+        for (PGNotification notification : received) {
+          payloads.add(notification.getParameter());
+        }
+      }
+    }
+    assertNull(pg.getNotifications(200), "余分な通知");
+    return payloads;
+  }
+
+  private double published(String result) {
+    return registry
+        .find(CacheInvalidationBus.PUBLISHED_NAME)
+        .tags("region", CacheInvalidationBus.USERS, "result", result)
+        .counters()
+        .stream()
+        .mapToDouble(counter -> counter.count())
+        .sum();
+  }
+
+  private double received(String source) {
+    return registry
+        .find(CacheInvalidationBus.RECEIVED_NAME)
+        .tags("region", CacheInvalidationBus.USERS, "source", source)
+        .counters()
+        .stream()
+        .mapToDouble(counter -> counter.count())
+        .sum();
+  }
+
+  private static void await(BooleanSupplier condition, String description) {
+    long deadline = System.nanoTime() + 15_000_000_000L;
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) {
+        throw new AssertionError("15秒以内に満たされませんでした: " + description);
+      }
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new AssertionError(e);
+      }
+    }
+  }
+}
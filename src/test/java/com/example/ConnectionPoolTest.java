@@ -0,0 +1,162 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.health.DatabaseProbe;
+import com.example.mapper.AuditLogMapper;
+import com.example.mapper.UserMapper;
+import com.example.model.AuditLog;
+import com.example.mybatis.ConnectionPoolRouter;
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** ワークロード別の接続プールのテスト（同じH2に接続する1接続ずつのaudit・analyticsプール） */
+@QuarkusTest
+@TestProfile(ConnectionPoolTest.TestProfile.class)
+class ConnectionPoolTest {
+
+  private static final String URL = "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.ofEntries(
+          Map.entry("quarkus.datasource.db-kind", "h2"),
+          Map.entry("quarkus.datasource.jdbc.url", URL),
+          Map.entry("quarkus.datasource.username", "sa"),
+          Map.entry("quarkus.datasource.password", ""),
+          Map.entry("quarkus.datasource.audit.db-kind", "h2"),
+          Map.entry("quarkus.datasource.audit.jdbc.url", URL),
+          Map.entry("quarkus.datasource.audit.username", "sa"),
+          Map.entry("quarkus.datasource.audit.jdbc.max-size", "1"),
+          Map.entry("quarkus.datasource.analytics.db-kind", "h2"),
+          Map.entry("quarkus.datasource.analytics.jdbc.url", URL),
+          Map.entry("quarkus.datasource.analytics.username", "sa"),
+          Map.entry("quarkus.datasource.analytics.jdbc.max-size", "1"),
+          Map.entry("quarkus.datasource.analytics.jdbc.acquisition-timeout", "1s"));
+    }
+  }
+
+  @Inject MeterRegistry registry;
+
+  @Inject DatabaseProbe databaseProbe;
+
+  @Inject UserMapper userMapper;
+
+  @Inject AuditLogMapper auditLogMapper;
+
+  // プールを定義しない他のテストプロファイルでも起動できるように、Instanceで参照する
+  @Inject
+  @DataSource("analytics")
+  Instance<AgroalDataSource> analytics;
+
+  @Test
+  void testAuditWritesUseAuditPool() {
+    long before = acquired("audit");
+    token("user", "UserPass123");
+    assertTrue(acquired("audit") > before, "監査ログがauditプールを使っていません");
+  }
+
+  @Test
+  void testTransactionUsesDefaultPoolOnly() {
+    long audit = acquired("audit");
+    long analytics = acquired("analytics");
+    long primary = acquired(ConnectionPoolRouter.DEFAULT_POOL);
+
+    // 既定のプールとaudit・analyticsの指定があるステートメントを1つのトランザクションで実行する
+    // （プールを切り替えると2つの非XAデータソースがトランザクションに参加してコミットできない）
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              userMapper.findByUsername("admin").orElseThrow();
+              auditLogMapper.insert(new AuditLog(1L, "admin", "POOL_TX_TEST"));
+              userMapper.countGroupByRoleAndActive();
+            });
+
+    assertEquals(audit, acquired("audit"));
+    assertEquals(analytics, acquired("analytics"));
+    assertTrue(acquired(ConnectionPoolRouter.DEFAULT_POOL) > primary);
+  }
+
+  @Test
+  void testExhaustedAnalyticsPoolDoesNotBlockLogin() throws Exception {
+    String token = token("admin", "AdminPass123");
+    double rejected = rejected("analytics");
+
+    try (Connection held = analytics.get().getConnection()) {
+      given()
+          .header("Authorization", "Bearer " + token)
+          .when()
+          .get("/api/dashboard/activity")
+          .then()
+          .statusCode(503)
+          .header("Retry-After", equalTo("1"))
+          .body("errorCode", equalTo("SERVICE_BUSY"));
+
+      // 認証は既定のプール、監査ログはauditプールを使うため影響を受けない
+      token("user", "UserPass123");
+    }
+    assertEquals(rejected + 1, rejected("analytics"));
+
+    given()
+        .header("Authorization", "Bearer " + token)
+        .when()
+        .get("/api/dashboard/activity")
+        .then()
+        .statusCode(200);
+  }
+
+  @Test
+  void testHealthCheckProbesNamedPools() {
+    // 他のテストでプールを占有していた間の結果を残さないよう、最新の状態をプローブしてから確認する
+    databaseProbe.probe();
+    String data = "checks.find { it.name == 'Database connection' }.data.";
+    given()
+        .when()
+        .get("/q/health/ready")
+        .then()
+        .statusCode(200)
+        .body(data + "'audit.status'", equalTo("UP"))
+        .body(data + "'audit.poolMaxSize'", equalTo(1))
+        .body(data + "'analytics.status'", equalTo("UP"));
+  }
+
+  private long acquired(String pool) {
+    return registry.get(ConnectionPoolRouter.ACQUIRE_NAME).tag("pool", pool).timer().count();
+  }
+
+  private double rejected(String pool) {
+    return registry.get(ConnectionPoolRouter.REJECTED_NAME).tag("pool", pool).counter().count();
+  }
+
+  private static String token(String username, String password) {
+    return given()
+        .contentType(ContentType.JSON)
+        .body("{\"username\": \"" + username + "\", \"password\": \"" + password + "\"}")
+        .when()
+        .post("/auth/login")
+        .then()
+        .statusCode(200)
+        .extract()
+        .path("token");
+  }
+}
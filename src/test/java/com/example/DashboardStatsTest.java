@@ -0,0 +1,146 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.service.DashboardStatsService;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+/** ダッシュボード統計スナップショットの条件付きGET・無効化テスト */
+@QuarkusTest
+@TestProfile(DashboardStatsTest.TestProfile.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class DashboardStatsTest {
+
+  private static String adminToken;
+
+  private static String etag;
+
+  @Inject DashboardStatsService dashboardStatsService;
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // 本番設定をベースとして、安全性のためだけにデータベースを変更
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "");
+    }
+  }
+
+  @BeforeEach
+  void login() {
+    if (adminToken == null) {
+      adminToken =
+          given()
+              .contentType(ContentType.JSON)
+              .body("{\"username\": \"admin\", \"password\": \"AdminPass123\"}")
+              .when()
+              .post("/auth/login")
+              .then()
+              .statusCode(200)
+              .extract()
+              .path("token");
+    }
+  }
+
+  @Test
+  @Order(1)
+  void testStatsCarryEtag() {
+    etag =
+        given()
+            .auth()
+            .oauth2(adminToken)
+            .when()
+            .get("/api/dashboard/stats")
+            .then()
+            .statusCode(200)
+            .header("ETag", notNullValue())
+            .header("Age", notNullValue())
+            .body("totalUsers", notNullValue())
+            .extract()
+            .header("ETag");
+  }
+
+  @Test
+  @Order(2)
+  void testRefreshWithoutChangesKeepsEtag() {
+    // 定期リフレッシュで件数が変わらなければETagは変わらず、304が返る
+    dashboardStatsService.refresh();
+    assertEquals(etag, dashboardStatsService.getSnapshot().adminView().getEtag());
+
+    given()
+        .auth()
+        .oauth2(adminToken)
+        .header("If-None-Match", etag)
+        .when()
+        .get("/api/dashboard/stats")
+        .then()
+        .statusCode(304)
+        .header("ETag", equalTo(etag));
+  }
+
+  @Test
+  @Order(3)
+  void testUserChangeInvalidatesSnapshot() {
+    int before =
+        given()
+            .auth()
+            .oauth2(adminToken)
+            .when()
+            .get("/api/dashboard/stats")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("totalUsers");
+
+    given()
+        .contentType(ContentType.JSON)
+        .body(
+            """
+                {
+                    "username": "statsuser",
+                    "password": "TestPass123",
+                    "email": "stats@example.com",
+                    "role": "USER"
+                }
+                """)
+        .when()
+        .post("/auth/register")
+        .then()
+        .statusCode(200);
+
+    // UserChangedEventで無効化され、次の取得で再集計される
+    given()
+        .auth()
+        .oauth2(adminToken)
+        .header("If-None-Match", etag)
+        .when()
+        .get("/api/dashboard/stats")
+        .then()
+        .statusCode(200)
+        .header("ETag", not(equalTo(etag)))
+        .body("totalUsers", equalTo(before + 1));
+  }
+}
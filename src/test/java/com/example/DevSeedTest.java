@@ -0,0 +1,147 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.config.SyntheticDataSeeder;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+
+/** 合成データ投入のテスト */
+@QuarkusTest
+@TestProfile(DevSeedTest.TestProfile.class)
+class DevSeedTest {
+
+  @Inject SyntheticDataSeeder seeder;
+
+  @Inject DataSource dataSource;
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // 本番設定をベースとして、安全性のためだけにデータベースを変更
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "",
+          "app.dev-seed.enabled", "true",
+          "app.dev-seed.batch-size", "100",
+          "app.dev-seed.threads", "2");
+    }
+  }
+
+  @Test
+  void testSeedDistribution() throws Exception {
+    SyntheticDataSeeder.Status status = seeder.seed(300, 3000, 7);
+
+    assertEquals(300, status.usersInserted());
+    assertEquals(3000, status.eventsInserted());
+    String like = status.prefix() + "%";
+    assertEquals(300, count("SELECT COUNT(*) FROM users WHERE username LIKE ?", like));
+    assertEquals(3000, count("SELECT COUNT(*) FROM audit_logs WHERE username LIKE ?", like));
+    assertTrue(count("SELECT COUNT(*) FROM users WHERE username LIKE ? AND role = 'ADMIN'", like) > 0);
+    assertTrue(
+        count("SELECT COUNT(*) FROM audit_logs WHERE username LIKE ? AND status = 'FAILURE'", like)
+            > 0);
+
+    // べき乗分布: 上位1%（ユーザー0〜2）のイベントが均等割り当て（1%）より十分多い
+    long top =
+        count(
+            "SELECT COUNT(*) FROM audit_logs WHERE username IN (?, ?, ?)",
+            status.prefix() + 0,
+            status.prefix() + 1,
+            status.prefix() + 2);
+    assertTrue(top > 300, "top users should receive about 20% of events but got " + top);
+
+    // 共通パスワードでログインできる
+    given()
+        .contentType(ContentType.JSON)
+        .body(
+            Map.of(
+                "username", status.prefix() + 0, "password", SyntheticDataSeeder.PASSWORD))
+        .when()
+        .post("/auth/login")
+        .then()
+        .statusCode(200);
+  }
+
+  @Test
+  void testSeedEndpointRequiresAdmin() {
+    given().when().post("/dev/seed?users=10&events=10").then().statusCode(401);
+  }
+
+  @Test
+  void testSeedEndpoint() throws Exception {
+    String token =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"username\": \"admin\", \"password\": \"AdminPass123\"}")
+            .when()
+            .post("/auth/login")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("token");
+
+    given()
+        .header("Authorization", "Bearer " + token)
+        .when()
+        .post("/dev/seed?users=0&events=10")
+        .then()
+        .statusCode(400);
+
+    given()
+        .header("Authorization", "Bearer " + token)
+        .when()
+        .post("/dev/seed?users=50&events=200")
+        .then()
+        .statusCode(202)
+        .body("state", equalTo("RUNNING"));
+
+    String state = "RUNNING";
+    for (int i = 0; i < 100 && "RUNNING".equals(state); i++) {
+      Thread.sleep(100);
+      state =
+          given()
+              .header("Authorization", "Bearer " + token)
+              .when()
+              .get("/dev/seed")
+              .then()
+              .statusCode(200)
+              .extract()
+              .path("state");
+    }
+    assertEquals("COMPLETED", state);
+  }
+
+  private long count(String sql, String... params) throws Exception {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (int i = 0; i < params.length; i++) {
+        statement.setString(i + 1, params[i]);
+      }
+      try (ResultSet rs = statement.executeQuery()) {
+        rs.next();
+        return rs.getLong(1);
+      }
+    }
+  }
+}
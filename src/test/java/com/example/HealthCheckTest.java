@@ -62,6 +62,8 @@ class HealthCheckTest {
         .then()
         .statusCode(200)
         .body("status", equalTo("UP"))
-        .body("checks.find { it.name == 'Database connection' }.status", equalTo("UP"));
+        .body("checks.find { it.name == 'Database connection' }.status", equalTo("UP"))
+        .body("checks.find { it.name == 'Database connection' }.data.poolMaxSize", notNullValue())
+        .body("checks.find { it.name == 'Database connection' }.data.checkedAt", notNullValue());
   }
 }
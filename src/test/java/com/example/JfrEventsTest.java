@@ -0,0 +1,106 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+/** アプリケーション独自のJFRイベントのテスト */
+@QuarkusTest
+@TestProfile(JfrEventsTest.TestProfile.class)
+class JfrEventsTest {
+
+  private static final String REQUEST_ID = "jfr-test-login";
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // 本番設定をベースとして、安全性のためだけにデータベースを変更
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "");
+    }
+  }
+
+  @Test
+  void testLoginEventsCarryRequestId() throws Exception {
+    Path file = Files.createTempFile("app-events", ".jfr");
+    List<RecordedEvent> events;
+    try (Recording recording =
+        new Recording(Configuration.create(Path.of("src/main/jfr/application.jfc")))) {
+      recording.start();
+      given()
+          .contentType(ContentType.JSON)
+          .header("X-Request-ID", REQUEST_ID)
+          .body("{\"username\": \"admin\", \"password\": \"AdminPass123\"}")
+          .when()
+          .post("/auth/login")
+          .then()
+          .statusCode(200);
+      recording.stop();
+      recording.dump(file);
+      events = RecordingFile.readAllEvents(file);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+
+    List<RecordedEvent> login =
+        events.stream()
+            .filter(event -> event.getEventType().getName().startsWith("com.example."))
+            .filter(event -> REQUEST_ID.equals(event.getString("requestId")))
+            .toList();
+    Set<String> types =
+        login.stream().map(event -> event.getEventType().getName()).collect(Collectors.toSet());
+    assertTrue(
+        types.containsAll(
+            Set.of(
+                "com.example.MapperCall",
+                "com.example.PasswordHash",
+                "com.example.TokenIssue",
+                "com.example.AuditWrite")),
+        "記録されたイベント: " + types);
+
+    RecordedEvent verify = first(login, "com.example.PasswordHash");
+    assertEquals("verify", verify.getString("operation"));
+    assertEquals("match", verify.getString("outcome"));
+    assertTrue(verify.getDuration().toNanos() > 0);
+
+    RecordedEvent query = first(login, "com.example.MapperCall");
+    assertEquals("UserMapper.findActiveByUsername", query.getString("operation"));
+    assertEquals(1, query.getLong("rows"));
+
+    RecordedEvent audit = first(login, "com.example.AuditWrite");
+    assertEquals("USER_LOGIN", audit.getString("action"));
+    assertEquals("written", audit.getString("outcome"));
+  }
+
+  private static RecordedEvent first(List<RecordedEvent> events, String type) {
+    return events.stream()
+        .filter(event -> event.getEventType().getName().equals(type))
+        .findFirst()
+        .orElseThrow();
+  }
+}
@@ -78,6 +78,33 @@ class MetricsTest {
         .get("/q/metrics")
         .then()
         .statusCode(200)
-        .body(containsString("http_server_requests"));
+        .body(containsString("http_server_requests"))
+        .body(containsString("app_mybatis_statement_seconds_count{"))
+        .body(containsString("statement=\"UserMapper.insert\""));
+  }
+
+  @Test
+  void testRouteLatencyMetrics() {
+    given()
+        .contentType("application/json")
+        .body("{\"username\": \"nosuchuser\", \"password\": \"WrongPass123\"}")
+        .when()
+        .post("/auth/login")
+        .then()
+        .statusCode(401);
+
+    // ルートテンプレート・ロール・ステータスクラス別のSLOバケットと、ルート別のパーセンタイルが出力される
+    given()
+        .when()
+        .get("/q/metrics")
+        .then()
+        .statusCode(200)
+        .body(containsString("app_http_route_seconds_bucket{"))
+        .body(containsString("le=\"0.25\""))
+        .body(containsString("route=\"/auth/login\""))
+        .body(containsString("role=\"anonymous\""))
+        .body(containsString("status=\"4xx\""))
+        .body(containsString("app_http_route_window_seconds{"))
+        .body(containsString("quantile=\"0.95\""));
   }
 }
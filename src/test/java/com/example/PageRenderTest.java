@@ -0,0 +1,105 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.specification.RequestSpecification;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** 描画済みページのコンテンツネゴシエーション・条件付きGETテスト */
+@QuarkusTest
+@TestProfile(PageRenderTest.TestProfile.class)
+class PageRenderTest {
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // 本番設定をベースとして、安全性のためだけにデータベースを変更
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "");
+    }
+  }
+
+  /** 本文を展開せず、Accept-Encodingも自動付与しないリクエスト */
+  private static RequestSpecification raw() {
+    return given()
+        .config(
+            RestAssured.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders()));
+  }
+
+  @Test
+  void testGzipVariant() {
+    raw()
+        .header("Accept-Encoding", "gzip, deflate, br")
+        .when()
+        .get("/login?lang=en")
+        .then()
+        .statusCode(200)
+        .header("Content-Encoding", equalTo("gzip"))
+        .header("ETag", endsWith("-gz\""))
+        .header("Vary", equalTo("Accept-Language, Accept-Encoding"));
+  }
+
+  @Test
+  void testIdentityVariant() {
+    for (String acceptEncoding : new String[] {"gzip;q=0", "*;q=0", "identity", "br"}) {
+      raw()
+          .header("Accept-Encoding", acceptEncoding)
+          .when()
+          .get("/login?lang=en")
+          .then()
+          .statusCode(200)
+          .header("Content-Encoding", nullValue())
+          .header("ETag", not(endsWith("-gz\"")));
+    }
+  }
+
+  @Test
+  void testIfNoneMatchReturnsNotModified() {
+    String etag =
+        raw()
+            .header("Accept-Encoding", "gzip")
+            .when()
+            .get("/login?lang=ja")
+            .then()
+            .statusCode(200)
+            .extract()
+            .header("ETag");
+
+    raw()
+        .header("Accept-Encoding", "gzip")
+        .header("If-None-Match", etag)
+        .when()
+        .get("/login?lang=ja")
+        .then()
+        .statusCode(304)
+        .header("ETag", equalTo(etag));
+
+    // 別のバリアント（非圧縮）のETagとは一致しない
+    raw()
+        .header("Accept-Encoding", "identity")
+        .header("If-None-Match", etag)
+        .when()
+        .get("/login?lang=ja")
+        .then()
+        .statusCode(200);
+  }
+}
@@ -0,0 +1,59 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.example.cache.PrecompressedPayload;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/** 圧縮済みバリアントの選択（Accept-Encodingのq値）の単体テスト */
+class PrecompressedPayloadTest {
+
+  private static final byte[] BODY =
+      ("<html><body>" + "compressible ".repeat(200) + "</body></html>")
+          .getBytes(StandardCharsets.UTF_8);
+
+  private final PrecompressedPayload payload = PrecompressedPayload.of(BODY, "text/html");
+
+  @Test
+  void testGzipVariantExists() {
+    assertNotNull(payload.getGzip());
+  }
+
+  @Test
+  void testGzipChosen() {
+    assertSame(payload.getGzip(), payload.select("gzip, deflate, br"));
+    assertSame(payload.getGzip(), payload.select("GZIP"));
+    assertSame(payload.getGzip(), payload.select("*"));
+    assertSame(payload.getGzip(), payload.select("*;q=0, gzip"));
+    assertSame(payload.getGzip(), payload.select("gzip;q=0.5"));
+    assertSame(payload.getGzip(), payload.select("gzip;q=1, identity;q=1"));
+    assertSame(payload.getGzip(), payload.select("identity;q=0.1, *"));
+  }
+
+  @Test
+  void testIdentityChosen() {
+    assertSame(payload.getIdentity(), payload.select(null));
+    assertSame(payload.getIdentity(), payload.select("gzip;q=0"));
+    assertSame(payload.getIdentity(), payload.select("gzip;q=0, *"));
+    assertSame(payload.getIdentity(), payload.select("*;q=0"));
+    assertSame(payload.getIdentity(), payload.select("identity"));
+    assertSame(payload.getIdentity(), payload.select("br"));
+    assertSame(payload.getIdentity(), payload.select("gzip;q=0.5, identity"));
+    assertSame(payload.getIdentity(), payload.select("gzip;q=abc"));
+  }
+
+  @Test
+  void testIncompressibleBodyHasNoGzipVariant() {
+    PrecompressedPayload tiny = PrecompressedPayload.of(new byte[] {1}, "text/plain");
+    assertNull(tiny.getGzip());
+    assertSame(tiny.getIdentity(), tiny.select("gzip"));
+  }
+}
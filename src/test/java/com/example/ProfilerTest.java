@@ -0,0 +1,149 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+/** オンデマンドプロファイラーAPIのテスト */
+@QuarkusTest
+@TestProfile(ProfilerTest.TestProfile.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ProfilerTest {
+
+  /** collapsed形式の1行（フレームを;で連結、空白の後に重み） */
+  private static final Pattern COLLAPSED_LINE = Pattern.compile("^\\S+ \\d+$");
+
+  private static String adminToken;
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // 本番設定をベースとして、安全性のためだけにデータベースを変更
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "",
+          "app.profiler.max-duration", "5s",
+          "app.profiler.cooldown", "10m");
+    }
+  }
+
+  // @BeforeAllはテストプロファイルのアプリケーション起動前に実行されるため、初回のテストで取得する
+  @BeforeEach
+  void login() {
+    if (adminToken == null) {
+      adminToken = token("admin", "AdminPass123");
+    }
+  }
+
+  @Test
+  @Order(1)
+  void testRequiresAdmin() {
+    given().when().post("/api/admin/profile?seconds=1").then().statusCode(401);
+    given()
+        .header("Authorization", "Bearer " + token("user", "UserPass123"))
+        .when()
+        .post("/api/admin/profile?seconds=1")
+        .then()
+        .statusCode(403);
+  }
+
+  @Test
+  @Order(2)
+  void testRejectsOverheadAboveLimits() {
+    given()
+        .header("Authorization", "Bearer " + adminToken)
+        .when()
+        .post("/api/admin/profile?seconds=6")
+        .then()
+        .statusCode(400);
+    given()
+        .header("Authorization", "Bearer " + adminToken)
+        .when()
+        .post("/api/admin/profile?seconds=1&intervalMs=1")
+        .then()
+        .statusCode(400);
+    given()
+        .header("Authorization", "Bearer " + adminToken)
+        .when()
+        .post("/api/admin/profile?mode=wall&seconds=1")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  @Order(3)
+  void testCpuProfileIsCollapsedStacks() throws InterruptedException {
+    // 記録中にCPUを使う処理（BCrypt）を実行しておく
+    Thread load =
+        new Thread(
+            () -> {
+              for (int i = 0; i < 5; i++) {
+                token("admin", "AdminPass123");
+              }
+            });
+    load.start();
+
+    String body =
+        given()
+            .header("Authorization", "Bearer " + adminToken)
+            .when()
+            .post("/api/admin/profile?mode=cpu&seconds=2")
+            .then()
+            .statusCode(200)
+            .contentType(ContentType.TEXT)
+            .header("X-Profile-Mode", equalTo("cpu"))
+            .header("X-Profile-Samples", notNullValue())
+            .extract()
+            .asString();
+    load.join();
+
+    assertTrue(body.lines().findAny().isPresent(), "サンプルが記録されていません");
+    body.lines()
+        .forEach(line -> assertTrue(COLLAPSED_LINE.matcher(line).matches(), "不正な行: " + line));
+  }
+
+  @Test
+  @Order(4)
+  void testCooldownAfterProfile() {
+    given()
+        .header("Authorization", "Bearer " + adminToken)
+        .when()
+        .post("/api/admin/profile?seconds=1")
+        .then()
+        .statusCode(429)
+        .header("Retry-After", notNullValue());
+  }
+
+  private static String token(String username, String password) {
+    return given()
+        .contentType(ContentType.JSON)
+        .body("{\"username\": \"" + username + "\", \"password\": \"" + password + "\"}")
+        .when()
+        .post("/auth/login")
+        .then()
+        .statusCode(200)
+        .extract()
+        .path("token");
+  }
+}
@@ -0,0 +1,71 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeMatcher;
+
+/**
+ * エンドポイントごとのDB往復回数の上限を検証するマッチャー
+ *
+ * <p>{@code Server-Timing}ヘッダーの{@code db}エントリ（{@code desc="N queries"}）から回数を読み取る。
+ *
+ * <pre>{@code
+ * given().when().get("/api/menu").then().header("Server-Timing", QueryBudget.atMost(1));
+ * }</pre>
+ */
+public final class QueryBudget extends TypeSafeMatcher<String> {
+
+  private static final Pattern DB_QUERIES = Pattern.compile("db;dur=[0-9.]+;desc=\"(\\d+) queries\"");
+
+  private final int max;
+
+  private QueryBudget(int max) {
+    this.max = max;
+  }
+
+  /**
+   * DB往復回数が上限以下であること
+   *
+   * @param max 許容する最大回数
+   * @return Server-Timingヘッダー値のマッチャー
+   */
+  public static QueryBudget atMost(int max) {
+    return new QueryBudget(max);
+  }
+
+  /**
+   * Server-TimingヘッダーからDB往復回数を取得
+   *
+   * @param serverTiming ヘッダー値
+   * @return 回数（dbエントリがない場合は-1）
+   */
+  public static int queries(String serverTiming) {
+    if (serverTiming == null) {
+      return -1;
+    }
+    Matcher matcher = DB_QUERIES.matcher(serverTiming);
+    return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+  }
+
+  @Override
+  protected boolean matchesSafely(String serverTiming) {
+    int queries = queries(serverTiming);
+    return queries >= 0 && queries <= max;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("Server-Timing with at most " + max + " DB queries");
+  }
+
+  @Override
+  protected void describeMismatchSafely(String serverTiming, Description description) {
+    description.appendText(queries(serverTiming) + " DB queries in ").appendValue(serverTiming);
+  }
+}
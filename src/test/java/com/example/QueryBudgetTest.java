@@ -0,0 +1,161 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasKey;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import java.util.Map;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+/** エンドポイント別のDB往復回数の上限テスト */
+@QuarkusTest
+@TestProfile(QueryBudgetTest.TestProfile.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class QueryBudgetTest {
+
+  private static final String SERVER_TIMING = "Server-Timing";
+
+  private static String token;
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // 本番設定をベースとして、安全性のためだけにデータベースを変更
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "");
+    }
+  }
+
+  @Test
+  @Order(1)
+  void testRegisterBudget() {
+    // 重複確認・ユーザー登録・監査ログ
+    given()
+        .contentType(ContentType.JSON)
+        .body(
+            """
+                {
+                    "username": "budgetuser",
+                    "password": "TestPass123",
+                    "email": "budget@example.com",
+                    "role": "USER"
+                }
+                """)
+        .when()
+        .post("/auth/register")
+        .then()
+        .statusCode(200)
+        .header(SERVER_TIMING, QueryBudget.atMost(3));
+  }
+
+  @Test
+  @Order(2)
+  void testLoginBudget() {
+    // ユーザー検索・監査ログ
+    token =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"username\": \"budgetuser\", \"password\": \"TestPass123\"}")
+            .when()
+            .post("/auth/login")
+            .then()
+            .statusCode(200)
+            .header(SERVER_TIMING, QueryBudget.atMost(2))
+            .extract()
+            .path("token");
+  }
+
+  @Test
+  @Order(3)
+  void testDashboardStatsBudget() {
+    // 登録直後の初回は同期的に再集計されるため、2回目はスナップショットのみ（DBアクセスなし）
+    given().auth().oauth2(token).when().get("/api/dashboard/stats").then().statusCode(200);
+    given()
+        .auth()
+        .oauth2(token)
+        .when()
+        .get("/api/dashboard/stats")
+        .then()
+        .statusCode(200)
+        .header(SERVER_TIMING, QueryBudget.atMost(0));
+  }
+
+  @Test
+  @Order(4)
+  void testDashboardActivityBudget() {
+    given()
+        .auth()
+        .oauth2(token)
+        .when()
+        .get("/api/dashboard/activity")
+        .then()
+        .statusCode(200)
+        .header(SERVER_TIMING, QueryBudget.atMost(1));
+  }
+
+  @Test
+  @Order(5)
+  void testRouteDbMetrics() {
+    given()
+        .when()
+        .get("/q/metrics")
+        .then()
+        .statusCode(200)
+        .body(containsString("app_http_route_db_queries_bucket{"))
+        .body(containsString("app_http_route_db_seconds_count{"));
+  }
+
+  @Test
+  @Order(6)
+  void testSystemHealthBudget() {
+    // データベースの状態はバックグラウンド監視の結果を返す
+    String adminToken =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"username\": \"admin\", \"password\": \"AdminPass123\"}")
+            .when()
+            .post("/auth/login")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("token");
+    given()
+        .auth()
+        .oauth2(adminToken)
+        .when()
+        .get("/api/dashboard/health")
+        .then()
+        .statusCode(200)
+        .header(SERVER_TIMING, QueryBudget.atMost(0))
+        .body("database.status", equalTo("UP"))
+        .body("database.pool.maxSize", notNullValue())
+        .body("jvm.threads.live", greaterThan(0))
+        .body("jvm.threads.states.RUNNABLE", greaterThan(0))
+        .body("jvm.memoryPools.size()", greaterThan(0))
+        .body("jvm.workerPool.name", equalTo("vert.x-worker-thread"))
+        .body("jvm.gc", hasKey("pauseMaxMs"))
+        .body("jvm.safepoints", hasKey("totalMs"))
+        .body("jvm.allocation", hasKey("bytesPerSecond"))
+        .body("latency.routes.'POST /auth/login'.count", greaterThan(0))
+        .body("latency.routes.'POST /auth/login'", hasKey("p95Ms"));
+  }
+}
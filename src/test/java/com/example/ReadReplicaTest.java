@@ -0,0 +1,120 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.mapper.UserMapper;
+import com.example.model.UserRoleCount;
+import com.example.mybatis.ReadReplicaRouter;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** 読み取りレプリカへの振り分けのテスト（プライマリ・レプリカとも別々のH2） */
+@QuarkusTest
+@TestProfile(ReadReplicaTest.TestProfile.class)
+class ReadReplicaTest {
+
+  /** レプリカにだけ存在するユーザー数（プライマリの初期ユーザー数と異なる値） */
+  private static final int REPLICA_USERS = 7;
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "",
+          "quarkus.datasource.replica.db-kind", "h2",
+          "quarkus.datasource.replica.jdbc.url",
+              "jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.replica.username", "sa",
+          // 遅延は監視を明示的に実行して反映する
+          "app.datasource.replica.probe-interval", "1h",
+          "app.datasource.replica.lag-query", "SELECT lag_seconds FROM replica_lag");
+    }
+  }
+
+  @Inject UserMapper userMapper;
+
+  @Inject ReadReplicaRouter router;
+
+  // レプリカを定義しない他のテストプロファイルでも起動できるように、Instanceで参照する
+  @Inject
+  @DataSource("replica")
+  Instance<AgroalDataSource> replica;
+
+  @BeforeEach
+  void setUpReplica() throws SQLException {
+    try (Connection connection = replica.get().getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "CREATE TABLE IF NOT EXISTS users ("
+              + "id BIGINT AUTO_INCREMENT PRIMARY KEY, role VARCHAR(20), is_active BOOLEAN)");
+      statement.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag_seconds DOUBLE)");
+      statement.execute("DELETE FROM users");
+      statement.execute("DELETE FROM replica_lag");
+      for (int i = 0; i < REPLICA_USERS; i++) {
+        statement.execute("INSERT INTO users (role, is_active) VALUES ('USER', true)");
+      }
+      statement.execute("INSERT INTO replica_lag VALUES (0)");
+    }
+    router.probe();
+  }
+
+  @Test
+  void testAnnotatedQueryReadsReplica() {
+    assertTrue(router.isEnabled());
+    assertEquals(REPLICA_USERS, total(userMapper.countGroupByRoleAndActive()));
+    // @ReadReplicaのない検索はプライマリ
+    assertNotEquals(REPLICA_USERS, userMapper.count());
+  }
+
+  @Test
+  void testLaggingReplicaFallsBackToPrimary() throws SQLException {
+    try (Connection connection = replica.get().getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("UPDATE replica_lag SET lag_seconds = 60");
+    }
+    router.probe();
+    assertEquals(userMapper.count(), total(userMapper.countGroupByRoleAndActive()));
+
+    try (Connection connection = replica.get().getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("UPDATE replica_lag SET lag_seconds = 1");
+    }
+    router.probe();
+    assertEquals(REPLICA_USERS, total(userMapper.countGroupByRoleAndActive()));
+  }
+
+  @Test
+  void testTransactionReadsPrimary() {
+    long total =
+        QuarkusTransaction.requiringNew().call(() -> total(userMapper.countGroupByRoleAndActive()));
+    assertEquals(userMapper.count(), total);
+  }
+
+  private static long total(List<UserRoleCount> rows) {
+    return rows.stream().mapToLong(UserRoleCount::getCount).sum();
+  }
+}
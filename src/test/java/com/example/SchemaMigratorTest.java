@@ -0,0 +1,158 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.config.SchemaMigrator;
+import com.example.config.SchemaMigrator.Migration;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+
+/** スキーママイグレーションのテスト（適用の確認以外は別のインメモリDBで行う） */
+@QuarkusTest
+@TestProfile(SchemaMigratorTest.TestProfile.class)
+class SchemaMigratorTest {
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "");
+    }
+  }
+
+  @Inject SchemaMigrator migrator;
+
+  @Inject DataSource dataSource;
+
+  @Test
+  void testMigrationsAreAppliedAndRecordedAtStartup() throws Exception {
+    List<Migration> migrations = migrator.load("h2");
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet rs =
+            statement.executeQuery(
+                "SELECT version, script, checksum FROM "
+                    + SchemaMigrator.HISTORY_TABLE
+                    + " ORDER BY version")) {
+      for (Migration migration : migrations) {
+        assertTrue(rs.next());
+        assertEquals(migration.version(), rs.getInt(1));
+        assertEquals(migration.script(), rs.getString(2));
+        assertEquals(migration.checksum(), rs.getString(3));
+      }
+      assertFalse(rs.next());
+    }
+  }
+
+  @Test
+  void testAppliedMigrationsAreSkipped() throws Exception {
+    try (Connection connection = open("skip")) {
+      List<Migration> migrations = migrator.load("h2");
+      SchemaMigrator.Result first = migrator.migrate(connection, migrations);
+      assertEquals(List.of(1, 2), first.applied());
+      long seeded = count(connection, "SELECT COUNT(*) FROM audit_logs");
+
+      // 再起動時は履歴を確認するだけで初期データを再投入しない
+      SchemaMigrator.Result second = migrator.migrate(connection, migrations);
+      assertEquals(List.of(), second.applied());
+      assertEquals(2, second.currentVersion());
+      assertEquals(seeded, count(connection, "SELECT COUNT(*) FROM audit_logs"));
+
+      // 追加した版だけを適用する
+      List<Migration> next = new ArrayList<>(migrations);
+      next.add(Migration.of("V3__add_note.sql", "ALTER TABLE users ADD COLUMN note VARCHAR(100);"));
+      assertEquals(List.of(3), migrator.migrate(connection, next).applied());
+    }
+  }
+
+  @Test
+  void testChangedMigrationIsRejected() throws Exception {
+    try (Connection connection = open("changed")) {
+      migrator.migrate(
+          connection, List.of(Migration.of("V1__create.sql", "CREATE TABLE t (id INT);")));
+
+      List<Migration> changed =
+          List.of(Migration.of("V1__create.sql", "CREATE TABLE t (id BIGINT);"));
+      IllegalStateException e =
+          assertThrows(IllegalStateException.class, () -> migrator.migrate(connection, changed));
+      assertTrue(e.getMessage().contains("V1__create.sql"));
+    }
+  }
+
+  @Test
+  void testFailedMigrationIsRolledBack() throws Exception {
+    try (Connection connection = open("failed")) {
+      migrator.migrate(
+          connection, List.of(Migration.of("V1__create.sql", "CREATE TABLE t (id INT);")));
+
+      List<Migration> failing =
+          List.of(
+              Migration.of("V1__create.sql", "CREATE TABLE t (id INT);"),
+              Migration.of(
+                  "V2__insert.sql", "INSERT INTO t VALUES (1); INSERT INTO missing VALUES (1);"));
+      assertThrows(SQLException.class, () -> migrator.migrate(connection, failing));
+
+      // 失敗した版の文と履歴は残らず、次回の起動で再実行される
+      assertEquals(0, count(connection, "SELECT COUNT(*) FROM t"));
+      assertEquals(
+          1, count(connection, "SELECT COUNT(*) FROM " + SchemaMigrator.HISTORY_TABLE));
+    }
+  }
+
+  @Test
+  void testSplitKeepsSemicolonsInQuotesAndDropsComments() {
+    List<String> statements =
+        SchemaMigrator.split(
+            """
+            -- コメント; 分割しない
+            INSERT INTO t (a, b) VALUES ('x;y', 'it''s');
+            /* ブロック; コメント */
+            CREATE FUNCTION f() RETURNS trigger AS $body$ BEGIN; RETURN NEW; END; $body$ LANGUAGE plpgsql;
+            SELECT "a;b" FROM t
+            """);
+
+    assertEquals(
+        List.of(
+            "INSERT INTO t (a, b) VALUES ('x;y', 'it''s')",
+            "CREATE FUNCTION f() RETURNS trigger AS $body$ BEGIN; RETURN NEW; END; $body$"
+                + " LANGUAGE plpgsql",
+            "SELECT \"a;b\" FROM t"),
+        statements);
+  }
+
+  private static Connection open(String name) throws SQLException {
+    return DriverManager.getConnection("jdbc:h2:mem:migration-" + name, "sa", "");
+  }
+
+  private static long count(Connection connection, String sql) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery(sql)) {
+      rs.next();
+      return rs.getLong(1);
+    }
+  }
+}
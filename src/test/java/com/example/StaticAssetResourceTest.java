@@ -0,0 +1,103 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.specification.RequestSpecification;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * フィンガープリント付き静的アセット配信テスト
+ *
+ * <p>アセット処理はパッケージング時にのみ実行されるため、テストでは{@code src/test/resources/assets}の処理済みフィクスチャを配信する。
+ */
+@QuarkusTest
+@TestProfile(StaticAssetResourceTest.TestProfile.class)
+class StaticAssetResourceTest {
+
+  private static final String ASSET = "/assets/css/fixture.e539465a.css";
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // 本番設定をベースとして、安全性のためだけにデータベースを変更
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "");
+    }
+  }
+
+  /** 本文を展開せず、Accept-Encodingも自動付与しないリクエスト */
+  private static RequestSpecification raw() {
+    return given()
+        .config(
+            RestAssured.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders()));
+  }
+
+  @Test
+  void testFingerprintedAssetIsImmutable() {
+    raw()
+        .when()
+        .get(ASSET)
+        .then()
+        .statusCode(200)
+        .contentType(startsWith("text/css"))
+        .header("Cache-Control", equalTo("public, max-age=31536000, immutable"))
+        .header("Vary", equalTo("Accept-Encoding"))
+        .header("Content-Encoding", nullValue())
+        .body(containsString(".fixture-0"));
+  }
+
+  @Test
+  void testGzipNegotiation() {
+    raw()
+        .header("Accept-Encoding", "gzip, deflate, br")
+        .when()
+        .get(ASSET)
+        .then()
+        .statusCode(200)
+        .header("Content-Encoding", equalTo("gzip"))
+        .header("ETag", endsWith("-gz\""))
+        .header("Cache-Control", equalTo("public, max-age=31536000, immutable"));
+
+    raw()
+        .header("Accept-Encoding", "gzip;q=0")
+        .when()
+        .get(ASSET)
+        .then()
+        .statusCode(200)
+        .header("Content-Encoding", nullValue())
+        .header("ETag", not(endsWith("-gz\"")));
+  }
+
+  @Test
+  void testIfNoneMatchReturnsNotModified() {
+    String etag = raw().when().get(ASSET).then().statusCode(200).extract().header("ETag");
+    raw().header("If-None-Match", etag).when().get(ASSET).then().statusCode(304);
+  }
+
+  @Test
+  void testUnknownAssetIsNotFound() {
+    raw().when().get("/assets/css/fixture.00000000.css").then().statusCode(404);
+    raw().when().get("/assets/css/fixture.css").then().statusCode(404);
+  }
+}
@@ -0,0 +1,167 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.event.UserChangedEvent;
+import com.example.mapper.UserMapper;
+import com.example.model.User;
+import com.example.mybatis.MapperCaches;
+import com.example.mybatis.StatementMetricsInterceptor;
+import com.example.mybatis.WeightedLruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** UserMapperの2次キャッシュのテスト（更新後に古い検索結果を返さないこと） */
+@QuarkusTest
+@TestProfile(UserMapperCacheTest.TestProfile.class)
+class UserMapperCacheTest {
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "");
+    }
+  }
+
+  @Inject UserMapper userMapper;
+
+  @Inject MapperCaches caches;
+
+  @Inject MeterRegistry registry;
+
+  @Inject Event<UserChangedEvent> userChanged;
+
+  @Test
+  void testRepeatedLookupsHitCache() {
+    User user = insert("cache-hit");
+    WeightedLruCache cache = cache();
+    userMapper.findById(user.getId());
+    long hits = cache.stats().hits();
+    long executed = statementCount("success");
+    long cacheHits = statementCount("cache");
+
+    User cached = userMapper.findById(user.getId()).orElseThrow();
+    assertEquals(hits + 1, cache.stats().hits());
+    // キャッシュから返した検索はSQLの実行として記録しない
+    assertEquals(executed, statementCount("success"));
+    assertEquals(cacheHits + 1, statementCount("cache"));
+    assertTrue(cache.stats().weight() > 0);
+    assertTrue(
+        registry
+                .get("cache.gets")
+                .tags("cache", "UserMapper", "result", "hit")
+                .functionCounter()
+                .count()
+            > 0);
+
+    // 返した結果を変更してもキャッシュには影響しない
+    cached.setEmail("changed@example.com");
+    assertEquals(
+        "cache-hit@example.com", userMapper.findById(user.getId()).orElseThrow().getEmail());
+  }
+
+  @Test
+  void testNoStaleReadsAfterMutations() {
+    // 存在しないユーザーの検索結果（空）もキャッシュされる
+    assertTrue(userMapper.findByUsername("cache-stale").isEmpty());
+    User user = insert("cache-stale");
+    assertEquals(user.getId(), userMapper.findByUsername("cache-stale").orElseThrow().getId());
+    assertTrue(userMapper.findActiveByUsername("cache-stale").isPresent());
+
+    user.setEmail("updated@example.com");
+    assertEquals(1, userMapper.update(user));
+    assertEquals(
+        "updated@example.com", userMapper.findById(user.getId()).orElseThrow().getEmail());
+    assertEquals(
+        "updated@example.com", userMapper.findByUsername("cache-stale").orElseThrow().getEmail());
+
+    assertEquals(1, userMapper.deactivateById(user.getId()));
+    assertTrue(userMapper.findActiveByUsername("cache-stale").isEmpty());
+    assertFalse(userMapper.findById(user.getId()).orElseThrow().isActive());
+
+    assertEquals(1, userMapper.deleteById(user.getId()));
+    assertTrue(userMapper.findById(user.getId()).isEmpty());
+    assertTrue(userMapper.findByUsername("cache-stale").isEmpty());
+  }
+
+  @Test
+  void testRolledBackUpdateIsNotCached() {
+    User user = insert("cache-rollback");
+    userMapper.findById(user.getId());
+    WeightedLruCache cache = cache();
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            QuarkusTransaction.requiringNew()
+                .run(
+                    () -> {
+                      user.setEmail("rolledback@example.com");
+                      userMapper.update(user);
+                      // 更新したトランザクション内の検索は自身の変更を読み、コミット前の行をキャッシュしない
+                      long hits = cache.stats().hits();
+                      long puts = cache.stats().puts();
+                      assertEquals(
+                          "rolledback@example.com",
+                          userMapper.findById(user.getId()).orElseThrow().getEmail());
+                      assertEquals(hits, cache.stats().hits());
+                      assertEquals(puts, cache.stats().puts());
+                      throw new IllegalStateException("rollback");
+                    }));
+
+    assertEquals(
+        "cache-rollback@example.com", userMapper.findById(user.getId()).orElseThrow().getEmail());
+  }
+
+  @Test
+  void testUserChangedEventClearsCache() {
+    User user = insert("cache-event");
+    userMapper.findById(user.getId());
+    assertTrue(cache().getSize() > 0);
+
+    // マッパー経由の変更の通知では消去しない（更新したトランザクションの完了時に消去済み）
+    userChanged.fire(new UserChangedEvent(user.getId(), UserChangedEvent.Type.UPDATED));
+    assertTrue(cache().getSize() > 0);
+
+    userChanged.fire(new UserChangedEvent(null, UserChangedEvent.Type.CREATED, true));
+    assertEquals(0, cache().getSize());
+  }
+
+  private User insert(String username) {
+    User user = new User(username, "hashed", username + "@example.com", User.Role.USER);
+    userMapper.insert(user);
+    return user;
+  }
+
+  private long statementCount(String outcome) {
+    return registry
+        .get(StatementMetricsInterceptor.TIMER_NAME)
+        .tags("statement", "UserMapper.findById", "outcome", outcome)
+        .timer()
+        .count();
+  }
+
+  private WeightedLruCache cache() {
+    return caches.of(UserMapper.class).orElseThrow();
+  }
+}
@@ -0,0 +1,78 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.metrics.VirtualThreadPinningMonitor;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** 仮想スレッドモードのテスト */
+@QuarkusTest
+@TestProfile(VirtualThreadModeTest.TestProfile.class)
+class VirtualThreadModeTest {
+
+  @Inject VirtualThreadPinningMonitor pinningMonitor;
+
+  public static class TestProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // 本番設定をベースとして、安全性のためだけにデータベースを変更
+      return Map.of(
+          "quarkus.datasource.db-kind", "h2",
+          "quarkus.datasource.jdbc.url",
+              "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+          "quarkus.datasource.username", "sa",
+          "quarkus.datasource.password", "",
+          "quarkus.virtual-threads.enabled", "true",
+          "test.virtual-thread-probe", "true");
+    }
+  }
+
+  @Test
+  void testPinningMonitorRunning() {
+    assertTrue(pinningMonitor.isRunning());
+  }
+
+  @Test
+  void testBlockingEndpointsOnVirtualThreads() {
+    String token =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"username\": \"admin\", \"password\": \"AdminPass123\"}")
+            .when()
+            .post("/auth/login")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("token");
+
+    given().header("Authorization", "Bearer " + token).when().get("/menu").then().statusCode(200);
+    given()
+        .header("Authorization", "Bearer " + token)
+        .when()
+        .get("/api/dashboard/stats")
+        .then()
+        .statusCode(200)
+        .body("totalUsers", notNullValue());
+    given().when().get("/dashboard").then().statusCode(200);
+
+    // @RunOnVirtualThreadのリソースが実際に仮想スレッドで実行されたこと
+    for (String path : List.of("/auth/login", "/menu", "/api/dashboard/stats", "/dashboard")) {
+      assertEquals(true, VirtualThreadProbe.ranOnVirtualThread(path), path);
+    }
+  }
+}
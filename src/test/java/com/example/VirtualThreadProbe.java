@@ -0,0 +1,37 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * リクエストを処理したスレッドが仮想スレッドかどうかをパス別に記録するテスト用のフィルター
+ *
+ * <p>レスポンスフィルターはリソースメソッドと同じスレッドで実行される。{@code test.virtual-thread-probe=true}の場合のみ登録する。
+ */
+@Provider
+@IfBuildProperty(name = "test.virtual-thread-probe", stringValue = "true")
+public class VirtualThreadProbe implements ContainerResponseFilter {
+
+  private static final Map<String, Boolean> VIRTUAL = new ConcurrentHashMap<>();
+
+  @Override
+  public void filter(
+      ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+    VIRTUAL.put(requestContext.getUriInfo().getPath(), Thread.currentThread().isVirtual());
+  }
+
+  /** パスの最後のリクエストを仮想スレッドで処理したか（記録がなければnull） */
+  static Boolean ranOnVirtualThread(String path) {
+    return VIRTUAL.get(path);
+  }
+}
@@ -0,0 +1,160 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.accesslog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.runtime.configuration.MemorySize;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** 非同期アクセスログの単体テスト（書き込みスレッドを起動せず、drain()を直接呼び出す） */
+class AccessLogWriterTest {
+
+  @TempDir Path dir;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private AccessLogWriter writer;
+
+  @AfterEach
+  void tearDown() {
+    if (writer != null) {
+      writer.shutdown();
+    }
+  }
+
+  private AccessLogWriter create(int bufferSize, double successSampleRate, long maxFileSize) {
+    writer = new AccessLogWriter();
+    writer.registry = registry;
+    writer.enabled = true;
+    writer.path = dir.resolve("access.log");
+    writer.bufferSize = bufferSize;
+    writer.successSampleRate = successSampleRate;
+    writer.maxFileSize = new MemorySize(BigInteger.valueOf(maxFileSize));
+    writer.maxBackups = 2;
+    writer.flushInterval = Duration.ofSeconds(1);
+    writer.init(false);
+    return writer;
+  }
+
+  private void log(int status) {
+    writer.log("req-" + status, "GET", "/api/users", status, 1_500_000, "10.0.0.1, 10.0.0.2", 42);
+  }
+
+  private List<String> lines(Path file) throws IOException {
+    writer.shutdown();
+    return Files.readAllLines(file);
+  }
+
+  private double count(String name) {
+    return registry.counter(name).count();
+  }
+
+  @Test
+  void testWritesJsonLines() throws IOException {
+    create(16, 1.0, 1024 * 1024);
+    log(200);
+    assertEquals(1, writer.drain());
+
+    List<String> lines = lines(dir.resolve("access.log"));
+    assertEquals(1, lines.size());
+    String line = lines.get(0);
+    assertTrue(line.startsWith("{\"timestamp\":\""), line);
+    assertTrue(line.contains("\"requestId\":\"req-200\""), line);
+    assertTrue(line.contains("\"route\":\"/api/users\""), line);
+    assertTrue(line.contains("\"status\":200"), line);
+    assertTrue(line.contains("\"clientIp\":\"10.0.0.1\""), line);
+    assertTrue(line.contains("\"bytes\":42}"), line);
+    assertEquals(1, count(AccessLogWriter.WRITTEN_COUNTER));
+  }
+
+  @Test
+  void testDropsWhenBufferIsFull() throws IOException {
+    create(4, 1.0, 1024 * 1024);
+    for (int i = 0; i < 6; i++) {
+      log(200);
+    }
+    assertEquals(2, count(AccessLogWriter.DROPPED_COUNTER));
+    assertEquals(4, writer.drain());
+
+    // 書き出し後はスロットが空き、再び記録できる
+    log(200);
+    assertEquals(1, writer.drain());
+    assertEquals(5, lines(dir.resolve("access.log")).size());
+    assertEquals(5, count(AccessLogWriter.WRITTEN_COUNTER));
+    assertEquals(2, count(AccessLogWriter.DROPPED_COUNTER));
+  }
+
+  @Test
+  void testSamplingSkipsOnlySuccessResponses() throws IOException {
+    create(16, 0.0, 1024 * 1024);
+    log(200);
+    log(302);
+    log(404);
+    log(500);
+    assertEquals(2, writer.drain());
+
+    List<String> lines = lines(dir.resolve("access.log"));
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(0).contains("\"status\":404"), lines.get(0));
+    assertTrue(lines.get(1).contains("\"status\":500"), lines.get(1));
+    // 間引いた分は破棄数に含めない
+    assertEquals(0, count(AccessLogWriter.DROPPED_COUNTER));
+  }
+
+  @Test
+  void testRotatesBySizeAndKeepsBackups() throws IOException {
+    create(16, 1.0, 300);
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 4; i++) {
+        log(200);
+      }
+      writer.drain();
+    }
+    assertTrue(writer.isEnabled());
+    assertEquals(20, count(AccessLogWriter.WRITTEN_COUNTER));
+
+    writer.shutdown();
+    for (Path file : List.of(dir.resolve("access.log"), dir.resolve("access.log.1"))) {
+      long size = Files.size(file);
+      assertTrue(size > 0 && size <= 300, file + ": " + size);
+    }
+    assertTrue(Files.exists(dir.resolve("access.log.2")));
+    assertFalse(Files.exists(dir.resolve("access.log.3")));
+  }
+
+  @Test
+  void testRotationFailureDisablesWriter() throws IOException {
+    create(16, 1.0, 300);
+    // 最古世代のバックアップを空でないディレクトリにして、ローテーション時の削除を失敗させる
+    Files.createDirectories(dir.resolve("access.log.2").resolve("blocker"));
+    for (int i = 0; i < 8; i++) {
+      log(200);
+    }
+    assertEquals(8, writer.drain());
+
+    assertFalse(writer.isEnabled());
+    double written = count(AccessLogWriter.WRITTEN_COUNTER);
+    assertTrue(written > 0 && written < 8, "written: " + written);
+    assertEquals(8, written + count(AccessLogWriter.DROPPED_COUNTER));
+
+    // 無効化後は記録しない（LoggingInterceptorがINFOログに切り替える）
+    log(500);
+    assertEquals(0, writer.drain());
+    // 書き出し済みの行は元のファイルに残る
+    assertEquals((int) written, lines(dir.resolve("access.log")).size());
+  }
+}
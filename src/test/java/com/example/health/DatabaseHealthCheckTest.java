@@ -0,0 +1,112 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.example.mybatis.ConnectionPoolRouter;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.junit.jupiter.api.Test;
+
+/** データベースヘルスチェックのDOWN判定の単体テスト（合成したプローブ結果を使う） */
+class DatabaseHealthCheckTest {
+
+  private final DatabaseHealthCheck check = new DatabaseHealthCheck();
+
+  DatabaseHealthCheckTest() {
+    check.maxAge = Duration.ofSeconds(30);
+    check.maxPoolWait = Duration.ofMillis(500);
+  }
+
+  private static DatabaseProbe.Result result(boolean up, String error, Duration averageWait) {
+    DatabaseProbe.PoolStats pool =
+        new DatabaseProbe.PoolStats(2, 3, 0, 5, 4, averageWait, averageWait.multipliedBy(2));
+    return new DatabaseProbe.Result(
+        up, Instant.now(), System.nanoTime(), Duration.ofMillis(3), error, pool);
+  }
+
+  @Test
+  void testHealthyResultIsUp() {
+    assertNull(check.downReason(result(true, null, Duration.ofMillis(10)), Duration.ofSeconds(5)));
+  }
+
+  private HealthCheckResponse call(DatabaseProbe.Result defaultPool, DatabaseProbe.Result audit) {
+    Map<String, DatabaseProbe.Result> results = new LinkedHashMap<>();
+    results.put(ConnectionPoolRouter.DEFAULT_POOL, defaultPool);
+    results.put("audit", audit);
+    check.probe =
+        new DatabaseProbe() {
+          @Override
+          public Map<String, Result> getResults() {
+            return results;
+          }
+        };
+    return check.call();
+  }
+
+  @Test
+  void testFailedValidationIsDownWithoutErrorDetails() {
+    // 接続エラーの内容（ホスト名など）は認証なしの応答に含めない
+    assertEquals(
+        "Connection validation failed",
+        check.downReason(
+            result(false, "Connection to db.internal:5432 refused", Duration.ZERO),
+            Duration.ZERO));
+    assertEquals(
+        "Connection validation failed",
+        check.downReason(result(false, null, Duration.ZERO), Duration.ZERO));
+  }
+
+  @Test
+  void testStaleResultIsDown() {
+    DatabaseProbe.Result result = result(true, null, Duration.ZERO);
+    assertNull(check.downReason(result, Duration.ofSeconds(30)));
+    assertEquals("Probe result is stale", check.downReason(result, Duration.ofSeconds(31)));
+  }
+
+  @Test
+  void testSaturatedPoolIsDown() {
+    assertNull(check.downReason(result(true, null, Duration.ofMillis(500)), Duration.ZERO));
+    assertEquals(
+        "Connection pool saturated: average wait 750ms",
+        check.downReason(result(true, null, Duration.ofMillis(750)), Duration.ZERO));
+  }
+
+  @Test
+  void testNamedPoolDoesNotAffectReadiness() {
+    HealthCheckResponse response =
+        call(result(true, null, Duration.ZERO), result(false, "Connection refused", Duration.ZERO));
+
+    assertEquals(HealthCheckResponse.Status.UP, response.getStatus());
+    Map<String, Object> data = response.getData().orElseThrow();
+    assertEquals("DOWN", data.get("audit.status"));
+    assertFalse(data.containsKey("reason"));
+  }
+
+  @Test
+  void testDefaultPoolDecidesReadiness() {
+    HealthCheckResponse response =
+        call(result(false, "Connection refused", Duration.ZERO), result(true, null, Duration.ZERO));
+
+    assertEquals(HealthCheckResponse.Status.DOWN, response.getStatus());
+    Map<String, Object> data = response.getData().orElseThrow();
+    assertEquals("Connection validation failed", data.get("reason"));
+    assertEquals("UP", data.get("audit.status"));
+  }
+
+  @Test
+  void testStaleTakesPrecedenceOverSaturation() {
+    assertEquals(
+        "Probe result is stale",
+        check.downReason(result(true, null, Duration.ofSeconds(2)), Duration.ofMinutes(1)));
+  }
+}
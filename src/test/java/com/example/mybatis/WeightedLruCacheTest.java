@@ -0,0 +1,137 @@
+// Copyright (c) 2024 Quarkus Template Project
+//
+// Licensed under the MIT License.
+// See LICENSE file in the project root for full license information.
+
+package com.example.mybatis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/** 2次キャッシュの単体テスト（検索と更新が競合しても古い結果を格納しないこと） */
+class WeightedLruCacheTest {
+
+  private static WeightedLruCache cache(String id) {
+    WeightedLruCache cache = new WeightedLruCache(id);
+    cache.initialize();
+    return cache;
+  }
+
+  @Test
+  void testMissThenPutIsCached() {
+    WeightedLruCache cache = cache("test.put");
+    assertNull(cache.getObject("key"));
+    cache.putObject("key", 1L);
+
+    long hits = WeightedLruCache.threadHits();
+    assertEquals(1L, cache.getObject("key"));
+    assertEquals(hits + 1, WeightedLruCache.threadHits());
+    assertEquals(1, cache.stats().puts());
+  }
+
+  @Test
+  void testPutAfterClearIsDropped() {
+    WeightedLruCache cache = cache("test.clear");
+    assertNull(cache.getObject("key"));
+    // 検索中に他のスレッドの更新がコミットされて全消去された
+    cache.clear();
+    cache.putObject("key", 1L);
+
+    assertNull(cache.getObject("key"));
+    assertEquals(0, cache.stats().puts());
+  }
+
+  @Test
+  void testPutWithoutMissIsDropped() {
+    WeightedLruCache cache = cache("test.rollback");
+    assertNull(cache.getObject("key"));
+    // ロールバック時はミスしたキーが削除され、その後の格納は検索に対応しない
+    cache.removeObject("key");
+    cache.putObject("key", 1L);
+
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void testBypassSkipsReadsAndWrites() {
+    WeightedLruCache cache = cache("test.bypass");
+    assertNull(cache.getObject("key"));
+    cache.putObject("key", 1L);
+
+    AtomicBoolean pendingWrites = new AtomicBoolean(true);
+    cache.bypassWhile(pendingWrites::get);
+    assertNull(cache.getObject("key"));
+    cache.putObject("other", 2L);
+
+    pendingWrites.set(false);
+    assertEquals(1L, cache.getObject("key"));
+    assertNull(cache.getObject("other"));
+  }
+
+  @Test
+  void testConcurrentUpdatesNeverLeaveStaleEntries() throws Exception {
+    WeightedLruCache cache = cache("test.race");
+    // 行の値（データベース）と、コミット後の全消去が完了した値
+    AtomicLong row = new AtomicLong();
+    AtomicLong cleared = new AtomicLong();
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicLong staleReads = new AtomicLong();
+
+    ExecutorService pool = Executors.newFixedThreadPool(5);
+    try {
+      List<Future<?>> readers = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        readers.add(
+            pool.submit(
+                () -> {
+                  while (running.get()) {
+                    long floor = cleared.get();
+                    Object cached = cache.getObject("row");
+                    if (cached == null) {
+                      // ミスした後にデータベースを読み、セッションのコミット時に格納する
+                      long value = row.get();
+                      Thread.yield();
+                      cache.putObject("row", value);
+                    } else if ((Long) cached < floor) {
+                      staleReads.incrementAndGet();
+                    }
+                  }
+                }));
+      }
+      Future<?> writer =
+          pool.submit(
+              () -> {
+                for (long version = 1; version <= 20_000; version++) {
+                  row.set(version);
+                  cache.clear();
+                  cleared.set(version);
+                  if (version % 100 == 0) {
+                    Thread.yield();
+                  }
+                }
+              });
+      writer.get(30, TimeUnit.SECONDS);
+      running.set(false);
+      for (Future<?> reader : readers) {
+        reader.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals(0, staleReads.get(), "全消去より前の値を返した回数");
+    Object last = cache.getObject("row");
+    assertTrue(last == null || (Long) last == row.get(), "最後に残った値: " + last);
+  }
+}